@@ -4,8 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -66,61 +64,33 @@ public class AddPatientToRoom extends JFrame {
 
   private void movePatient() {
     // Create a dialog for user input
-    String dischargeFirstName = (String) JOptionPane.showInputDialog(AddPatientToRoom.this,
-        "Please select the patient to move:", "Move Patient", JOptionPane.PLAIN_MESSAGE, null,
-        getClinicClientNames().toArray(), null);
-
-    if (dischargeFirstName == null) {
-      return; // User canceled the operation
-    }
-    // Find the selected patient
-    Client patient = findClientByName(dischargeFirstName);
+    Client patient = PersonPicker.clients(clinic).showDialog(AddPatientToRoom.this,
+        "Please select the patient to move:", "Move Patient");
 
     if (patient == null) {
-      JOptionPane.showMessageDialog(AddPatientToRoom.this,
-          "Patient doesn't exist. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
 
-    if (room.getStatus() == true && !room.getRoomName().contains("Waiting")) {
-      JOptionPane.showMessageDialog(AddPatientToRoom.this, room.getRoomName() + " is full.",
-          "Room Assignment unSuccessful", JOptionPane.INFORMATION_MESSAGE);
-
-      dispose();
-    } else {
+    // The clinic checks and claims the room in one step, so two moves into the room can't both
+    // get it
+    try {
       sendPatientToNewRoom(patient, room, clinic);
-      JOptionPane.showMessageDialog(AddPatientToRoom.this,
-          room.getRoomName() + " now has " + patient.getFirstName() + " " + patient.getLastName(),
+    } catch (IllegalArgumentException e) {
+      JOptionPane.showMessageDialog(AddPatientToRoom.this, room.getRoomName() + " is full.",
           "Room Assignment unSuccessful", JOptionPane.INFORMATION_MESSAGE);
 
       dispose();
+      return;
     }
+    JOptionPane.showMessageDialog(AddPatientToRoom.this,
+        room.getRoomName() + " now has " + patient.getFirstName() + " " + patient.getLastName(),
+        "Room Assignment unSuccessful", JOptionPane.INFORMATION_MESSAGE);
 
+    dispose();
   }
 
   private void sendPatientToNewRoom(Client patient, Room room2, Clinic clinic) {
     clinic.assignClientToNewRoom(patient, room2);
 
   }
-
-  // Replace these methods with your actual implementations
-  private List<String> getClinicClientNames() {
-    List<String> names = new ArrayList<>();
-    // Replace this with your actual logic to get client names
-    // For now, returning a placeholder list
-    for (Client client : clinic.getClinicClients()) {
-      names.add(client.getFirstName() + " " + client.getLastName());
-    }
-    return names;
-  }
-
-  private Client findClientByName(String firstName) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
-  }
 }
@@ -0,0 +1,156 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class finds a client in the clinic archives from their name and birthday, so the clinic can
+ * tell if a person registering has been there before. The key is the first name, last name and
+ * birthday, in lower case and with the numbers of the birthday written without leading zeros, so
+ * "01/06/2001" and "1/6/2001" are the same birthday.
+ *
+ * <p>Most people registering are new, so a Bloom filter is checked before the hash map. For a new
+ * patient the filter almost always says no, and the map is never touched. The filter is built again
+ * at twice the size when it fills up, so it stays accurate as the archives grow.
+ */
+public class ArchiveIndex {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<String, List<Client>> byKey = new HashMap<>();
+  private final Map<Client, String> keys = new IdentityHashMap<>();
+  private BloomFilter filter = new BloomFilter(INITIAL_CAPACITY);
+  private long filterMisses;
+
+  /**
+   * This method adds the archived client to the index.
+   *
+   * @param client is the client that was put in the archives.
+   */
+  public void add(Client client) {
+    String key = keyOf(client.getFirstName(), client.getLastName(), client.getBirthDateTime());
+    if (keys.containsKey(client)) {
+      return;
+    }
+    keys.put(client, key);
+    List<Client> clients = byKey.get(key);
+    if (clients == null) {
+      clients = new ArrayList<>(1);
+      byKey.put(key, clients);
+      if (filter.isFull()) {
+        rebuildFilter(filter.getCapacity() * 2);
+      }
+      filter.add(key);
+    }
+    clients.add(client);
+  }
+
+  /**
+   * This method takes the client out of the index. Nothing happens if it isn't in the index.
+   *
+   * @param client is the client that was taken out of the archives.
+   */
+  public void remove(Client client) {
+    String key = keys.remove(client);
+    if (key == null) {
+      return;
+    }
+    List<Client> clients = byKey.get(key);
+    for (int i = 0; i < clients.size(); i++) {
+      if (clients.get(i) == client) {
+        clients.remove(i);
+        break;
+      }
+    }
+    if (clients.isEmpty()) {
+      // The key stays in the filter as a false positive until it is built again
+      byKey.remove(key);
+    }
+  }
+
+  /**
+   * This method removes every client from the index.
+   */
+  public void clear() {
+    byKey.clear();
+    keys.clear();
+    filter = new BloomFilter(INITIAL_CAPACITY);
+  }
+
+  /**
+   * This method finds the archived client with the given name and birthday. Case and leading zeros
+   * in the birthday don't matter.
+   *
+   * @param firstName is the first name of the client.
+   * @param lastName is the last name of the client.
+   * @param birthDate is the birthday of the client.
+   * @return the client that was archived first with that name and birthday, or null if there
+   *         isn't one.
+   */
+  public Client find(String firstName, String lastName, String birthDate) {
+    String key = keyOf(firstName, lastName, birthDate);
+    if (!filter.mightContain(key)) {
+      filterMisses++;
+      return null;
+    }
+    List<Client> clients = byKey.get(key);
+    return clients == null ? null : clients.get(0);
+  }
+
+  /**
+   * Retrieves the number of clients in the index.
+   *
+   * @return the number of clients.
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * Retrieves the number of lookups the Bloom filter answered without looking into the map.
+   *
+   * @return the number of lookups the filter answered.
+   */
+  public long getFilterMisses() {
+    return filterMisses;
+  }
+
+  private void rebuildFilter(int capacity) {
+    filter = new BloomFilter(Math.max(capacity, byKey.size() * 2));
+    for (String key : byKey.keySet()) {
+      filter.add(key);
+    }
+  }
+
+  private static String keyOf(String firstName, String lastName, String birthDate) {
+    return normalize(firstName) + '\u0000' + normalize(lastName) + '\u0000'
+        + normalizeDate(birthDate);
+  }
+
+  private static String normalize(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static String normalizeDate(String date) {
+    String value = normalize(date);
+    StringBuilder key = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      // A zero at the start of a number is left out, unless it is the whole number
+      boolean startOfNumber =
+          key.length() == 0 || !Character.isDigit(key.charAt(key.length() - 1));
+      if (c == '0' && startOfNumber && i + 1 < value.length()
+          && Character.isDigit(value.charAt(i + 1))) {
+        continue;
+      }
+      key.append(c);
+    }
+    return key.toString();
+  }
+}
@@ -0,0 +1,84 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The purpose of this class is to show that registering stays just as fast as the archives grow.
+ * Archives of 10,000, 100,000 and 1,000,000 clients are built, and the check that registration
+ * does for a returning patient is timed for new patients and for returning ones, with the archive
+ * index and with the scan of the archives that registration used before.
+ */
+public class ArchiveIndexBenchmark {
+  private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+  private static final int LOOKUPS = 20;
+  private static final int RUNS = 3;
+
+  /**
+   * The main function builds each archive and prints the time of each check.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) {
+    System.out.println(String.format("%10s %14s %14s %14s %14s %12s", "archive", "scan new ns",
+        "index new ns", "scan back ns", "index back ns", "filtered"));
+    long sink = 0;
+    for (int size : SIZES) {
+      List<Client> archives = new ArrayList<>(size);
+      ArchiveIndex index = new ArchiveIndex();
+      for (int i = 0; i < size; i++) {
+        Client client = new Client(1, "First" + i, "Last" + i, (1 + i % 12) + "/1/1990");
+        archives.add(client);
+        index.add(client);
+      }
+
+      long scanNew = Long.MAX_VALUE;
+      long indexNew = Long.MAX_VALUE;
+      long scanBack = Long.MAX_VALUE;
+      long indexBack = Long.MAX_VALUE;
+      for (int run = 0; run < RUNS; run++) {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+          sink += scan(archives, "New" + i, "Patient" + i) == null ? 0 : 1;
+        }
+        scanNew = Math.min(scanNew, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+          sink += index.find("New" + i, "Patient" + i, "1/1/1990") == null ? 0 : 1;
+        }
+        indexNew = Math.min(indexNew, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+          int back = size - 1 - i;
+          sink += scan(archives, "First" + back, "Last" + back) == null ? 0 : 1;
+        }
+        scanBack = Math.min(scanBack, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+          int back = size - 1 - i;
+          sink += index.find("First" + back, "Last" + back, (1 + back % 12) + "/1/1990") == null
+              ? 0 : 1;
+        }
+        indexBack = Math.min(indexBack, System.nanoTime() - start);
+      }
+      System.out.println(String.format("%10d %14.1f %14.1f %14.1f %14.1f %12d", size,
+          (double) scanNew / LOOKUPS, (double) indexNew / LOOKUPS, (double) scanBack / LOOKUPS,
+          (double) indexBack / LOOKUPS, index.getFilterMisses()));
+    }
+    // The sink keeps the JIT from removing the lookups
+    System.out.println("checksum " + sink);
+  }
+
+  private static Client scan(List<Client> archives, String firstName, String lastName) {
+    for (int i = 0; i < archives.size(); i++) {
+      if (archives.get(i).getFirstName().contains(firstName)
+          && archives.get(i).getLastName().contains(lastName)) {
+        return archives.get(i);
+      }
+    }
+    return null;
+  }
+}
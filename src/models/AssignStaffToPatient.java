@@ -4,8 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -62,40 +60,23 @@ public class AssignStaffToPatient extends JFrame {
 
   private void findPatient() {
     // Create a dialog for user input
-    String patientName = (String) JOptionPane.showInputDialog(AssignStaffToPatient.this,
-        "Please select the patient:", "Patient", JOptionPane.PLAIN_MESSAGE, null,
-        getClinicClientNames().toArray(), null);
-
-    if (patientName == null) {
-      return; // User canceled the operation
-    }
-    // Find the selected patient
-    Client patient = findClientByName(patientName);
+    Client patient = PersonPicker.clients(clinic).showDialog(AssignStaffToPatient.this,
+        "Please select the patient:", "Patient");
 
     if (patient == null) {
-      JOptionPane.showMessageDialog(AssignStaffToPatient.this,
-          "Patient doesn't exist. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
     // Create a dialog for user input
-    String disChargeStaffFirstName = (String) JOptionPane.showInputDialog(AssignStaffToPatient.this,
+    Staff staffApproval = PersonPicker.staff(clinic, staff -> true).showDialog(
+        AssignStaffToPatient.this,
         "Please select the staff member who will be assigned to " + patient.getFirstName(),
-        "Assign Staff To patient", JOptionPane.PLAIN_MESSAGE, null, getClinicStaffNames().toArray(),
-        null);
-
-    if (disChargeStaffFirstName == null) {
-      return; // User canceled the operation
-    }
-
-    // Find the selected staff member
-    Staff staffApproval = findStaffByName(disChargeStaffFirstName);
+        "Assign Staff To patient");
 
     if (staffApproval == null) {
-      JOptionPane.showMessageDialog(AssignStaffToPatient.this,
-          "Staff doesn't exist or is not approved to discharge patients. Please try again.",
-          "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
+    String disChargeStaffFirstName = staffApproval.getFirstName() + " "
+        + staffApproval.getLastName();
 
     if (!makeTheAssignment(patient, staffApproval, clinic)) {
       JOptionPane.showMessageDialog(AssignStaffToPatient.this,
@@ -114,46 +95,6 @@ public class AssignStaffToPatient extends JFrame {
 
   }
 
-  private List<String> getClinicClientNames() {
-    List<String> names = new ArrayList<>();
-    // Replace this with your actual logic to get client names
-    // For now, returning a placeholder list
-    for (Client client : clinic.getClinicClients()) {
-      names.add(client.getFirstName() + " " + client.getLastName());
-    }
-    return names;
-  }
-
-  private Client findClientByName(String firstName) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
-  }
-
-  private List<String> getClinicStaffNames() {
-    List<String> docs = new ArrayList<>();
-    for (Staff staff : clinic.getClinicStaffs()) {
-      docs.add(staff.getFirstName() + " " + staff.getLastName());
-    }
-    return docs;
-    // Replace this with your actual logic to get staff names
-    // For now, returning a placeholder list
-  }
-
-  private Staff findStaffByName(String firstName) {
-    for (Staff staff : clinic.getClinicStaffs()) {
-      String name = staff.getFirstName() + " " + staff.getLastName();
-      if (name.contains(firstName)) {
-        return staff;
-      }
-    }
-    return null;
-  }
-
   private boolean makeTheAssignment(Client patient, Staff staff, Clinic clinic) {
     if (!clinic.assignStaffToClient(staff, patient)) {
       return false;
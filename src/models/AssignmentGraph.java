@@ -0,0 +1,367 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps track of which staff members are assigned to which clients. Every assignment is
+ * kept from both sides, so the clients of a staff member and the staff of a client can be found
+ * without going through every assignment, and an assignment can be added or removed in constant
+ * time.
+ *
+ * <p>Staff members are looked up by their equality, the same as the staff key always did. Clients
+ * are looked up by identity, since their room number and record change while they are assigned.
+ * The assigned staff list of each client is kept up to date with the assignments.
+ *
+ * <p>Different staff members can be assigned to different clients at the same time, as long as
+ * every staff member that is already in the graph and every client is only changed by one thread
+ * at a time, like {@link ConcurrentClinic} does with its locks. Adding and removing staff members
+ * can't happen at the same time as anything else.
+ *
+ * <p>Every staff member has a version that changes whenever their clients or their patients
+ * change, so a report can keep what it read of a staff member until their version changes.
+ */
+public class AssignmentGraph {
+  /**
+   * The listener is told about every client whose assigned staff changed.
+   */
+  public interface Listener {
+    /**
+     * This method is called after a staff member was assigned to or removed from the client.
+     *
+     * @param staff is the staff member that was assigned or removed.
+     * @param client is the client whose assigned staff changed.
+     * @param assigned is true if the staff member was assigned, or false if they were removed.
+     */
+    void assignmentsChanged(Staff staff, Client client, boolean assigned);
+  }
+
+  private final Map<Staff, StaffNode> staffNodes = new LinkedHashMap<>();
+  // Clients of different staff members are added and removed at the same time
+  private final Map<Client, Set<Staff>> clientNodes =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+  private final AtomicLong version = new AtomicLong();
+  private Listener listener;
+
+  /**
+   * Sets the listener that is told about every client whose assigned staff changed.
+   *
+   * @param listener is the listener, or null to stop telling anyone.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * This method adds a staff member who doesn't have any clients yet. Nothing happens if the staff
+   * member is already in the graph.
+   *
+   * @param staff is the staff member being added.
+   */
+  public void addStaff(Staff staff) {
+    node(staff);
+  }
+
+  /**
+   * This method removes a staff member and every assignment they have.
+   *
+   * @param staff is the staff member being removed.
+   */
+  public void removeStaff(Staff staff) {
+    StaffNode node = staffNodes.remove(staff);
+    if (node == null) {
+      return;
+    }
+    version.incrementAndGet();
+    for (ClientRef ref : node.clients) {
+      Set<Staff> assigned = clientNodes.get(ref.client);
+      assigned.remove(node.staff);
+      if (assigned.isEmpty()) {
+        clientNodes.remove(ref.client);
+      }
+      ref.client.getAssignedStaff().remove(node.staff);
+      changed(node.staff, ref.client, false);
+    }
+  }
+
+  /**
+   * This method finds the staff member in the graph that is equal to the given one.
+   *
+   * @param staff is the staff member to look for.
+   * @return the staff member in the graph, or null if there isn't one.
+   */
+  public Staff findStaff(Staff staff) {
+    StaffNode node = staffNodes.get(staff);
+    return node == null ? null : node.staff;
+  }
+
+  /**
+   * This method assigns the staff member to the client.
+   *
+   * @param staff is the staff member.
+   * @param client is the client.
+   * @return true if the assignment was added, or false if they were already assigned.
+   */
+  public boolean link(Staff staff, Client client) {
+    StaffNode node = node(staff);
+    if (!node.clients.add(new ClientRef(client))) {
+      return false;
+    }
+    touch(node);
+    clientNodes.computeIfAbsent(client, k -> new LinkedHashSet<>()).add(node.staff);
+    if (!client.getAssignedStaff().contains(node.staff)) {
+      client.getAssignedStaff().add(node.staff);
+    }
+    changed(node.staff, client, true);
+    return true;
+  }
+
+  /**
+   * This method removes the assignment of the staff member to the client.
+   *
+   * @param staff is the staff member.
+   * @param client is the client.
+   * @return true if the assignment was removed, or false if they weren't assigned.
+   */
+  public boolean unlink(Staff staff, Client client) {
+    StaffNode node = staffNodes.get(staff);
+    if (node == null || !node.clients.remove(new ClientRef(client))) {
+      return false;
+    }
+    touch(node);
+    Set<Staff> assigned = clientNodes.get(client);
+    assigned.remove(node.staff);
+    if (assigned.isEmpty()) {
+      clientNodes.remove(client);
+    }
+    client.getAssignedStaff().remove(node.staff);
+    changed(node.staff, client, false);
+    return true;
+  }
+
+  /**
+   * This method removes every staff member that is assigned to the client.
+   *
+   * @param client is the client.
+   */
+  public void unlinkClient(Client client) {
+    Set<Staff> assigned = clientNodes.remove(client);
+    if (assigned != null) {
+      ClientRef ref = new ClientRef(client);
+      for (Staff staff : assigned) {
+        StaffNode node = staffNodes.get(staff);
+        node.clients.remove(ref);
+        touch(node);
+      }
+    }
+    client.getAssignedStaff().clear();
+    if (assigned != null) {
+      for (Staff staff : assigned) {
+        changed(staff, client, false);
+      }
+    }
+  }
+
+  /**
+   * This method checks if the staff member is assigned to the client.
+   *
+   * @param staff is the staff member.
+   * @param client is the client.
+   * @return true if they are assigned to each other.
+   */
+  public boolean isLinked(Staff staff, Client client) {
+    StaffNode node = staffNodes.get(staff);
+    return node != null && node.clients.contains(new ClientRef(client));
+  }
+
+  /**
+   * This method finds the clients of the staff member.
+   *
+   * @param staff is the staff member.
+   * @return the clients, in the order they were assigned.
+   */
+  public List<Client> clientsOf(Staff staff) {
+    StaffNode node = staffNodes.get(staff);
+    if (node == null) {
+      return Collections.emptyList();
+    }
+    return node.clientList();
+  }
+
+  /**
+   * This method finds the staff members assigned to the client.
+   *
+   * @param client is the client.
+   * @return the staff members, in the order they were assigned.
+   */
+  public List<Staff> staffOf(Client client) {
+    Set<Staff> assigned = clientNodes.get(client);
+    if (assigned == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(assigned);
+  }
+
+  /**
+   * Retrieves the staff members in the graph, in the order they were added.
+   *
+   * @return the staff members.
+   */
+  public Set<Staff> staff() {
+    return Collections.unmodifiableSet(staffNodes.keySet());
+  }
+
+  /**
+   * This method makes a staff key from the graph. The key is a copy, so changing it doesn't change
+   * the assignments.
+   *
+   * @return a map from each staff member to their clients, in the order they were added.
+   */
+  public Map<Staff, ArrayList<Client>> toStaffKey() {
+    Map<Staff, ArrayList<Client>> staffKey = new LinkedHashMap<>();
+    for (StaffNode node : staffNodes.values()) {
+      staffKey.put(node.staff, node.clientList());
+    }
+    return staffKey;
+  }
+
+  /**
+   * This method adds the client to the list of every patient the staff member has ever had,
+   * unless a patient with the same name is already on it.
+   *
+   * @param staff is the staff member.
+   * @param client is the patient.
+   */
+  public void recordPatient(Staff staff, Client client) {
+    StaffNode node = node(staff);
+    List<Client> patients = node.staff.getStaffKey();
+    // The patient list can be replaced or changed outside the graph, so the names are found again
+    if (node.patientNames == null || node.patientList != patients
+        || node.patientCount != patients.size()) {
+      node.patientNames = new HashSet<>();
+      for (Client patient : patients) {
+        node.patientNames.add(nameOf(patient));
+      }
+      node.patientList = patients;
+    }
+    if (node.patientNames.add(nameOf(client))) {
+      patients.add(client);
+      touch(node);
+    }
+    node.patientCount = patients.size();
+  }
+
+  /**
+   * This method removes every staff member and assignment.
+   */
+  public void clear() {
+    for (Map.Entry<Client, Set<Staff>> entry : clientNodes.entrySet()) {
+      entry.getKey().getAssignedStaff().clear();
+      for (Staff staff : entry.getValue()) {
+        changed(staff, entry.getKey(), false);
+      }
+    }
+    staffNodes.clear();
+    clientNodes.clear();
+    version.incrementAndGet();
+  }
+
+  /**
+   * Retrieves the version of the graph, which changes whenever any assignment changes and
+   * whenever a staff member is added or removed.
+   *
+   * @return the version of the graph.
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Retrieves the version of the staff member, which changes whenever a client is assigned to or
+   * removed from them, and whenever they get a new patient.
+   *
+   * @param staff is the staff member.
+   * @return the version of the staff member, or 0 if they aren't in the graph.
+   */
+  public long versionOf(Staff staff) {
+    StaffNode node = staffNodes.get(staff);
+    return node == null ? 0 : node.version;
+  }
+
+  private void touch(StaffNode node) {
+    node.version = version.incrementAndGet();
+  }
+
+  private void changed(Staff staff, Client client, boolean assigned) {
+    if (listener != null) {
+      listener.assignmentsChanged(staff, client, assigned);
+    }
+  }
+
+  private StaffNode node(Staff staff) {
+    StaffNode node = staffNodes.get(staff);
+    if (node == null) {
+      node = new StaffNode(staff);
+      staffNodes.put(staff, node);
+      touch(node);
+    }
+    return node;
+  }
+
+  private static String nameOf(Client client) {
+    return client.getFirstName() + "\n" + client.getLastName();
+  }
+
+  /**
+   * A staff member with their clients and the names of every patient they have ever had.
+   */
+  private static final class StaffNode {
+    private final Staff staff;
+    private final Set<ClientRef> clients = new LinkedHashSet<>();
+    private Set<String> patientNames;
+    private List<Client> patientList;
+    private int patientCount;
+    private volatile long version;
+
+    StaffNode(Staff staff) {
+      this.staff = staff;
+    }
+
+    ArrayList<Client> clientList() {
+      ArrayList<Client> list = new ArrayList<>(clients.size());
+      for (ClientRef ref : clients) {
+        list.add(ref.client);
+      }
+      return list;
+    }
+  }
+
+  /**
+   * A client that is hashed by identity.
+   */
+  private static final class ClientRef {
+    private final Client client;
+
+    ClientRef(Client client) {
+      this.client = client;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(client);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ClientRef && ((ClientRef) obj).client == client;
+    }
+  }
+}
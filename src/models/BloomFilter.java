@@ -0,0 +1,117 @@
+package models;
+
+/**
+ * This class is a Bloom filter over strings. It can say for sure that a string was never added,
+ * and it says a string might have been added for almost every string that was. It uses about ten
+ * bits per string, so it can sit in front of a bigger index and answer most misses without looking
+ * into the index at all.
+ *
+ * <p>Strings can't be taken out of a Bloom filter. A string that was removed from the index behind
+ * it just becomes one more false positive, until the filter is built again.
+ */
+public class BloomFilter {
+  // Seven hashes and about ten bits per string give close to one false positive in a hundred
+  private static final int HASHES = 7;
+  private static final int BITS_PER_STRING = 10;
+
+  private final long[] words;
+  private final long bitCount;
+  private final int capacity;
+  private int size;
+
+  /**
+   * The constructor makes an empty filter sized for the given number of strings.
+   *
+   * @param capacity is the number of strings the filter is sized for.
+   * @throws IllegalArgumentException if the capacity isn't positive.
+   */
+  public BloomFilter(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity has to be positive");
+    }
+    this.capacity = capacity;
+    long bits = Math.max(64L, (long) capacity * BITS_PER_STRING);
+    words = new long[(int) ((bits + 63) / 64)];
+    bitCount = words.length * 64L;
+  }
+
+  /**
+   * This method adds the string to the filter.
+   *
+   * @param value is the string to add.
+   */
+  public void add(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+    size++;
+  }
+
+  /**
+   * This method checks if the string might have been added.
+   *
+   * @param value is the string to look for.
+   * @return false if the string was never added, true if it might have been.
+   */
+  public boolean mightContain(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+      if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the number of strings added to the filter.
+   *
+   * @return the number of strings added.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * This method checks if more strings were added than the filter was sized for, which means it
+   * gives more false positives than it should and is worth building again at a bigger size.
+   *
+   * @return true if the filter is over its capacity.
+   */
+  public boolean isFull() {
+    return size > capacity;
+  }
+
+  /**
+   * Retrieves the number of strings the filter is sized for.
+   *
+   * @return the capacity.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private static long hash(String value) {
+    // FNV-1a over the chars, mixed so the low and high bits are both usable
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -2,8 +2,6 @@ package models;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -22,6 +20,8 @@ public class Client implements ClientFunctionality {
   private List<VisitRecord> recordHistory;
   private boolean active = true;
   private List<Staff> assignedStaff;
+  private long entityId;
+  private VisitIndex visitIndex;
 
   /**
    * The constructor takes in the room number, first name, last name and birthday of the client.
@@ -39,9 +39,47 @@ public class Client implements ClientFunctionality {
     this.firstName = firstName;
     this.lastName = lastName;
     this.birthDateTime = birthDateTime;
-    this.recordHistory = new ArrayList<>();
+    this.recordHistory = new ObservedList<>(new ObservedList.Listener<VisitRecord>() {
+      @Override
+      public void added(VisitRecord record) {
+        recordHistoryChanged();
+      }
+
+      @Override
+      public void removed(VisitRecord record) {
+        recordHistoryChanged();
+      }
+
+      @Override
+      public void cleared() {
+        recordHistoryChanged();
+      }
+    });
     this.assignedStaff = new ArrayList<>();
   }
+
+  /**
+   * This is a getter for the numeric id of the client. The id is given out by the clinic the
+   * first time the client is added to it, and it never changes after that.
+   * @return the id of the client, or 0 if it hasn't been added to a clinic.
+   */
+  
+  public long getEntityId() {
+    return entityId;
+  }
+
+  /**
+   * This sets the numeric id of the client. It can only be set once.
+   * @param entityId is the id of the client.
+   * @throws IllegalStateException if the client already has a different id.
+   */
+  
+  void setEntityId(long entityId) {
+    if (this.entityId != 0 && this.entityId != entityId) {
+      throw new IllegalStateException("The client already has the id " + this.entityId);
+    }
+    this.entityId = entityId;
+  }
   
   /**
   * This is a getter function for the list of assigned staff.
@@ -107,7 +145,9 @@ public class Client implements ClientFunctionality {
   }
 
   /**
-   * This is a setter for the visit record.
+   * This is a setter for the visit record. A client in a clinic gets their records through
+   * {@link Clinic#recordVisit(Client, VisitRecord)} instead, which also keeps the history, the
+   * reports of the room and the journal up to date.
    * @param record is the new visit record of the patient.
    */
   
@@ -124,6 +164,22 @@ public class Client implements ClientFunctionality {
     return record;
   }
 
+  /**
+   * This sets the visit index of the clinic the client is in, which is told every time the record
+   * history of the client changes.
+   * @param visitIndex is the visit index, or null if the client left the clinic.
+   */
+  
+  void setVisitIndex(VisitIndex visitIndex) {
+    this.visitIndex = visitIndex;
+  }
+
+  private void recordHistoryChanged() {
+    if (visitIndex != null) {
+      visitIndex.update(this);
+    }
+  }
+
   /**
    * This is a getter that returns the list of record history.
    * @return the list of records.
@@ -166,6 +222,8 @@ public class Client implements ClientFunctionality {
   @Override
   public void updateClientVisitRecord(Client client, String visitRecord) {
     client.getRecord().setTimeOfRegistration(visitRecord);
+    // The record can be in the record history, so the visit index reads the new time
+    client.recordHistoryChanged();
 
   }
 
@@ -201,17 +259,10 @@ public class Client implements ClientFunctionality {
       return false; // There must be at least two records to compare
     }
 
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy:HH:mm");
-
-    // Get the LocalDateTime for the first and last records
-    // LocalDateTime firstRecordTime =
-    // LocalDateTime.parse(getRecordHistory().get(0).getTimeOfRegistration(), formatter);
-    LocalDateTime lastRecordTime = LocalDateTime.parse(
-        getRecordHistory().get(getRecordHistory().size() - 1).getTimeOfRegistration(), formatter);
-    // Calculate the duration between the two timestamps in days
-    long daysDifference = ChronoUnit.DAYS.between(lastRecordTime, LocalDateTime.now());
-    long year = 365;
-    return Math.abs(daysDifference) >= year;
+    // The times were read when the records were made, so only the time now has to be found
+    long lastRecordTime = getRecordHistory().get(getRecordHistory().size() - 1).getVisitTime();
+    long now = VisitRecord.toVisitTime(LocalDateTime.now());
+    return Math.abs(now - lastRecordTime) >= VisitIndex.YEAR;
   }
   
   /**
@@ -224,25 +275,13 @@ public class Client implements ClientFunctionality {
   
   @Override
   public boolean twoVisitInYear() {
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy:HH:mm");
-    long year = 365;
     if (getRecordHistory().isEmpty() || getRecordHistory().size() < 2) {
       return false; // There must be at least two records to compare
     }
-    // Get the LocalDateTime for the first and last records
-    // LocalDateTime firstRecordTime =
-    // LocalDateTime.parse(getRecordHistory().get(0).getTimeOfRegistration(), formatter);
+    long now = VisitRecord.toVisitTime(LocalDateTime.now());
     for (int i = 0; i < getRecordHistory().size() - 1; i++) {
-      LocalDateTime lastRecordTime = LocalDateTime
-          .parse(getRecordHistory().get(i).getTimeOfRegistration(), formatter);
-      // Calculate the duration between the two timestamps in days
-      long daysDifference = ChronoUnit.DAYS.between(lastRecordTime, LocalDateTime.now());
-      if (Math.abs(daysDifference) < year) {
-        System.out.println(lastRecordTime);
-        System.out.println(LocalDateTime.now());
-        System.out.println(daysDifference);
-
+      long recordTime = getRecordHistory().get(i).getVisitTime();
+      if (Math.abs(now - recordTime) < VisitIndex.YEAR) {
         return true;
       }
     }
@@ -252,7 +291,9 @@ public class Client implements ClientFunctionality {
 
   @Override
   public int hashCode() {
-    return Objects.hash(birthDateTime, firstName, lastName, record, roomNum);
+    // The room number and record change while the client is in the clinic, so they are left out
+    // of the hash to keep the client findable in hashed collections
+    return Objects.hash(birthDateTime, firstName, lastName);
   }
 
   @Override
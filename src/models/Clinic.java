@@ -1,14 +1,10 @@
 package models;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Scanner;
 
 /**
  * A single class who's purpose is to hold all the information about all the classes implemented.
@@ -24,8 +20,17 @@ public class Clinic implements ClinicFunctionality {
   private List<Integer> waitingRoomList;
   private List<Client> clinicArchives;
   private String name;
-  private Map<Integer, int[]> roomKey;
-  private Map<Staff, ArrayList<Client>> staffKey;
+  private RoomRegistry roomRegistry;
+  private OccupancyIndex occupancy;
+  private EntityTable entities;
+  private NameIndex<Client> clientNames;
+  private NameIndex<Staff> staffNames;
+  private ArchiveIndex archiveIndex;
+  private VisitIndex visits;
+  private AssignmentGraph assignments;
+  private ClinicJournal journal;
+  private ClinicEventBus events;
+  private volatile ReportSnapshot lastReport;
 
   /**
    * The constructor is used to store the name of the clinic.
@@ -35,13 +40,80 @@ public class Clinic implements ClinicFunctionality {
   public Clinic(String name) {
     super();
     this.name = name;
-    staffList = new ArrayList<Staff>();
-    clientList = new ArrayList<Client>();
+    events = new ClinicEventBus();
+    occupancy = new OccupancyIndex();
+    entities = new EntityTable();
+    clientNames = new NameIndex<>(Client::getFirstName, Client::getLastName);
+    visits = new VisitIndex();
+    staffNames = new NameIndex<>(Staff::getFirstName, Staff::getLastName);
+    staffList = new ObservedList<>(new ObservedList.Listener<Staff>() {
+      @Override
+      public void added(Staff staff) {
+        staffNames.add(staff);
+      }
+
+      @Override
+      public void removed(Staff staff) {
+        staffNames.remove(staff);
+      }
+
+      @Override
+      public void cleared() {
+        staffNames.clear();
+      }
+    });
+    clientList = new ObservedList<>(new ObservedList.Listener<Client>() {
+      @Override
+      public void added(Client client) {
+        occupancy.add(client);
+        entities.track(client);
+        clientNames.add(client);
+        visits.add(client);
+        events.publish(ClinicEvent.clientRegistered(client));
+      }
+
+      @Override
+      public void removed(Client client) {
+        occupancy.remove(client);
+        clientNames.remove(client);
+        visits.remove(client);
+        events.publish(ClinicEvent.clientDischarged(client, client.getRoomNum()));
+      }
+
+      @Override
+      public void cleared() {
+        occupancy.clear();
+        clientNames.clear();
+        visits.clear();
+        events.publish(ClinicEvent.clinicCleared());
+      }
+    });
     roomList = new ArrayList<Room>();
     setWaitingRoomList(new ArrayList<Integer>());
-    roomKey = new HashMap<Integer, int[]>();
-    staffKey = new HashMap<Staff, ArrayList<Client>>();
-    clinicArchives = new ArrayList<Client>();
+    roomRegistry = new RoomRegistry();
+    assignments = new AssignmentGraph();
+    // The staff of a client are shown in the room of the client, so the room has changed
+    assignments.setListener((staff, client, assigned) -> {
+      occupancy.touch(client.getRoomNum());
+      events.publish(ClinicEvent.staffChanged(staff, client, assigned));
+    });
+    archiveIndex = new ArchiveIndex();
+    clinicArchives = new ObservedList<>(new ObservedList.Listener<Client>() {
+      @Override
+      public void added(Client client) {
+        archiveIndex.add(client);
+      }
+
+      @Override
+      public void removed(Client client) {
+        archiveIndex.remove(client);
+      }
+
+      @Override
+      public void cleared() {
+        archiveIndex.clear();
+      }
+    });
   }
 
   /**
@@ -54,6 +126,116 @@ public class Clinic implements ClinicFunctionality {
     return name;
   }
 
+  /**
+   * Sets the name of the clinic.
+   *
+   * @param name is the new name of the clinic.
+   */
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Retrieves the journal that records the changes made to the clinic.
+   *
+   * @return the journal, or null if the changes are not being recorded.
+   */
+
+  public ClinicJournal getJournal() {
+    return journal;
+  }
+
+  /**
+   * Sets the journal that records the changes made to the clinic. Every change made after this
+   * is logged to the journal.
+   *
+   * @param journal is the journal, or null to stop recording changes.
+   */
+
+  public void setJournal(ClinicJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * This method checks that the journal can still record a change before the change is made, so a
+   * clinic whose journal could not be written is left as it was instead of being changed and then
+   * refusing to record it.
+   *
+   * @throws IllegalStateException if the journal is closed or could not be written.
+   */
+  private void ensureJournalWritable() {
+    if (journal != null) {
+      journal.ensureWritable();
+    }
+  }
+
+  /**
+   * This method checks that a clinic with a journal knows the staff member, since the journal
+   * refers to staff members by their id and a staff member that was never added has none.
+   *
+   * @throws IllegalArgumentException if the staff member isn't one of the clinic's.
+   */
+  private void ensureStaffIsKnown(Staff staff) {
+    if (journal != null && getStaffById(staff.getEntityId()) != staff) {
+      throw new IllegalArgumentException("Staff Error, Staff Doesn't Exist");
+    }
+  }
+
+  /**
+   * This method checkpoints the clinic if its journal has grown past the checkpoint size, so the
+   * journal doesn't grow without end. It has to be called on the thread that changes the clinic,
+   * between changes. Only the snapshot is built on this thread, and the journal writes it. If the
+   * checkpoint fails, it is tried again the next time.
+   */
+  public void checkpointIfDue() {
+    if (journal != null && journal.isCheckpointDue()) {
+      journal.checkpoint(this);
+    }
+  }
+
+  /**
+   * Retrieves the bus that tells listeners about the changes to the clinic, like a room map that
+   * has to draw the rooms that changed.
+   *
+   * @return the event bus of the clinic.
+   */
+  public ClinicEventBus getEvents() {
+    return events;
+  }
+
+  /**
+   * Removes every room, staff member, client and archived client from the clinic so it can be
+   * loaded again.
+   */
+
+  public void clear() {
+    staffList.clear();
+    clientList.clear();
+    roomList.clear();
+    waitingRoomList.clear();
+    clinicArchives.clear();
+    roomRegistry.clear();
+    assignments.clear();
+    entities.clear();
+    lastReport = null;
+    events.publish(ClinicEvent.clinicCleared());
+  }
+
+  /**
+   * Removes every room from the clinic, along with their room numbers.
+   */
+
+  public void clearRooms() {
+    for (Room room : roomList) {
+      entities.untrack(room);
+      events.publish(ClinicEvent.roomChanged(room, roomRegistry.numberOf(room), false));
+    }
+    roomList.clear();
+    roomRegistry.clear();
+    lastReport = null;
+  }
+
   /**
    * Retrieves the list of staff members in the clinic.
    *
@@ -103,41 +285,11 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void readDataFromFile(File file) {
-    int numRoom;
-    int numStaff;
-    int numClient;
-    try (Scanner scanner = new Scanner(file)) {
-      name = scanner.nextLine();
-      // Add all rooms into the room list
-
-      numRoom = Integer.parseInt(scanner.nextLine());
-      int[][] idArray = new int[numRoom][4];
-      for (int i = 0; i < numRoom; i++) {
-        for (int j = 0; j < 4; j++) {
-          idArray[i][j] = Integer.parseInt(scanner.next());
-          // clinic.populateRoomKey(i+1, room);
-        }
-        Room room = addClinicRoom(new Room(idArray[i], scanner.next(), scanner.nextLine()));
-        room.setStatus(true);
-      }
-      // Add all staff into the staff list int numStaff =
-      numStaff = Integer.parseInt(scanner.nextLine());
-      for (int i = 0; i < numStaff; i++) {
-        addClinicStaff(new Staff(scanner.next(), scanner.next(), scanner.next()));
-      }
-
-      // Add all clients into the client list int numClient =
-      numClient = Integer.parseInt(scanner.next());
-      for (int i = 0; i < numClient; i++) {
-        int roomNumber = Integer.parseInt(scanner.next());
-        String firstName = scanner.next();
-        String lastName = scanner.next();
-        String birthDay = scanner.next();
-        addClinicClient(new Client(roomNumber, firstName, lastName, birthDay));
-      }
+    try {
+      name = new ClinicFileLoader(file).load(this);
       // System.out.println("File was read");
 
-    } catch (FileNotFoundException e) {
+    } catch (IOException e) {
       System.out.println("File was not read");
       e.printStackTrace();
     }
@@ -151,26 +303,22 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public int getWaitingRoomNumber() {
-    // First I need to check to see where the waiting room is
-
-    for (int i = 0; i < roomList.size(); i++) {
-
-      // This is done by iterating through the list of rooms and checking
-      // which room has a room type of waiting.
-      if (roomList.get(i).getRoomType().contains("waiting")) {
+    // The room registry remembers the waiting room until a room is added or removed
+    return roomRegistry.getWaitingRoomNumber();
+  }
 
-        // Once the waiting room has been round, we need to figure out
-        // The room number of that room with the given id
-        for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-          if (roomList.get(i).getId() == entry.getValue()) {
+  /**
+   * This method finds the client in the clinic archives with the given name and birthday, which
+   * is how the clinic knows a person registering has been there before.
+   *
+   * @param firstName is the first name of the person registering.
+   * @param lastName is the last name of the person registering.
+   * @param birthDate is the birthday of the person registering.
+   * @return the archived client, or null if the person is new to the clinic.
+   */
 
-            // We then return the room number, giving us the waiting room
-            return entry.getKey();
-          }
-        }
-      }
-    }
-    return 0;
+  public Client findArchivedClient(String firstName, String lastName, String birthDate) {
+    return archiveIndex.find(firstName, lastName, birthDate);
   }
 
   /**
@@ -182,6 +330,7 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public Client registerClient(Registration registration, VisitRecord record) {
+    ensureJournalWritable();
 
     // Using the information from the registration class, we are able to assign
     // Registration to the waiting room first, then once they are registered as
@@ -199,9 +348,50 @@ public class Clinic implements ClinicFunctionality {
 
     clientList.add(newClient);
     clinicArchives.add(newClient);
+    if (journal != null) {
+      journal.logRegisterClient(newClient, registration);
+    }
     return newClient;
   }
 
+  /**
+   * The purpose of this function is to bring a client from the clinic archives back into the
+   * clinic. The client is made active again and added to the client list.
+   *
+   * @param client is the archived client that came back to the clinic.
+   * @return the client that was brought back.
+   */
+  public Client readmitClient(Client client) {
+    ensureJournalWritable();
+    client.setActive(true);
+    clientList.add(client);
+    if (journal != null) {
+      journal.logReadmitClient(client);
+    }
+    return client;
+  }
+
+  /**
+   * The purpose of this function is to attach a new visit record to a client. The record becomes
+   * the client's current record and is added to the end of their record history.
+   *
+   * @param client is the client that is visiting the clinic.
+   * @param record is the record of the visit.
+   */
+  public void recordVisit(Client client, VisitRecord record) {
+    ensureJournalWritable();
+    client.setRecord(record);
+    List<VisitRecord> history = client.getRecordHistory();
+    if (history.isEmpty() || history.get(history.size() - 1) != record) {
+      history.add(record);
+    }
+    occupancy.touch(client.getRoomNum());
+    events.publish(ClinicEvent.clientUpdated(client));
+    if (journal != null) {
+      journal.logRecordVisit(client, record);
+    }
+  }
+
   /**
    * he purpose of this function is to add the client to the client list.
    *
@@ -210,8 +400,12 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public Client addClinicClient(Client client) {
+    ensureJournalWritable();
 
     clientList.add(client);
+    if (journal != null) {
+      journal.logAddClient(client);
+    }
     return client;
 
   }
@@ -225,25 +419,256 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void populateRoomKey(int i, Room room) {
-    getRoomKey().put(i, room.getId());
+    roomRegistry.put(i, room);
+    entities.track(room);
+    events.publish(ClinicEvent.roomChanged(room, i, true));
   }
 
   /**
-   * This gets the room key.
+   * This gets the room key. The key is read only, rooms are numbered when they are added to the
+   * clinic.
    * 
    * @return the room key.
    */
   public Map<Integer, int[]> getRoomKey() {
-    return roomKey;
+    return roomRegistry.asRoomKey();
+  }
+
+  /**
+   * This gets the room registry, which finds a room from its number and a number from its room.
+   * 
+   * @return the room registry.
+   */
+  public RoomRegistry getRoomRegistry() {
+    return roomRegistry;
   }
 
   /**
-   * This gets the staff key.
+   * This finds the room with the given room number.
+   * 
+   * @param roomNumber is the number of the room.
+   * @return the room, or null if there is no room with that number.
+   */
+  public Room getRoom(int roomNumber) {
+    return roomRegistry.get(roomNumber);
+  }
+
+  /**
+   * This finds the room number of the given room.
+   * 
+   * @param room is the room to look up.
+   * @return the room number, or 0 if the room isn't in the clinic.
+   */
+  public int getRoomNumber(Room room) {
+    return roomRegistry.numberOf(room);
+  }
+
+  /**
+   * This finds the clients in the room with the given room number, without going through every
+   * client in the clinic.
+   * 
+   * @param roomNumber is the number of the room.
+   * @return the clients in the room, in the order they came into the room.
+   */
+  public List<Client> getClientsInRoom(int roomNumber) {
+    return occupancy.clientsIn(roomNumber);
+  }
+
+  /**
+   * This finds the clients in the given room.
+   * 
+   * @param room is the room to look in.
+   * @return the clients in the room, or an empty list if the room isn't in the clinic.
+   */
+  public List<Client> getClientsInRoom(Room room) {
+    int roomNumber = roomRegistry.numberOf(room);
+    return roomNumber == 0 ? new ArrayList<Client>() : occupancy.clientsIn(roomNumber);
+  }
+
+  /**
+   * Retrieves the version of the room, which is different after every change to the clients in
+   * the room, their records or their assigned staff. The room map keeps what it drew for a room
+   * until the version changes.
+   *
+   * @param room is the room.
+   * @return the version of the room, or 0 if the room has no room number.
+   */
+
+  public long getRoomVersion(Room room) {
+    int roomNumber = roomRegistry.numberOf(room);
+    return roomNumber == 0 ? 0 : occupancy.versionOf(roomNumber);
+  }
+
+  /**
+   * Retrieves the version of the list of rooms, which changes whenever a room is added or removed.
+   *
+   * @return the version of the list of rooms.
+   */
+  public long getRoomsVersion() {
+    return roomRegistry.getVersion();
+  }
+
+  /**
+   * Retrieves the version of the whole room map. It changes whenever any room changes, and
+   * whenever a room is added or removed, so a picture of many rooms can be kept until it does.
+   *
+   * @return the version of the room map.
+   */
+  public long getMapVersion() {
+    return occupancy.lastVersion() + roomRegistry.getVersion();
+  }
+
+  /**
+   * This counts the clients in the room with the given room number.
+   * 
+   * @param roomNumber is the number of the room.
+   * @return the number of clients in the room.
+   */
+  public int countClientsInRoom(int roomNumber) {
+    return occupancy.countIn(roomNumber);
+  }
+
+  /**
+   * This gets the staff key, a map from each staff member to the clients they are assigned to.
+   * The staff key is made from the assignment graph, so changing it doesn't change the
+   * assignments.
    * 
    * @return the staff key.
    */
   public Map<Staff, ArrayList<Client>> getStaffKey() {
-    return staffKey;
+    return assignments.toStaffKey();
+  }
+
+  /**
+   * This gets the entity table, which gives every client, staff member and room an id.
+   * 
+   * @return the entity table.
+   */
+  public EntityTable getEntities() {
+    return entities;
+  }
+
+  /**
+   * This finds the client with the given id. Discharged clients can still be found.
+   * 
+   * @param id is the id of the client.
+   * @return the client, or null if no client has that id.
+   */
+  public Client getClientById(long id) {
+    return entities.client(id);
+  }
+
+  /**
+   * This finds the staff member with the given id.
+   * 
+   * @param id is the id of the staff member.
+   * @return the staff member, or null if no staff member has that id.
+   */
+  public Staff getStaffById(long id) {
+    return entities.staff(id);
+  }
+
+  /**
+   * This finds the room with the given id.
+   * 
+   * @param id is the id of the room.
+   * @return the room, or null if no room has that id.
+   */
+  public Room getRoomById(long id) {
+    return entities.room(id);
+  }
+
+  /**
+   * This method finds the first client in the clinic whose first and last name have a word that
+   * starts with the names given. Case doesn't matter, so "amy" finds "Amy".
+   *
+   * @param firstName is the first name, or the start of a word of it.
+   * @param lastName is the last name, or the start of a word of it.
+   * @return the client, or null if no client matches.
+   */
+
+  public Client findClient(String firstName, String lastName) {
+    return clientNames.find(firstName, lastName);
+  }
+
+  /**
+   * This method finds the first client in the clinic with the given full name, such as the names
+   * shown in the lists of the dialogs.
+   *
+   * @param fullName is the first and last name of the client with a space between them.
+   * @return the client, or null if no client matches.
+   */
+
+  public Client findClientByName(String fullName) {
+    return clientNames.findByName(fullName);
+  }
+
+  /**
+   * This method finds the first staff member whose first and last name have a word that starts
+   * with the names given, so "Amy" finds "Dr. Amy".
+   *
+   * @param firstName is the first name, or the start of a word of it.
+   * @param lastName is the last name, or the start of a word of it.
+   * @return the staff member, or null if no staff member matches.
+   */
+
+  public Staff findStaff(String firstName, String lastName) {
+    return staffNames.find(firstName, lastName);
+  }
+
+  /**
+   * This method finds the first staff member with the given full name, such as the names shown in
+   * the lists of the dialogs.
+   *
+   * @param fullName is the first and last name of the staff member with a space between them.
+   * @return the staff member, or null if no staff member matches.
+   */
+
+  public Staff findStaffByName(String fullName) {
+    return staffNames.findByName(fullName);
+  }
+
+  /**
+   * This method finds the clients whose name has a word that starts with the given text.
+   *
+   * @param prefix is the start of a word of the name.
+   * @param limit is the most clients to return.
+   * @return the clients, in the order they came into the clinic.
+   */
+
+  public List<Client> searchClients(String prefix, int limit) {
+    return clientNames.search(prefix, limit);
+  }
+
+  /**
+   * This method finds the staff members whose name has a word that starts with the given text.
+   *
+   * @param prefix is the start of a word of the name.
+   * @param limit is the most staff members to return.
+   * @return the staff members, in the order they joined the clinic.
+   */
+
+  public List<Staff> searchStaff(String prefix, int limit) {
+    return staffNames.search(prefix, limit);
+  }
+
+  /**
+   * This gets the visit index, which keeps the visit times of the clients sorted for the yearly
+   * reports.
+   * 
+   * @return the visit index.
+   */
+  public VisitIndex getVisits() {
+    return visits;
+  }
+
+  /**
+   * This gets the assignment graph, which knows which staff members are assigned to which clients.
+   * 
+   * @return the assignment graph.
+   */
+  public AssignmentGraph getAssignments() {
+    return assignments;
   }
 
   /**
@@ -254,23 +679,20 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void removeClinicClient(Client client, Staff staff) {
+    ensureJournalWritable();
 
     // This first checks to see if the client is a registered client
     // And if the staff is a registered staff member. This was done with
     // Using the .contains function for each arrayList
 
-    int[] arr = new int[4];
     if (clientList.contains(client) && staffList.contains(staff)) {
-      for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-        if (client.getRoomNum() == entry.getKey()) {
-          arr = entry.getValue();
-        }
+      // The room the client was in is free again
+      Room room = roomRegistry.get(client.getRoomNum());
+      if (room != null) {
+        room.setStatus(false);
       }
-
-      for (int i = 0; i < roomList.size(); i++) {
-        if (Arrays.equals(roomList.get(i).getId(), arr)) {
-          roomList.get(i).setStatus(false);
-        }
+      if (journal != null) {
+        journal.logRemoveClient(client, staff);
       }
       removeAllStaffFromClient(client);
       clientList.remove(client);
@@ -299,16 +721,16 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void addClinicStaff(Staff staff) {
+    ensureJournalWritable();
     if (staff.getClinicalStaffStatus() == true) {
       staffList.add(staff);
 
     }
-    ArrayList<Client> tempList = new ArrayList<>();
-    // Client temp = new Client(0, "", "", "");
-    // tempList.add(temp);
-    staffKey.put(staff, tempList);
-    // removeStaffFromClient(staff, temp);
-    // staffKey.remove(temp);
+    assignments.addStaff(staff);
+    entities.track(staff);
+    if (journal != null) {
+      journal.logAddStaff(staff);
+    }
   }
 
   /**
@@ -319,12 +741,17 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void removeClinicStaff(Staff staff) {
+    ensureJournalWritable();
 
     // We first check if the staff member was a registered staff member. if they are
     // Then we just remove that staff member object from the arrayList
     if (staffList.contains(staff)) {
       staffWasRemovedFromClinic(staff);
       staffList.remove(staff);
+      entities.untrack(staff);
+      if (journal != null) {
+        journal.logRemoveStaff(staff);
+      }
 
       // If that staff member isn't a registered staff member, then we throw an
       // IllegalArgumentException
@@ -338,7 +765,14 @@ public class Clinic implements ClinicFunctionality {
    * @param room is the room that is being removed.
    */
   public void removeClinicRoom(Room room) {
+    ensureJournalWritable();
     if (roomList.contains(room)) {
+      int roomNumber = roomRegistry.remove(room);
+      entities.untrack(room);
+      events.publish(ClinicEvent.roomChanged(room, roomNumber, false));
+      if (journal != null && roomNumber != 0) {
+        journal.logRemoveRoom(roomNumber);
+      }
       roomList.remove(room);
     }
   }
@@ -352,16 +786,19 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public Room addClinicRoom(Room room) {
+    ensureJournalWritable();
 
     // This adds the room to the room list, and then populates the
     // room key. The reason why we need to populate the room key is
     // so we can check back on it if we have the room number
     // but we need to find the id of and vice versa.
     roomList.add(room);
-    populateRoomKey(getRoomKey().size() + 1, room);
-
-    // this determines if the room that was added is a waiting room;
-    getWaitingRoomNumber();
+    int roomNumber = roomRegistry.register(room);
+    entities.track(room);
+    events.publish(ClinicEvent.roomChanged(room, roomNumber, true));
+    if (journal != null) {
+      journal.logAddRoom(room);
+    }
     return room;
   }
 
@@ -375,13 +812,9 @@ public class Clinic implements ClinicFunctionality {
   public boolean validateRoom(int[] id) {
     // If the ID's match and the status of the room is true,
     // then it's available for use
-    for (int i = 0; i < roomList.size(); i++) {
-      if (Arrays.equals(roomList.get(i).getId(), id)) {
-        return roomList.get(i).getStatus();
-      }
-    }
-    return false;
-  } //
+    Room room = roomRegistry.get(roomRegistry.numberOf(RoomId.of(id)));
+    return room != null && room.getStatus();
+  }
 
   /**
    * The purpose of this function is to assign a client to a new room upon request.
@@ -391,38 +824,78 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void assignClientToNewRoom(Client client, Room room) {
-    int[] currentRoomId = new int[4];
+    int roomNumber = moveClient(client, room);
+    if (roomNumber != 0) {
+      System.out.println(roomNumber);
+    }
+  }
+
+  /**
+   * This method moves the client to the new room without printing the room number. The rooms are
+   * only looked at and changed, so moves between other rooms can happen at the same time.
+   *
+   * @param client is used to assign to the new room.
+   * @param room is used to get the room assigned to the client.
+   * @return the number of the new room, or 0 if it has no number.
+   */
+  int moveClient(Client client, Room room) {
+    return reserveMove(client, room).commit();
+  }
+
+  /**
+   * This method starts moving the client to the new room by reserving the room. The room is
+   * checked and claimed in one step, so when two moves into the same room happen at the same time
+   * only one of them gets it. Waiting rooms hold any number of clients, so they aren't reserved.
+   *
+   * @param client is the client that is going to move.
+   * @param room is the room the client is going to.
+   * @return the move, which has to be committed or rolled back.
+   * @throws IllegalArgumentException if the room isn't in the clinic or is occupied.
+   */
+  public RoomMove reserveMove(Client client, Room room) {
+    ensureJournalWritable();
     // Check if the new room exists
     if (!roomList.contains(room)) {
       throw new IllegalArgumentException("Room Does Not Exist");
     }
-    // Check the status of new room to ensure it's available
-    if (validateRoom(room.getId()) && !room.getRoomName().contains("Waiting")) {
-      throw new IllegalArgumentException("Room is occupied");
+    long stamp = RoomMove.SHARED_ROOM;
+    if (!room.getRoomName().contains("Waiting")) {
+      // Check the status of new room and take it if it's available
+      stamp = room.reserve();
+      if (stamp < 0) {
+        throw new IllegalArgumentException("Room is occupied");
+      }
     }
+    return new RoomMove(this, client, room, stamp);
+  }
+
+  /**
+   * This method finishes a move whose new room was reserved.
+   */
+  int commitMove(RoomMove move) {
+    Client client = move.getClient();
+    Room room = move.getRoom();
     // change status of old room from unavailable to available;
+    int oldRoomNumber = client.getRoomNum();
     if (client.getRoomNum() != getWaitingRoomNumber()) {
-      for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-        if (client.getRoomNum() == entry.getKey()) {
-          currentRoomId = entry.getValue();
-        }
-      }
-      for (int i = 0; i < roomList.size(); i++) {
-        if (Arrays.equals(roomList.get(i).getId(), currentRoomId)) {
-          roomList.get(i).setStatus(false);
-        }
+      Room currentRoom = roomRegistry.get(client.getRoomNum());
+      if (currentRoom != null && currentRoom != room) {
+        currentRoom.setStatus(false);
       }
     }
 
     // set client room to new room and set status of new room to occupied
-    for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-      if (Arrays.equals(room.getId(), entry.getValue())) {
-        client.setRoomNum(entry.getKey());
-        System.out.println(entry.getKey());
-      }
-      room.setStatus(true);
+    int roomNumber = roomRegistry.numberOf(room);
+    if (roomNumber != 0) {
+      client.setRoomNum(roomNumber);
+      occupancy.move(client);
+      events.publish(ClinicEvent.clientMoved(client, oldRoomNumber, roomNumber));
     }
-
+    room.setStatus(true);
+    if (journal != null) {
+      journal.logMoveClient(client, client.getRoomNum());
+    }
+    return roomNumber;
   }
 
   /**
@@ -434,32 +907,16 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public boolean assignStaffToClient(Staff staff, Client client) {
-    ArrayList<Client> tempList = new ArrayList<>();
-
-    // Check if the staff already exists in the map
-    if (staffKey.containsKey(staff)) {
-      if (!isStaffAlreadyWithPatient(staff, client)) {
-        return false;
-      }
-      // Staff exists, retrieve the existing list of clients and add the new client
-      tempList = staffKey.get(staff);
-      tempList.add(client);
-      staffKey.put(staff, tempList);
-    } else {
-      // Staff doesn't exist, create a new list and associate it with the staff
-      tempList.add(client);
-      staffKey.put(staff, tempList);
-
-    }
-    boolean check = false;
-    for (Client clients : staff.getStaffKey()) {
-      if (clients.getFirstName().contains(client.getFirstName())
-          && clients.getLastName().contains(client.getLastName())) {
-        check = true;
-      }
+    ensureJournalWritable();
+    ensureStaffIsKnown(staff);
+    // The staff member is added to the graph if they aren't in it yet
+    if (!assignments.link(staff, client)) {
+      return false;
     }
-    if (!check) {
-      staff.getStaffKey().add(client);
+    // The patient counts towards every patient the staff member has ever had
+    assignments.recordPatient(staff, client);
+    if (journal != null) {
+      journal.logStaffAndClient(ClinicJournal.ASSIGN_STAFF_TO_CLIENT, staff, client);
     }
     return true;
   }
@@ -472,22 +929,16 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void assignClientToStaff(Staff staff, Client client) {
+    ensureJournalWritable();
     // check if staff exists
     if (!staffList.contains(staff)) {
       throw new IllegalArgumentException("Staff Error, Staff Doesn't Exist");
-    } else if (client.getAssignedStaff().contains(staff)) {
+    } else if (!assignments.link(staff, client)) {
       throw new IllegalArgumentException("Staff Error, Staff is already assigned to patient");
     } else {
-      client.getAssignedStaff().add(staff);
-      boolean check = false;
-      for (Client clients : staff.getStaffKey()) {
-        if (clients.getFirstName().contains(client.getFirstName())
-            && clients.getLastName().contains(client.getLastName())) {
-          check = true;
-        }
-      }
-      if (!check) {
-        staff.getStaffKey().add(client);
+      assignments.recordPatient(staff, client);
+      if (journal != null) {
+        journal.logStaffAndClient(ClinicJournal.ASSIGN_CLIENT_TO_STAFF, staff, client);
       }
     }
   }
@@ -500,12 +951,15 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void removeClientFromStaff(Staff staff, Client client) {
+    ensureJournalWritable();
     if (!staffList.contains(staff)) {
       throw new IllegalArgumentException("Staff Error, Staff Doesn't Exist");
-    } else if (!client.getAssignedStaff().contains(staff)) {
+    } else if (!assignments.unlink(staff, client)) {
       throw new IllegalArgumentException("Staff was not assigned to this patient");
     } else {
-      client.getAssignedStaff().remove(staff);
+      if (journal != null) {
+        journal.logStaffAndClient(ClinicJournal.REMOVE_CLIENT_FROM_STAFF, staff, client);
+      }
     }
   }
 
@@ -516,14 +970,7 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void removeAllStaffFromClient(Client client) {
-    for (Staff staff : client.getAssignedStaff()) {
-      client.getAssignedStaff().remove(staff);
-    }
-    for (Entry<Staff, ArrayList<Client>> entry : getStaffKey().entrySet()) {
-      if (entry.getValue().contains(client)) {
-        entry.getValue().remove(client);
-      }
-    }
+    assignments.unlinkClient(client);
   }
 
   /**
@@ -533,7 +980,7 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public void staffWasRemovedFromClinic(Staff staff) {
-    staffKey.remove(staff);
+    assignments.removeStaff(staff);
   }
 
   /**
@@ -545,14 +992,7 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public boolean isStaffAlreadyWithPatient(Staff staff, Client client) {
-    for (Entry<Staff, ArrayList<Client>> entry : getStaffKey().entrySet()) {
-      if (entry.getKey() == staff) {
-        if (entry.getValue().contains(client)) {
-          return false;
-        }
-      }
-    }
-    return true;
+    return !assignments.isLinked(staff, client);
   }
 
   /**
@@ -563,49 +1003,40 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public String displayRoomInfo(Room room) {
-    String res = "";
-    int roomNum = 0;
-    ArrayList<Client> clientsInTheRoomArrayList = new ArrayList<>();
-    ArrayList<Staff> staffInTheRoom = new ArrayList<>();
-
-    for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-      if (Arrays.equals(room.getId(), entry.getValue())) {
-        roomNum = entry.getKey();
-      }
-    }
+    return ReportWriter.render(out -> writeRoomInfo(room, out));
+  }
+
+  /**
+   * This method writes the information of the room to the given Appendable as it goes, instead of
+   * building a string first. The clients in the room come first, then the staff assigned to them.
+   * 
+   * @param room is the room that we will see the information of.
+   * @param out is where the information is written.
+   * @throws IOException if the information couldn't be written.
+   */
+  public void writeRoomInfo(Room room, Appendable out) throws IOException {
+    int roomNum = roomRegistry.numberOf(room);
 
     if (roomNum != 0) {
-      for (Client client : getClinicClients()) {
-        if (client.getRoomNum() == roomNum) {
-          clientsInTheRoomArrayList.add(client);
-        }
-      }
+      List<Client> clientsInTheRoomArrayList = occupancy.clientsIn(roomNum);
 
       for (Client client : clientsInTheRoomArrayList) {
         if (client.getRecord() != null) {
           String removeThis = client.getRecord().toString();
           String resultantString = client.toString().replace(removeThis,
               " Chief Complaints:" + client.getRecord().getChiefComplaint());
-          res += resultantString + "\n";
+          out.append(resultantString).append('\n');
         } else {
-          res += client + "\n";
+          out.append(client.toString()).append('\n');
         }
       }
 
-      for (Map.Entry<Staff, ArrayList<Client>> entry : getStaffKey().entrySet()) {
-        for (Client client : clientsInTheRoomArrayList) {
-          if (entry.getValue().contains(client)) {
-            staffInTheRoom.add(entry.getKey());
-          }
+      for (Client client : clientsInTheRoomArrayList) {
+        for (Staff staff : assignments.staffOf(client)) {
+          out.append(staff.toString()).append('\n');
         }
       }
-
-      for (Staff staff : staffInTheRoom) {
-        res += staff + "\n";
-      }
     }
-
-    return res;
   }
 
   /**
@@ -615,18 +1046,45 @@ public class Clinic implements ClinicFunctionality {
    */
   @Override
   public String displayAllInfo() {
-    String res = "";
+    return ReportWriter.render(this::writeAllInfo);
+  }
 
-    for (Map.Entry<Integer, int[]> entry : getRoomKey().entrySet()) {
-      res += "Room " + Integer.toString(entry.getKey()) + "\n";
-      for (Room room : getClinicRooms()) {
-        if (entry.getValue() == room.getId()) {
-          res += displayRoomInfo(room);
-        }
-      }
-    }
+  /**
+   * This method writes the info of every room to the given Appendable, one room at a time. The
+   * info is written from a report snapshot, so the clinic can be changed while it is written.
+   * 
+   * @param out is where the info is written.
+   * @throws IOException if the info couldn't be written.
+   */
+  public void writeAllInfo(Appendable out) throws IOException {
+    getReportSnapshot().writeAllInfo(out);
+  }
 
-    return res;
+  /**
+   * This method takes a snapshot of what the reports need. The snapshot shares every room and
+   * staff member that didn't change with the last one taken, so taking one after a few changes
+   * only reads what changed. It has to be called on the thread that changes the clinic.
+   * 
+   * @return the snapshot.
+   */
+  public ReportSnapshot getReportSnapshot() {
+    return getReportSnapshot(null);
+  }
+
+  /**
+   * This method takes a snapshot like {@link #getReportSnapshot()}, while other threads can move
+   * clients and assign staff with the given locks held.
+   *
+   * @param locks are the locks of the rooms and staff members, or null if nothing else changes
+   *        the clinic.
+   * @return the snapshot.
+   */
+  ReportSnapshot getReportSnapshot(ReportSnapshot.Locks locks) {
+    ReportSnapshot snapshot = ReportSnapshot.capture(this, lastReport, locks);
+    // Two snapshots taken at the same time can both be kept, since either one only shares what
+    // didn't change since its versions were read
+    lastReport = snapshot;
+    return snapshot;
   }
 
   /**
@@ -655,13 +1113,12 @@ public class Clinic implements ClinicFunctionality {
 
   @Override
   public void removeStaffFromClient(Staff staff, Client client) {
-    if (getStaffKey().containsKey(staff)) {
-      ArrayList<Client> clients = getStaffKey().get(staff);
-      if (clients.contains(client)) {
-        clients.remove(client);
-
+    ensureJournalWritable();
+    ensureStaffIsKnown(staff);
+    if (assignments.unlink(staff, client)) {
+      if (journal != null) {
+        journal.logStaffAndClient(ClinicJournal.REMOVE_STAFF_FROM_CLIENT, staff, client);
       }
-
     }
   }
 
@@ -677,15 +1134,18 @@ public class Clinic implements ClinicFunctionality {
 
   @Override
   public String isPatientOneYearIn() {
-    String list = "";
-    for (Client client : clientList) {
-
-      if (client.twoVisitInYear()) {
-        list += client.getFirstName() + " " + client.getLastName() + "\n";
-      }
-    }
+    return ReportWriter.render(this::writePatientsOneYearIn);
+  }
 
-    return "--------------------------------\n" + list + "--------------------------------\n";
+  /**
+   * This method writes the names of the patients who have been to the clinic at least twice
+   * within the year to the given Appendable, between two lines of dashes.
+   * 
+   * @param out is where the names are written.
+   * @throws IOException if the names couldn't be written.
+   */
+  public void writePatientsOneYearIn(Appendable out) throws IOException {
+    getReportSnapshot().writePatientsOneYearIn(out);
   }
 
   /**
@@ -699,17 +1159,18 @@ public class Clinic implements ClinicFunctionality {
 
   @Override
   public String getNoYearVisitList() {
-    String res = "";
-    for (Client client : clientList) {
-      if (client.isFirstRecord365DaysGreater()) {
-        res += client.getFirstName() + " " + client.getLastName() + "\n";
-      }
-    }
-    if (res.length() == 0) {
-      return res;
-    }
-    String nonEmptyString = "--------------------------------\nHere is the list of patients:\n"
-        + res + "--------------------------------\n";
-    return nonEmptyString;
+    return ReportWriter.render(this::writeNoYearVisitList);
+  }
+
+  /**
+   * This method writes the list of patients who have not been in the clinic for more than a year
+   * to the given Appendable. Nothing is written if there are no such patients.
+   * 
+   * @param out is where the list is written.
+   * @return true if any patients were written.
+   * @throws IOException if the list couldn't be written.
+   */
+  public boolean writeNoYearVisitList(Appendable out) throws IOException {
+    return getReportSnapshot().writeNoYearVisitList(out);
   }
 }
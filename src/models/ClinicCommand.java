@@ -0,0 +1,76 @@
+package models;
+
+/**
+ * A command is one change to a clinic that is sent to a {@link ClinicCommandQueue} instead of
+ * being made right away. The queue applies it on its writer thread, which is the only thread that
+ * changes the clinic, and gives back what the command returned.
+ *
+ * <p>The usual changes of the front desk have a command here. Any other change can be written as a
+ * lambda that takes the clinic.
+ *
+ * @param <T> is what the command gives back.
+ */
+@FunctionalInterface
+public interface ClinicCommand<T> {
+  /**
+   * This method makes the change to the clinic. It is only called on the writer thread.
+   *
+   * @param clinic is the clinic.
+   * @return what the command gives back.
+   */
+  T apply(Clinic clinic);
+
+  /**
+   * This makes the command that registers a new client and records their visit, the same way the
+   * front desk does.
+   *
+   * @param registration is the information of the new client.
+   * @param record is the record of the visit, or null if there isn't one yet.
+   * @return the command, which gives back the client that was registered.
+   */
+  static ClinicCommand<Client> register(Registration registration, VisitRecord record) {
+    return clinic -> {
+      Client client = clinic.registerClient(registration, record);
+      if (record != null) {
+        clinic.recordVisit(client, record);
+      }
+      return client;
+    };
+  }
+
+  /**
+   * This makes the command that moves a client to a new room.
+   *
+   * @param client is the client.
+   * @param room is the new room.
+   * @return the command, which gives back the number of the new room.
+   */
+  static ClinicCommand<Integer> move(Client client, Room room) {
+    return clinic -> clinic.moveClient(client, room);
+  }
+
+  /**
+   * This makes the command that assigns a staff member to a client.
+   *
+   * @param staff is the staff member.
+   * @param client is the client.
+   * @return the command, which gives back false if the staff member was already assigned.
+   */
+  static ClinicCommand<Boolean> assignStaff(Staff staff, Client client) {
+    return clinic -> clinic.assignStaffToClient(staff, client);
+  }
+
+  /**
+   * This makes the command that sends a client home.
+   *
+   * @param client is the client.
+   * @param staff is the staff member that approved it.
+   * @return the command, which gives back the client that left.
+   */
+  static ClinicCommand<Client> discharge(Client client, Staff staff) {
+    return clinic -> {
+      clinic.removeClinicClient(client, staff);
+      return client;
+    };
+  }
+}
@@ -0,0 +1,130 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The purpose of this class is to time a burst of front desk work, like a shift change, sent to
+ * one clinic from many threads. Every thread registers clients and assigns its staff member to
+ * every client it registered.
+ *
+ * <p>The burst is sent two ways: through the command queue, where the writer thread applies the
+ * commands in batches, and by calling the clinic straight away while holding one lock for the
+ * whole clinic. Through the queue, every thread has at most 64 clients waiting at a time, like a
+ * front desk that doesn't take more people than it can seat. The number of commands every second
+ * and how long the commands took from being sent until they were done are printed for both.
+ */
+public class ClinicCommandBenchmark {
+  private static final int THREADS = 8;
+  private static final int CLIENTS_PER_THREAD = 20_000;
+  private static final int RUNS = 3;
+  // How many clients each front desk has waiting on the queue at most
+  private static final int IN_FLIGHT = 64;
+
+  /**
+   * The main function sends the burst both ways and prints the times.
+   *
+   * @param args isn't used for the benchmark.
+   * @throws InterruptedException if the benchmark is stopped.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    System.out.println(String.format("%d threads, %d commands for every run", THREADS,
+        THREADS * CLIENTS_PER_THREAD * 2));
+    System.out.println(String.format("%8s %12s %10s %10s %10s %8s", "way", "commands/s",
+        "p50 us", "p99 us", "max us", "batch"));
+    for (int run = 0; run < RUNS; run++) {
+      burst(true);
+      burst(false);
+    }
+  }
+
+  private static void burst(boolean queued) throws InterruptedException {
+    Clinic clinic = new Clinic("Benchmark");
+    clinic.addClinicRoom(new Room(new int[] {0, 0, 10, 10}, "waiting", "Waiting Room"));
+    List<Staff> staff = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Staff nurse = new Staff("nurse", "Nurse" + t, "Benchmark");
+      clinic.addClinicStaff(nurse);
+      staff.add(nurse);
+    }
+    ClinicCommandQueue queue = new ClinicCommandQueue(clinic);
+    Object lock = new Object();
+    long[][] latencies = new long[THREADS][CLIENTS_PER_THREAD * 2];
+
+    CountDownLatch ready = new CountDownLatch(THREADS);
+    CountDownLatch go = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      Thread worker = new Thread(() -> {
+        long[] times = latencies[thread];
+        Semaphore seats = new Semaphore(IN_FLIGHT);
+        List<CompletableFuture<?>> results = new ArrayList<>();
+        ready.countDown();
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < CLIENTS_PER_THREAD; i++) {
+          Registration registration = new Registration("First" + thread + "_" + i, "Last" + i,
+              "1/1/1990");
+          ClinicCommand<Client> register = ClinicCommand.register(registration, null);
+          int slot = i * 2;
+          if (queued) {
+            seats.acquireUninterruptibly();
+            long sent = System.nanoTime();
+            results.add(queue.submit(register).thenCompose(client -> {
+              times[slot] = System.nanoTime() - sent;
+              long assignSent = System.nanoTime();
+              return queue.submit(ClinicCommand.assignStaff(staff.get(thread), client))
+                  .thenRun(() -> {
+                    times[slot + 1] = System.nanoTime() - assignSent;
+                    seats.release();
+                  });
+            }));
+          } else {
+            long sent = System.nanoTime();
+            Client client;
+            synchronized (lock) {
+              client = register.apply(clinic);
+            }
+            times[slot] = System.nanoTime() - sent;
+            long assignSent = System.nanoTime();
+            synchronized (lock) {
+              ClinicCommand.assignStaff(staff.get(thread), client).apply(clinic);
+            }
+            times[slot + 1] = System.nanoTime() - assignSent;
+          }
+        }
+        for (CompletableFuture<?> result : results) {
+          result.join();
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    ready.await();
+    long start = System.nanoTime();
+    go.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - start;
+    queue.close();
+
+    long[] all = new long[THREADS * CLIENTS_PER_THREAD * 2];
+    for (int t = 0; t < THREADS; t++) {
+      System.arraycopy(latencies[t], 0, all, t * latencies[t].length, latencies[t].length);
+    }
+    Arrays.sort(all);
+    System.out.println(String.format("%8s %12.0f %10.1f %10.1f %10.1f %8s",
+        queued ? "queue" : "lock", all.length / (elapsed / 1e9), all[all.length / 2] / 1e3,
+        all[all.length * 99 / 100] / 1e3, all[all.length - 1] / 1e3,
+        queued ? Integer.toString(queue.getLargestBatch()) : "-"));
+  }
+}
@@ -0,0 +1,262 @@
+package models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the one way into a clinic for threads that want to change it. Commands can be
+ * submitted from any thread. They wait in the queue until the writer runs, and the writer applies
+ * everything that is waiting, up to a batch at a time, in the order it was submitted. The writer is
+ * the only thread that changes the clinic, so the clinic doesn't need any locks.
+ *
+ * <p>The writer is a thread of the queue unless another one is given. The GUI gives the Swing
+ * event thread, which already is the thread that changes its clinic.
+ *
+ * <p>Every batch is one place to do what all changes need. When the queue is durable, the journal
+ * of the clinic is written to disk once for the whole batch before any of the commands are done.
+ * The listener is told how big every batch was and how long it took, for the metrics. After a
+ * batch, the clinic is checkpointed if its journal has grown too big.
+ */
+public class ClinicCommandQueue implements AutoCloseable {
+  /**
+   * The most commands applied before the writer lets other work run.
+   */
+  public static final int MAX_BATCH = 512;
+
+  /**
+   * The listener is told about every batch after it was applied. It is called on the writer
+   * thread.
+   */
+  public interface Listener {
+    /**
+     * This method is called after a batch of commands was applied.
+     *
+     * @param commands is the number of commands in the batch.
+     * @param waitNanos is how long the first command of the batch waited in the queue.
+     * @param applyNanos is how long the batch took to apply, with the journal.
+     */
+    void batchApplied(int commands, long waitNanos, long applyNanos);
+  }
+
+  private final Clinic clinic;
+  private final Executor writer;
+  private final ExecutorService ownWriter;
+  private final Queue<Pending<?>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final AtomicLong applied = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private volatile int largestBatch;
+  private volatile boolean durable;
+  private volatile boolean closed;
+  private volatile Listener listener;
+
+  /**
+   * The constructor takes in the clinic and starts a writer thread for it. The clinic shouldn't be
+   * changed by any other thread after this.
+   *
+   * @param clinic is the clinic.
+   */
+  public ClinicCommandQueue(Clinic clinic) {
+    this(clinic, Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "Clinic writer");
+      thread.setDaemon(true);
+      return thread;
+    }), true);
+  }
+
+  /**
+   * The constructor takes in the clinic and what runs the writer. The writer has to run one task
+   * at a time, like the Swing event thread does.
+   *
+   * @param clinic is the clinic.
+   * @param writer runs the writer, which is the only thread that changes the clinic.
+   * @throws IllegalArgumentException if the clinic or the writer is null.
+   */
+  public ClinicCommandQueue(Clinic clinic, Executor writer) {
+    this(clinic, writer, false);
+  }
+
+  private ClinicCommandQueue(Clinic clinic, Executor writer, boolean owned) {
+    if (clinic == null || writer == null) {
+      throw new IllegalArgumentException("The clinic and the writer can't be null");
+    }
+    this.clinic = clinic;
+    this.writer = writer;
+    this.ownWriter = owned ? (ExecutorService) writer : null;
+  }
+
+  /**
+   * Sets if the commands are only done once the journal of the clinic has them on disk. The
+   * journal is written once for every batch.
+   *
+   * @param durable is true to wait for the journal.
+   */
+  public void setDurable(boolean durable) {
+    this.durable = durable;
+  }
+
+  /**
+   * Sets the listener that is told about every batch.
+   *
+   * @param listener is the listener, or null to stop telling anyone.
+   */
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * This method adds the command to the queue. It can be called from any thread, and doesn't wait
+   * for the command.
+   *
+   * @param <T> is what the command gives back.
+   * @param command is the command.
+   * @return the result of the command, which fails with what the command threw if it failed. It
+   *     is done on the writer, so the writer itself must never wait for it.
+   * @throws IllegalStateException if the queue was closed.
+   */
+  public <T> CompletableFuture<T> submit(ClinicCommand<T> command) {
+    if (closed) {
+      throw new IllegalStateException("The command queue is closed");
+    }
+    Pending<T> entry = new Pending<>(command);
+    pending.add(entry);
+    if (scheduled.compareAndSet(false, true)) {
+      writer.execute(this::drain);
+    }
+    return entry.result;
+  }
+
+  /**
+   * Retrieves the number of commands that were applied.
+   *
+   * @return the number of commands.
+   */
+  public long getApplied() {
+    return applied.get();
+  }
+
+  /**
+   * Retrieves the number of batches that were applied.
+   *
+   * @return the number of batches.
+   */
+  public long getBatches() {
+    return batches.get();
+  }
+
+  /**
+   * Retrieves the number of commands in the biggest batch so far.
+   *
+   * @return the size of the biggest batch.
+   */
+  public int getLargestBatch() {
+    return largestBatch;
+  }
+
+  /**
+   * This method stops taking commands. The commands that were submitted are still applied, and
+   * the writer thread of the queue stops after them.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (ownWriter != null) {
+      ownWriter.shutdown();
+    }
+  }
+
+  /**
+   * This method applies one batch on the writer, and runs again later if more commands are
+   * waiting, so a burst of commands doesn't keep the writer from its other work.
+   */
+  private void drain() {
+    List<Pending<?>> batch = new ArrayList<>();
+    Pending<?> entry;
+    while (batch.size() < MAX_BATCH && (entry = pending.poll()) != null) {
+      batch.add(entry);
+    }
+    if (!batch.isEmpty()) {
+      apply(batch);
+    }
+    scheduled.set(false);
+    // A command could have come in after the queue looked empty
+    if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+      writer.execute(this::drain);
+    }
+  }
+
+  private void apply(List<Pending<?>> batch) {
+    long start = System.nanoTime();
+    for (Pending<?> entry : batch) {
+      entry.apply(clinic);
+    }
+    IOException unsaved = null;
+    ClinicJournal journal = clinic.getJournal();
+    if (durable && journal != null) {
+      try {
+        journal.flush();
+      } catch (IOException e) {
+        unsaved = e;
+      }
+    }
+    clinic.checkpointIfDue();
+    long end = System.nanoTime();
+    applied.addAndGet(batch.size());
+    batches.incrementAndGet();
+    largestBatch = Math.max(largestBatch, batch.size());
+    Listener current = listener;
+    if (current != null) {
+      current.batchApplied(batch.size(), start - batch.get(0).submitted, end - start);
+    }
+    for (Pending<?> entry : batch) {
+      entry.finish(unsaved);
+    }
+  }
+
+  /**
+   * A command that was submitted and the result it is going to give.
+   */
+  private static final class Pending<T> {
+    private final ClinicCommand<T> command;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final long submitted = System.nanoTime();
+    private T value;
+    private RuntimeException failure;
+
+    Pending(ClinicCommand<T> command) {
+      this.command = command;
+    }
+
+    void apply(Clinic clinic) {
+      try {
+        value = command.apply(clinic);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    /**
+     * This method gives the result to whoever waits for it, once the batch is over.
+     */
+    void finish(IOException unsaved) {
+      if (failure != null) {
+        result.completeExceptionally(failure);
+      } else if (unsaved != null) {
+        result.completeExceptionally(new UncheckedIOException("The change was not saved",
+            unsaved));
+      } else {
+        result.complete(value);
+      }
+    }
+  }
+}
@@ -1,23 +1,28 @@
 
 package models;
 
-import java.awt.Dimension;
+import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Scanner;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 
@@ -32,9 +37,11 @@ import javax.swing.SwingUtilities;
  * The specific operations and user interactions are defined in the `ClinicController` interface,
  * which this class implements.
  */
-public class ClinicConsoleController extends JFrame implements ClinicController {
+public class ClinicConsoleController implements ClinicController {
   private static JFrame frame;
-  private static final long serialVersionUID = 1L;
+  private static JScrollPane mapScrollPane;
+  // The clinic whose journal is open, which is closed when another file is loaded
+  private static Clinic journaled;
   private final Appendable out;
   private final Scanner scan;
   
@@ -63,11 +70,21 @@ public class ClinicConsoleController extends JFrame implements ClinicController
    */
   @Override
   public String displayClientInfo(Client client, Clinic clinic) {
-    String res = "";
+    return ReportWriter.render(out -> writeClientInfo(clinic, out));
+  }
+
+  /**
+   * Writes the information of every client in the clinic to the given Appendable as it goes,
+   * instead of building a string first.
+   *
+   * @param clinic The clinic object containing client information.
+   * @param out Where the information is written.
+   * @throws IOException If the information couldn't be written.
+   */
+  public void writeClientInfo(Clinic clinic, Appendable out) throws IOException {
     for (Client clients : clinic.getClinicClients()) {
-      res += clients.toString() + "\n";
+      out.append(clients.toString()).append('\n');
     }
-    return res;
   }
 
   /**
@@ -82,65 +99,43 @@ public class ClinicConsoleController extends JFrame implements ClinicController
    */
   @Override
   public String displayRoomInfo(Room room, Clinic clinic) {
-    String res = "";
-    int roomNum = 0;
-    // Temporary list of clients and staff are made so private data isn't shared
-    ArrayList<Client> clientsInTheRoomArrayList = new ArrayList<>();
-    ArrayList<Staff> staffInTheRoom = new ArrayList<>();
+    return ReportWriter.render(out -> writeRoomInfo(room, clinic, out));
+  }
 
+  /**
+   * Writes the information of a room to the given Appendable as it goes, in the same format as
+   * {@link #displayRoomInfo(Room, Clinic)}.
+   *
+   * @param room The room object for which information is to be displayed.
+   * @param clinic The clinic object containing client, staff, and room information.
+   * @param out Where the information is written.
+   * @throws IOException If the information couldn't be written.
+   */
+  public void writeRoomInfo(Room room, Clinic clinic, Appendable out) throws IOException {
     // clients assigned to that room
-    // We iterate through the room key and check if there are any room id's that
-    // match the id of the given room.
-    for (Map.Entry<Integer, int[]> entry : clinic.getRoomKey().entrySet()) {
-      // This gived us the room number
-      if (Arrays.equals(room.getId(), entry.getValue())) {
-        roomNum = entry.getKey();
-      }
-    }
+    // The room registry gives us the room number of the given room.
+    int roomNum = clinic.getRoomNumber(room);
 
     // We then use that room number to determine which client(s) are
     // in that room
-    for (int i = 0; i < clinic.getClinicClients().size(); i++) {
-      if (roomNum == 0) {
-        break;
-      }
-
-      // If they found the matchging room number with client, they are added
-      // to the temporary clients list.
-      if (clinic.getClinicClients().get(i).getRoomNum() == roomNum) {
-        clientsInTheRoomArrayList.add(clinic.getClinicClients().get(i));
-      }
-    }
+    List<Client> clientsInTheRoom = roomNum == 0 ? new ArrayList<Client>()
+        : clinic.getClientsInRoom(roomNum);
     // If room is empty, produce "Empty" message
-    if (clientsInTheRoomArrayList.size() == 0) {
-      res += "Empty\n";
+    if (clientsInTheRoom.size() == 0) {
+      out.append("Empty\n");
     } else {
-      // A string, res, collects the data and converts it into a string so that it
-      // can be written to the .txt file.
-      for (int i = 0; i < clientsInTheRoomArrayList.size(); i++) {
-        res += clientsInTheRoomArrayList.get(i) + "\n";
+      for (Client client : clientsInTheRoom) {
+        out.append(client.toString()).append('\n');
       }
     }
 
     // any staff that is assigned to that client
-    // This staff key list is used to add clients to a staff member if they have been
-    // Assigned to them. If they have, then they are added to the list of clients
-    // that are assigned to them
-    for (Map.Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
-      for (int i = 0; i < clientsInTheRoomArrayList.size(); i++) {
-        if (entry.getValue().contains(clientsInTheRoomArrayList.get(i))) {
-          staffInTheRoom.add(entry.getKey());
-        }
+    for (Client client : clientsInTheRoom) {
+      for (Staff staff : clinic.getAssignments().staffOf(client)) {
+        out.append(staff.toString()).append('\n');
       }
     }
-
-    // All that information is then added to the res string that is returned at the
-    // end of the function
-    for (int i = 0; i < staffInTheRoom.size(); i++) {
-      res += staffInTheRoom.get(i) + "\n";
-    }
-    res += "\n";
-    return res;
+    out.append('\n');
   }
 
   /**
@@ -160,21 +155,15 @@ public class ClinicConsoleController extends JFrame implements ClinicController
   @Override
   public Client registerClientWithVisitRecord(String firstName, String lastName, String birthDay,
       VisitRecord record, Clinic clinic) throws IOException {
-    for (int i = 0; i < clinic.getClinicArchives().size(); i++) {
-      if (clinic.getClinicArchives().get(i).getFirstName().contains(firstName)
-          && clinic.getClinicArchives().get(i).getLastName().contains(lastName)) {
-        this.out.append("Welcome Back! " + firstName);
-        this.out.append("\nYou have been placed in the Waiting Room!");
-        clinic.getClinicArchives().get(i).setActive(true);
-        // clinic.getClinicArchives().get(i).getRecordHistory().add(record);
-        clinic.getClinicClients().add(clinic.getClinicArchives().get(i));
-
-        return clinic.getClinicArchives().get(i);
-      }
+    Client returning = clinic.findArchivedClient(firstName, lastName, birthDay);
+    if (returning != null) {
+      this.out.append("Welcome Back! " + firstName);
+      this.out.append("\nYou have been placed in the Waiting Room!");
+      return clinic.readmitClient(returning);
     }
     Registration registration = new Registration(firstName, lastName, birthDay);
     Client client = clinic.registerClient(registration, record);
-    client.setRecord(record);
+    clinic.recordVisit(client, record);
     this.out.append("Welcome to the clinic " + firstName + " " + lastName
         + " \nYou have been placed in the Waiting Room!\n");
     return client;
@@ -192,8 +181,9 @@ public class ClinicConsoleController extends JFrame implements ClinicController
   @Override
   public Client registerExistingClientWithVisitRecord(Client client, Clinic clinic,
       VisitRecord record) {
-    client.setRecord(record);
-    return null;
+    // The clinic keeps the history, the room version and the journal up to date with the record
+    clinic.recordVisit(client, record);
+    return client;
   }
 
   /**
@@ -221,23 +211,32 @@ public class ClinicConsoleController extends JFrame implements ClinicController
    */
   @Override
   public String displayAllInfo(Clinic clinic) {
-    String res = "";
-    // Every room and who's in each room.
-    for (Map.Entry<Integer, int[]> entry : clinic.getRoomKey().entrySet()) {
-      res += "Room " + Integer.toString(entry.getKey()) + "\n";
-      for (int i = 0; i < clinic.getClinicRooms().size(); i++) {
-        if (entry.getKey() - 1 == i) {
-          int[] temp = new int[4];
-          temp = entry.getValue();
-          for (int j = 0; j < clinic.getClinicRooms().size(); j++) {
-            if (Arrays.equals(clinic.getClinicRooms().get(j).getId(), temp)) {
-              res += displayRoomInfo(clinic.getClinicRooms().get(j), clinic);
-            }
-          }
-        }
+    return ReportWriter.render(out -> writeAllInfo(clinic, out));
+  }
+
+  /**
+   * Writes the information of every room to the given Appendable one room at a time, in the same
+   * format as {@link #displayAllInfo(Clinic)}.
+   *
+   * @param clinic The clinic object containing room and occupancy information.
+   * @param out Where the information is written.
+   * @throws IOException If the information couldn't be written.
+   */
+  public void writeAllInfo(Clinic clinic, Appendable out) throws IOException {
+    // Every room and who's in each room, from a snapshot so the clinic can change meanwhile.
+    for (ReportSnapshot.RoomInfo room : clinic.getReportSnapshot().getRooms()) {
+      out.append("Room ").append(Integer.toString(room.getRoomNumber())).append('\n');
+      if (room.getClients().isEmpty()) {
+        out.append("Empty\n");
+      }
+      for (String client : room.getClients()) {
+        out.append(client).append('\n');
+      }
+      for (String staff : room.getStaff()) {
+        out.append(staff).append('\n');
       }
+      out.append('\n');
     }
-    return res;
   }
 
   /**
@@ -295,10 +294,141 @@ public class ClinicConsoleController extends JFrame implements ClinicController
     if (clinic == null) {
       throw new IllegalArgumentException("Clinic object cannot be null");
     }
-    clinic.readDataFromFile(input);
+    // The clinic comes from the snapshot and journal next to the file when they are up to date
+    try {
+      closeJournal();
+      ClinicJournal.recover(clinic, input);
+      journaled = clinic;
+      checkpointWhenDue(clinic);
+    } catch (IOException e) {
+      stopWithoutJournal(e);
+      return;
+    }
     displayGame(clinic);
   }
 
+  /**
+   * This method plays the game like {@link #playNewGame(Clinic, File)}, but parses the file on a
+   * background thread so the window keeps working. A dialog shows how much of the file was read
+   * and can cancel the load, and the room map is shown as soon as the rooms are in. It has to be
+   * called on the event thread.
+   *
+   * @param clinic is the empty clinic that the game is taking place in.
+   * @param input is the file that is being read for the game.
+   */
+  public void loadNewGame(Clinic clinic, File input) {
+    if (clinic == null) {
+      throw new IllegalArgumentException("Clinic object cannot be null");
+    }
+    // The snapshot is read much faster than the file is parsed, so it is read right away
+    if (ClinicSnapshot.isFresh(input)) {
+      playNewGame(clinic, input);
+      return;
+    }
+    JDialog dialog = new JDialog(frame, "Loading " + input.getName());
+    JProgressBar progressBar = new JProgressBar(0, 1000);
+    JLabel status = new JLabel("Reading the rooms");
+    JButton cancel = new JButton("Cancel");
+    ClinicLoadTask task = new ClinicLoadTask(clinic, input, SwingUtilities::invokeLater,
+        new ClinicLoadTask.Listener() {
+          @Override
+          public void progress(long bytesRead, long size, int records) {
+            progressBar.setValue(size == 0 ? 1000 : (int) (bytesRead * 1000 / size));
+            status.setText("Read " + bytesRead / 1024 + " of " + size / 1024 + " KB, "
+                + records + " records");
+          }
+
+          @Override
+          public void sectionLoaded(ClinicFileLoader.Section section) {
+            if (section == ClinicFileLoader.Section.ROOMS) {
+              // The map fills in with the staff and the clients as they are read
+              displayGame(clinic);
+            }
+          }
+
+          @Override
+          public void finished() {
+            dialog.dispose();
+            try {
+              closeJournal();
+              ClinicJournal.attach(clinic, input, false);
+              journaled = clinic;
+              checkpointWhenDue(clinic);
+            } catch (IOException e) {
+              stopWithoutJournal(e);
+            }
+          }
+
+          @Override
+          public void failed(Exception e) {
+            dialog.dispose();
+            JOptionPane.showMessageDialog(frame, "The clinic file was not read: " + e.getMessage(),
+                "Load Clinic File", JOptionPane.ERROR_MESSAGE);
+          }
+
+          @Override
+          public void cancelled() {
+            dialog.dispose();
+          }
+        });
+    cancel.addActionListener(e -> {
+      cancel.setEnabled(false);
+      task.cancel();
+    });
+
+    JPanel panel = new JPanel(new BorderLayout(0, 8));
+    panel.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+    panel.add(status, BorderLayout.NORTH);
+    panel.add(progressBar, BorderLayout.CENTER);
+    panel.add(cancel, BorderLayout.SOUTH);
+    dialog.add(panel);
+    dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+    dialog.setSize(400, 140);
+    dialog.setLocationRelativeTo(frame);
+    dialog.setVisible(true);
+    task.start();
+  }
+
+  /**
+   * This method checkpoints the clinic whenever its journal grows too big. The check runs with the
+   * listeners of the clinic's events on the event thread, which is the thread the windows change
+   * the clinic on, so no change is half made when the snapshot is built.
+   */
+  private static void checkpointWhenDue(Clinic clinic) {
+    clinic.getEvents().addListener(events -> clinic.checkpointIfDue());
+  }
+
+  /**
+   * This method stops the program when the journal of a clinic could not be recovered or opened.
+   * The clinic would be missing the changes that were not replayed, and every change made to it
+   * from then on would be lost, so nothing more is done with it.
+   */
+  private static void stopWithoutJournal(IOException e) {
+    System.out.println("Journal was not opened: " + e.getMessage());
+    JOptionPane.showMessageDialog(frame,
+        "The journal of the clinic could not be opened, so the program stops: " + e.getMessage(),
+        "Load Clinic File", JOptionPane.ERROR_MESSAGE);
+    System.exit(1);
+  }
+
+  /**
+   * This method closes the journal of the clinic that was loaded before, so loading another file
+   * doesn't leave the old journal open. Its last changes are written out before it is closed.
+   */
+  private static void closeJournal() {
+    if (journaled == null || journaled.getJournal() == null) {
+      return;
+    }
+    ClinicJournal journal = journaled.getJournal();
+    journaled.setJournal(null);
+    journaled = null;
+    try {
+      journal.close();
+    } catch (IOException e) {
+      System.out.println("Journal was not closed: " + e.getMessage());
+    }
+  }
+
   /**
    * This method is the functionality of the game that reads the file for the data.
    * 
@@ -326,15 +456,8 @@ public class ClinicConsoleController extends JFrame implements ClinicController
     try {
       this.out
           .append("--------------------------------------------------------------------------\n");
-      for (Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
-        this.out.append("Staff: " + entry.getKey().getFirstName() + " "
-            + entry.getKey().getLastName() + "\nClients assigned: ");
-        for (Client c : entry.getValue()) {
-          this.out.append("\n " + c.getLastName() + ", " + c.getFirstName());
-        }
-        this.out.append(
-            "\nTotal number of assigned patients ever: " + entry.getKey().getNumPatients() + "\n");
-
+      for (ReportSnapshot.StaffInfo staff : clinic.getReportSnapshot().getStaff()) {
+        writeStaffInfo(staff);
       }
       this.out
           .append("--------------------------------------------------------------------------\n");
@@ -355,13 +478,13 @@ public class ClinicConsoleController extends JFrame implements ClinicController
    */
   @Override
   public void handleYearNoVisit(Clinic clinic) throws IOException {
-    String list = clinic.getNoYearVisitList();
     try {
-      if (list.length() == 0) {
+      ReportWriter writer = new ReportWriter(this.out);
+      boolean anyPatients = clinic.writeNoYearVisitList(writer);
+      writer.flush();
+      if (!anyPatients) {
         this.out.append("There are no patients that haven't visited the clinic for more than "
             + "365 days from today.\n");
-      } else {
-        this.out.append(list);
       }
     } catch (IllegalArgumentException e) {
       this.out.append("Error: " + e.getMessage() + ", please try again.");
@@ -517,7 +640,7 @@ public class ClinicConsoleController extends JFrame implements ClinicController
     clinic.getClinicStaffs().clear();
 
     // Remove clinical rooms
-    clinic.getClinicRooms().clear();
+    clinic.clearRooms();
 
   }
   
@@ -530,7 +653,7 @@ public class ClinicConsoleController extends JFrame implements ClinicController
       Clinic clinic = new Clinic("Cybernetic Implant Clinic"); 
       Readable input = new InputStreamReader(System.in);
       Appendable output = System.out;
-      new ClinicConsoleController(input, output).playNewGame(clinic, selectedFile);
+      new ClinicConsoleController(input, output).loadNewGame(clinic, selectedFile);
     }
 
   }
@@ -545,28 +668,38 @@ public class ClinicConsoleController extends JFrame implements ClinicController
 
   }
 
+  /**
+   * This method shows the room map of the clinic. There is only ever one map window, which keeps
+   * itself up to date with the clinic, so showing the map again brings the window to the front. A
+   * clinic that was loaded from another file is shown in the same window.
+   */
   private void showRoomMap(Clinic clinic) {
     SwingUtilities.invokeLater(() -> {
-      JFrame frame = new JFrame("Scrollable Rectangle Panel Example");
-      frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-      // Create menu bar and add it to the frame
-      JMenuBar menuBar = createMenuBar(clinic);
-      frame.setJMenuBar(menuBar);
-
-      RectanglePanel rectanglePanel = new RectanglePanel(clinic);
-      rectanglePanel.setPreferredSize(new Dimension(1500, 3000)); // Adjust the size as needed
-
-      JScrollPane scrollPane = new JScrollPane(rectanglePanel);
-      scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+      if (frame == null) {
+        frame = new JFrame("Scrollable Rectangle Panel Example");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        // The panel is as big as the rooms in it, and only the part in the window is painted
+        mapScrollPane = new JScrollPane();
+        mapScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+        mapScrollPane.getVerticalScrollBar().setUnitIncrement(MapTileCache.TILE_SIZE / 8);
+        mapScrollPane.getHorizontalScrollBar().setUnitIncrement(MapTileCache.TILE_SIZE / 8);
+
+        frame.add(mapScrollPane);
+        frame.setSize(1500, 1000);
+        frame.setLocationRelativeTo(null);
+      }
 
-      frame.add(scrollPane);
-      frame.setSize(5000, 5000);
-      frame.setLocationRelativeTo(null);
+      RectanglePanel shown = (RectanglePanel) mapScrollPane.getViewport().getView();
+      if (shown == null || shown.getClinic() != clinic) {
+        // Create menu bar and add it to the frame
+        frame.setJMenuBar(createMenuBar(clinic));
+        mapScrollPane.setViewportView(new RectanglePanel(clinic));
+        mapScrollPane.revalidate();
+        mapScrollPane.repaint();
+      }
       frame.setVisible(true);
-
-      scrollPane.revalidate();
-      scrollPane.repaint();
+      frame.toFront();
     });
   }
 
@@ -613,13 +746,7 @@ public class ClinicConsoleController extends JFrame implements ClinicController
         this.out.append("Please enter the Last Name of the Staff Member you want to remove:");
         disChargeStaffLastName = getValidNameInput();
 
-        for (Staff staff : clinic.getClinicStaffs()) {
-          if (staff.getFirstName().contains(disChargeStaffFirstName)
-              && staff.getLastName().contains(disChargeStaffLastName)) {
-            dischargeStaff = staff;
-            break;
-          }
-        }
+        dischargeStaff = clinic.findStaff(disChargeStaffFirstName, disChargeStaffLastName);
 
         if (dischargeStaff == null) {
           this.out.append("Staff doesn't exist." + " Do you want to try again? (yes/no)");
@@ -659,16 +786,10 @@ public class ClinicConsoleController extends JFrame implements ClinicController
     this.out.append("--------------------------------------------------------------------------\n");
     int count = 0;
     int numStaff = 0;
-    for (Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
+    for (ReportSnapshot.StaffInfo staff : clinic.getReportSnapshot().getStaff()) {
       numStaff++;
-      if (entry.getValue().size() != 0) {
-        this.out.append("Staff: " + entry.getKey().getFirstName() + " "
-            + entry.getKey().getLastName() + "\nClients assigned: ");
-        for (Client c : entry.getValue()) {
-          this.out.append("\n " + c.getLastName() + ", " + c.getFirstName());
-        }
-        this.out.append(
-            "\nTotal number of assigned patients ever: " + entry.getKey().getNumPatients() + "\n");
+      if (staff.getClients().size() != 0) {
+        writeStaffInfo(staff);
       } else {
         count++;
       }
@@ -679,6 +800,21 @@ public class ClinicConsoleController extends JFrame implements ClinicController
     this.out.append("--------------------------------------------------------------------------\n");
   }
 
+  /**
+   * Writes the name of the staff member, their clients and how many patients they ever had.
+   *
+   * @param staff What a report snapshot has of the staff member.
+   * @throws IOException If an I/O error occurs while writing to the output stream.
+   */
+  private void writeStaffInfo(ReportSnapshot.StaffInfo staff) throws IOException {
+    this.out.append("Staff: " + staff.getFirstName() + " " + staff.getLastName()
+        + "\nClients assigned: ");
+    for (String client : staff.getClients()) {
+      this.out.append("\n " + client);
+    }
+    this.out.append("\nTotal number of assigned patients ever: " + staff.getNumPatients() + "\n");
+  }
+
   /**
    * This method handles adding a new room.
    * 
@@ -712,12 +848,8 @@ public class ClinicConsoleController extends JFrame implements ClinicController
         this.out.append("Please enter the Last Name of the Staff who approved this:");
         disChargeStaffLastName = getValidNameInput();
 
-        for (Staff staff : clinic.getClinicStaffs()) {
-          if (staff.getFirstName().contains(disChargeStaffFirstName)
-              && staff.getLastName().contains(disChargeStaffLastName)) {
-            secondCheck = true;
-            break;
-          }
+        if (clinic.findStaff(disChargeStaffFirstName, disChargeStaffLastName) != null) {
+          secondCheck = true;
         }
 
         if (!secondCheck) {
@@ -869,13 +1001,9 @@ public class ClinicConsoleController extends JFrame implements ClinicController
         String lastName = "";
         lastName = getValidNameInput();
         boolean patientFound = false;
-        for (Client client : clinic.getClinicClients()) {
-          if (client.getFirstName().contains(firstName)
-              && client.getLastName().contains(lastName)) {
-            patient = client;
-            patientFound = true;
-            break;
-          }
+        patient = clinic.findClient(firstName, lastName);
+        if (patient != null) {
+          patientFound = true;
         }
 
         if (!patientFound) {
@@ -954,7 +1082,9 @@ public class ClinicConsoleController extends JFrame implements ClinicController
 
   public void handleDisplayAllInfo(Clinic clinic) throws IOException {
     try {
-      this.out.append(displayAllInfo(clinic));
+      ReportWriter writer = new ReportWriter(this.out);
+      writeAllInfo(clinic, writer);
+      writer.flush();
     } catch (IOException e) {
       this.out.append("whatever");
     }
@@ -1010,7 +1140,11 @@ public class ClinicConsoleController extends JFrame implements ClinicController
 
       // Display room information
       this.out.append("Room Information:\n");
-      this.out.append(roomName + "\n" + displayRoomInfo(roomInfo, clinic) + "\n");
+      ReportWriter writer = new ReportWriter(this.out);
+      writer.append(roomName).append('\n');
+      writeRoomInfo(roomInfo, clinic, writer);
+      writer.append('\n');
+      writer.flush();
       // Display other room information as needed
 
       this.out.append("Do you want to see another room? (yes/no)\n");
@@ -0,0 +1,107 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The purpose of this class is to time many front desks using one clinic at the same time. Every
+ * thread has its own client, its own staff member and its own rooms, and it keeps moving its
+ * client from room to room, assigning its staff member to the client and removing them again.
+ *
+ * <p>Each number of threads from 1 to 64 is timed twice: with one lock for every room and staff
+ * member, which is the same as one lock for the whole clinic, and with the default number of
+ * striped locks, where the threads don't wait for each other. The benchmark can only show the
+ * difference on a computer with more than one processor.
+ */
+public class ClinicContentionBenchmark {
+  private static final int MAX_THREADS = 64;
+  private static final int ROOMS_PER_THREAD = 8;
+  private static final int OPERATIONS = 400_000;
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+  /**
+   * The main function runs every number of threads with both kinds of locks and prints how many
+   * operations were done every second.
+   *
+   * @param args isn't used for the benchmark.
+   * @throws InterruptedException if the benchmark is stopped.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    System.out.println(String.format("%d processors, %d operations for every run",
+        Runtime.getRuntime().availableProcessors(), OPERATIONS));
+    System.out.println(String.format("%8s %16s %16s %10s", "threads", "1 lock ops/s",
+        ConcurrentClinic.DEFAULT_STRIPES + " locks ops/s", "speedup"));
+    // The first runs only warm up the code
+    run(4, 1);
+    run(4, ConcurrentClinic.DEFAULT_STRIPES);
+    for (int threads : THREADS) {
+      double single = run(threads, 1);
+      double striped = run(threads, ConcurrentClinic.DEFAULT_STRIPES);
+      System.out.println(String.format("%8d %16.0f %16.0f %9.2fx", threads, single, striped,
+          striped / single));
+    }
+  }
+
+  /**
+   * This method builds a clinic and has the threads work on it until they did all of the
+   * operations together.
+   *
+   * @return the number of operations every second.
+   */
+  private static double run(int threads, int stripes) throws InterruptedException {
+    Clinic clinic = new Clinic("Benchmark");
+    clinic.addClinicRoom(new Room(new int[] {0, 0, 10, 10}, "waiting", "Waiting Room"));
+    for (int i = 0; i < MAX_THREADS * ROOMS_PER_THREAD; i++) {
+      int x = 20 + (i % 32) * 6;
+      int y = (i / 32) * 6;
+      clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, "exam", "Room_" + i));
+    }
+    List<Client> clients = new ArrayList<>();
+    List<Staff> staff = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      clients.add(clinic.addClinicClient(new Client(1, "First" + i, "Last" + i, "1/1/1990")));
+      Staff physician = new Staff("physician", "First" + i, "Last" + i);
+      clinic.addClinicStaff(physician);
+      staff.add(physician);
+    }
+    ConcurrentClinic shared = new ConcurrentClinic(clinic, stripes);
+    List<Room> rooms = clinic.getClinicRooms();
+    int each = OPERATIONS / threads;
+
+    CountDownLatch ready = new CountDownLatch(threads);
+    CountDownLatch go = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Client client = clients.get(t);
+      Staff physician = staff.get(t);
+      int firstRoom = 1 + t * ROOMS_PER_THREAD;
+      Thread worker = new Thread(() -> {
+        ready.countDown();
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < each; i++) {
+          if (i % 2 == 0) {
+            shared.assignClientToNewRoom(client, rooms.get(firstRoom + (i / 2) % ROOMS_PER_THREAD));
+          } else if (i % 4 == 1) {
+            shared.assignClientToStaff(physician, client);
+          } else {
+            shared.removeClientFromStaff(physician, client);
+          }
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    ready.await();
+    long start = System.nanoTime();
+    go.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return each * (double) threads / ((System.nanoTime() - start) / 1e9);
+  }
+}
@@ -0,0 +1,219 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * This class is one change to a clinic, which the clinic sends to the listeners of its
+ * {@link ClinicEventBus}. Every event has a type, the client, staff member or room it is about,
+ * and the numbers of the rooms that look different because of it, so a room map only has to draw
+ * those rooms again.
+ *
+ * <p>Events don't change after they are made, so they can be handed to any thread.
+ */
+public final class ClinicEvent {
+  /**
+   * The kinds of changes to a clinic.
+   */
+  public enum Type {
+    /** A client came into the clinic, or came back to it. */
+    CLIENT_REGISTERED,
+    /** A client moved from one room to another. */
+    CLIENT_MOVED,
+    /** Something about a client changed, like their visit record. */
+    CLIENT_UPDATED,
+    /** A client left the clinic. */
+    CLIENT_DISCHARGED,
+    /** A staff member was assigned to a client. */
+    STAFF_ASSIGNED,
+    /** A staff member was removed from a client. */
+    STAFF_UNASSIGNED,
+    /** A room was added to the clinic. */
+    ROOM_ADDED,
+    /** A room was removed from the clinic. */
+    ROOM_REMOVED,
+    /** Everything in the clinic was removed at once. */
+    CLINIC_CLEARED
+  }
+
+  private static final int[] NO_ROOMS = new int[0];
+
+  private final Type type;
+  private final Client client;
+  private final Staff staff;
+  private final Room room;
+  private final int[] roomNumbers;
+
+  private ClinicEvent(Type type, Client client, Staff staff, Room room, int... roomNumbers) {
+    this.type = type;
+    this.client = client;
+    this.staff = staff;
+    this.room = room;
+    this.roomNumbers = roomNumbers;
+  }
+
+  /**
+   * This makes the event for a client that came into the clinic.
+   *
+   * @param client is the client.
+   * @return the event.
+   */
+  public static ClinicEvent clientRegistered(Client client) {
+    return new ClinicEvent(Type.CLIENT_REGISTERED, client, null, null, client.getRoomNum());
+  }
+
+  /**
+   * This makes the event for a client that moved to another room.
+   *
+   * @param client is the client.
+   * @param from is the number of the room the client left.
+   * @param to is the number of the room the client is in now.
+   * @return the event.
+   */
+  public static ClinicEvent clientMoved(Client client, int from, int to) {
+    return new ClinicEvent(Type.CLIENT_MOVED, client, null, null, from, to);
+  }
+
+  /**
+   * This makes the event for a client whose information changed.
+   *
+   * @param client is the client.
+   * @return the event.
+   */
+  public static ClinicEvent clientUpdated(Client client) {
+    return new ClinicEvent(Type.CLIENT_UPDATED, client, null, null, client.getRoomNum());
+  }
+
+  /**
+   * This makes the event for a client that left the clinic.
+   *
+   * @param client is the client.
+   * @param roomNumber is the number of the room the client was in.
+   * @return the event.
+   */
+  public static ClinicEvent clientDischarged(Client client, int roomNumber) {
+    return new ClinicEvent(Type.CLIENT_DISCHARGED, client, null, null, roomNumber);
+  }
+
+  /**
+   * This makes the event for a staff member that was assigned to a client, or removed from one.
+   *
+   * @param staff is the staff member.
+   * @param client is the client.
+   * @param assigned is true if the staff member was assigned, or false if they were removed.
+   * @return the event.
+   */
+  public static ClinicEvent staffChanged(Staff staff, Client client, boolean assigned) {
+    return new ClinicEvent(assigned ? Type.STAFF_ASSIGNED : Type.STAFF_UNASSIGNED, client, staff,
+        null, client.getRoomNum());
+  }
+
+  /**
+   * This makes the event for a room that was added to the clinic, or removed from it.
+   *
+   * @param room is the room.
+   * @param roomNumber is the number of the room.
+   * @param added is true if the room was added, or false if it was removed.
+   * @return the event.
+   */
+  public static ClinicEvent roomChanged(Room room, int roomNumber, boolean added) {
+    return new ClinicEvent(added ? Type.ROOM_ADDED : Type.ROOM_REMOVED, null, null, room,
+        roomNumber);
+  }
+
+  /**
+   * This makes the event for a clinic that had everything removed.
+   *
+   * @return the event.
+   */
+  public static ClinicEvent clinicCleared() {
+    return new ClinicEvent(Type.CLINIC_CLEARED, null, null, null, NO_ROOMS);
+  }
+
+  /**
+   * Retrieves the kind of change.
+   *
+   * @return the type of the event.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Retrieves the client the event is about.
+   *
+   * @return the client, or null if the event isn't about a client.
+   */
+  public Client getClient() {
+    return client;
+  }
+
+  /**
+   * Retrieves the staff member the event is about.
+   *
+   * @return the staff member, or null if the event isn't about a staff member.
+   */
+  public Staff getStaff() {
+    return staff;
+  }
+
+  /**
+   * Retrieves the room the event is about.
+   *
+   * @return the room, or null if the event isn't about a room being added or removed.
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  /**
+   * Retrieves the numbers of the rooms that look different because of the change.
+   *
+   * @return the room numbers, which are empty when the whole clinic changed.
+   */
+  public int[] getRoomNumbers() {
+    return roomNumbers.clone();
+  }
+
+  /**
+   * This method checks if the rooms of the clinic were added or removed, and not only what is in
+   * them, so the whole map has to be laid out again.
+   *
+   * @return true if the rooms themselves changed.
+   */
+  public boolean changesRooms() {
+    return type == Type.ROOM_ADDED || type == Type.ROOM_REMOVED || type == Type.CLINIC_CLEARED;
+  }
+
+  /**
+   * This method checks if the later event is the same kind of change to the same client, staff
+   * member and room, so the two can be sent as one.
+   */
+  boolean sameChangeAs(ClinicEvent other) {
+    return type == other.type && client == other.client && staff == other.staff
+        && room == other.room;
+  }
+
+  /**
+   * This method makes one event out of this event and a later one of the same change, with the
+   * rooms of both of them. A client that moved twice has the three rooms it was in.
+   */
+  ClinicEvent merge(ClinicEvent later) {
+    int[] merged = Arrays.copyOf(roomNumbers, roomNumbers.length + later.roomNumbers.length);
+    int count = roomNumbers.length;
+    for (int number : later.roomNumbers) {
+      boolean seen = false;
+      for (int i = 0; i < count; i++) {
+        seen |= merged[i] == number;
+      }
+      if (!seen) {
+        merged[count++] = number;
+      }
+    }
+    return new ClinicEvent(type, client, staff, room, Arrays.copyOf(merged, count));
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + Arrays.toString(roomNumbers);
+  }
+}
@@ -0,0 +1,152 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import javax.swing.SwingUtilities;
+
+/**
+ * This class tells listeners about the changes to a clinic. The clinic publishes an event for every
+ * change, and the events are held until the dispatcher runs, which is the Swing event thread
+ * unless another one is set. Then every listener gets all of the events at once.
+ *
+ * <p>The events are coalesced before they are sent. The same change to the same client, staff
+ * member or room is sent once with the rooms of all of them, and everything before the clinic was
+ * cleared is dropped. A dialog that changes a few things, or a file being loaded, is one batch for
+ * the listeners instead of one call for every change.
+ *
+ * <p>Nothing is held while there are no listeners, so a clinic that nobody watches doesn't pay for
+ * its events.
+ */
+public class ClinicEventBus {
+  /**
+   * The listener is told about the changes to the clinic.
+   */
+  public interface Listener {
+    /**
+     * This method is called by the dispatcher with the changes since the last time.
+     *
+     * @param events are the coalesced changes, from first to last.
+     */
+    void clinicChanged(List<ClinicEvent> events);
+  }
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private Executor dispatcher = SwingUtilities::invokeLater;
+  // Guarded by this
+  private List<ClinicEvent> pending = new ArrayList<>();
+  private boolean scheduled;
+
+  /**
+   * This method starts telling the listener about the changes to the clinic.
+   *
+   * @param listener is the listener.
+   */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * This method stops telling the listener about the changes to the clinic.
+   *
+   * @param listener is the listener.
+   */
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Sets what runs the listeners. The events that come in before it runs are sent together.
+   *
+   * @param dispatcher runs the listeners.
+   * @throws IllegalArgumentException if the dispatcher is null.
+   */
+  public void setDispatcher(Executor dispatcher) {
+    if (dispatcher == null) {
+      throw new IllegalArgumentException("The dispatcher can't be null");
+    }
+    this.dispatcher = dispatcher;
+  }
+
+  /**
+   * This method holds the event until the dispatcher sends it to the listeners.
+   *
+   * @param event is the change to the clinic.
+   */
+  public void publish(ClinicEvent event) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    boolean schedule;
+    synchronized (this) {
+      if (event.getType() == ClinicEvent.Type.CLINIC_CLEARED) {
+        // Nothing that happened before the clinic was cleared is left to draw
+        pending.clear();
+      }
+      pending.add(event);
+      schedule = !scheduled;
+      scheduled = true;
+    }
+    if (schedule) {
+      dispatcher.execute(this::dispatch);
+    }
+  }
+
+  /**
+   * This method sends the events that are held to every listener.
+   */
+  private void dispatch() {
+    List<ClinicEvent> events;
+    synchronized (this) {
+      events = pending;
+      pending = new ArrayList<>();
+      scheduled = false;
+    }
+    List<ClinicEvent> batch = Collections.unmodifiableList(coalesce(events));
+    for (Listener listener : listeners) {
+      listener.clinicChanged(batch);
+    }
+  }
+
+  /**
+   * This method makes one event out of every event of the same change, where the first one was.
+   *
+   * @param events are the events, from first to last.
+   * @return the coalesced events.
+   */
+  static List<ClinicEvent> coalesce(List<ClinicEvent> events) {
+    Map<Key, ClinicEvent> merged = new LinkedHashMap<>();
+    for (ClinicEvent event : events) {
+      merged.merge(new Key(event), event, ClinicEvent::merge);
+    }
+    return new ArrayList<>(merged.values());
+  }
+
+  /**
+   * The change an event is about. The client, staff member and room are compared by identity,
+   * since their equality depends on fields that change.
+   */
+  private static final class Key {
+    private final ClinicEvent event;
+
+    Key(ClinicEvent event) {
+      this.event = event;
+    }
+
+    @Override
+    public int hashCode() {
+      return (event.getType().hashCode() * 31 + System.identityHashCode(event.getClient())) * 31
+          + System.identityHashCode(event.getStaff()) * 17
+          + System.identityHashCode(event.getRoom());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && event.sameChangeAs(((Key) obj).event);
+    }
+  }
+}
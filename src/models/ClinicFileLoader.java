@@ -0,0 +1,263 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class loads a clinic file into a clinic without going through java.util.Scanner. The file
+ * is memory mapped and the room, staff and client sections are read with a small byte level
+ * tokenizer, so large client sections are parsed without any regular expressions. The rooms, staff
+ * and clients that are produced are the same as the ones the Scanner version produced.
+ */
+public class ClinicFileLoader {
+  /**
+   * The sections of a clinic file, in the order they are in the file.
+   */
+  public enum Section {
+    ROOMS, STAFF, CLIENTS
+  }
+
+  /**
+   * The sink gets every room, staff member and client as soon as it is read.
+   */
+  public interface Sink {
+    /**
+     * This method is called for every room in the file.
+     *
+     * @param room is the room that was read.
+     */
+    void room(Room room);
+
+    /**
+     * This method is called for every staff member in the file.
+     *
+     * @param staff is the staff member that was read.
+     */
+    void staff(Staff staff);
+
+    /**
+     * This method is called for every client in the file.
+     *
+     * @param client is the client that was read.
+     */
+    void client(Client client);
+
+    /**
+     * This method is called after the last of a section was read.
+     *
+     * @param section is the section that was read.
+     */
+    void sectionDone(Section section);
+  }
+
+  private final MappedByteBuffer buffer;
+  private final int limit;
+  private byte[] scratch = new byte[64];
+  private int lines;
+
+  /**
+   * The constructor maps the given file into memory so it can be parsed.
+   *
+   * @param file is the clinic file that is going to be read.
+   * @throws IOException if the file can't be opened or mapped.
+   */
+  public ClinicFileLoader(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Clinic file is too large to be mapped");
+      }
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      this.limit = (int) size;
+    }
+  }
+
+  /**
+   * This method reads the whole file into the given clinic. The name of the clinic is replaced by
+   * the name in the first line of the file.
+   *
+   * @param clinic is the clinic the rooms, staff and clients are added to.
+   * @return the name of the clinic that was on the first line of the file.
+   * @throws IllegalArgumentException if the file doesn't follow the clinic file format.
+   */
+  public String load(Clinic clinic) {
+    return load(new Sink() {
+      @Override
+      public void room(Room room) {
+        clinic.addClinicRoom(room).setStatus(true);
+      }
+
+      @Override
+      public void staff(Staff staff) {
+        clinic.addClinicStaff(staff);
+      }
+
+      @Override
+      public void client(Client client) {
+        clinic.addClinicClient(client);
+      }
+
+      @Override
+      public void sectionDone(Section section) {
+        // The clinic has every record as soon as it is read
+      }
+    });
+  }
+
+  /**
+   * This method reads the whole file, and gives every room, staff member and client to the sink
+   * in the order they are in the file.
+   *
+   * @param sink gets what was read.
+   * @return the name of the clinic that was on the first line of the file.
+   * @throws IllegalArgumentException if the file doesn't follow the clinic file format.
+   */
+  public String load(Sink sink) {
+    String name = nextLine();
+
+    int numRoom = Integer.parseInt(nextLine().trim());
+    for (int i = 0; i < numRoom; i++) {
+      int[] id = new int[4];
+      for (int j = 0; j < 4; j++) {
+        id[j] = nextInt();
+      }
+      String roomType = nextToken();
+      // The rest of the line is the room name, exactly like Scanner.nextLine()
+      sink.room(new Room(id, roomType, nextLine()));
+    }
+    sink.sectionDone(Section.ROOMS);
+
+    int numStaff = Integer.parseInt(nextLine().trim());
+    for (int i = 0; i < numStaff; i++) {
+      sink.staff(new Staff(nextToken(), nextToken(), nextToken()));
+    }
+    sink.sectionDone(Section.STAFF);
+
+    int numClient = nextInt();
+    for (int i = 0; i < numClient; i++) {
+      int roomNumber = nextInt();
+      String firstName = nextToken();
+      String lastName = nextToken();
+      String birthDay = nextToken();
+      sink.client(new Client(roomNumber, firstName, lastName, birthDay));
+    }
+    sink.sectionDone(Section.CLIENTS);
+    return name;
+  }
+
+  /**
+   * Retrieves the number of lines that have been read so far.
+   *
+   * @return the number of lines read.
+   */
+  public int getLinesRead() {
+    return lines;
+  }
+
+  /**
+   * Retrieves the number of bytes of the file that have been read so far.
+   *
+   * @return the number of bytes read.
+   */
+  public int getBytesRead() {
+    return buffer.position();
+  }
+
+  /**
+   * Retrieves the size of the mapped file.
+   *
+   * @return the number of bytes in the file.
+   */
+  public int getSize() {
+    return limit;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+  }
+
+  private void skipWhitespace() {
+    int pos = buffer.position();
+    while (pos < limit) {
+      byte b = buffer.get(pos);
+      if (!isWhitespace(b)) {
+        break;
+      }
+      if (b == '\n') {
+        lines++;
+      }
+      pos++;
+    }
+    buffer.position(pos);
+  }
+
+  private String nextToken() {
+    skipWhitespace();
+    int start = buffer.position();
+    int pos = start;
+    while (pos < limit && !isWhitespace(buffer.get(pos))) {
+      pos++;
+    }
+    if (pos == start) {
+      throw new IllegalArgumentException("Clinic file ended before it was expected to");
+    }
+    buffer.position(pos);
+    return decode(start, pos);
+  }
+
+  private int nextInt() {
+    skipWhitespace();
+    int pos = buffer.position();
+    boolean negative = false;
+    if (pos < limit && buffer.get(pos) == '-') {
+      negative = true;
+      pos++;
+    }
+    int start = pos;
+    int value = 0;
+    while (pos < limit && !isWhitespace(buffer.get(pos))) {
+      int digit = buffer.get(pos) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("Expected a number in the clinic file");
+      }
+      value = value * 10 + digit;
+      pos++;
+    }
+    if (pos == start) {
+      throw new NumberFormatException("Expected a number in the clinic file");
+    }
+    buffer.position(pos);
+    return negative ? -value : value;
+  }
+
+  private String nextLine() {
+    int start = buffer.position();
+    int pos = start;
+    while (pos < limit && buffer.get(pos) != '\n') {
+      pos++;
+    }
+    int end = pos;
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--;
+    }
+    if (pos < limit) {
+      pos++;
+      lines++;
+    }
+    buffer.position(pos);
+    return decode(start, end);
+  }
+
+  private String decode(int start, int end) {
+    int length = end - start;
+    if (length > scratch.length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    buffer.get(start, scratch, 0, length);
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,867 @@
+package models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append only journal of the changes that are made to a clinic. Every mutation
+ * of the clinic is written as a small record, and a background thread writes the records to disk
+ * in batches with one fsync per batch. The thread that made the change only puts the record in a
+ * queue, so the GUI never waits for the disk.
+ *
+ * <p>When the clinic is started again, the last snapshot is loaded and the records in the journal
+ * are replayed on top of it. A checkpoint writes a new snapshot and empties the journal. A journal
+ * that knows its clinic file is checkpointed after the clinic is loaded, and again whenever it
+ * grows past {@link #DEFAULT_CHECKPOINT_SIZE} bytes, so a start only replays the changes since
+ * the last checkpoint. The thread that changes the clinic only builds the snapshot in memory and
+ * puts it in the queue with the records, and the writer thread writes it between the records
+ * that came before it and the ones that came after.
+ *
+ * <p>The journal starts with a header of a magic number, the version of its records, which is
+ * {@link #VERSION}, and its generation. A journal of another version, or one from before journals
+ * had a header, is refused rather than replayed, since its records would be read wrong. Each
+ * record is written as its length, its type, its payload and a CRC32 of the type and payload. A
+ * record that was only partly written when the program stopped fails its check, and the journal
+ * is cut back to the last complete record.
+ *
+ * <p>Every checkpoint starts a new generation. The snapshot is written with the generation of the
+ * journal that continues it before the journal is emptied, so if the program stops in between,
+ * the journal left behind is of an older generation than the snapshot and is thrown away instead
+ * of being replayed a second time.
+ *
+ * <p>If the journal can't be written, nothing more is written to it. {@link #flush()} throws the
+ * error, and every change made after it throws an {@link IllegalStateException} before the clinic
+ * is changed, since a change recorded after one that was lost would replay on the wrong clinic.
+ *
+ * <p>Clients and staff members are referred to by their numeric id. The clinic gives out ids in
+ * the order entities are added, so replaying the records on the clinic they were recorded on gives
+ * every new client and staff member the same id they had before.
+ */
+public class ClinicJournal implements AutoCloseable {
+  /**
+   * The extension that is added to a clinic file to find its journal.
+   */
+  public static final String EXTENSION = ".journal";
+
+  /**
+   * The version of the records in the journal. Journals without a version had records that
+   * referred to clients in another way, so they count as the first version. The second version
+   * had no generation in its header, and the third referred to staff members by their names.
+   */
+  public static final short VERSION = 4;
+
+  /**
+   * The number of bytes of the header at the start of every journal.
+   */
+  public static final int HEADER_SIZE = 14;
+
+  private static final int MAGIC = 0x434C4E4A;
+
+  static final byte ADD_ROOM = 1;
+  static final byte REMOVE_ROOM = 2;
+  static final byte ADD_STAFF = 3;
+  static final byte REMOVE_STAFF = 4;
+  static final byte ADD_CLIENT = 5;
+  static final byte REGISTER_CLIENT = 6;
+  static final byte READMIT_CLIENT = 7;
+  static final byte RECORD_VISIT = 8;
+  static final byte REMOVE_CLIENT = 9;
+  static final byte MOVE_CLIENT = 10;
+  static final byte ASSIGN_STAFF_TO_CLIENT = 11;
+  static final byte REMOVE_STAFF_FROM_CLIENT = 12;
+  static final byte ASSIGN_CLIENT_TO_STAFF = 13;
+  static final byte REMOVE_CLIENT_FROM_STAFF = 14;
+
+  /**
+   * The number of bytes the journal can grow to before the clinic is checkpointed, unless another
+   * size is set.
+   */
+  public static final long DEFAULT_CHECKPOINT_SIZE = 4L << 20;
+
+  private static final int MAX_BATCH = 4096;
+  // Every journal that is open is closed by one shutdown hook
+  private static final Set<ClinicJournal> OPEN = ConcurrentHashMap.newKeySet();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      for (ClinicJournal journal : OPEN) {
+        journal.closeQuietly();
+      }
+    }, "clinic-journal-close"));
+  }
+
+  private final Path path;
+  private final File clinicFile;
+  private final FileChannel channel;
+  // Records are ByteBuffers, and a Checkpoint is written once every record before it is
+  private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+  private final Object lock = new Object();
+  private final Thread writer;
+  private final AtomicLong appended = new AtomicLong();
+  private final AtomicLong size = new AtomicLong();
+  private volatile long checkpointSize = DEFAULT_CHECKPOINT_SIZE;
+  private long synced;
+  private long generation;
+  private volatile boolean closed;
+  private volatile IOException failure;
+
+  /**
+   * The constructor opens the journal for appending and starts the thread that writes it. The
+   * journal doesn't know its clinic file, so it is never checkpointed by itself.
+   *
+   * @param path is the journal file.
+   * @throws IOException if the journal can't be opened.
+   */
+  public ClinicJournal(Path path) throws IOException {
+    this(path, null, 0);
+  }
+
+  /**
+   * The constructor opens the journal of the clinic file for appending and starts the thread that
+   * writes it. The snapshot of a checkpoint is written next to the clinic file.
+   *
+   * @param path is the journal file.
+   * @param clinicFile is the clinic text file, or null if the journal has none.
+   * @throws IOException if the journal can't be opened, or it is of another version.
+   */
+  public ClinicJournal(Path path, File clinicFile) throws IOException {
+    this(path, clinicFile, 0);
+  }
+
+  /**
+   * The constructor opens the journal like {@link #ClinicJournal(Path, File)}. A journal that is
+   * started in an empty file gets the given generation, and one that already has records keeps
+   * its own.
+   */
+  private ClinicJournal(Path path, File clinicFile, long generation) throws IOException {
+    this.path = path;
+    this.clinicFile = clinicFile;
+    this.generation = generation;
+    long existing = Files.exists(path) ? Files.size(path) : 0;
+    if (existing > 0) {
+      // Records are only added to a journal of the same version
+      this.generation = checkHeader(readHeader(path), path);
+    }
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    if (existing > 0) {
+      this.size.set(existing - HEADER_SIZE);
+    } else {
+      // The header is the first thing the writer thread writes
+      appended.incrementAndGet();
+      queue.add(header(generation));
+    }
+    this.writer = new Thread(this::writeLoop, "clinic-journal");
+    this.writer.setDaemon(true);
+    this.writer.start();
+    OPEN.add(this);
+  }
+
+  /**
+   * This method loads the clinic for the given clinic file and attaches a journal to it. The
+   * clinic comes from the snapshot next to the file when there is one, and then the journal next
+   * to the file is replayed on top of it. If the text file had to be parsed again, the journal
+   * belongs to an older state of the clinic and is thrown away.
+   *
+   * @param clinic is the empty clinic that is going to be loaded.
+   * @param file is the clinic text file.
+   * @return the journal that now records the changes made to the clinic.
+   * @throws IOException if the journal can't be read or opened.
+   */
+  public static ClinicJournal recover(Clinic clinic, File file) throws IOException {
+    return attach(clinic, file, ClinicSnapshot.loadOrParse(clinic, file));
+  }
+
+  /**
+   * This method attaches a journal to a clinic that was just loaded for the given clinic file. If
+   * the clinic came from the snapshot, the journal next to the file is replayed on top of it first,
+   * and the clinic is checkpointed if anything was replayed. A journal of an older generation than
+   * the snapshot is already part of it and is thrown away without being replayed. If the clinic
+   * didn't come from the snapshot, the journal belongs to an older state of the clinic and is
+   * thrown away too, and the clinic is checkpointed so the next start reads the snapshot. A
+   * journal the clinic already had is closed.
+   *
+   * @param clinic is the clinic that was loaded.
+   * @param file is the clinic text file.
+   * @param fromSnapshot is true if the clinic came from the snapshot next to the file.
+   * @return the journal that now records the changes made to the clinic.
+   * @throws IOException if the journal can't be read or opened, or it doesn't continue the
+   *     snapshot.
+   */
+  public static ClinicJournal attach(Clinic clinic, File file, boolean fromSnapshot)
+      throws IOException {
+    ClinicJournal previous = clinic.getJournal();
+    if (previous != null) {
+      clinic.setJournal(null);
+      previous.close();
+    }
+    Path journalPath = new File(file.getPath() + EXTENSION).toPath();
+    int replayed = 0;
+    long generation = 0;
+    if (fromSnapshot) {
+      generation = ClinicSnapshot.readGeneration(
+          new File(file.getPath() + ClinicSnapshot.EXTENSION).toPath());
+      replayed = replay(clinic, journalPath, generation);
+      if (replayed > 0) {
+        System.out.println("Replayed " + replayed + " changes from the journal");
+      }
+      if (generationOf(journalPath) < generation) {
+        // The last checkpoint stopped before it emptied the journal
+        Files.deleteIfExists(journalPath);
+      }
+    } else {
+      Files.deleteIfExists(journalPath);
+    }
+    ClinicJournal journal = new ClinicJournal(journalPath, file, generation);
+    clinic.setJournal(journal);
+    if (replayed > 0 || !fromSnapshot) {
+      // The replayed changes go into the snapshot, so the next start doesn't replay them again
+      journal.checkpoint(clinic);
+    }
+    return journal;
+  }
+
+  /**
+   * This method replays every complete record in the journal on the clinic. The clinic's own
+   * journal is detached while the records are applied so they are not written twice. A torn
+   * record at the end of the file is cut off, and so is a header that was only partly written.
+   *
+   * @param clinic is the clinic the changes are applied to.
+   * @param path is the journal file.
+   * @return the number of records that were replayed.
+   * @throws IOException if the journal can't be read, or it is of another version.
+   */
+  public static int replay(Clinic clinic, Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+    int good = 0;
+    if (in.remaining() < HEADER_SIZE) {
+      in.position(in.limit());
+    } else {
+      checkHeader(in, path);
+      good = HEADER_SIZE;
+    }
+    ClinicJournal attached = clinic.getJournal();
+    clinic.setJournal(null);
+    int count = 0;
+    try {
+      while (in.remaining() >= 4) {
+        int length = in.getInt(in.position());
+        if (length <= 0 || in.remaining() < 4 + length + 4) {
+          break;
+        }
+        byte[] body = new byte[length];
+        in.position(in.position() + 4);
+        in.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != in.getInt()) {
+          break;
+        }
+        apply(clinic, body);
+        good = in.position();
+        count++;
+      }
+    } finally {
+      clinic.setJournal(attached);
+    }
+    if (good < in.limit()) {
+      System.out.println("Journal has a torn record at the end, it was cut off");
+      try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        truncate.truncate(good);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * This method replays the journal on a clinic that was loaded from a snapshot, like
+   * {@link #replay(Clinic, Path)}, if the journal continues the snapshot. A journal of an older
+   * generation than the snapshot was already written into it, so nothing is replayed.
+   *
+   * @param clinic is the clinic the changes are applied to.
+   * @param path is the journal file.
+   * @param generation is the generation of the journal that continues the snapshot.
+   * @return the number of records that were replayed.
+   * @throws IOException if the journal can't be read, it is of another version, or it is of a
+   *     newer generation than the snapshot.
+   */
+  public static int replay(Clinic clinic, Path path, long generation) throws IOException {
+    long written = generationOf(path);
+    if (written > generation) {
+      throw new IOException("Journal of generation " + written
+          + " is newer than the snapshot it continues, which is of generation " + generation
+          + ": " + path);
+    }
+    if (written < generation) {
+      return 0;
+    }
+    return replay(clinic, path);
+  }
+
+  /**
+   * This method writes a new snapshot of the clinic next to the clinic file and empties the
+   * journal, since every change in it is now part of the snapshot. The snapshot and the emptied
+   * journal are of the next generation, so a journal that wasn't emptied before the program
+   * stopped is not replayed on the new snapshot. It has to be called from the thread that changes
+   * the clinic, so nothing is logged while the snapshot is built.
+   *
+   * <p>Only the building of the snapshot is done here. The writer thread writes it after the
+   * records that were logged before it, and then empties the journal for the records that are
+   * logged after it, so {@link #flush()} waits for the checkpoint too. If the snapshot can't be
+   * written, the journal keeps its records and the checkpoint is due again.
+   *
+   * @param clinic is the clinic that is going to be saved.
+   * @param file is the clinic text file.
+   * @throws IllegalStateException if the journal is closed or could not be written.
+   */
+  public void checkpoint(Clinic clinic, File file) {
+    ensureWritable();
+    long next = generation + 1;
+    Checkpoint checkpoint = new Checkpoint(
+        new File(file.getPath() + ClinicSnapshot.EXTENSION).toPath(),
+        ClinicSnapshot.encode(clinic, next), next, size.getAndSet(0));
+    generation = next;
+    appended.incrementAndGet();
+    queue.add(checkpoint);
+  }
+
+  /**
+   * This method checkpoints the clinic next to the clinic file of the journal, the same as
+   * {@link #checkpoint(Clinic, File)}.
+   *
+   * @param clinic is the clinic that is going to be saved.
+   * @throws IllegalStateException if the journal doesn't know its clinic file, or it is closed
+   *     or could not be written.
+   */
+  public void checkpoint(Clinic clinic) {
+    if (clinicFile == null) {
+      throw new IllegalStateException("The journal has no clinic file to checkpoint next to");
+    }
+    checkpoint(clinic, clinicFile);
+  }
+
+  /**
+   * This method checks if the journal has grown past the checkpoint size and knows where to write
+   * the snapshot of a checkpoint. A journal that is closed or could not be written is never due.
+   *
+   * @return true if the clinic should be checkpointed.
+   */
+  public boolean isCheckpointDue() {
+    return clinicFile != null && size.get() >= checkpointSize && !closed && failure == null;
+  }
+
+  /**
+   * Sets the number of bytes the journal can grow to before the clinic should be checkpointed.
+   *
+   * @param bytes is the number of bytes.
+   * @throws IllegalArgumentException if the number of bytes isn't positive.
+   */
+  public void setCheckpointSize(long bytes) {
+    if (bytes <= 0) {
+      throw new IllegalArgumentException("The checkpoint size has to be positive");
+    }
+    this.checkpointSize = bytes;
+  }
+
+  /**
+   * This method waits until every record that was logged so far is on disk.
+   *
+   * @throws IOException if the journal could not be written.
+   */
+  public void flush() throws IOException {
+    long target = appended.get();
+    synchronized (lock) {
+      while (synced < target && failure == null) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for the journal", e);
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      // The file is let go of even when the last records couldn't be written
+      closed = true;
+      OPEN.remove(this);
+      writer.interrupt();
+      channel.close();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (IOException e) {
+      System.out.println("Journal was not closed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Retrieves the journal file.
+   *
+   * @return the path of the journal.
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  private static ByteBuffer header(long generation) {
+    return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putLong(generation)
+        .flip();
+  }
+
+  private static ByteBuffer readHeader(Path path) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      while (header.hasRemaining() && in.read(header) >= 0) {
+        continue;
+      }
+    }
+    return header.flip();
+  }
+
+  /**
+   * This method reads the generation of a journal from its header.
+   *
+   * @return the generation, or -1 if there is no journal or it stopped before its header was
+   *     written, since such a journal has no records.
+   */
+  private static long generationOf(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return -1;
+    }
+    ByteBuffer header = readHeader(path);
+    return header.remaining() < HEADER_SIZE ? -1 : checkHeader(header, path);
+  }
+
+  /**
+   * This method reads the header at the start of a journal and checks that its records are of the
+   * version this class reads.
+   *
+   * @return the generation of the journal.
+   */
+  private static long checkHeader(ByteBuffer in, Path path) throws IOException {
+    if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC) {
+      throw new IOException("Not a clinic journal of version " + VERSION
+          + ", it may be from before journals had a version: " + path);
+    }
+    short version = in.getShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported clinic journal version " + version + ": " + path);
+    }
+    return in.getLong();
+  }
+
+  private void writeLoop() {
+    List<Object> batch = new ArrayList<>();
+    List<ByteBuffer> records = new ArrayList<>();
+    while (!closed) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        continue;
+      }
+      queue.drainTo(batch, MAX_BATCH - 1);
+      try {
+        for (Object item : batch) {
+          if (item instanceof Checkpoint) {
+            writeRecords(records);
+            writeCheckpoint((Checkpoint) item);
+          } else {
+            records.add((ByteBuffer) item);
+          }
+        }
+        writeRecords(records);
+        synchronized (lock) {
+          synced += batch.size();
+          lock.notifyAll();
+        }
+      } catch (IOException e) {
+        synchronized (lock) {
+          failure = e;
+          lock.notifyAll();
+        }
+        // Nothing is written after a failure, so the records that are waiting are dropped
+        queue.clear();
+        return;
+      }
+      batch.clear();
+    }
+  }
+
+  private void writeRecords(List<ByteBuffer> records) throws IOException {
+    if (records.isEmpty()) {
+      return;
+    }
+    ByteBuffer[] buffers = records.toArray(new ByteBuffer[0]);
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    while (remaining > 0) {
+      remaining -= channel.write(buffers);
+    }
+    channel.force(false);
+    records.clear();
+  }
+
+  /**
+   * This method writes the snapshot of a checkpoint and then empties the journal. The journal
+   * can't be emptied without the snapshot, so if the snapshot isn't written the journal keeps
+   * its records and grows on. Once the snapshot is there, the journal has to be emptied before
+   * anything more is written to it, or the records after the checkpoint would be thrown away
+   * with the old generation.
+   */
+  private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+    try {
+      ClinicSnapshot.write(checkpoint.snapshot, checkpoint.path);
+    } catch (IOException e) {
+      System.out.println("Checkpoint was not written: " + e.getMessage());
+      size.addAndGet(checkpoint.journalSize);
+      return;
+    }
+    channel.truncate(0);
+    ByteBuffer header = header(checkpoint.generation);
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(true);
+  }
+
+  /**
+   * This method checks that a change can still be recorded. The clinic calls it before it makes a
+   * change, so a change that can't be recorded isn't made either.
+   *
+   * @throws IllegalStateException if the journal is closed or could not be written.
+   */
+  void ensureWritable() {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+    IOException failed = failure;
+    if (failed != null) {
+      // A change recorded behind a record that was lost would replay on the wrong clinic
+      throw new IllegalStateException("Journal could not be written: " + failed.getMessage(),
+          failed);
+    }
+  }
+
+  private void append(byte type, Payload payload) {
+    // The journal can fail after the clinic checked it, and then the change is made but refused
+    ensureWritable();
+    byte[] body = payload.toByteArray(type);
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    ByteBuffer record = ByteBuffer.allocate(4 + body.length + 4);
+    record.putInt(body.length).put(body).putInt((int) crc.getValue()).flip();
+    appended.incrementAndGet();
+    size.addAndGet(record.remaining());
+    queue.add(record);
+  }
+
+  void logAddRoom(Room room) {
+    Payload p = new Payload();
+    for (int value : room.getId()) {
+      p.writeInt(value);
+    }
+    p.writeString(room.getRoomType());
+    p.writeString(room.getRoomName());
+    p.writeBoolean(room.getStatus());
+    append(ADD_ROOM, p);
+  }
+
+  void logRemoveRoom(int roomNumber) {
+    append(REMOVE_ROOM, new Payload().writeInt(roomNumber));
+  }
+
+  void logAddStaff(Staff staff) {
+    append(ADD_STAFF, new Payload().writeStaff(staff).writeString(staff.getOccupation())
+        .writeString(staff.getFirstName()).writeString(staff.getLastName())
+        .writeBoolean(staff.getClinicalStaffStatus()));
+  }
+
+  void logRemoveStaff(Staff staff) {
+    append(REMOVE_STAFF, new Payload().writeStaff(staff));
+  }
+
+  void logAddClient(Client client) {
+    append(ADD_CLIENT, new Payload().writeClient(client).writeInt(client.getRoomNum())
+        .writeString(client.getFirstName()).writeString(client.getLastName())
+        .writeString(client.getBirthDateTime()));
+  }
+
+  void logRegisterClient(Client client, Registration registration) {
+    append(REGISTER_CLIENT, new Payload().writeClient(client)
+        .writeString(registration.getFirstName()).writeString(registration.getLastName())
+        .writeString(registration.getBirthDateTime()));
+  }
+
+  void logReadmitClient(Client client) {
+    append(READMIT_CLIENT, new Payload().writeClient(client));
+  }
+
+  void logRecordVisit(Client client, VisitRecord record) {
+    BigDecimal temp = record.getBodyTempExact();
+    append(RECORD_VISIT, new Payload().writeClient(client)
+        .writeString(record.getTimeOfRegistration()).writeString(record.getChiefComplaint())
+        .writeString(temp == null ? null : temp.toString()));
+  }
+
+  void logRemoveClient(Client client, Staff staff) {
+    append(REMOVE_CLIENT, new Payload().writeClient(client).writeStaff(staff));
+  }
+
+  void logMoveClient(Client client, int roomNumber) {
+    append(MOVE_CLIENT, new Payload().writeClient(client).writeInt(roomNumber));
+  }
+
+  void logStaffAndClient(byte type, Staff staff, Client client) {
+    append(type, new Payload().writeStaff(staff).writeClient(client));
+  }
+
+  private static void apply(Clinic clinic, byte[] body) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+    byte type = in.readByte();
+    switch (type) {
+      case ADD_ROOM: {
+        int[] id = new int[4];
+        for (int i = 0; i < 4; i++) {
+          id[i] = in.readInt();
+        }
+        Room room = new Room(id, readString(in), readString(in));
+        room.setStatus(in.readBoolean());
+        clinic.addClinicRoom(room);
+        break;
+      }
+      case REMOVE_ROOM:
+        clinic.removeClinicRoom(requireRoom(clinic, in.readInt()));
+        break;
+      case ADD_STAFF: {
+        long id = in.readLong();
+        Staff staff = readNewStaff(in);
+        staff.setEntityId(id);
+        clinic.addClinicStaff(staff);
+        break;
+      }
+      case REMOVE_STAFF:
+        clinic.removeClinicStaff(requireStaff(clinic, in));
+        break;
+      case ADD_CLIENT: {
+        long id = in.readLong();
+        Client client = new Client(in.readInt(), readString(in), readString(in), readString(in));
+        client.setEntityId(id);
+        clinic.addClinicClient(client);
+        break;
+      }
+      case REGISTER_CLIENT: {
+        long id = in.readLong();
+        Client client = clinic.registerClient(
+            new Registration(readString(in), readString(in), readString(in)), null);
+        if (client.getEntityId() != id) {
+          throw new IOException("Journal does not match the clinic, client " + id
+              + " was registered as " + client.getEntityId());
+        }
+        break;
+      }
+      case READMIT_CLIENT:
+        clinic.readmitClient(requireClient(clinic, in));
+        break;
+      case RECORD_VISIT: {
+        Client client = requireClient(clinic, in);
+        String time = readString(in);
+        String complaint = readString(in);
+        String temp = readString(in);
+        clinic.recordVisit(client,
+            new VisitRecord(time, complaint, temp == null ? null : new BigDecimal(temp)));
+        break;
+      }
+      case REMOVE_CLIENT: {
+        Client client = requireClient(clinic, in);
+        clinic.removeClinicClient(client, requireStaff(clinic, in));
+        break;
+      }
+      case MOVE_CLIENT: {
+        Client client = requireClient(clinic, in);
+        clinic.assignClientToNewRoom(client, requireRoom(clinic, in.readInt()));
+        break;
+      }
+      case ASSIGN_STAFF_TO_CLIENT: {
+        Staff staff = requireStaff(clinic, in);
+        clinic.assignStaffToClient(staff, requireClient(clinic, in));
+        break;
+      }
+      case REMOVE_STAFF_FROM_CLIENT: {
+        Staff staff = requireStaff(clinic, in);
+        clinic.removeStaffFromClient(staff, requireClient(clinic, in));
+        break;
+      }
+      case ASSIGN_CLIENT_TO_STAFF: {
+        Staff staff = requireStaff(clinic, in);
+        clinic.assignClientToStaff(staff, requireClient(clinic, in));
+        break;
+      }
+      case REMOVE_CLIENT_FROM_STAFF: {
+        Staff staff = requireStaff(clinic, in);
+        clinic.removeClientFromStaff(staff, requireClient(clinic, in));
+        break;
+      }
+      default:
+        throw new IOException("Unknown journal record type " + type);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static Staff readNewStaff(DataInputStream in) throws IOException {
+    // The names are stored with their titles, so they are set after construction
+    Staff staff = new Staff(readString(in), "", "");
+    staff.setFirstName(readString(in));
+    staff.setLastName(readString(in));
+    staff.setClinicalStaffStatus(in.readBoolean());
+    return staff;
+  }
+
+  private static Staff requireStaff(Clinic clinic, DataInputStream in) throws IOException {
+    long id = in.readLong();
+    Staff staff = clinic.getStaffById(id);
+    if (staff != null) {
+      return staff;
+    }
+    throw new IOException("Journal refers to a staff member that doesn't exist: " + id);
+  }
+
+  private static Client requireClient(Clinic clinic, DataInputStream in) throws IOException {
+    long id = in.readLong();
+    Client client = clinic.getClientById(id);
+    if (client != null) {
+      return client;
+    }
+    throw new IOException("Journal refers to a client that doesn't exist: " + id);
+  }
+
+  private static Room requireRoom(Clinic clinic, int roomNumber) throws IOException {
+    Room room = clinic.getRoom(roomNumber);
+    if (room != null) {
+      return room;
+    }
+    throw new IOException("Journal refers to a room that doesn't exist: " + roomNumber);
+  }
+
+  /**
+   * A checkpoint that is waiting in the queue, with the snapshot that was built for it.
+   */
+  private static final class Checkpoint {
+    private final Path path;
+    private final ByteBuffer snapshot;
+    private final long generation;
+    // The size of the journal the snapshot replaces, which is kept if the snapshot isn't written
+    private final long journalSize;
+
+    Checkpoint(Path path, ByteBuffer snapshot, long generation, long journalSize) {
+      this.path = path;
+      this.snapshot = snapshot;
+      this.generation = generation;
+      this.journalSize = journalSize;
+    }
+  }
+
+  /**
+   * The payload of one record, written with a DataOutputStream.
+   */
+  private static final class Payload {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    byte[] toByteArray(byte type) {
+      byte[] body = bytes.toByteArray();
+      byte[] result = new byte[body.length + 1];
+      result[0] = type;
+      System.arraycopy(body, 0, result, 1, body.length);
+      return result;
+    }
+
+    Payload writeInt(int value) {
+      try {
+        out.writeInt(value);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+
+    Payload writeBoolean(boolean value) {
+      try {
+        out.writeBoolean(value);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+
+    Payload writeString(String value) {
+      try {
+        out.writeBoolean(value != null);
+        if (value != null) {
+          out.writeUTF(value);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+
+    Payload writeStaff(Staff staff) {
+      try {
+        out.writeLong(staff.getEntityId());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+
+    Payload writeClient(Client client) {
+      try {
+        out.writeLong(client.getEntityId());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package models;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class loads a clinic file without making the event thread wait for it. The file is parsed
+ * on a background thread, and what was read is handed to the thread that changes the clinic in
+ * chunks, which adds them to the clinic. The clinic itself is only ever changed on that thread.
+ *
+ * <p>After every chunk the listener is told how much of the file was read, and after every section
+ * of the file it is told that the section is in the clinic. The room map can be shown as soon as
+ * the rooms are in, and it fills in with the clients as they come, since the clinic tells the map
+ * about them.
+ *
+ * <p>The load can be cancelled at any time. The chunks that weren't added yet are dropped, and
+ * the clinic is cleared again.
+ */
+public class ClinicLoadTask {
+  // One thread for every load, which doesn't keep the program running when it ends
+  private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "Clinic file loader");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // How many rooms, staff members and clients are handed to the clinic at once
+  private static final int CHUNK_SIZE = 2_000;
+
+  /**
+   * The listener is told how the load is going. It is called on the thread that changes the
+   * clinic.
+   */
+  public interface Listener {
+    /**
+     * This method is called after every chunk was added to the clinic.
+     *
+     * @param bytesRead is how much of the file was read.
+     * @param size is the size of the file.
+     * @param records is how many rooms, staff members and clients are in the clinic so far.
+     */
+    void progress(long bytesRead, long size, int records);
+
+    /**
+     * This method is called after every room, staff member or client of a section was added to
+     * the clinic.
+     *
+     * @param section is the section that is done.
+     */
+    void sectionLoaded(ClinicFileLoader.Section section);
+
+    /**
+     * This method is called after the whole file is in the clinic.
+     */
+    void finished();
+
+    /**
+     * This method is called if the file couldn't be read. The clinic has been cleared.
+     *
+     * @param e is what went wrong.
+     */
+    void failed(Exception e);
+
+    /**
+     * This method is called after the load was cancelled. The clinic has been cleared.
+     */
+    void cancelled();
+  }
+
+  private final Clinic clinic;
+  private final File file;
+  private final Executor clinicThread;
+  private final Listener listener;
+  private volatile boolean cancelled;
+  // Only used on the thread that changes the clinic
+  private int records;
+  private boolean over;
+
+  /**
+   * The constructor takes in the clinic to load, the file to load it from, what runs the changes
+   * to the clinic, and the listener.
+   *
+   * @param clinic is the empty clinic that is going to be loaded.
+   * @param file is the clinic text file.
+   * @param clinicThread runs the changes to the clinic, which is the event thread for the GUI.
+   * @param listener is told how the load is going.
+   */
+  public ClinicLoadTask(Clinic clinic, File file, Executor clinicThread, Listener listener) {
+    this.clinic = clinic;
+    this.file = file;
+    this.clinicThread = clinicThread;
+    this.listener = listener;
+  }
+
+  /**
+   * This method starts parsing the file on the background thread.
+   */
+  public void start() {
+    BACKGROUND.execute(this::parse);
+  }
+
+  /**
+   * This method stops the load. It can be called from any thread, and the listener is told once
+   * the clinic was cleared.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * This method checks if the load was cancelled.
+   *
+   * @return true if it was cancelled.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * This method parses the file and hands what was read to the clinic thread. It is run on the
+   * background thread, but it can be run on any thread that isn't the clinic thread.
+   */
+  public void parse() {
+    try {
+      ClinicFileLoader loader = new ClinicFileLoader(file);
+      ChunkSink sink = new ChunkSink(loader);
+      String name = loader.load(sink);
+      sink.flush(null);
+      long size = loader.getSize();
+      clinicThread.execute(() -> finish(name, size, null));
+    } catch (CancellationException e) {
+      clinicThread.execute(() -> finish(null, 0, null));
+    } catch (Exception e) {
+      clinicThread.execute(() -> finish(null, 0, e));
+    }
+  }
+
+  /**
+   * This method adds a chunk to the clinic, on the clinic thread.
+   */
+  private void apply(Chunk chunk) {
+    if (over || cancelled) {
+      return;
+    }
+    for (Room room : chunk.rooms) {
+      clinic.addClinicRoom(room).setStatus(true);
+    }
+    for (Staff staff : chunk.staff) {
+      clinic.addClinicStaff(staff);
+    }
+    for (Client client : chunk.clients) {
+      clinic.addClinicClient(client);
+    }
+    records += chunk.rooms.size() + chunk.staff.size() + chunk.clients.size();
+    listener.progress(chunk.bytesRead, chunk.size, records);
+    if (chunk.sectionDone != null) {
+      listener.sectionLoaded(chunk.sectionDone);
+    }
+  }
+
+  /**
+   * This method ends the load on the clinic thread. A load that was cancelled after the file was
+   * read is still cancelled.
+   */
+  private void finish(String name, long size, Exception error) {
+    if (over) {
+      return;
+    }
+    over = true;
+    if (cancelled || name == null) {
+      clinic.clear();
+      if (error != null && !cancelled) {
+        listener.failed(error);
+      } else {
+        listener.cancelled();
+      }
+      return;
+    }
+    clinic.setName(name);
+    // The end of the file can have blank lines after the last client
+    listener.progress(size, size, records);
+    listener.finished();
+  }
+
+  /**
+   * What the background thread read since the last chunk.
+   */
+  private static final class Chunk {
+    private final List<Room> rooms = new ArrayList<>();
+    private final List<Staff> staff = new ArrayList<>();
+    private final List<Client> clients = new ArrayList<>();
+    private ClinicFileLoader.Section sectionDone;
+    private long bytesRead;
+    private long size;
+
+    int count() {
+      return rooms.size() + staff.size() + clients.size();
+    }
+  }
+
+  /**
+   * The sink collects what the loader reads into chunks, and hands every full chunk and every
+   * finished section to the clinic thread.
+   */
+  private final class ChunkSink implements ClinicFileLoader.Sink {
+    private final ClinicFileLoader loader;
+    private Chunk chunk = new Chunk();
+
+    ChunkSink(ClinicFileLoader loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public void room(Room room) {
+      chunk.rooms.add(room);
+      added();
+    }
+
+    @Override
+    public void staff(Staff staff) {
+      chunk.staff.add(staff);
+      added();
+    }
+
+    @Override
+    public void client(Client client) {
+      chunk.clients.add(client);
+      added();
+    }
+
+    @Override
+    public void sectionDone(ClinicFileLoader.Section section) {
+      flush(section);
+    }
+
+    private void added() {
+      if (cancelled) {
+        throw new CancellationException();
+      }
+      if (chunk.count() >= CHUNK_SIZE) {
+        flush(null);
+      }
+    }
+
+    void flush(ClinicFileLoader.Section section) {
+      if (chunk.count() == 0 && section == null) {
+        return;
+      }
+      Chunk full = chunk;
+      full.sectionDone = section;
+      full.bytesRead = loader.getBytesRead();
+      full.size = loader.getSize();
+      chunk = new Chunk();
+      clinicThread.execute(() -> apply(full));
+    }
+  }
+}
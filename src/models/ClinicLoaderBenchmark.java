@@ -0,0 +1,125 @@
+package models;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Scanner;
+
+/**
+ * The purpose of this class is to compare the speed of the memory mapped clinic file loader with
+ * the Scanner loop that Clinic.readDataFromFile used before. Clinic files of growing sizes are
+ * generated and each one is loaded with both loaders. The throughput is printed in lines per
+ * second and megabytes per second.
+ */
+public class ClinicLoaderBenchmark {
+  private static final int[] CLIENT_COUNTS = {1_000, 10_000, 100_000, 500_000};
+  private static final int ROOMS = 200;
+  private static final int STAFF = 100;
+  private static final int RUNS = 5;
+
+  /**
+   * The main function generates the clinic files and prints the results.
+   *
+   * @param args isn't used for the benchmark.
+   * @throws IOException if the generated files can't be written or read.
+   */
+  public static void main(String[] args) throws IOException {
+    System.out.println(String.format("%10s %10s %12s %14s %10s", "clients", "MB", "loader",
+        "lines/sec", "MB/sec"));
+    for (int clients : CLIENT_COUNTS) {
+      File file = generateFile(clients);
+      try {
+        long lines = 1 + 1 + ROOMS + 1 + STAFF + 1 + clients;
+        double megabytes = file.length() / (1024.0 * 1024.0);
+
+        // Warm up both paths once so the JIT has compiled them
+        loadWithScanner(file);
+        new Clinic("Benchmark").readDataFromFile(file);
+
+        long scannerNanos = Long.MAX_VALUE;
+        long mappedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+          long start = System.nanoTime();
+          loadWithScanner(file);
+          scannerNanos = Math.min(scannerNanos, System.nanoTime() - start);
+
+          start = System.nanoTime();
+          new Clinic("Benchmark").readDataFromFile(file);
+          mappedNanos = Math.min(mappedNanos, System.nanoTime() - start);
+        }
+        printRow(clients, megabytes, "scanner", lines, scannerNanos);
+        printRow(clients, megabytes, "mapped", lines, mappedNanos);
+      } finally {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+  }
+
+  private static void printRow(int clients, double megabytes, String loader, long lines,
+      long nanos) {
+    double seconds = nanos / 1_000_000_000.0;
+    System.out.println(String.format("%10d %10.2f %12s %14.0f %10.2f", clients, megabytes, loader,
+        lines / seconds, megabytes / seconds));
+  }
+
+  private static File generateFile(int clients) throws IOException {
+    File file = File.createTempFile("clinic-benchmark", ".txt");
+    try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(),
+        StandardCharsets.UTF_8)) {
+      writer.write("Benchmark Clinic\n");
+      writer.write(ROOMS + "\n");
+      for (int i = 0; i < ROOMS; i++) {
+        int x = (i % 20) * 6;
+        int y = (i / 20) * 6;
+        String type = i == 0 ? "waiting" : "exam";
+        writer.write(x + " " + y + " " + (x + 5) + " " + (y + 5) + " " + type + " Room_" + i
+            + "\n");
+      }
+      writer.write(STAFF + "\n");
+      for (int i = 0; i < STAFF; i++) {
+        String occupation = i % 3 == 0 ? "physician" : i % 3 == 1 ? "nurse" : "reception";
+        writer.write(occupation + " Staff" + i + " Member" + i + "\n");
+      }
+      writer.write(clients + "\n");
+      for (int i = 0; i < clients; i++) {
+        writer.write((i % ROOMS + 1) + " First" + i + " Last" + i + " " + (i % 12 + 1) + "/"
+            + (i % 28 + 1) + "/" + (1940 + i % 80) + "\n");
+      }
+    }
+    return file;
+  }
+
+  /**
+   * This is the Scanner loop that Clinic.readDataFromFile used before the mapped loader. It is
+   * kept here so the two can be compared.
+   */
+  private static Clinic loadWithScanner(File file) throws FileNotFoundException {
+    Clinic clinic = new Clinic("Benchmark");
+    try (Scanner scanner = new Scanner(file)) {
+      scanner.nextLine();
+      int numRoom = Integer.parseInt(scanner.nextLine());
+      for (int i = 0; i < numRoom; i++) {
+        int[] id = new int[4];
+        for (int j = 0; j < 4; j++) {
+          id[j] = Integer.parseInt(scanner.next());
+        }
+        Room room = clinic.addClinicRoom(new Room(id, scanner.next(), scanner.nextLine()));
+        room.setStatus(true);
+      }
+      int numStaff = Integer.parseInt(scanner.nextLine());
+      for (int i = 0; i < numStaff; i++) {
+        clinic.addClinicStaff(new Staff(scanner.next(), scanner.next(), scanner.next()));
+      }
+      int numClient = Integer.parseInt(scanner.next());
+      for (int i = 0; i < numClient; i++) {
+        int roomNumber = Integer.parseInt(scanner.next());
+        clinic.addClinicClient(
+            new Client(roomNumber, scanner.next(), scanner.next(), scanner.next()));
+      }
+    }
+    return clinic;
+  }
+}
@@ -0,0 +1,312 @@
+package models;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class lets many terminals work on one clinic at the same time over TCP. Every terminal that
+ * connects gets its own session, which reads one command a line and answers with what the console
+ * controller writes for it, so a front desk with many stations can share one clinic.
+ *
+ * <p>A command is its name followed by the answers to the questions the console controller asks
+ * for it, like {@code move John Smith Exam no}. The session waits for the whole line, so nothing
+ * waits for a person to type while the clinic is being used. The command then goes through a
+ * {@link ClinicCommandQueue}, and a console controller that reads its answers from the rest of the
+ * line runs it on the writer thread of the queue. That thread is the only one that changes the
+ * clinic, so the sessions don't need any locks, and the commands of all the sessions are applied
+ * in batches.
+ *
+ * <p>Every session runs on its own thread, and the threads are virtual when the Java runtime has
+ * them, so thousands of terminals can be connected at once. On a runtime without them, each session
+ * gets a thread of a cached pool. The server only listens on the loopback address.
+ */
+public class ClinicServer implements AutoCloseable {
+  /**
+   * The port the server listens on, unless another one is given.
+   */
+  public static final int DEFAULT_PORT = 5010;
+
+  /**
+   * What the server writes before every command it waits for.
+   */
+  public static final String PROMPT = "> ";
+
+  private static final Map<String, SessionCommand> COMMANDS = new LinkedHashMap<>();
+  private static final String HELP;
+
+  static {
+    COMMANDS.put("all", (controller, clinic) -> controller.handleDisplayAllInfo(clinic));
+    COMMANDS.put("room", (controller, clinic) -> controller.handleDisplayRoomInfo(clinic));
+    COMMANDS.put("staff", (controller, clinic) -> controller.handleViewStaff(clinic));
+    COMMANDS.put("allstaff", (controller, clinic) -> controller.handleViewAllStaffMembers(clinic));
+    COMMANDS.put("novisit", (controller, clinic) -> controller.handleYearNoVisit(clinic));
+    COMMANDS.put("move", (controller, clinic) -> controller.handleAssignPatientToRoom(clinic));
+    COMMANDS.put("addstaff", (controller, clinic) -> controller.handleAddStaff(clinic));
+    COMMANDS.put("removestaff", (controller, clinic) -> controller.handleRemoveStaff(clinic));
+    COMMANDS.put("addroom", (controller, clinic) -> controller.handleAddNewRoom(clinic));
+    HELP = "Commands, each followed by its answers on the same line:\n"
+        + "  all                                   every room and who is in it\n"
+        + "  room <room> no                        one room\n"
+        + "  staff                                 the staff with patients\n"
+        + "  allstaff                              every staff member\n"
+        + "  novisit                               patients not seen for a year\n"
+        + "  move <first> <last> <room> no         move a patient to a room\n"
+        + "  addstaff <first> <last> <occupation>  add a staff member\n"
+        + "  removestaff <first> <last> no         remove a staff member\n"
+        + "  addroom <name> <type> <first> <last>  add a room approved by a staff member\n"
+        + "  help, quit\n";
+  }
+
+  private final ClinicCommandQueue queue;
+  private final ServerSocket server;
+  private final ExecutorService sessions;
+  private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+  private final AtomicLong commands = new AtomicLong();
+  private volatile boolean closed;
+
+  /**
+   * The constructor starts listening on the port for the clinic. Every session gets a virtual
+   * thread when the runtime has them.
+   *
+   * @param queue is the command queue of the clinic, which is the only way the clinic is changed.
+   * @param port is the port to listen on, or 0 for any free port.
+   * @throws IOException if the port couldn't be opened.
+   */
+  public ClinicServer(ClinicCommandQueue queue, int port) throws IOException {
+    this(queue, port, sessionExecutor());
+  }
+
+  /**
+   * The constructor starts listening on the port for the clinic, and runs every session on the
+   * given executor. The executor is shut down when the server is closed.
+   *
+   * @param queue is the command queue of the clinic, which is the only way the clinic is changed.
+   * @param port is the port to listen on, or 0 for any free port.
+   * @param sessions runs the sessions, each of which stays on its thread until its terminal goes.
+   * @throws IOException if the port couldn't be opened.
+   * @throws IllegalArgumentException if the queue or the executor is null.
+   */
+  public ClinicServer(ClinicCommandQueue queue, int port, ExecutorService sessions)
+      throws IOException {
+    if (queue == null || sessions == null) {
+      throw new IllegalArgumentException("The queue and the executor can't be null");
+    }
+    this.queue = queue;
+    this.sessions = sessions;
+    this.server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::accept, "Clinic server");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * This makes the executor the sessions run on: a new virtual thread for every session when the
+   * runtime has virtual threads, or a cached pool of daemon threads when it doesn't.
+   *
+   * @return the executor.
+   */
+  public static ExecutorService sessionExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "Clinic session");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Retrieves the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  /**
+   * Retrieves the number of terminals that are connected.
+   *
+   * @return the number of sessions.
+   */
+  public int getSessions() {
+    return open.size();
+  }
+
+  /**
+   * Retrieves the number of commands the sessions have run.
+   *
+   * @return the number of commands.
+   */
+  public long getCommands() {
+    return commands.get();
+  }
+
+  /**
+   * This method stops listening and disconnects every terminal. The command queue is left open.
+   *
+   * @throws IOException if the port couldn't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    server.close();
+    for (Socket socket : open) {
+      socket.close();
+    }
+    sessions.shutdown();
+  }
+
+  private void accept() {
+    while (!closed) {
+      Socket socket;
+      try {
+        socket = server.accept();
+      } catch (IOException e) {
+        // The server socket was closed
+        return;
+      }
+      open.add(socket);
+      try {
+        sessions.execute(() -> serve(socket));
+      } catch (RuntimeException e) {
+        open.remove(socket);
+        closeQuietly(socket);
+      }
+    }
+  }
+
+  /**
+   * This method is one session. It runs until the terminal quits or goes away.
+   */
+  private void serve(Socket socket) {
+    try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+        StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8))) {
+      out.write("Connected to the clinic. Type help for the commands.\n" + PROMPT);
+      out.flush();
+      String line;
+      while ((line = in.readLine()) != null) {
+        String[] parts = line.trim().split("\\s+", 2);
+        String name = parts[0].toLowerCase(Locale.ROOT);
+        if ("quit".equals(name)) {
+          break;
+        }
+        if (!name.isEmpty()) {
+          out.write(run(name, parts.length > 1 ? parts[1] : ""));
+        }
+        out.write(PROMPT);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // The terminal went away, which ends the session the same as quitting
+    } finally {
+      open.remove(socket);
+      closeQuietly(socket);
+    }
+  }
+
+  /**
+   * This method runs one command on the writer thread and gives back what it wrote.
+   *
+   * @param name is the name of the command.
+   * @param answers are the answers to the questions of the command.
+   * @return what the command wrote.
+   */
+  private String run(String name, String answers) {
+    if ("help".equals(name)) {
+      return HELP;
+    }
+    SessionCommand command = COMMANDS.get(name);
+    if (command == null) {
+      return "Unknown command " + name + ". " + HELP;
+    }
+    try {
+      return queue.submit(clinic -> {
+        StringBuilder out = new StringBuilder();
+        ClinicConsoleController controller =
+            new ClinicConsoleController(new StringReader(answers), out);
+        try {
+          command.run(controller, clinic);
+        } catch (NoSuchElementException e) {
+          out.append("\nThe command needs more answers. Type help for the commands.\n");
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return out.toString();
+      }).join();
+    } catch (CompletionException | IllegalStateException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      return "Error: " + cause.getMessage() + "\n";
+    } finally {
+      commands.incrementAndGet();
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // The socket is being thrown away
+    }
+  }
+
+  /**
+   * The main function serves the clinic in the given file until the program is stopped. The
+   * clinic comes from the snapshot and journal next to the file when they are up to date, and every
+   * batch of changes is in the journal before the terminals are answered.
+   *
+   * @param args are the clinic file and the port, which is 5010 unless it is given.
+   * @throws IOException if the clinic couldn't be read or the port couldn't be opened.
+   * @throws InterruptedException if the program is stopped.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    System.setProperty("java.awt.headless", "true");
+    if (args.length < 1) {
+      System.out.println("Usage: ClinicServer <clinic file> [port]");
+      return;
+    }
+    File input = new File(args[0]);
+    Clinic clinic = new Clinic("Cybernetic Implant Clinic");
+    ClinicJournal.recover(clinic, input);
+    ClinicCommandQueue queue = new ClinicCommandQueue(clinic);
+    queue.setDurable(true);
+    ClinicServer server = new ClinicServer(queue,
+        args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+    System.out.println("Serving " + input + " on port " + server.getPort());
+    Thread.currentThread().join();
+  }
+
+  /**
+   * A command of a session, which runs one handler of the console controller.
+   */
+  @FunctionalInterface
+  private interface SessionCommand {
+    void run(ClinicConsoleController controller, Clinic clinic) throws IOException;
+  }
+}
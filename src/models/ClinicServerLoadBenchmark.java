@@ -0,0 +1,176 @@
+package models;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The purpose of this class is to put a clinic server under the load of a big front desk. A clinic
+ * with 200 exam rooms and 2,000 patients in the waiting room is served, and thousands of terminals
+ * connect to it at once. Every terminal runs the same script of commands: mostly looking at a room
+ * or at the staff, with a patient moved to a room every fifth command.
+ *
+ * <p>The time of every command is taken from when its line was sent until the next prompt came
+ * back. The number of commands every second and the p50, p99 and biggest times are printed, along
+ * with the biggest batch the writer applied.
+ *
+ * <p>The arguments are the number of terminals and the number of commands each one runs, which
+ * are 2,000 and 20 unless they are given.
+ */
+public class ClinicServerLoadBenchmark {
+  private static final int ROOMS = 200;
+  private static final int PATIENTS = 2_000;
+  private static final int STAFF = 20;
+
+  /**
+   * The main function serves the clinic, runs the terminals and prints the times.
+   *
+   * @param args are the number of terminals and the number of commands each one runs.
+   * @throws Exception if the server couldn't be started or a terminal failed.
+   */
+  public static void main(String[] args) throws Exception {
+    int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+    int commandsEach = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    Clinic clinic = new Clinic("Benchmark");
+    clinic.addClinicRoom(new Room(new int[] {0, 0, 10, 10}, "waiting", "Waiting Room"));
+    for (int i = 0; i < ROOMS; i++) {
+      int x = 12 + (i % 20) * 6;
+      int y = (i / 20) * 6;
+      clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, "exam", "Exam" + name(i)));
+    }
+    for (int i = 0; i < STAFF; i++) {
+      clinic.addClinicStaff(new Staff("nurse", "Nurse", name(i)));
+    }
+    for (int i = 0; i < PATIENTS; i++) {
+      clinic.addClinicClient(new Client(1, "Patient", name(i), "1/1/1990"));
+    }
+
+    ClinicCommandQueue queue = new ClinicCommandQueue(clinic);
+    ClinicServer server = new ClinicServer(queue, 0);
+    // The clinic prints the number of every room a patient moves to, which isn't timed
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+    long[][] latencies = new long[terminals][];
+    CountDownLatch connected = new CountDownLatch(terminals);
+    ExecutorService threads = ClinicServer.sessionExecutor();
+    List<Future<?>> results = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int t = 0; t < terminals; t++) {
+      int terminal = t;
+      results.add(threads.submit(() -> {
+        latencies[terminal] = runTerminal(server.getPort(), terminal, commandsEach, connected);
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    long elapsed = System.nanoTime() - start;
+    System.setOut(console);
+    server.close();
+    queue.close();
+    threads.shutdown();
+
+    long[] all = new long[terminals * commandsEach];
+    for (int t = 0; t < terminals; t++) {
+      System.arraycopy(latencies[t], 0, all, t * commandsEach, commandsEach);
+    }
+    Arrays.sort(all);
+    System.out.println(String.format("%d terminals, %d commands each", terminals, commandsEach));
+    System.out.println(String.format("%12s %10s %10s %10s %8s", "commands/s", "p50 ms", "p99 ms",
+        "max ms", "batch"));
+    System.out.println(String.format("%12.0f %10.2f %10.2f %10.2f %8d",
+        all.length / (elapsed / 1e9), all[all.length / 2] / 1e6,
+        all[all.length * 99 / 100] / 1e6, all[all.length - 1] / 1e6, queue.getLargestBatch()));
+  }
+
+  /**
+   * This method is one terminal. It waits until every terminal is connected, so they all run
+   * their scripts at the same time.
+   */
+  private static long[] runTerminal(int port, int terminal, int commandsEach,
+      CountDownLatch connected) throws IOException, InterruptedException {
+    long[] times = new long[commandsEach];
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      Reader in = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      readUntilPrompt(in);
+      connected.countDown();
+      connected.await();
+      for (int i = 0; i < commandsEach; i++) {
+        long sent = System.nanoTime();
+        out.write(script(terminal, i));
+        out.flush();
+        readUntilPrompt(in);
+        times[i] = System.nanoTime() - sent;
+      }
+      out.write("quit\n");
+      out.flush();
+    }
+    return times;
+  }
+
+  private static String script(int terminal, int step) {
+    int room = (terminal * 7 + step) % ROOMS;
+    switch (step % 5) {
+      case 0:
+        return "move Patient " + name((terminal + step) % PATIENTS) + " Exam" + name(room)
+            + " no\n";
+      case 1:
+      case 3:
+        return "room Exam" + name(room) + " no\n";
+      case 2:
+        return "staff\n";
+      default:
+        return "novisit\n";
+    }
+  }
+
+  /**
+   * This method reads what the server wrote until it asks for the next command.
+   */
+  private static void readUntilPrompt(Reader in) throws IOException {
+    char[] buffer = new char[8192];
+    char previous = 0;
+    char last = 0;
+    while (previous != '>' || last != ' ') {
+      int read = in.read(buffer);
+      if (read < 0) {
+        throw new IOException("The server closed the session");
+      }
+      for (int i = 0; i < read; i++) {
+        previous = last;
+        last = buffer[i];
+      }
+    }
+  }
+
+  /**
+   * This method makes a name out of letters for the number, since the console only takes names
+   * that are letters.
+   */
+  private static String name(int number) {
+    StringBuilder name = new StringBuilder();
+    do {
+      name.append((char) ('a' + number % 26));
+      number /= 26;
+    } while (number > 0);
+    name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+    return name.toString();
+  }
+}
@@ -0,0 +1,596 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * This class writes a fully populated clinic to a compact binary snapshot and loads it back. The
+ * snapshot holds the rooms, the room key, the staff, the clients, the clinic archives, every visit
+ * record and all of the staff assignments, so a clinic can be restored without parsing the text
+ * file again. The whole snapshot is built in one buffer and written or read with a single channel
+ * call.
+ *
+ * <p>The file starts with a magic number, a version and the generation of the journal that
+ * continues the snapshot, and ends with a CRC32 of everything before it. Clients, staff, rooms
+ * and visit records are each written once into a table and every list refers to them by their
+ * index, so objects that are shared between lists (for example a client that is both in the
+ * client list and in the archives) are shared again after loading. The numeric id of every
+ * client, staff member and room is saved with it, so the journal can keep referring to them by
+ * id after the snapshot is loaded.
+ */
+public final class ClinicSnapshot {
+  /**
+   * The extension that is added to a clinic file to find its snapshot.
+   */
+  public static final String EXTENSION = ".snap";
+
+  private static final int MAGIC = 0x434C4E53;
+  private static final short VERSION = 3;
+  private static final int HEADER_SIZE = 14;
+
+  private ClinicSnapshot() {
+  }
+
+  /**
+   * This method writes the clinic to the given path. The snapshot is written to a temporary file
+   * first and then moved over the old one, so a crash never leaves half a snapshot behind. The
+   * snapshot is continued by a journal of the first generation.
+   *
+   * @param clinic is the clinic that is going to be saved.
+   * @param path is where the snapshot will be written.
+   * @throws IOException if the snapshot can't be written.
+   */
+  public static void write(Clinic clinic, Path path) throws IOException {
+    write(clinic, path, 0);
+  }
+
+  /**
+   * This method writes the clinic to the given path like {@link #write(Clinic, Path)}, for a
+   * journal of the given generation to continue. A journal of an older generation was written
+   * before the snapshot, so its records are already in it.
+   *
+   * @param clinic is the clinic that is going to be saved.
+   * @param path is where the snapshot will be written.
+   * @param generation is the generation of the journal that continues the snapshot.
+   * @throws IOException if the snapshot can't be written.
+   */
+  public static void write(Clinic clinic, Path path, long generation) throws IOException {
+    write(encode(clinic, generation), path);
+  }
+
+  /**
+   * This method builds the snapshot of the clinic in memory, without writing it. It only reads
+   * the clinic, so it is quick enough to be done on the thread that changes the clinic, and the
+   * bytes can be written by another thread while the clinic keeps changing.
+   *
+   * @param clinic is the clinic that is going to be saved.
+   * @param generation is the generation of the journal that continues the snapshot.
+   * @return the snapshot, ready to be written.
+   */
+  static ByteBuffer encode(Clinic clinic, long generation) {
+    Writer writer = new Writer();
+    writer.writeClinic(clinic, generation);
+    return writer.finish();
+  }
+
+  /**
+   * This method writes a snapshot that was built by {@link #encode(Clinic, long)} to the given
+   * path, through a temporary file like {@link #write(Clinic, Path)}.
+   *
+   * @param out is the snapshot.
+   * @param path is where the snapshot will be written.
+   * @throws IOException if the snapshot can't be written.
+   */
+  static void write(ByteBuffer out, Path path) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+      channel.force(true);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * This method loads a snapshot into the given clinic. The clinic is expected to be empty, like a
+   * clinic that was just created.
+   *
+   * @param clinic is the clinic the snapshot is loaded into.
+   * @param path is the snapshot that is going to be read.
+   * @throws IOException if the file can't be read or is not a valid snapshot.
+   */
+  public static void read(Clinic clinic, Path path) throws IOException {
+    ByteBuffer in;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+        throw new IOException("Not a clinic snapshot: " + path);
+      }
+      in = ByteBuffer.allocate((int) size);
+      while (in.hasRemaining() && channel.read(in) >= 0) {
+        // keep reading until the buffer is full
+      }
+      in.flip();
+    }
+    CRC32 crc = new CRC32();
+    crc.update(in.array(), 0, in.limit() - 4);
+    if ((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+      throw new IOException("Clinic snapshot is corrupt: " + path);
+    }
+    in.limit(in.limit() - 4);
+    if (in.getInt() != MAGIC) {
+      throw new IOException("Not a clinic snapshot: " + path);
+    }
+    short version = in.getShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported clinic snapshot version " + version);
+    }
+    in.getLong();
+    new Reader(in).readClinic(clinic);
+  }
+
+  /**
+   * This method reads the generation of the journal that continues the snapshot, from the header
+   * of the snapshot.
+   *
+   * @param path is the snapshot.
+   * @return the generation of the journal.
+   * @throws IOException if the file can't be read or is not a snapshot of this version.
+   */
+  static long readGeneration(Path path) throws IOException {
+    ByteBuffer in = ByteBuffer.allocate(HEADER_SIZE);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      while (in.hasRemaining() && channel.read(in) >= 0) {
+        // keep reading until the header is full
+      }
+    }
+    in.flip();
+    if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getShort() != VERSION) {
+      throw new IOException("Not a clinic snapshot of version " + VERSION + ": " + path);
+    }
+    return in.getLong();
+  }
+
+  /**
+   * This method loads the clinic from the snapshot next to the clinic file when that snapshot is
+   * at least as new as the file. Otherwise the text file is parsed, and the checkpoint of the
+   * journal that is attached to the clinic writes a new snapshot next to it for the next start.
+   *
+   * @param clinic is the clinic that is going to be loaded.
+   * @param file is the clinic text file.
+   * @return true if the clinic came from the snapshot and false if the text file was parsed.
+   */
+  public static boolean loadOrParse(Clinic clinic, File file) {
+    if (isFresh(file)) {
+      try {
+        read(clinic, snapshotOf(file).toPath());
+        return true;
+      } catch (IOException | RuntimeException e) {
+        System.out.println("Snapshot was not read: " + e.getMessage());
+        clinic.clear();
+      }
+    }
+    clinic.readDataFromFile(file);
+    return false;
+  }
+
+  /**
+   * This method checks if there is a snapshot next to the clinic file that is at least as new as
+   * the file, so the clinic can be loaded from it instead of parsing the file.
+   *
+   * @param file is the clinic text file.
+   * @return true if the snapshot can be used.
+   */
+  public static boolean isFresh(File file) {
+    File snapshot = snapshotOf(file);
+    return snapshot.isFile() && snapshot.lastModified() >= file.lastModified();
+  }
+
+  private static File snapshotOf(File file) {
+    return new File(file.getPath() + EXTENSION);
+  }
+
+  /**
+   * The writer walks the clinic, gives every object an index and writes the tables.
+   */
+  private static final class Writer {
+    private ByteBuffer out = ByteBuffer.allocate(1 << 16);
+    private final Map<int[], Integer> roomIds = new IdentityHashMap<>();
+    private final Map<Staff, Integer> staffs = new IdentityHashMap<>();
+    private final Map<Client, Integer> clients = new IdentityHashMap<>();
+    private final Map<VisitRecord, Integer> records = new IdentityHashMap<>();
+    private final List<Staff> staffOrder = new ArrayList<>();
+    private final List<Client> clientOrder = new ArrayList<>();
+    private final List<VisitRecord> recordOrder = new ArrayList<>();
+
+    void writeClinic(Clinic clinic, long generation) {
+      collect(clinic);
+      putInt(MAGIC);
+      ensure(2);
+      out.putShort(VERSION);
+      putLong(generation);
+      putString(clinic.getName());
+      putLong(clinic.getEntities().getNextId());
+
+      putInt(clinic.getClinicRooms().size());
+      for (int i = 0; i < clinic.getClinicRooms().size(); i++) {
+        Room room = clinic.getClinicRooms().get(i);
+        roomIds.putIfAbsent(room.getId(), i);
+        putLong(room.getEntityId());
+        for (int value : room.getId()) {
+          putInt(value);
+        }
+        putString(room.getRoomType());
+        putString(room.getRoomName());
+        putBoolean(room.getStatus());
+      }
+
+      putInt(clinic.getRoomKey().size());
+      for (Map.Entry<Integer, int[]> entry : clinic.getRoomKey().entrySet()) {
+        putInt(entry.getKey());
+        Integer index = roomIds.get(entry.getValue());
+        putInt(index == null ? -1 : index);
+        for (int value : entry.getValue()) {
+          putInt(value);
+        }
+      }
+
+      putInt(staffOrder.size());
+      for (Staff staff : staffOrder) {
+        putLong(staff.getEntityId());
+        putString(staff.getOccupation());
+        putString(staff.getFirstName());
+        putString(staff.getLastName());
+        putBoolean(staff.getClinicalStaffStatus());
+      }
+
+      putInt(recordOrder.size());
+      for (VisitRecord record : recordOrder) {
+        putString(record.getTimeOfRegistration());
+        putString(record.getChiefComplaint());
+        putDecimal(record.getBodyTempExact());
+      }
+
+      putInt(clientOrder.size());
+      for (Client client : clientOrder) {
+        putLong(client.getEntityId());
+        putInt(client.getRoomNum());
+        putString(client.getFirstName());
+        putString(client.getLastName());
+        putString(client.getBirthDateTime());
+        putBoolean(client.isActive());
+        putInt(client.getRecord() == null ? -1 : records.get(client.getRecord()));
+        putInt(client.getRecordHistory().size());
+        for (VisitRecord record : client.getRecordHistory()) {
+          putInt(records.get(record));
+        }
+        putInt(client.getAssignedStaff().size());
+        for (Staff staff : client.getAssignedStaff()) {
+          putInt(staffs.get(staff));
+        }
+      }
+
+      // The lifetime patient list of each staff member
+      for (Staff staff : staffOrder) {
+        putClients(staff.getStaffKey());
+      }
+
+      putInt(clinic.getClinicStaffs().size());
+      for (Staff staff : clinic.getClinicStaffs()) {
+        putInt(staffs.get(staff));
+      }
+      putClients(clinic.getClinicClients());
+      putClients(clinic.getClinicArchives());
+
+      putInt(clinic.getWaitingRoomList().size());
+      for (int number : clinic.getWaitingRoomList()) {
+        putInt(number);
+      }
+
+      putInt(clinic.getStaffKey().size());
+      for (Map.Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
+        putInt(staffs.get(entry.getKey()));
+        putClients(entry.getValue());
+      }
+    }
+
+    ByteBuffer finish() {
+      CRC32 crc = new CRC32();
+      crc.update(out.array(), 0, out.position());
+      putInt((int) crc.getValue());
+      out.flip();
+      return out;
+    }
+
+    private void collect(Clinic clinic) {
+      for (Staff staff : clinic.getClinicStaffs()) {
+        addStaff(staff);
+      }
+      for (Staff staff : clinic.getStaffKey().keySet()) {
+        addStaff(staff);
+      }
+      for (Client client : clinic.getClinicClients()) {
+        addClient(client);
+      }
+      for (Client client : clinic.getClinicArchives()) {
+        addClient(client);
+      }
+      for (List<Client> list : clinic.getStaffKey().values()) {
+        for (Client client : list) {
+          addClient(client);
+        }
+      }
+      // Lifetime lists and assigned staff can reach objects that are in no other list
+      for (int i = 0; i < staffOrder.size() || i < clientOrder.size(); i++) {
+        if (i < staffOrder.size()) {
+          for (Client client : staffOrder.get(i).getStaffKey()) {
+            addClient(client);
+          }
+        }
+        if (i < clientOrder.size()) {
+          for (Staff staff : clientOrder.get(i).getAssignedStaff()) {
+            addStaff(staff);
+          }
+        }
+      }
+    }
+
+    private void addStaff(Staff staff) {
+      if (!staffs.containsKey(staff)) {
+        staffs.put(staff, staffOrder.size());
+        staffOrder.add(staff);
+      }
+    }
+
+    private void addClient(Client client) {
+      if (clients.containsKey(client)) {
+        return;
+      }
+      clients.put(client, clientOrder.size());
+      clientOrder.add(client);
+      addRecord(client.getRecord());
+      for (VisitRecord record : client.getRecordHistory()) {
+        addRecord(record);
+      }
+    }
+
+    private void addRecord(VisitRecord record) {
+      if (record != null && !records.containsKey(record)) {
+        records.put(record, recordOrder.size());
+        recordOrder.add(record);
+      }
+    }
+
+    private void putClients(List<Client> list) {
+      putInt(list.size());
+      for (Client client : list) {
+        putInt(clients.get(client));
+      }
+    }
+
+    private void ensure(int bytes) {
+      if (out.remaining() < bytes) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2,
+            out.position() + bytes));
+        out.flip();
+        bigger.put(out);
+        out = bigger;
+      }
+    }
+
+    private void putInt(int value) {
+      ensure(4);
+      out.putInt(value);
+    }
+
+    private void putLong(long value) {
+      ensure(8);
+      out.putLong(value);
+    }
+
+    private void putBoolean(boolean value) {
+      ensure(1);
+      out.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    private void putString(String value) {
+      if (value == null) {
+        putInt(-1);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      putInt(bytes.length);
+      ensure(bytes.length);
+      out.put(bytes);
+    }
+
+    private void putDecimal(BigDecimal value) {
+      if (value == null) {
+        putInt(-1);
+        return;
+      }
+      byte[] unscaled = value.unscaledValue().toByteArray();
+      putInt(unscaled.length);
+      ensure(unscaled.length + 4);
+      out.put(unscaled);
+      out.putInt(value.scale());
+    }
+  }
+
+  /**
+   * The reader rebuilds the tables in the same order the writer wrote them.
+   */
+  private static final class Reader {
+    private final ByteBuffer in;
+
+    Reader(ByteBuffer in) {
+      this.in = in;
+    }
+
+    void readClinic(Clinic clinic) {
+      clinic.setName(getString());
+      long nextId = in.getLong();
+
+      Room[] rooms = new Room[in.getInt()];
+      for (int i = 0; i < rooms.length; i++) {
+        long entityId = in.getLong();
+        int[] id = new int[4];
+        for (int j = 0; j < 4; j++) {
+          id[j] = in.getInt();
+        }
+        rooms[i] = new Room(id, getString(), getString());
+        rooms[i].setStatus(getBoolean());
+        rooms[i].setEntityId(entityId);
+        clinic.getClinicRooms().add(rooms[i]);
+      }
+
+      int roomKeySize = in.getInt();
+      for (int i = 0; i < roomKeySize; i++) {
+        int number = in.getInt();
+        int index = in.getInt();
+        int[] id = new int[4];
+        for (int j = 0; j < 4; j++) {
+          id[j] = in.getInt();
+        }
+        // A number whose room is no longer in the clinic has nothing to point to
+        if (index >= 0) {
+          clinic.populateRoomKey(number, rooms[index]);
+        }
+      }
+
+      Staff[] staffs = new Staff[in.getInt()];
+      for (int i = 0; i < staffs.length; i++) {
+        long entityId = in.getLong();
+        // The names are stored with their titles, so they are set after construction
+        Staff staff = new Staff(getString(), "", "");
+        staff.setFirstName(getString());
+        staff.setLastName(getString());
+        staff.setClinicalStaffStatus(getBoolean());
+        staff.setEntityId(entityId);
+        staffs[i] = staff;
+      }
+
+      VisitRecord[] records = new VisitRecord[in.getInt()];
+      for (int i = 0; i < records.length; i++) {
+        records[i] = new VisitRecord(getString(), getString(), getDecimal());
+      }
+
+      // The assigned staff of each client are linked after the staff key, so the staff key keeps
+      // its order
+      List<Staff> assignedStaff = new ArrayList<>();
+      List<Client> assignedClients = new ArrayList<>();
+      Client[] clients = new Client[in.getInt()];
+      for (int i = 0; i < clients.length; i++) {
+        long entityId = in.getLong();
+        Client client = new Client(in.getInt(), getString(), getString(), getString());
+        client.setEntityId(entityId);
+        client.setActive(getBoolean());
+        int record = in.getInt();
+        client.setRecord(record < 0 ? null : records[record]);
+        int historySize = in.getInt();
+        for (int j = 0; j < historySize; j++) {
+          client.getRecordHistory().add(records[in.getInt()]);
+        }
+        int assignedSize = in.getInt();
+        for (int j = 0; j < assignedSize; j++) {
+          assignedStaff.add(staffs[in.getInt()]);
+          assignedClients.add(client);
+        }
+        clients[i] = client;
+      }
+
+      for (Staff staff : staffs) {
+        staff.setStaffKey(getClients(clients));
+      }
+
+      int staffListSize = in.getInt();
+      for (int i = 0; i < staffListSize; i++) {
+        clinic.getClinicStaffs().add(staffs[in.getInt()]);
+      }
+      clinic.getClinicClients().addAll(getClients(clients));
+      clinic.getClinicArchives().addAll(getClients(clients));
+
+      ArrayList<Integer> waitingRooms = new ArrayList<>();
+      int waitingRoomSize = in.getInt();
+      for (int i = 0; i < waitingRoomSize; i++) {
+        waitingRooms.add(in.getInt());
+      }
+      clinic.setWaitingRoomList(waitingRooms);
+
+      int staffKeySize = in.getInt();
+      for (int i = 0; i < staffKeySize; i++) {
+        Staff staff = staffs[in.getInt()];
+        clinic.getAssignments().addStaff(staff);
+        for (Client client : getClients(clients)) {
+          clinic.getAssignments().link(staff, client);
+        }
+      }
+      for (int i = 0; i < assignedStaff.size(); i++) {
+        clinic.getAssignments().link(assignedStaff.get(i), assignedClients.get(i));
+      }
+
+      // Staff members and archived clients are not in a list that gives them their ids
+      for (Staff staff : staffs) {
+        clinic.getEntities().track(staff);
+      }
+      for (Client client : clients) {
+        clinic.getEntities().track(client);
+      }
+      clinic.getEntities().setNextId(nextId);
+    }
+
+    private ArrayList<Client> getClients(Client[] clients) {
+      int size = in.getInt();
+      ArrayList<Client> list = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        list.add(clients[in.getInt()]);
+      }
+      return list;
+    }
+
+    private boolean getBoolean() {
+      return in.get() != 0;
+    }
+
+    private String getString() {
+      int length = in.getInt();
+      if (length < 0) {
+        return null;
+      }
+      String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+          StandardCharsets.UTF_8);
+      in.position(in.position() + length);
+      return value;
+    }
+
+    private BigDecimal getDecimal() {
+      int length = in.getInt();
+      if (length < 0) {
+        return null;
+      }
+      byte[] unscaled = new byte[length];
+      in.get(unscaled);
+      return new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+  }
+}
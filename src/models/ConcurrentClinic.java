@@ -0,0 +1,446 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * This class lets many front desks use the same clinic at the same time. Every method of the
+ * clinic is called with the locks it needs, so the lists and indexes of the clinic are never
+ * changed by two threads at once.
+ *
+ * <p>The locks are striped. Every room number has one of a fixed number of room locks, and every
+ * staff member has one of the staff locks. Moving a client locks the room the client is in and
+ * the room they are going to, and assigning a staff member locks the room of the client and the
+ * staff member. So clients moving between different rooms and staff members being assigned to
+ * different clients don't wait for each other. The locks of a room are always taken before the
+ * locks of a staff member, and two room locks in the order of the stripes, so two threads never
+ * wait for each other forever.
+ *
+ * <p>Everything else changes the lists of the clinic, like registering a client, adding a room or
+ * loading a file. Those take the structure lock for writing, which waits until nothing else is
+ * using the clinic, while moves and assignments take it for reading. The reports of the whole
+ * clinic take a report snapshot, which holds the structure lock for reading while it reads what
+ * changed since the last one, and are written from it without any lock. When the journal
+ * of the clinic has grown too big, the next change that finishes checkpoints it with the structure
+ * lock held for writing.
+ *
+ * <p>The clinic shouldn't be changed without this class while it is being used.
+ */
+public class ConcurrentClinic implements ClinicFunctionality {
+  /**
+   * The number of room locks and staff locks, unless another number is given.
+   */
+  public static final int DEFAULT_STRIPES = 64;
+
+  private final Clinic clinic;
+  private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+  private final Lock[] roomLocks;
+  private final Lock[] staffLocks;
+  private final ReportSnapshot.Locks reportLocks = new ReportSnapshot.Locks() {
+    @Override
+    public Lock roomLock(int roomNumber) {
+      return ConcurrentClinic.this.roomLock(roomNumber);
+    }
+
+    @Override
+    public Lock staffLock(Staff staff) {
+      return ConcurrentClinic.this.staffLock(staff);
+    }
+  };
+
+  /**
+   * The constructor takes in the clinic that is going to be shared, with the default number of
+   * locks.
+   *
+   * @param clinic is the clinic.
+   */
+  public ConcurrentClinic(Clinic clinic) {
+    this(clinic, DEFAULT_STRIPES);
+  }
+
+  /**
+   * The constructor takes in the clinic that is going to be shared and the number of room locks
+   * and staff locks. More locks means fewer moves wait for a move between other rooms.
+   *
+   * @param clinic is the clinic.
+   * @param stripes is the number of room locks, and the number of staff locks.
+   * @throws IllegalArgumentException if the clinic is null or there isn't at least one lock.
+   */
+  public ConcurrentClinic(Clinic clinic, int stripes) {
+    if (clinic == null) {
+      throw new IllegalArgumentException("The clinic can't be null");
+    }
+    if (stripes < 1) {
+      throw new IllegalArgumentException("There has to be at least one lock");
+    }
+    this.clinic = clinic;
+    this.roomLocks = new Lock[stripes];
+    this.staffLocks = new Lock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      roomLocks[i] = new ReentrantLock();
+      staffLocks[i] = new ReentrantLock();
+    }
+  }
+
+  /**
+   * Retrieves the clinic that is shared. It should only be read while no other thread uses it.
+   *
+   * @return the clinic.
+   */
+  public Clinic getClinic() {
+    return clinic;
+  }
+
+  @Override
+  public void readDataFromFile(File file) {
+    write(() -> clinic.readDataFromFile(file));
+  }
+
+  @Override
+  public int getWaitingRoomNumber() {
+    return read(clinic::getWaitingRoomNumber);
+  }
+
+  @Override
+  public Client registerClient(Registration registration, VisitRecord record) {
+    return write(() -> clinic.registerClient(registration, record));
+  }
+
+  @Override
+  public Client addClinicClient(Client client) {
+    return write(() -> clinic.addClinicClient(client));
+  }
+
+  @Override
+  public void populateRoomKey(int i, Room room) {
+    write(() -> clinic.populateRoomKey(i, room));
+  }
+
+  @Override
+  public void removeClinicClient(Client client, Staff staff) {
+    write(() -> clinic.removeClinicClient(client, staff));
+  }
+
+  @Override
+  public void addClinicStaff(Staff staff) {
+    write(() -> clinic.addClinicStaff(staff));
+  }
+
+  @Override
+  public void removeClinicStaff(Staff staff) {
+    write(() -> clinic.removeClinicStaff(staff));
+  }
+
+  @Override
+  public Room addClinicRoom(Room room) {
+    return write(() -> clinic.addClinicRoom(room));
+  }
+
+  @Override
+  public boolean validateRoom(int[] id) {
+    structure.readLock().lock();
+    try {
+      Lock lock = roomLock(clinic.getRoomRegistry().numberOf(RoomId.of(id)));
+      lock.lock();
+      try {
+        return clinic.validateRoom(id);
+      } finally {
+        lock.unlock();
+      }
+    } finally {
+      structure.readLock().unlock();
+    }
+  }
+
+  /**
+   * The purpose of this function is to assign a client to a new room upon request. The new room is
+   * reserved first without any lock, so a move into a room that is taken fails right away. Then
+   * only the room the client is in and the new room are locked while the client moves, so clients
+   * moving between other rooms don't wait. Unlike the clinic, the room number isn't printed.
+   *
+   * @param client is used to assign to the new room.
+   * @param room is used to get the room assigned to the client.
+   * @throws IllegalArgumentException if the room isn't in the clinic or is occupied.
+   */
+  @Override
+  public void assignClientToNewRoom(Client client, Room room) {
+    structure.readLock().lock();
+    try {
+      RoomMove move = clinic.reserveMove(client, room);
+      boolean committed = false;
+      try {
+        int to = clinic.getRoomRegistry().numberOf(room);
+        while (!committed) {
+          int from = client.getRoomNum();
+          // The room locks are taken in the order of the stripes, and the same lock can be taken
+          // twice
+          Lock first = roomLocks[Math.min(stripe(from), stripe(to))];
+          Lock second = roomLocks[Math.max(stripe(from), stripe(to))];
+          first.lock();
+          try {
+            second.lock();
+            try {
+              // The client could have been moved by another thread before the locks were taken
+              if (client.getRoomNum() == from) {
+                committed = true;
+                move.commit();
+              }
+            } finally {
+              second.unlock();
+            }
+          } finally {
+            first.unlock();
+          }
+        }
+      } finally {
+        if (!committed) {
+          move.rollback();
+        }
+      }
+    } finally {
+      structure.readLock().unlock();
+    }
+    checkpointIfDue();
+  }
+
+  @Override
+  public boolean assignStaffToClient(Staff staff, Client client) {
+    Boolean assigned = assign(staff, client,
+        () -> inGraph(staff) ? clinic.assignStaffToClient(staff, client) : null);
+    // A staff member that is new to the clinic changes the lists of the clinic
+    return assigned != null ? assigned : write(() -> clinic.assignStaffToClient(staff, client));
+  }
+
+  @Override
+  public void assignClientToStaff(Staff staff, Client client) {
+    Boolean assigned = assign(staff, client, () -> {
+      if (!inGraph(staff)) {
+        return null;
+      }
+      clinic.assignClientToStaff(staff, client);
+      return true;
+    });
+    if (assigned == null) {
+      write(() -> clinic.assignClientToStaff(staff, client));
+    }
+  }
+
+  @Override
+  public void removeClientFromStaff(Staff staff, Client client) {
+    assign(staff, client, () -> {
+      clinic.removeClientFromStaff(staff, client);
+      return null;
+    });
+  }
+
+  @Override
+  public void removeAllStaffFromClient(Client client) {
+    write(() -> clinic.removeAllStaffFromClient(client));
+  }
+
+  @Override
+  public void staffWasRemovedFromClinic(Staff staff) {
+    write(() -> clinic.staffWasRemovedFromClinic(staff));
+  }
+
+  @Override
+  public boolean isStaffAlreadyWithPatient(Staff staff, Client client) {
+    return assign(staff, client, () -> clinic.isStaffAlreadyWithPatient(staff, client));
+  }
+
+  @Override
+  public String isPatientOneYearIn() {
+    ReportSnapshot snapshot = getReportSnapshot();
+    return ReportWriter.render(snapshot::writePatientsOneYearIn);
+  }
+
+  @Override
+  public void removeStaffFromClient(Staff staff, Client client) {
+    assign(staff, client, () -> {
+      clinic.removeStaffFromClient(staff, client);
+      return null;
+    });
+  }
+
+  @Override
+  public void setWaitingRoomList(ArrayList<Integer> waitingRoomList) {
+    write(() -> clinic.setWaitingRoomList(waitingRoomList));
+  }
+
+  @Override
+  public String getNoYearVisitList() {
+    ReportSnapshot snapshot = getReportSnapshot();
+    return ReportWriter.render(snapshot::writeNoYearVisitList);
+  }
+
+  @Override
+  public String displayAllInfo() {
+    ReportSnapshot snapshot = getReportSnapshot();
+    return ReportWriter.render(snapshot::writeAllInfo);
+  }
+
+  /**
+   * This method takes a report snapshot of the clinic. Only what changed since the last snapshot
+   * is read. The snapshot is taken with the structure lock held for reading, so clients keep
+   * moving and staff keep being assigned while it is taken, and each room and staff member is
+   * locked while it is read.
+   *
+   * <p>If the versions of the rooms or the assignments changed while the snapshot was taken, a
+   * client that moved could be in it twice or not at all. Then the snapshot is taken again with
+   * the structure lock held for writing, which nothing can change the clinic during. That one only
+   * reads what changed since the first one.
+   *
+   * @return the snapshot.
+   */
+  public ReportSnapshot getReportSnapshot() {
+    structure.readLock().lock();
+    try {
+      long mapVersion = clinic.getMapVersion();
+      long staffVersion = clinic.getAssignments().getVersion();
+      ReportSnapshot snapshot = clinic.getReportSnapshot(reportLocks);
+      if (clinic.getMapVersion() == mapVersion
+          && clinic.getAssignments().getVersion() == staffVersion) {
+        return snapshot;
+      }
+    } finally {
+      structure.readLock().unlock();
+    }
+    return write(() -> clinic.getReportSnapshot());
+  }
+
+  @Override
+  public String displayRoomInfo(Room room) {
+    return ReportWriter.render(out -> {
+      structure.readLock().lock();
+      try {
+        writeRoomInfo(clinic.getRoomRegistry().numberOf(room), out);
+      } finally {
+        structure.readLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * This method writes the information of one room while the room is locked, so the clients in
+   * it don't move while they are written.
+   */
+  private void writeRoomInfo(int roomNumber, Appendable out) throws IOException {
+    Lock lock = roomLock(roomNumber);
+    lock.lock();
+    try {
+      clinic.writeRoomInfo(clinic.getRoom(roomNumber), out);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * This method runs an assignment with the room of the client and the staff member locked. The
+   * room of the client is looked at again once it is locked, since the client could have moved.
+   */
+  private <T> T assign(Staff staff, Client client, Supplier<T> action) {
+    try {
+      return assignLocked(staff, client, action);
+    } finally {
+      checkpointIfDue();
+    }
+  }
+
+  private <T> T assignLocked(Staff staff, Client client, Supplier<T> action) {
+    structure.readLock().lock();
+    try {
+      while (true) {
+        int roomNumber = client.getRoomNum();
+        Lock room = roomLock(roomNumber);
+        room.lock();
+        try {
+          if (client.getRoomNum() != roomNumber) {
+            continue;
+          }
+          Lock person = staffLock(staff);
+          person.lock();
+          try {
+            return action.get();
+          } finally {
+            person.unlock();
+          }
+        } finally {
+          room.unlock();
+        }
+      }
+    } finally {
+      structure.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method checks if the staff member has a place in the assignments already. If they don't,
+   * assigning them adds them, which can't happen at the same time as other assignments.
+   */
+  private boolean inGraph(Staff staff) {
+    return clinic.getAssignments().findStaff(staff) != null;
+  }
+
+  /**
+   * This method checkpoints the clinic if its journal has grown too big. Nothing can change the
+   * clinic while the snapshot is built, so it has to be called without any lock held. The journal
+   * writes the snapshot after the lock is let go.
+   */
+  private void checkpointIfDue() {
+    ClinicJournal journal = clinic.getJournal();
+    if (journal != null && journal.isCheckpointDue()) {
+      write(clinic::checkpointIfDue);
+    }
+  }
+
+  private <T> T read(Supplier<T> action) {
+    structure.readLock().lock();
+    try {
+      return action.get();
+    } finally {
+      structure.readLock().unlock();
+    }
+  }
+
+  private <T> T write(Supplier<T> action) {
+    structure.writeLock().lock();
+    try {
+      T result = action.get();
+      clinic.checkpointIfDue();
+      return result;
+    } finally {
+      structure.writeLock().unlock();
+    }
+  }
+
+  private void write(Runnable action) {
+    structure.writeLock().lock();
+    try {
+      action.run();
+      clinic.checkpointIfDue();
+    } finally {
+      structure.writeLock().unlock();
+    }
+  }
+
+  private int stripe(int roomNumber) {
+    return Math.floorMod(roomNumber, roomLocks.length);
+  }
+
+  private Lock roomLock(int roomNumber) {
+    return roomLocks[stripe(roomNumber)];
+  }
+
+  private Lock staffLock(Staff staff) {
+    return staffLocks[spread(staff.hashCode()) % staffLocks.length];
+  }
+
+  private static int spread(int hash) {
+    return (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+  }
+}
@@ -0,0 +1,145 @@
+package models;
+
+/**
+ * This class gives every client, staff member and room in a clinic a numeric id, and finds them
+ * again from that id. The ids come from one counter that only goes up, so a clinic that is loaded
+ * and changed the same way always gives out the same ids. That is what lets the journal and the
+ * snapshot refer to a client by its id.
+ *
+ * <p>Clients stay in the table after they are discharged, since they are still in the archives.
+ * Staff members and rooms are taken out when they are removed from the clinic.
+ */
+public class EntityTable {
+  private final LongMap<Client> clients = new LongMap<>();
+  private final LongMap<Staff> staffs = new LongMap<>();
+  private final LongMap<Room> rooms = new LongMap<>();
+  private long nextId = 1;
+
+  /**
+   * This method gives the client an id if it doesn't have one, and adds it to the table.
+   *
+   * @param client is the client.
+   * @return the id of the client.
+   */
+  public long track(Client client) {
+    long id = claim(client.getEntityId());
+    client.setEntityId(id);
+    clients.put(id, client);
+    return id;
+  }
+
+  /**
+   * This method gives the staff member an id if they don't have one, and adds them to the table.
+   *
+   * @param staff is the staff member.
+   * @return the id of the staff member.
+   */
+  public long track(Staff staff) {
+    long id = claim(staff.getEntityId());
+    staff.setEntityId(id);
+    staffs.put(id, staff);
+    return id;
+  }
+
+  /**
+   * This method gives the room an id if it doesn't have one, and adds it to the table.
+   *
+   * @param room is the room.
+   * @return the id of the room.
+   */
+  public long track(Room room) {
+    long id = claim(room.getEntityId());
+    room.setEntityId(id);
+    rooms.put(id, room);
+    return id;
+  }
+
+  /**
+   * This method takes the staff member out of the table. Their id stays with them.
+   *
+   * @param staff is the staff member.
+   */
+  public void untrack(Staff staff) {
+    if (staffs.get(staff.getEntityId()) == staff) {
+      staffs.remove(staff.getEntityId());
+    }
+  }
+
+  /**
+   * This method takes the room out of the table. Its id stays with it.
+   *
+   * @param room is the room.
+   */
+  public void untrack(Room room) {
+    if (rooms.get(room.getEntityId()) == room) {
+      rooms.remove(room.getEntityId());
+    }
+  }
+
+  /**
+   * This method finds the client with the given id.
+   *
+   * @param id is the id of the client.
+   * @return the client, or null if there isn't one.
+   */
+  public Client client(long id) {
+    return clients.get(id);
+  }
+
+  /**
+   * This method finds the staff member with the given id.
+   *
+   * @param id is the id of the staff member.
+   * @return the staff member, or null if there isn't one.
+   */
+  public Staff staff(long id) {
+    return staffs.get(id);
+  }
+
+  /**
+   * This method finds the room with the given id.
+   *
+   * @param id is the id of the room.
+   * @return the room, or null if there isn't one.
+   */
+  public Room room(long id) {
+    return rooms.get(id);
+  }
+
+  /**
+   * Retrieves the id the next new entity will get.
+   *
+   * @return the next id.
+   */
+  public long getNextId() {
+    return nextId;
+  }
+
+  /**
+   * Sets the id the next new entity will get. The counter never goes back below an id that was
+   * already given out.
+   *
+   * @param nextId is the next id.
+   */
+  public void setNextId(long nextId) {
+    this.nextId = Math.max(this.nextId, nextId);
+  }
+
+  /**
+   * This method removes every entity and starts the ids from 1 again.
+   */
+  public void clear() {
+    clients.clear();
+    staffs.clear();
+    rooms.clear();
+    nextId = 1;
+  }
+
+  private long claim(long id) {
+    if (id == 0) {
+      return nextId++;
+    }
+    nextId = Math.max(nextId, id + 1);
+    return id;
+  }
+}
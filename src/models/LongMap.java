@@ -0,0 +1,183 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is a hash map from a long key to a value. The keys are kept in a long[] instead of
+ * being boxed, so a lookup doesn't create any objects. The key 0 is not allowed, since it marks an
+ * empty slot.
+ *
+ * @param <V> is the type of the values.
+ */
+public class LongMap<V> {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  /**
+   * The constructor makes an empty map.
+   */
+  public LongMap() {
+    keys = new long[MIN_CAPACITY];
+    values = new Object[MIN_CAPACITY];
+  }
+
+  /**
+   * This method finds the value of the given key.
+   *
+   * @param key is the key to look up.
+   * @return the value, or null if the key isn't in the map.
+   */
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    if (key == 0) {
+      return null;
+    }
+    int mask = keys.length - 1;
+    for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return (V) values[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * This method puts the value under the given key.
+   *
+   * @param key is the key, which can't be 0.
+   * @param value is the value.
+   * @return the value the key had before, or null if it didn't have one.
+   * @throws IllegalArgumentException if the key is 0.
+   */
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (key == 0) {
+      throw new IllegalArgumentException("The key 0 can't be used");
+    }
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (keys[i] != 0) {
+      if (keys[i] == key) {
+        V old = (V) values[i];
+        values[i] = value;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+    return null;
+  }
+
+  /**
+   * This method removes the given key.
+   *
+   * @param key is the key to remove.
+   * @return the value the key had, or null if it wasn't in the map.
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    if (key == 0) {
+      return null;
+    }
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (keys[i] != key) {
+      if (keys[i] == 0) {
+        return null;
+      }
+      i = (i + 1) & mask;
+    }
+    V old = (V) values[i];
+    // The entries after the removed one are moved back so no lookup stops early
+    int gap = i;
+    for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+      int home = slot(keys[j], mask);
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        gap = j;
+      }
+    }
+    keys[gap] = 0;
+    values[gap] = null;
+    size--;
+    return old;
+  }
+
+  /**
+   * This method checks if the key is in the map.
+   *
+   * @param key is the key to look up.
+   * @return true if the key is in the map.
+   */
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Retrieves the number of keys in the map.
+   *
+   * @return the number of keys.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * This method removes every key.
+   */
+  public void clear() {
+    Arrays.fill(keys, 0);
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /**
+   * This method makes a list of the values in the map, in no particular order.
+   *
+   * @return the values.
+   */
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> list = new ArrayList<>(size);
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        list.add((V) values[i]);
+      }
+    }
+    return list;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int j = slot(oldKeys[i], mask);
+        while (keys[j] != 0) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  private static int slot(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
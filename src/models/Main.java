@@ -107,7 +107,7 @@ public class Main {
       Clinic clinic = new Clinic("Cybernetic Implant Clinic"); 
       Readable input = new InputStreamReader(System.in);
       Appendable output = System.out;
-      new ClinicConsoleController(input, output).playNewGame(clinic, selectedFile);
+      new ClinicConsoleController(input, output).loadNewGame(clinic, selectedFile);
       contentPane.add(createAboutPanel(), BorderLayout.CENTER);
       frame.revalidate();
       frame.repaint();
@@ -0,0 +1,397 @@
+package models;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * This class draws the room map of a clinic into a PNG or SVG file without a screen, the same way
+ * the room map window draws it. It is meant for pictures of the floor that are made every few
+ * minutes, for example for a display on a wall.
+ *
+ * <p>A large floor plan is too big to keep as one image, so the PNG is drawn a band of rows at a
+ * time and each band is compressed into the file before the next one is drawn. Only one band is
+ * ever in memory. The SVG is written one room at a time.
+ *
+ * <p>The map is drawn from a {@link MapSnapshot}, so the clinic is only read while the snapshot is
+ * made, and the drawing can take as long as it needs.
+ */
+public class MapExporter {
+  /**
+   * The color behind the rooms, which is the color of the room map window.
+   */
+  public static final Color BACKGROUND = new Color(238, 238, 238);
+
+  // How many rows of pixels are drawn at a time
+  private static final int BAND_HEIGHT = 64;
+  // The most bytes of compressed pixels in one chunk of the PNG file
+  private static final int CHUNK_SIZE = 1 << 16;
+  private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+  private static final FontRenderContext FRC = new FontRenderContext(null, false, false);
+
+  private final RoomMapRenderer renderer;
+  private final MapLayout layout;
+
+  /**
+   * The constructor takes in the snapshot of the rooms to draw, and the zoom factor to draw them
+   * at.
+   *
+   * @param snapshot is the snapshot of the rooms.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   */
+  public MapExporter(MapSnapshot snapshot, double zoomFactor) {
+    this.renderer = new RoomMapRenderer(() -> snapshot, zoomFactor);
+    this.layout = renderer.getLayout();
+  }
+
+  /**
+   * This makes an exporter for the rooms the clinic has now. It has to be called on the thread
+   * that changes the clinic, but the files can be written on any thread after that.
+   *
+   * @param clinic is the clinic.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   * @return the exporter.
+   */
+  public static MapExporter of(Clinic clinic, double zoomFactor) {
+    return new MapExporter(MapSnapshot.of(clinic, null), zoomFactor);
+  }
+
+  /**
+   * Retrieves how big the pictures are.
+   *
+   * @return the size of the map.
+   */
+  public Dimension getMapSize() {
+    return layout.getMapSize();
+  }
+
+  /**
+   * This method writes the map to a file, as a PNG or an SVG depending on the end of its name. The
+   * picture is written next to the file first and then moved over it, so a display that reads the
+   * file never sees half of a picture.
+   *
+   * @param file is the file to write, ending with .png or .svg.
+   * @throws IOException if the file couldn't be written.
+   * @throws IllegalArgumentException if the name doesn't end with .png or .svg.
+   */
+  public void export(File file) throws IOException {
+    String name = file.getName().toLowerCase();
+    boolean png = name.endsWith(".png");
+    if (!png && !name.endsWith(".svg")) {
+      throw new IllegalArgumentException("The map can only be exported to .png or .svg files");
+    }
+    Path target = file.getAbsoluteFile().toPath();
+    Path partial = target.resolveSibling(file.getName() + ".part");
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+      if (png) {
+        writePng(out);
+      } else {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeSvg(writer);
+        writer.flush();
+      }
+    }
+    Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * This method draws the whole map and writes it as a PNG.
+   *
+   * @param out is where the PNG is written. It isn't closed.
+   * @throws IOException if the PNG couldn't be written.
+   */
+  public void writePng(OutputStream out) throws IOException {
+    Dimension size = getMapSize();
+    writePng(out, new Rectangle(0, 0, size.width, size.height));
+  }
+
+  /**
+   * This method draws one area of the map and writes it as a PNG. The area is drawn a band of rows
+   * at a time, so a large area doesn't have to fit in memory.
+   *
+   * @param out is where the PNG is written. It isn't closed.
+   * @param area is the area of the map to draw.
+   * @throws IOException if the PNG couldn't be written.
+   * @throws IllegalArgumentException if the area is empty.
+   */
+  public void writePng(OutputStream out, Rectangle area) throws IOException {
+    if (area.isEmpty()) {
+      throw new IllegalArgumentException("The area to export is empty");
+    }
+    DataOutputStream data = new DataOutputStream(out);
+    data.write(PNG_SIGNATURE);
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream fields = new DataOutputStream(header);
+    fields.writeInt(area.width);
+    fields.writeInt(area.height);
+    fields.writeByte(8); // Bits in each color
+    fields.writeByte(2); // Red, green and blue without alpha
+    fields.writeByte(0); // Deflate
+    fields.writeByte(0); // Every row starts with its filter
+    fields.writeByte(0); // Not interlaced
+    writeChunk(data, "IHDR", header.toByteArray(), header.size());
+
+    BufferedImage band = new BufferedImage(area.width, Math.min(BAND_HEIGHT, area.height),
+        BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+    byte[] row = new byte[1 + area.width * 3];
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try (DeflaterOutputStream compressed = new DeflaterOutputStream(new ChunkStream(data),
+        deflater, CHUNK_SIZE)) {
+      for (int top = area.y; top < area.y + area.height; top += band.getHeight()) {
+        int rows = Math.min(band.getHeight(), area.y + area.height - top);
+        Rectangle part = new Rectangle(area.x, top, area.width, rows);
+        Graphics2D g = band.createGraphics();
+        try {
+          g.setColor(BACKGROUND);
+          g.fillRect(0, 0, band.getWidth(), band.getHeight());
+          g.translate(-area.x, -top);
+          g.clip(part);
+          renderer.paintRooms(g, part);
+        } finally {
+          g.dispose();
+        }
+        for (int y = 0; y < rows; y++) {
+          encodeRow(pixels, y * area.width, area.width, row);
+          compressed.write(row);
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+    writeChunk(data, "IEND", new byte[0], 0);
+    data.flush();
+  }
+
+  /**
+   * This method writes a row of pixels with the Sub filter, where every byte is the difference
+   * from the same color of the pixel to its left. The rooms and the background are flat colors, so
+   * most of the row becomes zeros, which compress well.
+   */
+  private static void encodeRow(int[] pixels, int offset, int width, byte[] row) {
+    row[0] = 1;
+    int left = 0;
+    for (int x = 0, i = 1; x < width; x++, i += 3) {
+      int pixel = pixels[offset + x];
+      row[i] = (byte) ((pixel >> 16) - (left >> 16));
+      row[i + 1] = (byte) ((pixel >> 8) - (left >> 8));
+      row[i + 2] = (byte) (pixel - left);
+      left = pixel;
+    }
+  }
+
+  private static void writeChunk(DataOutputStream out, String type, byte[] bytes, int length)
+      throws IOException {
+    byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(bytes, 0, length);
+    out.writeInt(length);
+    out.write(name);
+    out.write(bytes, 0, length);
+    out.writeInt((int) crc.getValue());
+  }
+
+  /**
+   * This method writes the whole map as an SVG, one room at a time. The rooms are drawn the same
+   * way as on the screen: with their name and information when the zoom factor is big enough, and
+   * as outlines with the number of clients in them when it isn't.
+   *
+   * @param out is where the SVG is written.
+   * @throws IOException if the SVG couldn't be written.
+   */
+  public void writeSvg(Appendable out) throws IOException {
+    Dimension size = getMapSize();
+    out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    out.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(
+        Integer.toString(size.width)).append("\" height=\"").append(Integer.toString(size.height))
+        .append("\" font-family=\"").append(RoomMapRenderer.ROOM_FONT.getFamily())
+        .append("\" font-size=\"").append(Integer.toString(RoomMapRenderer.ROOM_FONT.getSize()))
+        .append("\">\n");
+    out.append("<rect width=\"100%\" height=\"100%\" fill=\"#eeeeee\"/>\n");
+    MapSnapshot snapshot = layout.getSnapshot();
+    for (int i = 0; i < snapshot.size(); i++) {
+      MapSnapshot.RoomView view = snapshot.get(i);
+      Rectangle bounds = layout.roomBounds(i);
+      out.append("<g><rect x=\"").append(Integer.toString(bounds.x)).append("\" y=\"")
+          .append(Integer.toString(bounds.y)).append("\" width=\"")
+          .append(Integer.toString(bounds.width)).append("\" height=\"")
+          .append(Integer.toString(bounds.height)).append("\" fill=\"white\"");
+      if (layout.isDetailed()) {
+        out.append("/>");
+        text(out, bounds.x, bounds.y - 5, view.getName());
+        int startY = bounds.y - 5;
+        for (String line : view.getInfo().split("\n")) {
+          startY += 20;
+          text(out, bounds.x, startY, line);
+        }
+      } else {
+        out.append(" stroke=\"black\"/>");
+        count(out, bounds, view.getClientCount());
+      }
+      out.append("</g>\n");
+    }
+    out.append("</svg>\n");
+  }
+
+  /**
+   * This method writes the number of clients in the middle of the room, if the room is big enough
+   * for it, like the room map does when it is zoomed out.
+   */
+  private static void count(Appendable out, Rectangle bounds, int count) throws IOException {
+    if (count == 0) {
+      return;
+    }
+    String text = Integer.toString(count);
+    int width = (int) Math.ceil(RoomMapRenderer.ROOM_FONT.getStringBounds(text, FRC).getWidth());
+    int ascent = (int) Math.ceil(RoomMapRenderer.ROOM_FONT.getLineMetrics(text, FRC)
+        .getAscent());
+    if (width + 4 > bounds.width || ascent + 4 > bounds.height) {
+      return;
+    }
+    text(out, bounds.x + (bounds.width - width) / 2, bounds.y + (bounds.height + ascent) / 2,
+        text);
+  }
+
+  private static void text(Appendable out, int x, int y, String text) throws IOException {
+    out.append("<text x=\"").append(Integer.toString(x)).append("\" y=\"")
+        .append(Integer.toString(y)).append("\">");
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '&':
+          out.append("&amp;");
+          break;
+        case '<':
+          out.append("&lt;");
+          break;
+        case '>':
+          out.append("&gt;");
+          break;
+        default:
+          out.append(c);
+      }
+    }
+    out.append("</text>");
+  }
+
+  /**
+   * The main function exports the room map of a clinic file without a screen. The clinic comes
+   * from the snapshot and the journal next to the file when they are up to date, so the picture
+   * shows where the patients are now. Nothing next to the file is changed.
+   *
+   * <p>The arguments are the clinic file, the PNG or SVG file to write, the zoom factor, which is
+   * 2.5 unless it is given, and the number of seconds between pictures. Without the number of
+   * seconds only one picture is made.
+   *
+   * @param args are the clinic file, the picture file, the zoom factor and the seconds.
+   * @throws IOException if the clinic couldn't be read or the picture couldn't be written.
+   * @throws InterruptedException if the program is stopped between pictures.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    System.setProperty("java.awt.headless", "true");
+    if (args.length < 2) {
+      System.out.println("Usage: MapExporter <clinic file> <picture.png|picture.svg> [zoom] "
+          + "[seconds between pictures]");
+      return;
+    }
+    File input = new File(args[0]);
+    File output = new File(args[1]);
+    double zoom = args.length > 2 ? Double.parseDouble(args[2]) : 2.5;
+    long seconds = args.length > 3 ? Long.parseLong(args[3]) : 0;
+    while (true) {
+      long start = System.nanoTime();
+      MapExporter exporter = of(readClinic(input), zoom);
+      exporter.export(output);
+      System.out.println(String.format("Exported %s (%d x %d) in %.0f ms", output,
+          exporter.getMapSize().width, exporter.getMapSize().height,
+          (System.nanoTime() - start) / 1e6));
+      if (seconds <= 0) {
+        return;
+      }
+      Thread.sleep(seconds * 1000);
+    }
+  }
+
+  private static Clinic readClinic(File file) throws IOException {
+    Clinic clinic = new Clinic("Cybernetic Implant Clinic");
+    if (ClinicSnapshot.isFresh(file)) {
+      Path snapshot = new File(file.getPath() + ClinicSnapshot.EXTENSION).toPath();
+      ClinicSnapshot.read(clinic, snapshot);
+      ClinicJournal.replay(clinic, new File(file.getPath() + ClinicJournal.EXTENSION).toPath(),
+          ClinicSnapshot.readGeneration(snapshot));
+    } else {
+      clinic.readDataFromFile(file);
+    }
+    return clinic;
+  }
+
+  /**
+   * The stream cuts the compressed pixels into IDAT chunks of the PNG file. Closing it writes the
+   * last chunk, but doesn't close the file.
+   */
+  private static final class ChunkStream extends OutputStream {
+    private final DataOutputStream out;
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    private int length;
+
+    ChunkStream(DataOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (length == buffer.length) {
+        flushChunk();
+      }
+      buffer[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+      while (count > 0) {
+        if (length == buffer.length) {
+          flushChunk();
+        }
+        int copied = Math.min(count, buffer.length - length);
+        System.arraycopy(bytes, offset, buffer, length, copied);
+        length += copied;
+        offset += copied;
+        count -= copied;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (length > 0) {
+        flushChunk();
+      }
+    }
+
+    private void flushChunk() throws IOException {
+      writeChunk(out, "IDAT", buffer, length);
+      length = 0;
+    }
+  }
+}
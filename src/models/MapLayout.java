@@ -0,0 +1,246 @@
+package models;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is a snapshot of the rooms laid out at one zoom factor: where the rectangle of every
+ * room is on the map, a {@link RoomGrid} to find the rooms near a point or an area, and how big the
+ * map is. Like the snapshot, it doesn't change after it is made, and it doesn't read the clinic, so
+ * it can be made on any thread.
+ *
+ * <p>The text of a room can go past the right and the bottom of its rectangle, so the layout
+ * remembers how far the text of any room goes past, and looks that much further when it searches
+ * the grid. Below {@link RoomMapRenderer#DETAIL_ZOOM} only the outlines of the rooms are drawn, so
+ * the text isn't counted then.
+ */
+public final class MapLayout {
+  private static final int LINE_HEIGHT = 20;
+  // The room name is drawn just above the rectangle of the room
+  private static final int NAME_HEIGHT = 25;
+  // The space left around the rooms at the right and the bottom of the map
+  private static final int MARGIN = 20;
+
+  private final MapSnapshot snapshot;
+  private final double zoomFactor;
+  private final boolean detailed;
+  private final Rectangle[] bounds;
+  private final RoomGrid grid;
+  // How far the text of any room goes past the right and the bottom of its rectangle
+  private final int textPastRight;
+  private final int textPastBottom;
+  private final Dimension mapSize;
+
+  /**
+   * The constructor lays the rooms of the snapshot out at the zoom factor.
+   *
+   * @param snapshot is the snapshot of the rooms.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   * @throws IllegalArgumentException if the zoom factor isn't more than 0.
+   */
+  public MapLayout(MapSnapshot snapshot, double zoomFactor) {
+    if (!(zoomFactor > 0)) {
+      throw new IllegalArgumentException("The zoom factor has to be more than 0");
+    }
+    this.snapshot = snapshot;
+    this.zoomFactor = zoomFactor;
+    this.detailed = zoomFactor >= RoomMapRenderer.DETAIL_ZOOM;
+    Room[] rooms = new Room[snapshot.size()];
+    bounds = new Rectangle[snapshot.size()];
+    int pastRight = 0;
+    int pastBottom = 0;
+    for (int i = 0; i < rooms.length; i++) {
+      MapSnapshot.RoomView view = snapshot.get(i);
+      rooms[i] = view.getRoom();
+      bounds[i] = scale(view.getElement(0), view.getElement(1), view.getElement(2),
+          view.getElement(3), zoomFactor);
+      if (detailed) {
+        pastRight = Math.max(pastRight, view.textWidth - bounds[i].width);
+        pastBottom = Math.max(pastBottom, view.lines.length * LINE_HEIGHT - bounds[i].height);
+      }
+    }
+    textPastRight = pastRight;
+    textPastBottom = pastBottom;
+    grid = new RoomGrid(rooms, bounds);
+    int width = 0;
+    int height = 0;
+    for (int i = 0; i < rooms.length; i++) {
+      Rectangle painted = paintBounds(i);
+      width = Math.max(width, painted.x + painted.width);
+      height = Math.max(height, painted.y + painted.height);
+    }
+    mapSize = new Dimension(width + MARGIN, height + MARGIN);
+  }
+
+  /**
+   * This method finds where a rectangle of the floor plan is drawn on the map.
+   *
+   * @param x1 is the x-coordinate of the top-left corner.
+   * @param y1 is the y-coordinate of the top-left corner.
+   * @param x2 is the x-coordinate of the bottom-right corner.
+   * @param y2 is the y-coordinate of the bottom-right corner.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   * @return the rectangle on the map.
+   */
+  public static Rectangle scale(int x1, int y1, int x2, int y2, double zoomFactor) {
+    // The rooms start 800 units to the left at any zoom factor, which is 2000 pixels at 2.5
+    int scaledX = (int) ((x1 * 32 - 800) * zoomFactor);
+    int scaledY = (int) (y1 * 32 * zoomFactor + 125);
+    int scaledWidth = (int) ((x2 - x1) * 50 * zoomFactor);
+    int scaledHeight = (int) ((y2 - y1) * 32 * zoomFactor);
+    return new Rectangle(scaledX, scaledY, scaledWidth, scaledHeight);
+  }
+
+  /**
+   * Retrieves the snapshot that was laid out.
+   *
+   * @return the snapshot.
+   */
+  public MapSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Retrieves the zoom factor the rooms were laid out at.
+   *
+   * @return the zoom factor.
+   */
+  public double getZoomFactor() {
+    return zoomFactor;
+  }
+
+  /**
+   * This method checks if the rooms are drawn with their names and information, or only with their
+   * outlines and the number of clients in them.
+   *
+   * @return true if the names and the information are drawn.
+   */
+  public boolean isDetailed() {
+    return detailed;
+  }
+
+  /**
+   * Retrieves how big the map has to be to show every room, starting from the top-left corner at
+   * 0, 0.
+   *
+   * @return the size of the map.
+   */
+  public Dimension getMapSize() {
+    return new Dimension(mapSize);
+  }
+
+  /**
+   * This method finds where the rectangle of a room is drawn.
+   *
+   * @param index is the place of the room in the snapshot.
+   * @return the rectangle of the room on the map.
+   */
+  public Rectangle roomBounds(int index) {
+    return new Rectangle(bounds[index]);
+  }
+
+  /**
+   * This method finds everything a room draws on, which is its rectangle, its name above it and
+   * its information, which can go past the bottom and the right of the rectangle. When the map is
+   * zoomed out, it is only the rectangle and its outline.
+   *
+   * @param index is the place of the room in the snapshot.
+   * @return the area the room draws on.
+   */
+  public Rectangle paintBounds(int index) {
+    Rectangle painted = roomBounds(index);
+    if (!detailed) {
+      // The outline is drawn on the right and the bottom edges too
+      painted.width++;
+      painted.height++;
+      return painted;
+    }
+    MapSnapshot.RoomView view = snapshot.get(index);
+    int right = Math.max(painted.x + painted.width, painted.x + view.textWidth);
+    int bottom = Math.max(painted.y + painted.height, painted.y + view.lines.length * LINE_HEIGHT);
+    painted.y -= NAME_HEIGHT;
+    painted.width = right - painted.x;
+    painted.height = bottom - painted.y;
+    return painted;
+  }
+
+  /**
+   * This method finds the parts of the map that look different than they did in the layout of an
+   * older snapshot. A snapshot keeps the view of every room that didn't change, so only the rooms
+   * with a new view are compared.
+   *
+   * @param previous is the layout that was drawn before.
+   * @return the areas the changed rooms drew on before and draw on now, or null if rooms were
+   *         added, removed or moved, or the zoom factor is different, so the whole map changed.
+   */
+  public List<Rectangle> changedSince(MapLayout previous) {
+    if (previous == this) {
+      return Collections.emptyList();
+    }
+    if (previous.zoomFactor != zoomFactor || previous.bounds.length != bounds.length) {
+      return null;
+    }
+    List<Rectangle> changed = new ArrayList<>();
+    for (int i = 0; i < bounds.length; i++) {
+      MapSnapshot.RoomView before = previous.snapshot.get(i);
+      MapSnapshot.RoomView now = snapshot.get(i);
+      if (before == now) {
+        continue;
+      }
+      if (before.getRoom() != now.getRoom() || !previous.bounds[i].equals(bounds[i])) {
+        return null;
+      }
+      changed.add(previous.paintBounds(i).union(paintBounds(i)));
+    }
+    return changed;
+  }
+
+  /**
+   * This method finds the first room whose rectangle has the point in it. The edges of the
+   * rectangle count as inside of it.
+   *
+   * @param point is the point on the map.
+   * @return the place of the room in the snapshot, or -1 if no room has the point in it.
+   */
+  public int indexAt(Point point) {
+    return grid.indexAt(point);
+  }
+
+  /**
+   * This method finds every room whose rectangle has the point in it.
+   *
+   * @param point is the point on the map.
+   * @return the places of the rooms in the snapshot, from first to last.
+   */
+  public int[] indicesAt(Point point) {
+    // The grid counts the edges, so an area with no size finds the rooms the point is in
+    return grid.indicesIn(new Rectangle(point.x, point.y, 0, 0));
+  }
+
+  /**
+   * This method finds every room whose rectangle, name or text reaches into the area.
+   *
+   * @param area is the area of the map.
+   * @return the places of the rooms in the snapshot, from first to last.
+   */
+  public int[] indicesIn(Rectangle area) {
+    // The rooms whose rectangle is close enough for their name or text to reach into the area
+    Rectangle around = detailed
+        ? new Rectangle(area.x - textPastRight, area.y - textPastBottom,
+            area.width + textPastRight, area.height + textPastBottom + NAME_HEIGHT)
+        : area;
+    int[] found = grid.indicesIn(around);
+    int count = 0;
+    for (int index : found) {
+      if (paintBounds(index).intersects(area)) {
+        found[count++] = index;
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+}
@@ -0,0 +1,318 @@
+package models;
+
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a picture of the rooms of a clinic at one moment, with everything the room map
+ * needs to draw them: where each room is, its name, the text about the clients and staff in it,
+ * and how many clients are in it. Nothing in a snapshot changes after it is made, so the room map
+ * can draw it while the clinic is being changed, and it can be handed from one thread to another.
+ *
+ * <p>A snapshot is made in two steps. {@link #capture(Clinic, MapSnapshot)} reads the clinic, and
+ * has to run on the thread that changes the clinic. It only reads the rooms that changed since the
+ * last snapshot, and keeps the rest. {@link Capture#build()} lays the text out as glyphs, which
+ * is the slow part, and can run on any thread. It also keeps the glyphs of the rooms that didn't
+ * change.
+ */
+public final class MapSnapshot {
+  /**
+   * A snapshot without any rooms, for before the first snapshot of a clinic is ready.
+   */
+  public static final MapSnapshot EMPTY = new MapSnapshot(-1, new RoomView[0]);
+
+  // The text is laid out for this context, so it looks the same on the screen and in an image
+  private static final FontRenderContext FRC = new FontRenderContext(null, false, false);
+
+  private final long mapVersion;
+  private final RoomView[] rooms;
+  private final Map<Room, Integer> indexOf = new IdentityHashMap<>();
+
+  private MapSnapshot(long mapVersion, RoomView[] rooms) {
+    this.mapVersion = mapVersion;
+    this.rooms = rooms;
+    for (int i = 0; i < rooms.length; i++) {
+      indexOf.putIfAbsent(rooms[i].room, i);
+    }
+  }
+
+  /**
+   * This method reads the clinic and makes a snapshot of it right away. It is the same as
+   * capturing the clinic and building the capture on the same thread.
+   *
+   * @param clinic is the clinic.
+   * @param previous is the last snapshot of the clinic, or null if there isn't one.
+   * @return the snapshot.
+   */
+  public static MapSnapshot of(Clinic clinic, MapSnapshot previous) {
+    return capture(clinic, previous).build();
+  }
+
+  /**
+   * This method reads what the room map needs from the clinic. The information of a room is only
+   * read again if the version of the room is not the one in the previous snapshot. It has to be
+   * called on the thread that changes the clinic.
+   *
+   * @param clinic is the clinic.
+   * @param previous is the last snapshot of the clinic, or null if there isn't one.
+   * @return what was read, which can be built into a snapshot on any thread.
+   */
+  public static Capture capture(Clinic clinic, MapSnapshot previous) {
+    List<Room> roomList = clinic.getClinicRooms();
+    RoomState[] states = new RoomState[roomList.size()];
+    for (int i = 0; i < states.length; i++) {
+      Room room = roomList.get(i);
+      int roomNumber = clinic.getRoomNumber(room);
+      long version = clinic.getRoomVersion(room);
+      RoomView old = previous == null ? null : previous.find(room);
+      if (old != null && old.roomNumber == roomNumber && old.version == version
+          && old.name.equals(room.getRoomName()) && sameId(old.id, room.getId())) {
+        states[i] = new RoomState(old);
+      } else {
+        states[i] = new RoomState(room, roomNumber, version, clinic.displayRoomInfo(room),
+            clinic.countClientsInRoom(roomNumber));
+      }
+    }
+    return new Capture(clinic.getMapVersion(), states);
+  }
+
+  /**
+   * Retrieves the version of the clinic's room map this snapshot was made from.
+   *
+   * @return the version from {@link Clinic#getMapVersion()}.
+   */
+  public long getMapVersion() {
+    return mapVersion;
+  }
+
+  /**
+   * Retrieves the number of rooms in the snapshot.
+   *
+   * @return the number of rooms.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * Retrieves the room at the given place in the order the rooms are drawn.
+   *
+   * @param index is the place of the room.
+   * @return the room.
+   */
+  public RoomView get(int index) {
+    return rooms[index];
+  }
+
+  /**
+   * This method finds the room in the snapshot.
+   *
+   * @param room is the room of the clinic.
+   * @return what the snapshot has of the room, or null if the room isn't in it.
+   */
+  public RoomView find(Room room) {
+    int index = indexOf(room);
+    return index < 0 ? null : rooms[index];
+  }
+
+  /**
+   * This method finds the place of the room in the order the rooms are drawn.
+   *
+   * @param room is the room of the clinic.
+   * @return the place of the room, or -1 if the room isn't in the snapshot.
+   */
+  public int indexOf(Room room) {
+    Integer index = indexOf.get(room);
+    return index == null ? -1 : index;
+  }
+
+  private static boolean sameId(int[] kept, int[] id) {
+    if (id == null || id.length < 4) {
+      return false;
+    }
+    for (int i = 0; i < 4; i++) {
+      if (kept[i] != id[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * What was read from the clinic for a snapshot, before the text is laid out.
+   */
+  public static final class Capture {
+    private final long mapVersion;
+    private final RoomState[] states;
+
+    private Capture(long mapVersion, RoomState[] states) {
+      this.mapVersion = mapVersion;
+      this.states = states;
+    }
+
+    /**
+     * Retrieves the version of the clinic's room map that was read.
+     *
+     * @return the version from {@link Clinic#getMapVersion()}.
+     */
+    public long getMapVersion() {
+      return mapVersion;
+    }
+
+    /**
+     * This method lays out the text of the rooms that changed and makes the snapshot. The glyphs
+     * of the rooms that didn't change are kept from the previous snapshot. It doesn't read the
+     * clinic, so it can run on any thread.
+     *
+     * @return the snapshot.
+     */
+    public MapSnapshot build() {
+      RoomView[] views = new RoomView[states.length];
+      for (int i = 0; i < states.length; i++) {
+        RoomState state = states[i];
+        views[i] = state.kept != null ? state.kept : new RoomView(state);
+      }
+      return new MapSnapshot(mapVersion, views);
+    }
+  }
+
+  /**
+   * What was read from the clinic about one room, or the room of the previous snapshot if the
+   * room didn't change.
+   */
+  private static final class RoomState {
+    private final RoomView kept;
+    private final Room room;
+    private final int roomNumber;
+    private final long version;
+    private final String name;
+    private final int[] id;
+    private final String info;
+    private final int clientCount;
+
+    private RoomState(RoomView kept) {
+      this(kept, kept.room, kept.roomNumber, kept.version, kept.name, kept.id, kept.info,
+          kept.clientCount);
+    }
+
+    private RoomState(Room room, int roomNumber, long version, String info, int clientCount) {
+      this(null, room, roomNumber, version, room.getRoomName(), room.getId().clone(), info,
+          clientCount);
+    }
+
+    private RoomState(RoomView kept, Room room, int roomNumber, long version, String name,
+        int[] id, String info, int clientCount) {
+      this.kept = kept;
+      this.room = room;
+      this.roomNumber = roomNumber;
+      this.version = version;
+      this.name = name;
+      this.id = id;
+      this.info = info;
+      this.clientCount = clientCount;
+    }
+  }
+
+  /**
+   * Everything the room map needs to draw one room. The text is laid out as glyphs.
+   */
+  public static final class RoomView {
+    private final Room room;
+    private final int roomNumber;
+    private final long version;
+    private final String name;
+    private final int[] id;
+    private final String info;
+    private final int clientCount;
+    final GlyphVector nameGlyphs;
+    final GlyphVector[] lines;
+    final int textWidth;
+
+    private RoomView(RoomState state) {
+      this.room = state.room;
+      this.roomNumber = state.roomNumber;
+      this.version = state.version;
+      this.name = state.name;
+      this.id = state.id;
+      this.info = state.info;
+      this.clientCount = state.clientCount;
+      this.nameGlyphs = RoomMapRenderer.ROOM_FONT.createGlyphVector(FRC, name);
+      String[] text = info.split("\n");
+      this.lines = new GlyphVector[text.length];
+      double widest = nameGlyphs.getLogicalBounds().getWidth();
+      for (int i = 0; i < text.length; i++) {
+        lines[i] = RoomMapRenderer.ROOM_FONT.createGlyphVector(FRC, text[i]);
+        widest = Math.max(widest, lines[i].getLogicalBounds().getWidth());
+      }
+      this.textWidth = (int) Math.ceil(widest);
+    }
+
+    /**
+     * Retrieves the room of the clinic this is a picture of. The room itself can change after the
+     * snapshot is made, so it should only be used on the thread that changes the clinic.
+     *
+     * @return the room.
+     */
+    public Room getRoom() {
+      return room;
+    }
+
+    /**
+     * Retrieves the room number the room had.
+     *
+     * @return the room number.
+     */
+    public int getRoomNumber() {
+      return roomNumber;
+    }
+
+    /**
+     * Retrieves the version the room had.
+     *
+     * @return the version of the room.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Retrieves the name the room had.
+     *
+     * @return the name of the room.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Retrieves one of the coordinates of the room, like {@link Room#getElement(int)}.
+     *
+     * @param index is 0 and 1 for the top-left corner, and 2 and 3 for the bottom-right corner.
+     * @return the coordinate.
+     */
+    public int getElement(int index) {
+      return id[index];
+    }
+
+    /**
+     * Retrieves the information about the clients and staff that was in the room.
+     *
+     * @return the information, like {@link Clinic#displayRoomInfo(Room)}.
+     */
+    public String getInfo() {
+      return info;
+    }
+
+    /**
+     * Retrieves the number of clients that were in the room.
+     *
+     * @return the number of clients.
+     */
+    public int getClientCount() {
+      return clientCount;
+    }
+  }
+}
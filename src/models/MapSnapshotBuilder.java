@@ -0,0 +1,118 @@
+package models;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class keeps a {@link MapSnapshot} of a clinic up to date without making the thread that
+ * changes the clinic wait for it. {@link #refresh()} reads the rooms that changed, which is quick,
+ * and the glyphs are laid out on a background thread. When the new snapshot is ready it replaces
+ * the old one all at once, and the listener is told.
+ *
+ * <p>If the clinic changes a few times while a snapshot is being built, only the last change is
+ * built next, so a batch of changes makes one snapshot instead of one for each change.
+ */
+public class MapSnapshotBuilder {
+  // One thread for every room map, which doesn't keep the program running when it ends
+  private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "Room map snapshots");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Clinic clinic;
+  private final Executor executor;
+  private final Runnable listener;
+  private final AtomicReference<MapSnapshot> published =
+      new AtomicReference<>(MapSnapshot.EMPTY);
+  // Only used on the thread that changes the clinic
+  private long capturedVersion = -1;
+  // Guarded by this
+  private MapSnapshot.Capture pending;
+  private boolean building;
+
+  /**
+   * The constructor takes in the clinic, and what to do when a new snapshot is ready. The
+   * snapshots are built on a background thread.
+   *
+   * @param clinic is the clinic.
+   * @param listener is called on the background thread after every new snapshot.
+   */
+  public MapSnapshotBuilder(Clinic clinic, Runnable listener) {
+    this(clinic, BACKGROUND, listener);
+  }
+
+  /**
+   * The constructor takes in the clinic, what builds the snapshots, and what to do when a new
+   * snapshot is ready.
+   *
+   * @param clinic is the clinic.
+   * @param executor runs the building of the snapshots.
+   * @param listener is called by the executor after every new snapshot.
+   */
+  public MapSnapshotBuilder(Clinic clinic, Executor executor, Runnable listener) {
+    this.clinic = clinic;
+    this.executor = executor;
+    this.listener = listener;
+  }
+
+  /**
+   * This method reads the clinic if it changed since the last time, and starts building a new
+   * snapshot of it. It has to be called on the thread that changes the clinic.
+   *
+   * @return true if the clinic changed, or false if the last snapshot is still up to date.
+   */
+  public boolean refresh() {
+    long version = clinic.getMapVersion();
+    if (version == capturedVersion) {
+      return false;
+    }
+    MapSnapshot.Capture capture = MapSnapshot.capture(clinic, published.get());
+    capturedVersion = version;
+    boolean start;
+    synchronized (this) {
+      pending = capture;
+      start = !building;
+      building = true;
+    }
+    if (start) {
+      executor.execute(this::buildPending);
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the last snapshot that is ready. It can be called from any thread.
+   *
+   * @return the snapshot, or {@link MapSnapshot#EMPTY} if none is ready yet.
+   */
+  public MapSnapshot getSnapshot() {
+    return published.get();
+  }
+
+  private void buildPending() {
+    try {
+      while (true) {
+        MapSnapshot.Capture next;
+        synchronized (this) {
+          next = pending;
+          pending = null;
+          if (next == null) {
+            building = false;
+            return;
+          }
+        }
+        published.set(next.build());
+        listener.run();
+      }
+    } catch (RuntimeException e) {
+      // The next refresh starts building again
+      synchronized (this) {
+        building = false;
+      }
+      throw e;
+    }
+  }
+}
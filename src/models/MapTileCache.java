@@ -0,0 +1,196 @@
+package models;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps pictures of square tiles of the room map, so scrolling over the map only copies
+ * pictures that are already drawn. The tiles are drawn ahead of time, a few at a time, for the
+ * part of the map that is on the screen and the tiles around it.
+ *
+ * <p>The tiles belong to one layout of the room map. When only what is in some rooms changed, only
+ * the tiles those rooms are drawn on are thrown away. When rooms were added or removed or the zoom
+ * factor changed, every tile is thrown away. Either way the map is drawn straight from the rooms
+ * until the tiles are drawn again. Only so many tiles are kept, and the ones that were used the
+ * longest time ago go first.
+ */
+public class MapTileCache {
+  /**
+   * The width and height of a tile.
+   */
+  public static final int TILE_SIZE = 256;
+
+  // 256 tiles of 256 x 256 pixels are 64 MB, and cover a 4K screen with a ring of tiles around it
+  private static final int MAX_TILES = 256;
+
+  private final RoomMapRenderer renderer;
+  private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(16,
+      0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+      return size() > MAX_TILES;
+    }
+  };
+  private MapLayout layout;
+  private Color background;
+
+  /**
+   * The constructor takes in what the tiles are drawn with.
+   *
+   * @param renderer draws the rooms on the tiles.
+   */
+  public MapTileCache(RoomMapRenderer renderer) {
+    this.renderer = renderer;
+  }
+
+  /**
+   * This method draws the given area of the map. The tiles that are ready are copied, and the
+   * rest of the area is drawn straight from the rooms.
+   *
+   * @param g is where the map is drawn.
+   * @param area is the area of the map to draw.
+   * @param background is the color behind the rooms.
+   * @return the number of tiles that weren't ready.
+   */
+  public int paint(Graphics2D g, Rectangle area, Color background) {
+    sync(background);
+    int missing = 0;
+    int firstCol = Math.floorDiv(area.x, TILE_SIZE);
+    int lastCol = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+    int firstRow = Math.floorDiv(area.y, TILE_SIZE);
+    int lastRow = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        BufferedImage tile = tiles.get(key(col, row));
+        if (tile != null) {
+          g.drawImage(tile, col * TILE_SIZE, row * TILE_SIZE, null);
+          continue;
+        }
+        missing++;
+        Rectangle part = tileBounds(col, row).intersection(area);
+        Graphics2D partGraphics = (Graphics2D) g.create();
+        try {
+          partGraphics.clip(part);
+          renderer.paintRooms(partGraphics, part);
+        } finally {
+          partGraphics.dispose();
+        }
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * This method draws one tile that isn't ready yet. The tiles in the given area are drawn first,
+   * then the ring of tiles around it, so the tiles that are about to be scrolled to are ready too.
+   *
+   * @param area is the area of the map that is on the screen.
+   * @param background is the color behind the rooms.
+   * @return true if a tile was drawn, or false if every tile is ready.
+   */
+  public boolean prepare(Rectangle area, Color background) {
+    sync(background);
+    if (prepareIn(area)) {
+      return true;
+    }
+    Rectangle around = new Rectangle(area);
+    around.grow(TILE_SIZE, TILE_SIZE);
+    return tiles.size() < MAX_TILES && prepareIn(around);
+  }
+
+  /**
+   * Retrieves the number of tiles that are ready.
+   *
+   * @return the number of tiles.
+   */
+  public int size() {
+    return tiles.size();
+  }
+
+  /**
+   * This method throws every tile away.
+   */
+  public void clear() {
+    tiles.clear();
+  }
+
+  private boolean prepareIn(Rectangle area) {
+    int firstCol = Math.floorDiv(area.x, TILE_SIZE);
+    int lastCol = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+    int firstRow = Math.floorDiv(area.y, TILE_SIZE);
+    int lastRow = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        long key = key(col, row);
+        if (!tiles.containsKey(key)) {
+          tiles.put(key, draw(col, row));
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private BufferedImage draw(int col, int row) {
+    BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setColor(background);
+      g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+      g.translate(-col * TILE_SIZE, -row * TILE_SIZE);
+      renderer.paintRooms(g, tileBounds(col, row));
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * This method throws away the tiles that were drawn for rooms that changed since, or every tile
+   * if they were drawn for another zoom factor, other rooms or another background.
+   */
+  private void sync(Color background) {
+    MapLayout current = renderer.getLayout();
+    if (current == layout && background.equals(this.background)) {
+      return;
+    }
+    List<Rectangle> changed = layout == null || !background.equals(this.background) ? null
+        : current.changedSince(layout);
+    if (changed == null) {
+      tiles.clear();
+    } else {
+      for (Rectangle area : changed) {
+        forget(area);
+      }
+    }
+    layout = current;
+    this.background = background;
+  }
+
+  private void forget(Rectangle area) {
+    int firstCol = Math.floorDiv(area.x, TILE_SIZE);
+    int lastCol = Math.floorDiv(area.x + area.width - 1, TILE_SIZE);
+    int firstRow = Math.floorDiv(area.y, TILE_SIZE);
+    int lastRow = Math.floorDiv(area.y + area.height - 1, TILE_SIZE);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        tiles.remove(key(col, row));
+      }
+    }
+  }
+
+  private static Rectangle tileBounds(int col, int row) {
+    return new Rectangle(col * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+  }
+
+  private static long key(int col, int row) {
+    return ((long) col << 32) | (row & 0xFFFFFFFFL);
+  }
+}
@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -138,12 +137,8 @@ public class MockClinicController extends JFrame implements ClinicController {
         out.append("Mock: Please enter the Last Name of the Staff who approved this:");
         out.append(staffLastName + "\n");
 
-        for (Staff staff : clinic.getClinicStaffs()) {
-          if (staff.getFirstName().contains(staffFirstName)
-              && staff.getLastName().contains(staffLastName)) {
-            secondCheck = true;
-            break;
-          }
+        if (clinic.findStaff(staffFirstName, staffLastName) != null) {
+          secondCheck = true;
         }
 
         if (!secondCheck) {
@@ -254,13 +249,7 @@ public class MockClinicController extends JFrame implements ClinicController {
    * @return The Client instance with a matching first name, or null if no match is found.
    */
   private Client findClientByName(String firstName, Clinic clinic) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
+    return clinic.findClientByName(firstName);
   }
 
   private String getVisitRecord(Client patient) {
@@ -375,13 +364,7 @@ public class MockClinicController extends JFrame implements ClinicController {
   }
 
   private Staff findStaffByName(String firstName, Clinic clinic) {
-    for (Staff staff : clinic.getClinicStaffs()) {
-      String name = staff.getFirstName() + " " + staff.getLastName();
-      if (name.contains(firstName)) {
-        return staff;
-      }
-    }
-    return null;
+    return clinic.findStaffByName(firstName);
   }
 
   /**
@@ -397,12 +380,7 @@ public class MockClinicController extends JFrame implements ClinicController {
    * @return The Staff instance with matching first and last names, or null if no match is found.
    */
   private Staff findStaffByName(String firstName, String lastName, Clinic clinic) {
-    for (Staff staff : clinic.getClinicStaffs()) {
-      if (staff.getFirstName().contains(firstName) && staff.getLastName().contains(lastName)) {
-        return staff;
-      }
-    }
-    return null;
+    return clinic.findStaff(firstName, lastName);
   }
 
   @Override
@@ -562,34 +540,18 @@ public class MockClinicController extends JFrame implements ClinicController {
   }
 
   private int findRoomNumber(Room room, Clinic clinic) {
-    for (Map.Entry<Integer, int[]> entry : clinic.getRoomKey().entrySet()) {
-      if (Arrays.equals(room.getId(), entry.getValue())) {
-        return entry.getKey();
-      }
-    }
-    return 0;
+    return clinic.getRoomNumber(room);
   }
 
   private List<Client> getClientsInRoom(int roomNum, Clinic clinic) {
-    List<Client> clientsInRoomArrayList = new ArrayList<>();
-
-    for (Client client : clinic.getClinicClients()) {
-      if (roomNum == client.getRoomNum()) {
-        clientsInRoomArrayList.add(client);
-      }
-    }
-    return clientsInRoomArrayList;
+    return clinic.getClientsInRoom(roomNum);
   }
 
   private List<Staff> getStaffInRoom(List<Client> clients, Clinic clinic) {
     List<Staff> staffInRoom = new ArrayList<>();
 
-    for (Map.Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
-      for (Client client : clients) {
-        if (entry.getValue().contains(client)) {
-          staffInRoom.add(entry.getKey());
-        }
-      }
+    for (Client client : clients) {
+      staffInRoom.addAll(clinic.getAssignments().staffOf(client));
     }
     return staffInRoom;
   }
@@ -742,7 +704,7 @@ public class MockClinicController extends JFrame implements ClinicController {
       client.getRecordHistory().clear();
     }
     clinic.getClinicStaffs().clear();
-    clinic.getClinicRooms().clear();
+    clinic.clearRooms();
 
     System.out.println("Mock: Clinic map cleared successfully");
   }
@@ -0,0 +1,319 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This class finds clients or staff members by their name without going through the whole list.
+ * Every name is kept in a sorted map once for each word it has, starting at that word, so "Dr. Amy
+ * Anguish" is kept under "dr. amy anguish", "amy anguish" and "anguish". A search for any word of
+ * the name, or the start of one, is then a range of the sorted map. The names are kept in lower
+ * case, so the searches don't care about case.
+ *
+ * <p>When more than one person matches, they are returned in the order they were added, so the
+ * first match is the same one a search through the list would have found first. People are kept by
+ * identity, since two clients can have the same name.
+ *
+ * <p>A short search like "a", or a last name many people share, can match most of the index, so
+ * the matches are not all gathered and sorted. The range of the sorted map is walked at the same
+ * time as everybody in the order they were added, a step of each at a time. If the people in order
+ * give enough matches first, those are the answer, and if the range ends first, the earliest
+ * matches in it are. Either way the search takes about twice the steps of whichever walk is
+ * shorter. Finding by first and last name walks the range of each name, so a rare first name is
+ * found quickly even with a common last name.
+ *
+ * @param <T> is the type of the people in the index.
+ */
+public class NameIndex<T> {
+  // Goes between the name and the number of the entry in a key, and sorts before any letter
+  private static final char SEPARATOR = '\u0000';
+
+  private final Function<T, String> firstName;
+  private final Function<T, String> lastName;
+  private final NavigableMap<String, Entry<T>> byWord = new TreeMap<>();
+  private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+  private final NavigableMap<Long, Entry<T>> bySequence = new TreeMap<>();
+  private long nextSequence;
+
+  /**
+   * The constructor takes in how to get the first and last name of a person.
+   *
+   * @param firstName gets the first name of a person.
+   * @param lastName gets the last name of a person.
+   */
+  public NameIndex(Function<T, String> firstName, Function<T, String> lastName) {
+    this.firstName = firstName;
+    this.lastName = lastName;
+  }
+
+  /**
+   * This method adds the person to the index under the name they have now.
+   *
+   * @param person is the person to add.
+   */
+  public void add(T person) {
+    Entry<T> entry = entries.get(person);
+    if (entry != null) {
+      // The same person can be in the list more than once
+      entry.count++;
+      return;
+    }
+    entry = new Entry<>(person, nextSequence++, normalize(firstName.apply(person)),
+        normalize(lastName.apply(person)));
+    entries.put(person, entry);
+    bySequence.put(entry.sequence, entry);
+    for (String key : keys(entry)) {
+      byWord.put(key, entry);
+    }
+  }
+
+  /**
+   * This method takes the person out of the index. Nothing happens if they aren't in it.
+   *
+   * @param person is the person to remove.
+   */
+  public void remove(T person) {
+    Entry<T> entry = entries.get(person);
+    if (entry == null || --entry.count > 0) {
+      return;
+    }
+    entries.remove(person);
+    bySequence.remove(entry.sequence);
+    for (String key : keys(entry)) {
+      byWord.remove(key);
+    }
+  }
+
+  /**
+   * This method removes every person from the index.
+   */
+  public void clear() {
+    byWord.clear();
+    entries.clear();
+    bySequence.clear();
+  }
+
+  /**
+   * Retrieves the number of people in the index.
+   *
+   * @return the number of people.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * This method finds the first person whose first name has a word starting with the first name
+   * given, and whose last name has a word starting with the last name given. A full name is an
+   * exact match, and "Amy" finds "Dr. Amy".
+   *
+   * @param first is the first name, or the start of a word of it.
+   * @param last is the last name, or the start of a word of it.
+   * @return the person that was added first out of the matches, or null if nobody matches.
+   */
+  public T find(String first, String last) {
+    String wantedFirst = normalize(first);
+    String wantedLast = normalize(last);
+    // Both the words starting with the first name and those starting with the last name hold
+    // every match, and there are fewer of one of them when the other name is a common one
+    List<T> best = firstMatches(Arrays.asList(range(wantedLast), range(wantedFirst)),
+        entry -> hasWordStartingWith(entry.last, wantedLast)
+            && hasWordStartingWith(entry.first, wantedFirst), 1);
+    return best.isEmpty() ? null : best.get(0);
+  }
+
+  /**
+   * This method finds the first person with the given full name. If nobody has exactly that name,
+   * it finds the first person whose name has the given words at the start of a word instead.
+   *
+   * @param fullName is the first and last name with a space between them.
+   * @return the person that was added first out of the matches, or null if nobody matches.
+   */
+  public T findByName(String fullName) {
+    String wanted = normalize(fullName);
+    Entry<T> exact = null;
+    Entry<T> partial = null;
+    for (Entry<T> entry : range(wanted).values()) {
+      if (entry.fullName.equals(wanted)) {
+        if (exact == null || entry.sequence < exact.sequence) {
+          exact = entry;
+        }
+      } else if (partial == null || entry.sequence < partial.sequence) {
+        partial = entry;
+      }
+    }
+    Entry<T> best = exact != null ? exact : partial;
+    return best == null ? null : best.person;
+  }
+
+  /**
+   * This method finds everybody whose name has a word starting with the given text. It is meant
+   * for searching as the user types.
+   *
+   * @param prefix is the start of a word of the name, or of a few words of it.
+   * @param limit is the most people to return.
+   * @return the people that match, in the order they were added.
+   */
+  public List<T> search(String prefix, int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("The limit can't be negative");
+    }
+    String wanted = normalize(prefix);
+    return firstMatches(Collections.singletonList(range(wanted)),
+        entry -> hasWordStartingWith(entry.fullName, wanted), limit);
+  }
+
+  /**
+   * This method finds the people added first out of those that match. Each of the ranges holds
+   * every match, maybe more than once, and maybe with people that don't match. They are walked
+   * together with everybody in the order they were added, and the walk that finishes first gives
+   * the answer.
+   */
+  private List<T> firstMatches(List<NavigableMap<String, Entry<T>>> ranges,
+      Predicate<Entry<T>> matches, int limit) {
+    List<T> inOrderMatches = new ArrayList<>();
+    if (limit == 0) {
+      return inOrderMatches;
+    }
+    List<RangeWalk<T>> walks = new ArrayList<>(ranges.size());
+    for (NavigableMap<String, Entry<T>> range : ranges) {
+      walks.add(new RangeWalk<>(range));
+    }
+    Iterator<Entry<T>> inOrder = bySequence.values().iterator();
+    while (true) {
+      for (RangeWalk<T> walk : walks) {
+        if (!walk.step(matches, limit)) {
+          return walk.people();
+        }
+      }
+
+      if (!inOrder.hasNext()) {
+        // Everybody was looked at in order
+        return inOrderMatches;
+      }
+      Entry<T> next = inOrder.next();
+      if (matches.test(next)) {
+        inOrderMatches.add(next.person);
+        if (inOrderMatches.size() == limit) {
+          return inOrderMatches;
+        }
+      }
+    }
+  }
+
+  private NavigableMap<String, Entry<T>> range(String prefix) {
+    // Every key that starts with the prefix sorts between the prefix and the prefix followed by
+    // the largest char
+    return byWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+  }
+
+  private static List<String> keys(Entry<?> entry) {
+    String name = entry.fullName;
+    String suffix = SEPARATOR + Long.toString(entry.sequence);
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != ' ' && (i == 0 || name.charAt(i - 1) == ' ')) {
+        keys.add(name.substring(i) + suffix);
+      }
+    }
+    if (keys.isEmpty()) {
+      keys.add(suffix);
+    }
+    return keys;
+  }
+
+  private static boolean hasWordStartingWith(String name, String wanted) {
+    if (wanted.isEmpty()) {
+      return true;
+    }
+    for (int i = name.indexOf(wanted); i >= 0; i = name.indexOf(wanted, i + 1)) {
+      if (i == 0 || name.charAt(i - 1) == ' ') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String normalize(String name) {
+    if (name == null) {
+      return "";
+    }
+    return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static final class Entry<T> {
+    private final T person;
+    private final long sequence;
+    private final String first;
+    private final String last;
+    private final String fullName;
+    private int count = 1;
+
+    private Entry(T person, long sequence, String first, String last) {
+      this.person = person;
+      this.sequence = sequence;
+      this.first = first;
+      this.last = last;
+      this.fullName = first.isEmpty() || last.isEmpty() ? first + last : first + " " + last;
+    }
+  }
+
+  /**
+   * This class walks a range of the sorted map one key at a time, and keeps the earliest matches
+   * it has seen, with the one added last on top.
+   */
+  private static final class RangeWalk<T> {
+    private final Iterator<Entry<T>> keys;
+    private final PriorityQueue<Entry<T>> earliest = new PriorityQueue<>(
+        (a, b) -> Long.compare(b.sequence, a.sequence));
+    // A person can be in the range once for each word of their name
+    private final Set<T> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private RangeWalk(NavigableMap<String, Entry<T>> range) {
+      this.keys = range.values().iterator();
+    }
+
+    /**
+     * This method looks at the next key of the range.
+     *
+     * @return false if the range was already walked to the end.
+     */
+    private boolean step(Predicate<Entry<T>> matches, int limit) {
+      if (!keys.hasNext()) {
+        return false;
+      }
+      Entry<T> entry = keys.next();
+      if (!kept.contains(entry.person) && matches.test(entry)
+          && (earliest.size() < limit || entry.sequence < earliest.peek().sequence)) {
+        earliest.add(entry);
+        kept.add(entry.person);
+        if (earliest.size() > limit) {
+          kept.remove(earliest.poll().person);
+        }
+      }
+      return true;
+    }
+
+    private List<T> people() {
+      List<Entry<T>> sorted = new ArrayList<>(earliest);
+      sorted.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+      List<T> people = new ArrayList<>(sorted.size());
+      for (Entry<T> entry : sorted) {
+        people.add(entry.person);
+      }
+      return people;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * The purpose of this class is to compare the name index with the name scans that the dialogs and
+ * the console used before. 500,000 patients with made up names are added, a fifth of them with
+ * the same last name, and the lookups are timed both ways. The lookups are finding a patient from
+ * the first and last name typed into the console, also when the last name is the shared one, and
+ * finding the first patients whose name starts with a few letters. The searches are timed for
+ * eight letters of a last name, for one and two letters, and for the start of a common first name,
+ * both for the ten people a dialog shows and for 200.
+ */
+public class NameIndexBenchmark {
+  private static final int PATIENTS = 500_000;
+  private static final int LOOKUPS = 50;
+  private static final int RUNS = 3;
+  private static final String SHARED_LAST_NAME = "Garcia";
+  private static final String[] FIRST_NAMES = {"Aandi", "Beth", "Carlos", "Dana", "Elijah",
+      "Fatima", "George", "Hana", "Ivan", "June", "Kofi", "Lena", "Marco", "Nia", "Omar", "Priya"};
+
+  /**
+   * The main function builds the patients and prints the time of each lookup.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    List<Client> patients = new ArrayList<>(PATIENTS);
+    NameIndex<Client> index = new NameIndex<>(Client::getFirstName, Client::getLastName);
+    long start = System.nanoTime();
+    for (int i = 0; i < PATIENTS; i++) {
+      String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+      String last = i % 5 == 0 ? SHARED_LAST_NAME : "Last" + i;
+      if (i == PATIENTS - 1) {
+        // Only the last patient has this first name, so the whole shared last name is looked at
+        first = "Zora";
+        last = SHARED_LAST_NAME;
+      }
+      Client client = new Client(1, first, last, "1/1/1990");
+      patients.add(client);
+      index.add(client);
+    }
+    System.out.println(String.format("%d patients indexed in %d ms, %d lookups per run", PATIENTS,
+        (System.nanoTime() - start) / 1_000_000, LOOKUPS));
+
+    String[] firsts = new String[LOOKUPS];
+    String[] lasts = new String[LOOKUPS];
+    String[] sharedFirsts = new String[LOOKUPS];
+    String[] prefixes = new String[LOOKUPS];
+    String[] oneLetter = new String[LOOKUPS];
+    String[] twoLetters = new String[LOOKUPS];
+    String[] firstNames = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      Client target = patients.get(random.nextInt(PATIENTS));
+      firsts[i] = target.getFirstName();
+      lasts[i] = target.getLastName();
+      sharedFirsts[i] = i % 10 == 0 ? "Zora" : FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+      prefixes[i] = "Last" + (1 + random.nextInt(PATIENTS - 1)) / 10;
+      String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+      oneLetter[i] = name.substring(0, 1);
+      twoLetters[i] = name.substring(0, 2);
+      firstNames[i] = name.substring(0, 3);
+    }
+
+    System.out.println(String.format("%20s %14s %14s %10s", "lookup", "scan ns/op",
+        "index ns/op", "speedup"));
+
+    Sink sink = new Sink();
+    printRow("first and last",
+        time(i -> sink.add(scanFind(patients, firsts[i], lasts[i]))),
+        time(i -> sink.add(index.find(firsts[i], lasts[i]))));
+    printRow("shared last name",
+        time(i -> sink.add(scanFind(patients, sharedFirsts[i], SHARED_LAST_NAME))),
+        time(i -> sink.add(index.find(sharedFirsts[i], SHARED_LAST_NAME))));
+    for (int limit : new int[] {10, 200}) {
+      printRow("8 letters, " + limit,
+          time(i -> sink.add(scanSearch(patients, prefixes[i], limit))),
+          time(i -> sink.add(index.search(prefixes[i], limit))));
+      printRow("1 letter, " + limit,
+          time(i -> sink.add(scanSearch(patients, oneLetter[i], limit))),
+          time(i -> sink.add(index.search(oneLetter[i], limit))));
+      printRow("2 letters, " + limit,
+          time(i -> sink.add(scanSearch(patients, twoLetters[i], limit))),
+          time(i -> sink.add(index.search(twoLetters[i], limit))));
+      printRow("first name, " + limit,
+          time(i -> sink.add(scanSearch(patients, firstNames[i], limit))),
+          time(i -> sink.add(index.search(firstNames[i], limit))));
+    }
+
+    // The sink keeps the JIT from removing the lookups
+    System.out.println("checksum " + sink.total);
+  }
+
+  /**
+   * This method runs every lookup a few times and gives back the time of the fastest run.
+   */
+  private static long time(IntConsumer lookup) {
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < LOOKUPS; i++) {
+        lookup.accept(i);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private static void printRow(String lookup, long scanNanos, long indexNanos) {
+    System.out.println(String.format("%20s %14.1f %14.1f %9.0fx", lookup,
+        (double) scanNanos / LOOKUPS, (double) indexNanos / LOOKUPS,
+        (double) scanNanos / Math.max(1, indexNanos)));
+  }
+
+  private static Client scanFind(List<Client> patients, String first, String last) {
+    for (Client client : patients) {
+      if (client.getFirstName().contains(first) && client.getLastName().contains(last)) {
+        return client;
+      }
+    }
+    return null;
+  }
+
+  private static List<Client> scanSearch(List<Client> patients, String prefix, int limit) {
+    List<Client> matches = new ArrayList<>();
+    for (Client client : patients) {
+      String name = client.getFirstName() + " " + client.getLastName();
+      if (name.toLowerCase().contains(prefix.toLowerCase()) && matches.size() < limit) {
+        matches.add(client);
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * This class adds up the results of the lookups so none of them can be skipped.
+   */
+  private static final class Sink {
+    private long total;
+
+    private void add(Object result) {
+      total += result == null ? 0 : result.hashCode();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.RandomAccess;
+
+/**
+ * This class is a list that works like an ArrayList, but tells a listener about every element that
+ * is added or removed. The clinic uses it for its client and staff lists, so its indexes stay right
+ * even when the lists are changed directly.
+ *
+ * @param <T> is the type of the elements.
+ */
+class ObservedList<T> extends AbstractList<T> implements RandomAccess {
+  /**
+   * The listener is told about every change to the list.
+   *
+   * @param <T> is the type of the elements.
+   */
+  interface Listener<T> {
+    /**
+     * This method is called after the element was added.
+     *
+     * @param element is the element that was added.
+     */
+    void added(T element);
+
+    /**
+     * This method is called after the element was removed.
+     *
+     * @param element is the element that was removed.
+     */
+    void removed(T element);
+
+    /**
+     * This method is called after every element was removed at once.
+     */
+    void cleared();
+  }
+
+  private final ArrayList<T> elements = new ArrayList<>();
+  private final Listener<T> listener;
+
+  /**
+   * The constructor takes in the listener that follows the list.
+   *
+   * @param listener is told about every change to the list.
+   */
+  ObservedList(Listener<T> listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public T get(int index) {
+    return elements.get(index);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public T set(int index, T element) {
+    T old = elements.set(index, element);
+    listener.removed(old);
+    listener.added(element);
+    return old;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    elements.add(index, element);
+    listener.added(element);
+    modCount++;
+  }
+
+  @Override
+  public T remove(int index) {
+    T old = elements.remove(index);
+    listener.removed(old);
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public void clear() {
+    elements.clear();
+    listener.cleared();
+    modCount++;
+  }
+
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    ArrayList<T> removed = new ArrayList<>(elements.subList(fromIndex, toIndex));
+    elements.subList(fromIndex, toIndex).clear();
+    for (T element : removed) {
+      listener.removed(element);
+    }
+    modCount++;
+  }
+}
@@ -0,0 +1,181 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps track of which clients are in which room, so the clients in a room can be found
+ * without going through every client in the clinic. The clients in a room are kept in the order
+ * they came into the room.
+ *
+ * <p>Clients are looked up by identity, since the room number and record of a client are part of
+ * its equality and change while the client is in the clinic.
+ *
+ * <p>Every room also has a version, which changes whenever a client comes into or leaves the room,
+ * or something about a client in the room changes. The room map uses it to know which rooms have
+ * to be drawn again.
+ *
+ * <p>Clients in different rooms can be moved at the same time, as long as the two rooms of every
+ * move are locked, like {@link ConcurrentClinic} does. Adding and removing clients can't happen at
+ * the same time as anything else.
+ */
+public class OccupancyIndex {
+  private final Map<Integer, Set<Occupant>> byRoom = new ConcurrentHashMap<>();
+  private final Map<Client, Occupant> occupants = new IdentityHashMap<>();
+  private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+  private final AtomicLong lastVersion = new AtomicLong();
+
+  /**
+   * This method puts the client in the room given by its room number.
+   *
+   * @param client is the client that came into the clinic.
+   */
+  public void add(Client client) {
+    Occupant occupant = occupants.get(client);
+    if (occupant != null) {
+      // The same client can be in the client list more than once
+      occupant.count++;
+      return;
+    }
+    occupant = new Occupant(client);
+    occupants.put(client, occupant);
+    byRoom.computeIfAbsent(occupant.roomNum, k -> new LinkedHashSet<>()).add(occupant);
+    touch(occupant.roomNum);
+  }
+
+  /**
+   * This method takes the client out of its room.
+   *
+   * @param client is the client that left the clinic.
+   */
+  public void remove(Client client) {
+    Occupant occupant = occupants.get(client);
+    if (occupant == null) {
+      return;
+    }
+    if (--occupant.count > 0) {
+      return;
+    }
+    occupants.remove(client);
+    leave(occupant);
+  }
+
+  /**
+   * This method moves the client to the room given by its room number. It is called after the
+   * room number of the client has changed. Nothing happens if the client isn't in the index.
+   *
+   * @param client is the client that moved.
+   */
+  public void move(Client client) {
+    Occupant occupant = occupants.get(client);
+    if (occupant == null || occupant.roomNum == client.getRoomNum()) {
+      return;
+    }
+    leave(occupant);
+    occupant.roomNum = client.getRoomNum();
+    byRoom.computeIfAbsent(occupant.roomNum, k -> new LinkedHashSet<>()).add(occupant);
+    touch(occupant.roomNum);
+  }
+
+  /**
+   * This method takes every client out of every room.
+   */
+  public void clear() {
+    for (int roomNum : byRoom.keySet()) {
+      versions.put(roomNum, lastVersion.incrementAndGet());
+    }
+    byRoom.clear();
+    occupants.clear();
+  }
+
+  /**
+   * This method changes the version of the room, to say that something about the room or the
+   * clients in it has changed.
+   *
+   * @param roomNum is the room number.
+   */
+  public void touch(int roomNum) {
+    versions.put(roomNum, lastVersion.incrementAndGet());
+  }
+
+  /**
+   * Retrieves the last version given to any room. It is different after every change to any room.
+   *
+   * @return the last version.
+   */
+  public long lastVersion() {
+    return lastVersion.get();
+  }
+
+  /**
+   * Retrieves the version of the room. The version is different after every change to the room,
+   * and is the same as long as nothing changes.
+   *
+   * @param roomNum is the room number.
+   * @return the version of the room.
+   */
+  public long versionOf(int roomNum) {
+    Long version = versions.get(roomNum);
+    return version == null ? 0 : version;
+  }
+
+  /**
+   * This method finds the clients in the room with the given number.
+   *
+   * @param roomNum is the room number.
+   * @return the clients in the room, in the order they came in.
+   */
+  public List<Client> clientsIn(int roomNum) {
+    Set<Occupant> room = byRoom.get(roomNum);
+    if (room == null) {
+      return Collections.emptyList();
+    }
+    List<Client> clients = new ArrayList<>(room.size());
+    for (Occupant occupant : room) {
+      clients.add(occupant.client);
+    }
+    return clients;
+  }
+
+  /**
+   * This method counts the clients in the room with the given number.
+   *
+   * @param roomNum is the room number.
+   * @return the number of clients in the room.
+   */
+  public int countIn(int roomNum) {
+    Set<Occupant> room = byRoom.get(roomNum);
+    return room == null ? 0 : room.size();
+  }
+
+  private void leave(Occupant occupant) {
+    touch(occupant.roomNum);
+    Set<Occupant> room = byRoom.get(occupant.roomNum);
+    room.remove(occupant);
+    if (room.isEmpty()) {
+      byRoom.remove(occupant.roomNum);
+    }
+  }
+
+  /**
+   * A client in a room. It uses the identity of the object for hashing so the client can be found
+   * after its fields change.
+   */
+  private static final class Occupant {
+    private final Client client;
+    private int roomNum;
+    private int count = 1;
+
+    Occupant(Client client) {
+      this.client = client;
+      this.roomNum = client.getRoomNum();
+    }
+  }
+}
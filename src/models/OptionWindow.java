@@ -4,8 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -63,35 +61,25 @@ public class OptionWindow extends JFrame {
 
   private void dischargePatient() {
     // Create a dialog for user input
-    String dischargeFirstName = (String) JOptionPane.showInputDialog(OptionWindow.this,
-        "Please select the patient to discharge:", "Discharge Patient", JOptionPane.PLAIN_MESSAGE,
-        null, getClinicClientNames().toArray(), null);
-
-    if (dischargeFirstName == null) {
-      return; // User canceled the operation
-    }
-    // Find the selected patient
-    Client patient = findClientByName(dischargeFirstName);
+    Client patient = PersonPicker.clients(clinic).showDialog(OptionWindow.this,
+        "Please select the patient to discharge:", "Discharge Patient");
 
     if (patient == null) {
-      JOptionPane.showMessageDialog(OptionWindow.this, "Patient doesn't exist. Please try again.",
-          "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
 
-    // Create a dialog for user input
-    String disChargeStaffFirstName = (String) JOptionPane.showInputDialog(OptionWindow.this,
-        "Please select the staff who approved this:", "Discharge Patient",
-        JOptionPane.PLAIN_MESSAGE, null, getClinicStaffNames().toArray(), null);
+    // Create a dialog for user input, with only the physicians in it
+    Staff staffApproval = PersonPicker.staff(clinic,
+        staff -> staff.getOccupation().contains("physician")).showDialog(OptionWindow.this,
+            "Please select the staff who approved this:", "Discharge Patient");
 
-    if (disChargeStaffFirstName == null) {
+    if (staffApproval == null) {
       return; // User canceled the operation
     }
+    String disChargeStaffFirstName = staffApproval.getFirstName() + " "
+        + staffApproval.getLastName();
 
-    // Find the selected staff member
-    Staff staffApproval = findStaffByName(disChargeStaffFirstName);
-
-    if (staffApproval == null || !staffApproval.getFirstName().contains("Dr.")) {
+    if (!staffApproval.getFirstName().contains("Dr.")) {
       JOptionPane.showMessageDialog(OptionWindow.this,
           "Staff doesn't exist or is not approved to discharge patients. Please try again.",
           "Error", JOptionPane.ERROR_MESSAGE);
@@ -109,49 +97,6 @@ public class OptionWindow extends JFrame {
     dispose();
   }
 
-  // Replace these methods with your actual implementations
-  private List<String> getClinicClientNames() {
-    List<String> names = new ArrayList<>();
-    // Replace this with your actual logic to get client names
-    // For now, returning a placeholder list
-    for (Client client : clinic.getClinicClients()) {
-      names.add(client.getFirstName() + " " + client.getLastName());
-    }
-    return names;
-  }
-
-  private Client findClientByName(String firstName) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
-  }
-
-  private List<String> getClinicStaffNames() {
-    List<String> docs = new ArrayList<>();
-    for (Staff staff : clinic.getClinicStaffs()) {
-      if (staff.getOccupation().contains("physician")) {
-        docs.add(staff.getFirstName() + " " + staff.getLastName());
-      }
-    }
-    return docs;
-    // Replace this with your actual logic to get staff names
-    // For now, returning a placeholder list
-  }
-
-  private Staff findStaffByName(String firstName) {
-    for (Staff staff : clinic.getClinicStaffs()) {
-      String name = staff.getFirstName() + " " + staff.getLastName();
-      if (name.contains(firstName)) {
-        return staff;
-      }
-    }
-    return null;
-  }
-
   private void sendPatientHome(Client patient, Staff staffApproval, Clinic clinic) {
     // Replace this with your actual logic to discharge a patient
     // For now, just printing a message
@@ -0,0 +1,323 @@
+package models;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * This class is the list the dialogs pick a patient or a staff member from. It has a text field
+ * above the list, and the list only shows the people whose name has a word starting with what was
+ * typed.
+ *
+ * <p>The list never copies the names of everybody in the clinic. Before anything is typed it shows
+ * the list of the clinic itself, and the list only asks for the rows that are on the screen, all
+ * of the same height. Once something is typed, the name index of the clinic finds the first few
+ * hundred people that match, so typing doesn't go through every patient. The search waits until
+ * the user stops typing for a moment, so a name typed quickly is only searched once.
+ *
+ * <p>The search runs on the event thread, since that is the thread the clinic and its name index
+ * are changed on, and searching them from another thread could see half a change. The index stops
+ * as soon as it has found {@link #MAX_MATCHES} people, so even a single letter on a big clinic
+ * doesn't hold up the window.
+ *
+ * @param <T> is the type of the people in the list.
+ */
+public class PersonPicker<T> extends JPanel {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The most people shown for what was typed.
+   */
+  public static final int MAX_MATCHES = 200;
+
+  // How long the picker waits after a key before it searches, in milliseconds
+  private static final int TYPING_DELAY = 150;
+  private static final int CELL_WIDTH = 280;
+
+  private final List<T> everyone;
+  private final BiFunction<String, Integer, List<T>> search;
+  private final Function<T, String> nameOf;
+  private final PeopleModel model = new PeopleModel();
+  private final JTextField field = new JTextField();
+  private final JList<T> list = new JList<>(model);
+  private final Timer typingTimer;
+
+  /**
+   * The constructor takes in everybody that can be picked, how to search them, and how to show
+   * their names.
+   *
+   * @param everyone is the list shown before anything is typed. It isn't copied.
+   * @param search finds the people whose name has a word starting with the text, up to a limit.
+   * @param nameOf gives the name that is shown for a person.
+   */
+  public PersonPicker(List<T> everyone, BiFunction<String, Integer, List<T>> search,
+      Function<T, String> nameOf) {
+    super(new BorderLayout(0, 5));
+    this.everyone = everyone;
+    this.search = search;
+    this.nameOf = nameOf;
+    this.typingTimer = new Timer(TYPING_DELAY, e -> setQuery(field.getText()));
+    typingTimer.setRepeats(false);
+
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    // Every row has the same size, so the list doesn't measure every name to lay itself out
+    list.setFixedCellHeight(new JLabel("Name").getPreferredSize().height + 2);
+    list.setFixedCellWidth(CELL_WIDTH);
+    list.setVisibleRowCount(12);
+    list.setCellRenderer(new DefaultListCellRenderer() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+          boolean isSelected, boolean cellHasFocus) {
+        return super.getListCellRendererComponent(list, nameOf.apply((T) value), index,
+            isSelected, cellHasFocus);
+      }
+    });
+    list.addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        if (e.getClickCount() == 2 && list.getSelectedIndex() >= 0) {
+          closeDialog(JOptionPane.OK_OPTION);
+        }
+      }
+    });
+
+    field.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        typingTimer.restart();
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        typingTimer.restart();
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+        typingTimer.restart();
+      }
+    });
+    field.addKeyListener(new KeyAdapter() {
+      @Override
+      public void keyPressed(KeyEvent e) {
+        moveSelection(e);
+      }
+    });
+    // Enter picks the person that is selected, or the first one that matches
+    field.addActionListener(e -> {
+      if (typingTimer.isRunning()) {
+        // The search for the last keys hasn't run yet
+        setQuery(field.getText());
+      }
+      if (getSelected() != null) {
+        closeDialog(JOptionPane.OK_OPTION);
+      }
+    });
+
+    JScrollPane scrollPane = new JScrollPane(list);
+    add(field, BorderLayout.NORTH);
+    add(scrollPane, BorderLayout.CENTER);
+    model.show(everyone);
+  }
+
+  /**
+   * This makes a picker for the patients of the clinic.
+   *
+   * @param clinic is the clinic.
+   * @return the picker.
+   */
+  public static PersonPicker<Client> clients(Clinic clinic) {
+    return new PersonPicker<>(clinic.getClinicClients(), clinic::searchClients,
+        client -> client.getFirstName() + " " + client.getLastName());
+  }
+
+  /**
+   * This makes a picker for the staff members of the clinic that pass the filter.
+   *
+   * @param clinic is the clinic.
+   * @param which is true for the staff members that can be picked.
+   * @return the picker.
+   */
+  public static PersonPicker<Staff> staff(Clinic clinic, Predicate<Staff> which) {
+    List<Staff> allowed = new ArrayList<>();
+    for (Staff staff : clinic.getClinicStaffs()) {
+      if (which.test(staff)) {
+        allowed.add(staff);
+      }
+    }
+    return new PersonPicker<>(allowed, (text, limit) -> {
+      List<Staff> found = new ArrayList<>();
+      for (Staff staff : clinic.searchStaff(text, Integer.MAX_VALUE)) {
+        if (found.size() < limit && which.test(staff)) {
+          found.add(staff);
+        }
+      }
+      return found;
+    }, PersonPicker::staffName);
+  }
+
+  /**
+   * This makes a picker for a short list of staff members, like the staff of one patient. The list
+   * is searched by going through it.
+   *
+   * @param staff are the staff members that can be picked.
+   * @return the picker.
+   */
+  public static PersonPicker<Staff> staff(List<Staff> staff) {
+    return new PersonPicker<>(staff, (text, limit) -> {
+      String wanted = text.trim().toLowerCase(Locale.ROOT);
+      List<Staff> found = new ArrayList<>();
+      for (Staff person : staff) {
+        String name = " " + staffName(person).toLowerCase(Locale.ROOT);
+        if (found.size() < limit && name.contains(" " + wanted)) {
+          found.add(person);
+        }
+      }
+      return found;
+    }, PersonPicker::staffName);
+  }
+
+  private static String staffName(Staff staff) {
+    return staff.getFirstName() + " " + staff.getLastName();
+  }
+
+  /**
+   * This method shows the people whose name has a word starting with the text right away, without
+   * waiting for the user to stop typing. The first of them is selected.
+   *
+   * @param text is the start of a word of the name, or nothing to show everybody.
+   */
+  public void setQuery(String text) {
+    typingTimer.stop();
+    String wanted = text == null ? "" : text.trim();
+    model.show(wanted.isEmpty() ? everyone : search.apply(wanted, MAX_MATCHES));
+    if (model.getSize() > 0) {
+      list.setSelectedIndex(0);
+      list.ensureIndexIsVisible(0);
+    }
+  }
+
+  /**
+   * Retrieves the field the name is typed into.
+   *
+   * @return the field.
+   */
+  public JTextField getField() {
+    return field;
+  }
+
+  /**
+   * Retrieves the list of people that is showing.
+   *
+   * @return the list.
+   */
+  public JList<T> getList() {
+    return list;
+  }
+
+  /**
+   * Retrieves the person that is selected.
+   *
+   * @return the person, or null if nobody is selected.
+   */
+  public T getSelected() {
+    int index = list.getSelectedIndex();
+    return index < 0 || index >= model.getSize() ? null : model.getElementAt(index);
+  }
+
+  /**
+   * This method shows the picker in a dialog, and waits until a person is picked or the dialog is
+   * cancelled.
+   *
+   * @param parent is the window the dialog belongs to.
+   * @param message is shown above the picker.
+   * @param title is the title of the dialog.
+   * @return the person that was picked, or null if the dialog was cancelled.
+   */
+  public T showDialog(Component parent, String message, String title) {
+    JOptionPane pane = new JOptionPane(new Object[] {message, this}, JOptionPane.PLAIN_MESSAGE,
+        JOptionPane.OK_CANCEL_OPTION);
+    pane.createDialog(parent, title).setVisible(true);
+    Object value = pane.getValue();
+    if (!(value instanceof Integer) || (Integer) value != JOptionPane.OK_OPTION) {
+      return null;
+    }
+    return getSelected();
+  }
+
+  private void closeDialog(int option) {
+    JOptionPane pane = (JOptionPane) SwingUtilities.getAncestorOfClass(JOptionPane.class, this);
+    if (pane != null) {
+      pane.setValue(option);
+    }
+  }
+
+  private void moveSelection(KeyEvent e) {
+    int step = e.getKeyCode() == KeyEvent.VK_DOWN ? 1 : e.getKeyCode() == KeyEvent.VK_UP ? -1 : 0;
+    if (step == 0 || model.getSize() == 0) {
+      return;
+    }
+    int index = Math.max(0, Math.min(model.getSize() - 1, list.getSelectedIndex() + step));
+    list.setSelectedIndex(index);
+    list.ensureIndexIsVisible(index);
+    e.consume();
+  }
+
+  /**
+   * The rows of the list. It holds on to the list it shows instead of copying it, and keeps the
+   * size it had, so a list that gets shorter while the dialog is open doesn't break it.
+   */
+  private final class PeopleModel extends AbstractListModel<T> {
+    private static final long serialVersionUID = 1L;
+    private List<T> people = Collections.emptyList();
+    private int size;
+
+    void show(List<T> shown) {
+      int old = size;
+      people = shown;
+      size = shown.size();
+      if (old > 0) {
+        fireIntervalRemoved(this, 0, old - 1);
+      }
+      if (size > 0) {
+        fireIntervalAdded(this, 0, size - 1);
+      }
+    }
+
+    @Override
+    public int getSize() {
+      return Math.min(size, people.size());
+    }
+
+    @Override
+    public T getElementAt(int index) {
+      return people.get(index);
+    }
+  }
+}
@@ -1,17 +1,24 @@
 package models;
 
 import java.awt.Color;
-import java.awt.Font;
+import java.awt.Cursor;
+import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.List;
+import java.util.concurrent.Executor;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
 
 
@@ -19,60 +26,234 @@ import javax.swing.SwingUtilities;
 
 /**
  * This is the class that creates the rooms for the clinic.
+ *
+ * <p>Only the part of the map that is showing in the scroll pane is painted. That part is copied
+ * from tiles of the map that are drawn ahead of time, a tile at a time, whenever the event thread
+ * has nothing else to do. Until a tile is ready its part of the map is drawn straight from the
+ * rooms that reach into it.
+ *
+ * <p>The room under the mouse gets a gray outline, and the room that was clicked gets a red one.
+ * Both are found with the grid of the renderer instead of going through every room.
+ *
+ * <p>The mouse wheel zooms in and out around the mouse, and dragging the map moves it in the
+ * scroll pane. When the map is zoomed out far enough the renderer only draws the outlines of the
+ * rooms and how many clients are in them.
+ *
+ * <p>The panel never reads the clinic while it paints. It draws the last snapshot of the rooms a
+ * {@link MapSnapshotBuilder} made. While the panel is showing it listens to the events of the
+ * clinic, and after every batch of changes the changed rooms are read and the new snapshot is built
+ * on a background thread. When it is ready only the rooms that look different are painted again.
  */
 public class RectanglePanel extends JPanel {
   private static final long serialVersionUID = 1L;
+  private static final double MIN_ZOOM = 0.1;
+  private static final double MAX_ZOOM = 10;
+  // How much one click of the mouse wheel zooms in or out
+  private static final double ZOOM_STEP = 1.1;
   private Clinic clinic;
   private double zoomFactor = 2.5; // Initial zoom factor
   private Point selectedPoint = null;
+  private Room hoveredRoom = null;
+  private final MapSnapshotBuilder snapshots;
+  private final RoomMapRenderer renderer;
+  private final ClinicEventBus.Listener clinicListener = events -> refresh();
+  private MapLayout publishedLayout = null;
+  private Dimension publishedSize = null;
+  private final MapTileCache tileCache;
+  private boolean preparing;
+  private Point dragStart = null;
+  private Point viewStart = null;
 
   /**
    * This constructor takes in one parameter to create the rooms, the clinic.
    * @param clinic is where the rooms are located.
    */
   public RectanglePanel(Clinic clinic) {
+    this(clinic, null);
+  }
+
+  /**
+   * This constructor takes in the clinic, and what builds the snapshots of its rooms.
+   *
+   * @param clinic is where the rooms are located.
+   * @param executor builds the snapshots, or null to build them on a background thread.
+   */
+  public RectanglePanel(Clinic clinic, Executor executor) {
     this.clinic = clinic;
-    addMouseListener(new ClickListener());
+    Runnable published = () -> SwingUtilities.invokeLater(this::snapshotPublished);
+    this.snapshots = executor == null ? new MapSnapshotBuilder(clinic, published)
+        : new MapSnapshotBuilder(clinic, executor, published);
+    this.renderer = new RoomMapRenderer(snapshots::getSnapshot, zoomFactor);
+    this.tileCache = new MapTileCache(renderer);
+    ClickListener listener = new ClickListener();
+    addMouseListener(listener);
+    addMouseMotionListener(listener);
+    addMouseWheelListener(listener);
+    snapshots.refresh();
+  }
+
+  /**
+   * The panel listens to the clinic while it is showing, and catches up on what changed while it
+   * wasn't.
+   */
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    clinic.getEvents().addListener(clinicListener);
+    refresh();
+  }
+
+  @Override
+  public void removeNotify() {
+    clinic.getEvents().removeListener(clinicListener);
+    super.removeNotify();
+  }
+
+  /**
+   * This method reads the rooms that changed and starts building a new snapshot of them. It has to
+   * be called on the thread that changes the clinic, which is the event thread.
+   */
+  public void refresh() {
+    snapshots.refresh();
+  }
+
+  /**
+   * Retrieves the clinic whose rooms are on the map.
+   *
+   * @return the clinic.
+   */
+  public Clinic getClinic() {
+    return clinic;
+  }
+
+  /**
+   * This method is called on the event thread when a new snapshot is ready. Only the rooms that
+   * look different are painted again, unless rooms were added or removed, and the map is laid out
+   * again if it has a new size.
+   */
+  private void snapshotPublished() {
+    MapLayout before = publishedLayout;
+    publishedLayout = renderer.getLayout();
+    Dimension size = publishedLayout.getMapSize();
+    List<Rectangle> changed = before == null ? null : publishedLayout.changedSince(before);
+    if (!size.equals(publishedSize)) {
+      publishedSize = size;
+      revalidate();
+      changed = null;
+    }
+    if (changed == null) {
+      repaint();
+      return;
+    }
+    for (Rectangle area : changed) {
+      repaint(area);
+    }
+  }
+
+  /**
+   * Retrieves the snapshot of the rooms the map draws.
+   *
+   * @return the last snapshot that is ready.
+   */
+  public MapSnapshot getSnapshot() {
+    return snapshots.getSnapshot();
+  }
+
+  /**
+   * Retrieves the zoom factor the map is drawn at.
+   *
+   * @return the zoom factor.
+   */
+  public double getZoomFactor() {
+    return zoomFactor;
+  }
+
+  /**
+   * This method changes the zoom factor, and scrolls the map so the part of the floor plan at the
+   * given point stays under it. The zoom factor is kept between 0.1 and 10.
+   *
+   * @param zoom is the new zoom factor.
+   * @param anchor is the point on the map that stays where it is.
+   */
+  public void zoomAt(double zoom, Point anchor) {
+    double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+    if (newZoom == zoomFactor) {
+      return;
+    }
+    double[] fixed = renderer.toFloorPlan(anchor);
+    double[] selected = selectedPoint == null ? null : renderer.toFloorPlan(selectedPoint);
+    zoomFactor = newZoom;
+    renderer.setZoomFactor(newZoom);
+    Point moved = renderer.toMap(fixed[0], fixed[1]);
+    if (selected != null) {
+      selectedPoint = renderer.toMap(selected[0], selected[1]);
+    }
+    hoveredRoom = null;
+    revalidate();
+    JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+    if (viewport != null) {
+      Point view = viewport.getViewPosition();
+      // The map has a new size, which the scroll pane needs before it can scroll to the anchor
+      viewport.getParent().validate();
+      scrollTo(viewport, view.x + moved.x - anchor.x, view.y + moved.y - anchor.y);
+    }
+    repaint();
   }
 
+  private void scrollTo(JViewport viewport, int x, int y) {
+    Dimension extent = viewport.getExtentSize();
+    Dimension size = viewport.getViewSize();
+    viewport.setViewPosition(new Point(Math.max(0, Math.min(x, size.width - extent.width)),
+        Math.max(0, Math.min(y, size.height - extent.height))));
+  }
+
+  /**
+   * The map is as big as the rooms in it, unless a size was set.
+   */
+  @Override
+  public Dimension getPreferredSize() {
+    if (isPreferredSizeSet()) {
+      return super.getPreferredSize();
+    }
+    return renderer.getMapSize();
+  }
 
   @Override
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
-    for (Room room : clinic.getClinicRooms()) {
-      int x1 = room.getElement(0); // X-coordinate of the top-left corner
-      int y1 = room.getElement(1); // Y-coordinate of the top-left corner
-      int x2 = room.getElement(2); // X-coordinate of the bottom-right corner
-      int y2 = room.getElement(3); // Y-coordinate of the bottom-right corner
-
-      Font newFont = new Font("Arial", Font.PLAIN, 15);
-      g.setFont(newFont);
-
-      int scaledX = (int) (x1 * 32 * zoomFactor - 2000);
-      int scaledY = (int) (y1 * 32 * zoomFactor + 125);
-      int scaledWidth = (int) ((x2 - x1) * 50 * zoomFactor);
-      int scaledHeight = (int) ((y2 - y1) * 32 * zoomFactor);
-
-      g.setColor(Color.white);
-      g.fillRect(scaledX, scaledY, scaledWidth, scaledHeight);
-      g.setColor(Color.BLACK);
-      g.drawString(room.getRoomName(), scaledX, scaledY - 5); // Adjusted for room name
-      g.setColor(Color.BLACK);
-      String res = clinic.displayRoomInfo(room);
-      String[] lines = res.split("\n");
-      int startY = scaledY - 5; // Adjusted for room name
-      for (String line : lines) {
-        g.drawString(line, scaledX, startY + 20);
-        startY += 20;
-      }
+    Graphics2D g2 = (Graphics2D) g;
+    Rectangle clip = g2.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    tileCache.paint(g2, clip, getBackground());
+    prepareTiles();
+    if (hoveredRoom != null) {
+      renderer.paintOutline(g2, hoveredRoom, Color.GRAY);
+    }
+    renderer.paintSelection(g2, selectedPoint);
+  }
 
-      // Highlight selected room
-      if (selectedPoint != null
-          && pointInRectangle(selectedPoint, scaledX, scaledY, scaledWidth, scaledHeight)) {
-        g.setColor(Color.RED);
-        g.drawRect(scaledX, scaledY, scaledWidth, scaledHeight);
-      }
+  /**
+   * This method draws the next tile that isn't ready once the event thread is free, and keeps
+   * going until the tiles on the screen and around it are all ready.
+   */
+  private void prepareTiles() {
+    if (preparing) {
+      return;
     }
+    preparing = true;
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        Rectangle visible = getVisibleRect();
+        if (!visible.isEmpty() && tileCache.prepare(visible, getBackground())) {
+          SwingUtilities.invokeLater(this);
+        } else {
+          preparing = false;
+        }
+      }
+    });
   }
 
   private class ClickListener extends MouseAdapter {
@@ -86,6 +267,65 @@ public class RectanglePanel extends JPanel {
       }
       repaint();
     }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+      JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class,
+          RectanglePanel.this);
+      if (viewport != null && SwingUtilities.isLeftMouseButton(e)) {
+        // The screen is used, since the map moves under the mouse while it is dragged
+        dragStart = e.getLocationOnScreen();
+        viewStart = viewport.getViewPosition();
+      }
+    }
+
+    @Override
+    public void mouseDragged(MouseEvent e) {
+      if (dragStart == null) {
+        return;
+      }
+      JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class,
+          RectanglePanel.this);
+      if (viewport != null) {
+        setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+        Point now = e.getLocationOnScreen();
+        scrollTo(viewport, viewStart.x - (now.x - dragStart.x),
+            viewStart.y - (now.y - dragStart.y));
+      }
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+      dragStart = null;
+      viewStart = null;
+      setCursor(Cursor.getDefaultCursor());
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+      zoomAt(zoomFactor * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+    }
+
+    /**
+     * The room under the mouse gets an outline. Only the old and the new room are painted again.
+     */
+    @Override
+    public void mouseMoved(MouseEvent e) {
+      Room room = renderer.roomAt(e.getPoint());
+      if (room != hoveredRoom) {
+        repaintOutline(hoveredRoom);
+        repaintOutline(room);
+        hoveredRoom = room;
+      }
+    }
+  }
+
+  private void repaintOutline(Room room) {
+    if (room != null) {
+      Rectangle bounds = renderer.roomBounds(room);
+      // The outline is drawn on the right and bottom edges too, so it is one pixel bigger
+      repaint(bounds.x, bounds.y, bounds.width + 1, bounds.height + 1);
+    }
   }
 
   private void showPopupMenu(MouseEvent e) {
@@ -107,22 +347,7 @@ public class RectanglePanel extends JPanel {
   }
 
   private Room getSelectedRoom() {
-    for (Room room : clinic.getClinicRooms()) {
-      int x1 = room.getElement(0);
-      int y1 = room.getElement(1);
-      int x2 = room.getElement(2);
-      int y2 = room.getElement(3);
-
-      int scaledX = (int) (x1 * 32 * zoomFactor - 2000);
-      int scaledY = (int) (y1 * 32 * zoomFactor + 125);
-      int scaledWidth = (int) ((x2 - x1) * 50 * zoomFactor);
-      int scaledHeight = (int) ((y2 - y1) * 32 * zoomFactor);
-
-      if (pointInRectangle(selectedPoint, scaledX, scaledY, scaledWidth, scaledHeight)) {
-        return room;
-      }
-    }
-    return null;
+    return renderer.roomAt(selectedPoint);
   }
 
   private void handleAssignPatientToRoom(Clinic clinic, Room selectedRoom) {
@@ -135,8 +360,4 @@ public class RectanglePanel extends JPanel {
       });
     }
   }
-
-  private boolean pointInRectangle(Point point, int x, int y, int width, int height) {
-    return point.x >= x && point.x <= x + width && point.y >= y && point.y <= y + height;
-  }
 }
@@ -49,12 +49,11 @@ public class RegisterPatient extends JFrame {
       }
 
       boolean isValid = false;
-      for (int i = 0; i < clinic.getClinicClients().size(); i++) {
-        if (clinic.getClinicClients().get(i).getFirstName().equals(firstName)
-            && clinic.getClinicClients().get(i).getLastName().equals(lastName)) {
-          outputArea.append("This patient is already in the clinic.\n");
-          isValid = true;
-        }
+      Client existing = clinic.findClientByName(firstName + " " + lastName);
+      if (existing != null && existing.getFirstName().equalsIgnoreCase(firstName.trim())
+          && existing.getLastName().equalsIgnoreCase(lastName.trim())) {
+        outputArea.append("This patient is already in the clinic.\n");
+        isValid = true;
       }
 
       if (!isValid) {
@@ -63,10 +62,7 @@ public class RegisterPatient extends JFrame {
         String formattedDateTime = now.format(formatter);
         VisitRecord record = new VisitRecord(formattedDateTime, symptoms, temp);
 
-        Client client = registerClientWithVisitRecord(firstName, lastName, birthday, record,
-            clinic);
-        client.setRecord(record);
-        client.getRecordHistory().add(record);
+        registerClientWithVisitRecord(firstName, lastName, birthday, record, clinic);
       }
 
       String patientInfoMessage = "Patient Registered:\n" + "First Name: " + firstName + "\n"
@@ -107,21 +103,32 @@ public class RegisterPatient extends JFrame {
    */
   public Client registerClientWithVisitRecord(String firstName, String lastName, String birthDay,
       VisitRecord record, Clinic clinic) throws IOException {
-    for (int i = 0; i < clinic.getClinicArchives().size(); i++) {
-      if (clinic.getClinicArchives().get(i).getFirstName().contains(firstName)
-          && clinic.getClinicArchives().get(i).getLastName().contains(lastName)) {
-        clinic.getClinicArchives().get(i).setActive(true);
-        // clinic.getClinicArchives().get(i).getRecordHistory().add(record);
-        clinic.getClinicClients().add(clinic.getClinicArchives().get(i));
-
-        return clinic.getClinicArchives().get(i);
-      }
+    return register(clinic, firstName, lastName, birthDay, record);
+  }
+
+  /**
+   * Registers a client with a visit record the way the window does once it has the answers, so
+   * it can be done without showing the window. The visit is recorded once, whether the client is
+   * new or came back from the archives.
+   *
+   * @param clinic The clinic instance where the client is registered.
+   * @param firstName The first name of the client.
+   * @param lastName The last name of the client.
+   * @param birthDay The birth date of the client.
+   * @param record The visit record to be associated with the client.
+   * @return The registered or activated client with the provided visit record.
+   */
+  public static Client register(Clinic clinic, String firstName, String lastName,
+      String birthDay, VisitRecord record) {
+    Client returning = clinic.findArchivedClient(firstName, lastName, birthDay);
+    Client client;
+    if (returning != null) {
+      client = clinic.readmitClient(returning);
+    } else {
+      client = clinic.registerClient(new Registration(firstName, lastName, birthDay), record);
     }
-    Registration registration = new Registration(firstName, lastName, birthDay);
-    Client client = clinic.registerClient(registration, record);
-    client.setRecord(record);
+    clinic.recordVisit(client, record);
     return client;
-
   }
 
 }
@@ -0,0 +1,64 @@
+package models;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The purpose of this class is to compare writing the full clinic report straight to an
+ * Appendable with building it as a string with {@code res += ...} the way the clinic used to. A
+ * clinic of 500 rooms is built with more clients each time, and the time of each way is printed
+ * along with how many chars the report has. The report is written to a Writer that throws the
+ * chars away, so only the cost of making the report is timed.
+ */
+public class ReportBenchmark {
+  private static final int ROOMS = 500;
+  private static final int[] CLIENTS = {2_000, 8_000, 32_000};
+
+  /**
+   * The main function builds each clinic and prints the time of each way.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) throws IOException {
+    System.out.println(String.format("%10s %12s %14s %14s", "clients", "chars", "concat ms",
+        "streamed ms"));
+    for (int clients : CLIENTS) {
+      Clinic clinic = new Clinic("Benchmark");
+      for (int i = 0; i < ROOMS; i++) {
+        int x = (i % 25) * 6;
+        int y = (i / 25) * 6;
+        clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, "exam", "Room_" + i));
+      }
+      for (int i = 0; i < clients; i++) {
+        clinic.addClinicClient(new Client(1 + i % ROOMS, "First" + i, "Last" + i, "1/1/1990"));
+      }
+
+      long start = System.nanoTime();
+      String report = concatAllInfo(clinic);
+      long concatNanos = System.nanoTime() - start;
+
+      Writer sink = Writer.nullWriter();
+      start = System.nanoTime();
+      ReportWriter writer = new ReportWriter(sink);
+      clinic.writeAllInfo(writer);
+      writer.flush();
+      long streamNanos = System.nanoTime() - start;
+
+      System.out.println(String.format("%10d %12d %14.1f %14.1f", clients, report.length(),
+          concatNanos / 1e6, streamNanos / 1e6));
+    }
+  }
+
+  private static String concatAllInfo(Clinic clinic) {
+    String res = "";
+    for (int roomNumber : clinic.getRoomRegistry().numbers()) {
+      res += "Room " + Integer.toString(roomNumber) + "\n";
+      String room = "";
+      for (Client client : clinic.getClientsInRoom(roomNumber)) {
+        room += client + "\n";
+      }
+      res += room;
+    }
+    return res;
+  }
+}
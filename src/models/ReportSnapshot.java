@@ -0,0 +1,486 @@
+package models;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * This class is what the reports of a clinic need, read at one moment: the clients and staff of
+ * every room, the clients of every staff member, and the patients of the yearly visit reports.
+ * Nothing in a snapshot changes after it is made, so a report can be written from it on any thread
+ * and as slowly as it likes while the clinic keeps being changed.
+ *
+ * <p>A snapshot is made by {@link #capture(Clinic, ReportSnapshot)}, which has to run on the
+ * thread that changes the clinic. It doesn't copy the whole clinic. A room is only read again if
+ * its version changed since the previous snapshot, and a staff member only if their version in the
+ * assignment graph changed, so the new snapshot shares everything else with the previous one. The
+ * yearly lists are only found again when the visit index changed or the time moved on.
+ *
+ * <p>A clinic that other threads move clients in and assign staff in, like
+ * {@link ConcurrentClinic}, gives the snapshot its {@link Locks}. The lock of a room is then held
+ * while the room is read, and the lock of a staff member while they are read, so each room and
+ * staff member is read as it was between two changes.
+ */
+public final class ReportSnapshot {
+  private static final String DASHES = "--------------------------------\n";
+
+  private final long mapVersion;
+  private final long staffVersion;
+  private final RoomInfo[] rooms;
+  private final StaffInfo[] staff;
+  private final long visitVersion;
+  private final long visitTime;
+  private final List<String> notVisitedInYear;
+  private final List<String> visitedTwiceInYear;
+  private final Map<Room, Integer> indexOf = new IdentityHashMap<>();
+
+  private ReportSnapshot(long mapVersion, long staffVersion, RoomInfo[] rooms, StaffInfo[] staff,
+      long visitVersion, long visitTime, List<String> notVisitedInYear,
+      List<String> visitedTwiceInYear) {
+    this.mapVersion = mapVersion;
+    this.staffVersion = staffVersion;
+    this.rooms = rooms;
+    this.staff = staff;
+    this.visitVersion = visitVersion;
+    this.visitTime = visitTime;
+    this.notVisitedInYear = notVisitedInYear;
+    this.visitedTwiceInYear = visitedTwiceInYear;
+    for (int i = 0; i < rooms.length; i++) {
+      indexOf.putIfAbsent(rooms[i].room, i);
+    }
+  }
+
+  /**
+   * This method reads what the reports need from the clinic. It has to be called on the thread
+   * that changes the clinic, or while nothing else changes it.
+   *
+   * @param clinic is the clinic.
+   * @param previous is the last snapshot of the clinic, or null if there isn't one.
+   * @return the snapshot.
+   */
+  public static ReportSnapshot capture(Clinic clinic, ReportSnapshot previous) {
+    return capture(clinic, previous, null);
+  }
+
+  /**
+   * This method reads what the reports need from the clinic, taking the lock of every room and
+   * staff member that has to be read again.
+   *
+   * @param clinic is the clinic.
+   * @param previous is the last snapshot of the clinic, or null if there isn't one.
+   * @param locks are the locks of the rooms and staff members, or null if nothing else changes
+   *        the clinic.
+   * @return the snapshot.
+   */
+  static ReportSnapshot capture(Clinic clinic, ReportSnapshot previous, Locks locks) {
+    long mapVersion = clinic.getMapVersion();
+    RoomInfo[] rooms = previous != null && previous.mapVersion == mapVersion ? previous.rooms
+        : captureRooms(clinic, previous, locks);
+
+    AssignmentGraph assignments = clinic.getAssignments();
+    long staffVersion = assignments.getVersion();
+    StaffInfo[] staff = captureStaff(assignments, previous, locks);
+    if (previous != null && Arrays.equals(previous.staff, staff)) {
+      staff = previous.staff;
+    }
+
+    VisitIndex visits = clinic.getVisits();
+    long visitVersion = visits.getVersion();
+    long visitTime = VisitRecord.toVisitTime(LocalDateTime.now());
+    List<String> notVisitedInYear;
+    List<String> visitedTwiceInYear;
+    if (previous != null && previous.visitVersion == visitVersion
+        && previous.visitTime == visitTime) {
+      notVisitedInYear = previous.notVisitedInYear;
+      visitedTwiceInYear = previous.visitedTwiceInYear;
+    } else {
+      notVisitedInYear = names(visits.lastVisitAtLeast(visitTime, VisitIndex.YEAR));
+      visitedTwiceInYear = names(visits.earlierVisitWithin(visitTime, VisitIndex.YEAR));
+    }
+    return new ReportSnapshot(mapVersion, staffVersion, rooms, staff, visitVersion, visitTime,
+        notVisitedInYear, visitedTwiceInYear);
+  }
+
+  private static RoomInfo[] captureRooms(Clinic clinic, ReportSnapshot previous, Locks locks) {
+    RoomRegistry registry = clinic.getRoomRegistry();
+    List<RoomInfo> rooms = new ArrayList<>();
+    for (int roomNumber : registry.numbers()) {
+      Room room = registry.get(roomNumber);
+      long version = clinic.getRoomVersion(room);
+      RoomInfo old = previous == null ? null : previous.find(room);
+      if (old != null && old.roomNumber == roomNumber && old.version == version) {
+        rooms.add(old);
+        continue;
+      }
+      Lock lock = locks == null ? null : locks.roomLock(roomNumber);
+      if (lock != null) {
+        lock.lock();
+      }
+      try {
+        // The version is read again, since the room could have changed before it was locked
+        rooms.add(new RoomInfo(clinic, room, roomNumber, clinic.getRoomVersion(room)));
+      } finally {
+        if (lock != null) {
+          lock.unlock();
+        }
+      }
+    }
+    return rooms.toArray(new RoomInfo[0]);
+  }
+
+  private static StaffInfo[] captureStaff(AssignmentGraph assignments, ReportSnapshot previous,
+      Locks locks) {
+    Map<Staff, StaffInfo> kept = new IdentityHashMap<>();
+    if (previous != null) {
+      for (StaffInfo info : previous.staff) {
+        kept.put(info.staff, info);
+      }
+    }
+    List<StaffInfo> staff = new ArrayList<>();
+    for (Staff member : assignments.staff()) {
+      long version = assignments.versionOf(member);
+      StaffInfo old = kept.get(member);
+      // The names and the patient list can be changed outside the graph
+      if (old != null && old.version == version && old.firstName.equals(member.getFirstName())
+          && old.lastName.equals(member.getLastName())
+          && old.numPatients == member.getNumPatients()) {
+        staff.add(old);
+        continue;
+      }
+      Lock lock = locks == null ? null : locks.staffLock(member);
+      if (lock != null) {
+        lock.lock();
+      }
+      try {
+        staff.add(new StaffInfo(member, assignments.versionOf(member),
+            assignments.clientsOf(member)));
+      } finally {
+        if (lock != null) {
+          lock.unlock();
+        }
+      }
+    }
+    return staff.toArray(new StaffInfo[0]);
+  }
+
+  private static List<String> names(List<Client> clients) {
+    List<String> names = new ArrayList<>(clients.size());
+    for (Client client : clients) {
+      names.add(client.getFirstName() + " " + client.getLastName());
+    }
+    return Collections.unmodifiableList(names);
+  }
+
+  /**
+   * Retrieves the version of the clinic's room map this snapshot was made from.
+   *
+   * @return the version from {@link Clinic#getMapVersion()}.
+   */
+  public long getMapVersion() {
+    return mapVersion;
+  }
+
+  /**
+   * Retrieves the version of the assignments this snapshot was made from.
+   *
+   * @return the version from {@link AssignmentGraph#getVersion()}.
+   */
+  public long getStaffVersion() {
+    return staffVersion;
+  }
+
+  /**
+   * Retrieves the rooms, in the order of their room numbers.
+   *
+   * @return the rooms.
+   */
+  public List<RoomInfo> getRooms() {
+    return Collections.unmodifiableList(Arrays.asList(rooms));
+  }
+
+  /**
+   * This method finds the room in the snapshot.
+   *
+   * @param room is the room of the clinic.
+   * @return what the snapshot has of the room, or null if the room has no room number.
+   */
+  public RoomInfo find(Room room) {
+    Integer index = indexOf.get(room);
+    return index == null ? null : rooms[index];
+  }
+
+  /**
+   * Retrieves the staff members, in the order they were added to the clinic.
+   *
+   * @return the staff members.
+   */
+  public List<StaffInfo> getStaff() {
+    return Collections.unmodifiableList(Arrays.asList(staff));
+  }
+
+  /**
+   * Retrieves the names of the patients who have not been in the clinic for more than a year.
+   *
+   * @return the names, as first name and last name.
+   */
+  public List<String> getNotVisitedInYear() {
+    return notVisitedInYear;
+  }
+
+  /**
+   * Retrieves the names of the patients who have been to the clinic at least twice within the
+   * year.
+   *
+   * @return the names, as first name and last name.
+   */
+  public List<String> getVisitedTwiceInYear() {
+    return visitedTwiceInYear;
+  }
+
+  /**
+   * This method writes the info of every room the same way {@link Clinic#writeAllInfo(Appendable)}
+   * does.
+   *
+   * @param out is where the info is written.
+   * @throws IOException if the info couldn't be written.
+   */
+  public void writeAllInfo(Appendable out) throws IOException {
+    for (RoomInfo room : rooms) {
+      out.append("Room ").append(Integer.toString(room.roomNumber)).append('\n');
+      room.writeInfo(out);
+    }
+  }
+
+  /**
+   * This method writes the information of the room the same way
+   * {@link Clinic#writeRoomInfo(Room, Appendable)} does.
+   *
+   * @param room is the room.
+   * @param out is where the information is written.
+   * @throws IOException if the information couldn't be written.
+   */
+  public void writeRoomInfo(Room room, Appendable out) throws IOException {
+    RoomInfo info = find(room);
+    if (info != null) {
+      info.writeInfo(out);
+    }
+  }
+
+  /**
+   * This method writes the patients who have been to the clinic at least twice within the year,
+   * the same way {@link Clinic#writePatientsOneYearIn(Appendable)} does.
+   *
+   * @param out is where the names are written.
+   * @throws IOException if the names couldn't be written.
+   */
+  public void writePatientsOneYearIn(Appendable out) throws IOException {
+    out.append(DASHES);
+    for (String name : visitedTwiceInYear) {
+      out.append(name).append('\n');
+    }
+    out.append(DASHES);
+  }
+
+  /**
+   * This method writes the patients who have not been in the clinic for more than a year, the
+   * same way {@link Clinic#writeNoYearVisitList(Appendable)} does.
+   *
+   * @param out is where the list is written.
+   * @return true if any patients were written.
+   * @throws IOException if the list couldn't be written.
+   */
+  public boolean writeNoYearVisitList(Appendable out) throws IOException {
+    if (notVisitedInYear.isEmpty()) {
+      return false;
+    }
+    out.append(DASHES).append("Here is the list of patients:\n");
+    for (String name : notVisitedInYear) {
+      out.append(name).append('\n');
+    }
+    out.append(DASHES);
+    return true;
+  }
+
+  /**
+   * What a snapshot has of one room: the lines of the clients in it and of the staff assigned to
+   * them.
+   */
+  public static final class RoomInfo {
+    private final Room room;
+    private final int roomNumber;
+    private final long version;
+    private final List<String> clients;
+    private final List<String> complaints;
+    private final List<String> staff;
+
+    private RoomInfo(Clinic clinic, Room room, int roomNumber, long version) {
+      this.room = room;
+      this.roomNumber = roomNumber;
+      this.version = version;
+      List<Client> inRoom = clinic.getClientsInRoom(roomNumber);
+      List<String> clients = new ArrayList<>(inRoom.size());
+      List<String> complaints = new ArrayList<>(inRoom.size());
+      List<String> staff = new ArrayList<>();
+      for (Client client : inRoom) {
+        String line = client.toString();
+        clients.add(line);
+        VisitRecord record = client.getRecord();
+        complaints.add(record == null ? line
+            : line.replace(record.toString(), " Chief Complaints:" + record.getChiefComplaint()));
+      }
+      for (Client client : inRoom) {
+        for (Staff member : clinic.getAssignments().staffOf(client)) {
+          staff.add(member.toString());
+        }
+      }
+      this.clients = Collections.unmodifiableList(clients);
+      this.complaints = Collections.unmodifiableList(complaints);
+      this.staff = Collections.unmodifiableList(staff);
+    }
+
+    /**
+     * Retrieves the room.
+     *
+     * @return the room.
+     */
+    public Room getRoom() {
+      return room;
+    }
+
+    /**
+     * Retrieves the room number of the room.
+     *
+     * @return the room number.
+     */
+    public int getRoomNumber() {
+      return roomNumber;
+    }
+
+    /**
+     * Retrieves the clients in the room, each the way the client prints itself.
+     *
+     * @return the lines of the clients.
+     */
+    public List<String> getClients() {
+      return clients;
+    }
+
+    /**
+     * Retrieves the clients in the room with the chief complaint instead of the whole record.
+     *
+     * @return the lines of the clients.
+     */
+    public List<String> getComplaints() {
+      return complaints;
+    }
+
+    /**
+     * Retrieves the staff assigned to the clients in the room, client by client.
+     *
+     * @return the lines of the staff.
+     */
+    public List<String> getStaff() {
+      return staff;
+    }
+
+    private void writeInfo(Appendable out) throws IOException {
+      for (String line : complaints) {
+        out.append(line).append('\n');
+      }
+      for (String line : staff) {
+        out.append(line).append('\n');
+      }
+    }
+  }
+
+  /**
+   * What a snapshot has of one staff member: their name, the names of their clients and how many
+   * patients they ever had.
+   */
+  public static final class StaffInfo {
+    private final Staff staff;
+    private final long version;
+    private final String firstName;
+    private final String lastName;
+    private final int numPatients;
+    private final List<String> clients;
+
+    private StaffInfo(Staff staff, long version, List<Client> assigned) {
+      this.staff = staff;
+      this.version = version;
+      this.firstName = staff.getFirstName();
+      this.lastName = staff.getLastName();
+      this.numPatients = staff.getNumPatients();
+      List<String> clients = new ArrayList<>(assigned.size());
+      for (Client client : assigned) {
+        clients.add(client.getLastName() + ", " + client.getFirstName());
+      }
+      this.clients = Collections.unmodifiableList(clients);
+    }
+
+    /**
+     * Retrieves the first name of the staff member.
+     *
+     * @return the first name.
+     */
+    public String getFirstName() {
+      return firstName;
+    }
+
+    /**
+     * Retrieves the last name of the staff member.
+     *
+     * @return the last name.
+     */
+    public String getLastName() {
+      return lastName;
+    }
+
+    /**
+     * Retrieves the number of patients the staff member ever had.
+     *
+     * @return the number of patients.
+     */
+    public int getNumPatients() {
+      return numPatients;
+    }
+
+    /**
+     * Retrieves the clients assigned to the staff member, as last name and first name.
+     *
+     * @return the names of the clients, in the order they were assigned.
+     */
+    public List<String> getClients() {
+      return clients;
+    }
+  }
+
+  /**
+   * The locks a snapshot takes while it reads a room or a staff member of a clinic that other
+   * threads are changing.
+   */
+  interface Locks {
+    /**
+     * Retrieves the lock that is held while a client moves into or out of the room, or while the
+     * staff of a client in it change.
+     *
+     * @param roomNumber is the room number.
+     * @return the lock of the room.
+     */
+    Lock roomLock(int roomNumber);
+
+    /**
+     * Retrieves the lock that is held while the clients of the staff member change.
+     *
+     * @param staff is the staff member.
+     * @return the lock of the staff member.
+     */
+    Lock staffLock(Staff staff);
+  }
+}
@@ -0,0 +1,143 @@
+package models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The purpose of this class is to time report snapshots of a big clinic. A clinic of 500 rooms
+ * with 32,000 clients is built, and the time of the first snapshot, which reads every room, is
+ * printed along with the time of a snapshot after one client moved, which only reads the two rooms
+ * that changed. The time of writing the full report from a snapshot is printed too, which is the
+ * part that runs without holding up whoever changes the clinic.
+ *
+ * <p>Then snapshots are taken through a {@link ConcurrentClinic} while other threads keep moving
+ * clients between rooms. The number of moves every second is printed with nobody taking
+ * snapshots and with a thread taking them all the time, along with the number of snapshots every
+ * second and the p50 and biggest time of one, so the cost of the snapshots to the moves can be
+ * seen.
+ */
+public class ReportSnapshotBenchmark {
+  private static final int ROOMS = 500;
+  private static final int CLIENTS = 32_000;
+  private static final int RUNS = 5;
+  private static final int MOVERS = 4;
+  private static final long MOVE_NANOS = 2_000_000_000L;
+
+  /**
+   * The main function builds the clinic and prints the times.
+   *
+   * @param args isn't used for the benchmark.
+   * @throws Exception if the report couldn't be written or a thread failed.
+   */
+  public static void main(String[] args) throws Exception {
+    Clinic clinic = new Clinic("Benchmark");
+    for (int i = 0; i < ROOMS; i++) {
+      int x = (i % 25) * 6;
+      int y = (i / 25) * 6;
+      clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, "exam", "Room_" + i));
+    }
+    for (int i = 0; i < CLIENTS; i++) {
+      clinic.addClinicClient(new Client(1 + i % ROOMS, "First" + i, "Last" + i, "1/1/1990"));
+    }
+
+    System.out.println(String.format("%6s %12s %14s %12s", "run", "full ms", "one move ms",
+        "write ms"));
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      ReportSnapshot snapshot = ReportSnapshot.capture(clinic, null);
+      long fullNanos = System.nanoTime() - start;
+
+      Client client = clinic.getClinicClients().get(run);
+      clinic.moveClient(client, clinic.getRoom(1 + (run + 1) % ROOMS));
+      start = System.nanoTime();
+      snapshot = ReportSnapshot.capture(clinic, snapshot);
+      long moveNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      ReportWriter writer = new ReportWriter(Writer.nullWriter());
+      snapshot.writeAllInfo(writer);
+      writer.flush();
+      long writeNanos = System.nanoTime() - start;
+
+      System.out.println(String.format("%6d %12.2f %14.3f %12.2f", run, fullNanos / 1e6,
+          moveNanos / 1e6, writeNanos / 1e6));
+    }
+
+    // The rooms the moves above took are let go, so only the movers below take rooms
+    for (Room room : clinic.getClinicRooms()) {
+      room.setStatus(false);
+    }
+    ConcurrentClinic shared = new ConcurrentClinic(clinic);
+    // The clinic prints the number of every room a client moves to, which isn't timed
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    long alone = moveWhile(shared, clinic, null);
+    List<Long> captures = new ArrayList<>();
+    long withReports = moveWhile(shared, clinic, captures);
+    System.setOut(console);
+
+    long[] times = captures.stream().mapToLong(Long::longValue).sorted().toArray();
+    System.out.println();
+    System.out.println(String.format("%8s %16s %18s %12s %10s %10s", "movers", "moves/s alone",
+        "moves/s reporting", "reports/s", "p50 ms", "max ms"));
+    System.out.println(String.format("%8d %16.0f %18.0f %12.0f %10.2f %10.2f", MOVERS,
+        alone / (MOVE_NANOS / 1e9), withReports / (MOVE_NANOS / 1e9),
+        times.length / (MOVE_NANOS / 1e9), times[times.length / 2] / 1e6,
+        times[times.length - 1] / 1e6));
+  }
+
+  /**
+   * This method moves clients between rooms on a few threads for a while. If the list of times is
+   * given, snapshots are taken all the time on this thread, and the time of each one is added.
+   *
+   * @return the number of moves.
+   */
+  private static long moveWhile(ConcurrentClinic shared, Clinic clinic, List<Long> captures)
+      throws Exception {
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong moves = new AtomicLong();
+    ExecutorService threads = Executors.newFixedThreadPool(MOVERS);
+    List<Future<?>> done = new ArrayList<>();
+    for (int t = 0; t < MOVERS; t++) {
+      // Every mover moves its own client through its own rooms, so its moves are never refused
+      Client client = clinic.getClinicClients().get(t);
+      int mover = t;
+      done.add(threads.submit(() -> {
+        for (int step = 0; running.get(); step++) {
+          int roomNumber = 1 + (mover + step * MOVERS) % ROOMS;
+          shared.assignClientToNewRoom(client, clinic.getRoom(roomNumber));
+          moves.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+    long end = System.nanoTime() + MOVE_NANOS;
+    while (System.nanoTime() < end) {
+      if (captures == null) {
+        Thread.sleep(10);
+        continue;
+      }
+      long start = System.nanoTime();
+      shared.getReportSnapshot();
+      captures.add(System.nanoTime() - start);
+    }
+    running.set(false);
+    try {
+      for (Future<?> future : done) {
+        future.get();
+      }
+    } finally {
+      threads.shutdown();
+    }
+    return moves.get();
+  }
+}
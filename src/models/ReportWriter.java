@@ -0,0 +1,120 @@
+package models;
+
+import java.io.IOException;
+
+/**
+ * This class sits between a report and the Appendable it is written to, and keeps a small buffer
+ * so the Appendable gets a few large writes instead of one write for every name and line. The
+ * buffer never grows past its limit, so a report of any size is written with the same extra
+ * memory. Nothing reaches the Appendable after the last write until {@link #flush()} is called.
+ */
+public class ReportWriter implements Appendable {
+  /**
+   * The number of chars kept before they are written out.
+   */
+  public static final int DEFAULT_LIMIT = 8192;
+
+  /**
+   * A report is anything that can write itself to an Appendable.
+   */
+  public interface Report {
+    /**
+     * This method writes the report.
+     *
+     * @param out is where the report is written.
+     * @throws IOException if the report couldn't be written.
+     */
+    void writeTo(Appendable out) throws IOException;
+  }
+
+  private final Appendable out;
+  private final StringBuilder buffer;
+  private final int limit;
+
+  /**
+   * The constructor takes in where the report is written, with the default buffer limit.
+   *
+   * @param out is where the report is written.
+   */
+  public ReportWriter(Appendable out) {
+    this(out, DEFAULT_LIMIT);
+  }
+
+  /**
+   * The constructor takes in where the report is written and the size of the buffer.
+   *
+   * @param out is where the report is written.
+   * @param limit is the number of chars kept before they are written out.
+   * @throws IllegalArgumentException if the Appendable is null or the limit isn't positive.
+   */
+  public ReportWriter(Appendable out, int limit) {
+    if (out == null) {
+      throw new IllegalArgumentException("Appendable can't be null");
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The limit has to be positive");
+    }
+    this.out = out;
+    this.limit = limit;
+    this.buffer = new StringBuilder(limit);
+  }
+
+  @Override
+  public ReportWriter append(CharSequence text) throws IOException {
+    CharSequence value = text == null ? "null" : text;
+    return append(value, 0, value.length());
+  }
+
+  @Override
+  public ReportWriter append(CharSequence text, int start, int end) throws IOException {
+    CharSequence value = text == null ? "null" : text;
+    if (buffer.length() + (end - start) > limit) {
+      flush();
+      if (end - start > limit) {
+        // Text bigger than the buffer goes straight through
+        out.append(value, start, end);
+        return this;
+      }
+    }
+    buffer.append(value, start, end);
+    return this;
+  }
+
+  @Override
+  public ReportWriter append(char c) throws IOException {
+    if (buffer.length() >= limit) {
+      flush();
+    }
+    buffer.append(c);
+    return this;
+  }
+
+  /**
+   * This method writes everything in the buffer to the Appendable.
+   *
+   * @throws IOException if the Appendable couldn't be written to.
+   */
+  public void flush() throws IOException {
+    if (buffer.length() > 0) {
+      out.append(buffer);
+      buffer.setLength(0);
+    }
+  }
+
+  /**
+   * This method writes the report into a string, for the methods that still return one.
+   *
+   * @param report is the report to write.
+   * @return the report as a string.
+   */
+  public static String render(Report report) {
+    StringBuilder res = new StringBuilder();
+    try {
+      report.writeTo(res);
+    } catch (IOException e) {
+      // A StringBuilder never throws, so this can only come from the report itself
+      throw new IllegalStateException("The report couldn't be written", e);
+    }
+    return res.toString();
+  }
+}
@@ -2,16 +2,25 @@ package models;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The purpose of this class is to store the id, room type, and room name of each room.
+ *
+ * <p>The status of the room is kept in one atomic number, so a room can be reserved by one move
+ * without a lock even when many threads try at the same time. The lowest bit is set while the room
+ * is occupied and the rest of the number counts the changes, so a reservation can't be cancelled
+ * after the room was freed and taken by someone else.
  */
 
 public class Room implements RoomFunctionality {
+  private static final long OCCUPIED = 1;
+
   private int[] id;
   private String roomType;
   private String roomName;
-  private boolean status = false;
+  private final AtomicLong state = new AtomicLong();
+  private long entityId;
 
   /**
    * Execute a move in the position specified by the given row and column.
@@ -27,6 +36,29 @@ public class Room implements RoomFunctionality {
     this.roomName = roomName;
     this.id = id;
   }
+
+  /**
+   * This is a getter for the numeric id of the room. The id is given out by the clinic the
+   * first time the room is added to it, and it never changes after that.
+   * @return the id of the room, or 0 if it hasn't been added to a clinic.
+   */
+  
+  public long getEntityId() {
+    return entityId;
+  }
+
+  /**
+   * This sets the numeric id of the room. It can only be set once.
+   * @param entityId is the id of the room.
+   * @throws IllegalStateException if the room already has a different id.
+   */
+  
+  void setEntityId(long entityId) {
+    if (this.entityId != 0 && this.entityId != entityId) {
+      throw new IllegalStateException("The room already has the id " + this.entityId);
+    }
+    this.entityId = entityId;
+  }
   
   /**
    * This is a getter function for RoomType.
@@ -60,7 +92,7 @@ public class Room implements RoomFunctionality {
    */
   
   public boolean getStatus() {
-    return status;
+    return (state.get() & OCCUPIED) != 0;
   }
 
   /**
@@ -96,8 +128,46 @@ public class Room implements RoomFunctionality {
    */
   
   public void setStatus(boolean status) {
-    this.status = status;
+    long current;
+    do {
+      current = state.get();
+    } while (!state.compareAndSet(current, next(current, status)));
+  }
+
+  /**
+   * This method claims the room if it is free. Only one of the threads that try at the same time
+   * gets it, and nobody waits for anyone.
+   * @return the stamp of the reservation, which is needed to cancel it, or -1 if the room is
+   *     occupied.
+   */
+  
+  public long reserve() {
+    while (true) {
+      long current = state.get();
+      if ((current & OCCUPIED) != 0) {
+        return -1;
+      }
+      long claimed = next(current, true);
+      if (state.compareAndSet(current, claimed)) {
+        return claimed;
+      }
+    }
   }
+
+  /**
+   * This method frees the room again if nothing changed it since it was reserved.
+   * @param stamp is the stamp the reservation returned.
+   * @return true if the room was freed, or false if the room changed after the reservation.
+   */
+  
+  public boolean cancelReservation(long stamp) {
+    return stamp >= 0 && state.compareAndSet(stamp, next(stamp, false));
+  }
+
+  private static long next(long current, boolean occupied) {
+    return (((current >>> 1) + 1) << 1) | (occupied ? OCCUPIED : 0);
+  }
+
   /**
  * This method isolates the coordinates from the id that is used for graphing the room.
  * @param index is the index of the array
@@ -117,7 +187,8 @@ public class Room implements RoomFunctionality {
     final int prime = 31;
     int result = 1;
     result = prime * result + Arrays.hashCode(id);
-    result = prime * result + Objects.hash(roomName, roomType, status);
+    // The status changes every time a client moves in or out, so it is left out of the hash
+    result = prime * result + Objects.hash(roomName, roomType);
     return result;
   }
 
@@ -134,13 +205,13 @@ public class Room implements RoomFunctionality {
     }
     Room other = (Room) obj;
     return Arrays.equals(id, other.id) && Objects.equals(roomName, other.roomName)
-        && Objects.equals(roomType, other.roomType) && status == other.status;
+        && Objects.equals(roomType, other.roomType) && getStatus() == other.getStatus();
   }
 
   @Override
   public String toString() {
     return "Room: Room Type= " + roomType + ", Name of Room= " + roomName + ", Room ID= "
-        + Arrays.toString(id) + ", Status of Room= " + status;
+        + Arrays.toString(id) + ", Status of Room= " + getStatus();
   }
 
 }
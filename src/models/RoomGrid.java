@@ -0,0 +1,267 @@
+package models;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class finds the rooms at a point, or in an area, of the room map without going through
+ * every room. The map is cut into square cells about the size of a room, and every room is listed
+ * in each cell its rectangle touches. A search only looks at the rooms in the cells it touches.
+ *
+ * <p>The rectangles are the ones the rooms have on the map at one zoom factor, so the grid is made
+ * again when the zoom factor changes or a room is added or removed. Rooms are returned in the order
+ * of the list the grid was made from, which is the order they are drawn in.
+ *
+ * <p>A grid doesn't change after it is made, so it can be searched from any thread.
+ */
+public class RoomGrid {
+  private static final int MIN_CELL_SIZE = 16;
+
+  private final Room[] rooms;
+  private final Rectangle[] bounds;
+  private final int cellSize;
+  private final int originX;
+  private final int originY;
+  private final int cols;
+  private final int rows;
+  // The rooms of cell i are cellRooms[cellStart[i]] up to cellRooms[cellStart[i + 1]]
+  private final int[] cellStart;
+  private final int[] cellRooms;
+
+  /**
+   * The constructor puts every room in the grid.
+   *
+   * @param rooms are the rooms, in the order they are drawn.
+   * @param boundsOf finds the rectangle of a room on the map.
+   */
+  public RoomGrid(List<Room> rooms, Function<Room, Rectangle> boundsOf) {
+    this(rooms.toArray(new Room[0]), rooms.stream().map(boundsOf).toArray(Rectangle[]::new));
+  }
+
+  /**
+   * The constructor puts every room in the grid, with the rectangles that were already found.
+   *
+   * @param rooms are the rooms, in the order they are drawn.
+   * @param bounds are the rectangles of the rooms on the map, in the same order.
+   * @throws IllegalArgumentException if there isn't one rectangle for each room.
+   */
+  public RoomGrid(Room[] rooms, Rectangle[] bounds) {
+    if (rooms.length != bounds.length) {
+      throw new IllegalArgumentException("Every room needs one rectangle");
+    }
+    this.rooms = rooms.clone();
+    this.bounds = new Rectangle[bounds.length];
+    long minX = Long.MAX_VALUE;
+    long minY = Long.MAX_VALUE;
+    long maxX = Long.MIN_VALUE;
+    long maxY = Long.MIN_VALUE;
+    long sides = 0;
+    for (int i = 0; i < this.rooms.length; i++) {
+      Rectangle rectangle = new Rectangle(bounds[i]);
+      this.bounds[i] = rectangle;
+      minX = Math.min(minX, rectangle.x);
+      minY = Math.min(minY, rectangle.y);
+      maxX = Math.max(maxX, (long) rectangle.x + rectangle.width);
+      maxY = Math.max(maxY, (long) rectangle.y + rectangle.height);
+      sides += Math.max(rectangle.width, rectangle.height);
+    }
+    if (this.rooms.length == 0) {
+      minX = 0;
+      minY = 0;
+      maxX = 0;
+      maxY = 0;
+    }
+    long size = Math.max(MIN_CELL_SIZE, sides / Math.max(1, this.rooms.length));
+    // Rooms that are spread far apart would make too many empty cells, so the cells get bigger
+    while (((maxX - minX) / size + 1) * ((maxY - minY) / size + 1) > 4L * this.rooms.length + 16) {
+      size *= 2;
+    }
+    this.cellSize = (int) size;
+    this.originX = (int) minX;
+    this.originY = (int) minY;
+    this.cols = (int) ((maxX - minX) / size + 1);
+    this.rows = (int) ((maxY - minY) / size + 1);
+
+    // The cells are counted first, so every cell can be one run of a single array
+    cellStart = new int[cols * rows + 1];
+    for (Rectangle rectangle : this.bounds) {
+      for (int row = rowOf(rectangle.y); row <= rowOf(rectangle.y + rectangle.height); row++) {
+        for (int col = colOf(rectangle.x); col <= colOf(rectangle.x + rectangle.width); col++) {
+          cellStart[row * cols + col + 1]++;
+        }
+      }
+    }
+    for (int i = 0; i < cols * rows; i++) {
+      cellStart[i + 1] += cellStart[i];
+    }
+    cellRooms = new int[cellStart[cols * rows]];
+    int[] next = Arrays.copyOf(cellStart, cols * rows);
+    for (int i = 0; i < this.bounds.length; i++) {
+      Rectangle rectangle = this.bounds[i];
+      for (int row = rowOf(rectangle.y); row <= rowOf(rectangle.y + rectangle.height); row++) {
+        for (int col = colOf(rectangle.x); col <= colOf(rectangle.x + rectangle.width); col++) {
+          cellRooms[next[row * cols + col]++] = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Retrieves the number of rooms in the grid.
+   *
+   * @return the number of rooms.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * This method finds the first room whose rectangle has the point in it. The edges of the
+   * rectangle count as inside of it.
+   *
+   * @param point is the point on the map.
+   * @return the room, or null if no room has the point in it.
+   */
+  public Room roomAt(Point point) {
+    int index = indexAt(point);
+    return index < 0 ? null : rooms[index];
+  }
+
+  /**
+   * This method finds where the first room whose rectangle has the point in it is in the list the
+   * grid was made from.
+   *
+   * @param point is the point on the map.
+   * @return the index of the room, or -1 if no room has the point in it.
+   */
+  public int indexAt(Point point) {
+    int cell = cellAt(point);
+    if (cell < 0) {
+      return -1;
+    }
+    int best = -1;
+    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+      int index = cellRooms[i];
+      if ((best < 0 || index < best) && contains(bounds[index], point)) {
+        best = index;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * This method finds every room whose rectangle has the point in it.
+   *
+   * @param point is the point on the map.
+   * @return the rooms, in the order they are drawn.
+   */
+  public List<Room> roomsAt(Point point) {
+    int cell = cellAt(point);
+    if (cell < 0) {
+      return new ArrayList<>();
+    }
+    int[] found = new int[cellStart[cell + 1] - cellStart[cell]];
+    int count = 0;
+    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+      if (contains(bounds[cellRooms[i]], point)) {
+        found[count++] = cellRooms[i];
+      }
+    }
+    Arrays.sort(found, 0, count);
+    return toRooms(found, count);
+  }
+
+  /**
+   * This method finds every room whose rectangle touches the area. The edges of the rectangles
+   * count, so a room that just touches the area is found too.
+   *
+   * @param area is the area of the map.
+   * @return the rooms, in the order they are drawn.
+   */
+  public List<Room> roomsIn(Rectangle area) {
+    int[] found = indicesIn(area);
+    return toRooms(found, found.length);
+  }
+
+  /**
+   * This method finds where every room whose rectangle touches the area is in the list the grid
+   * was made from.
+   *
+   * @param area is the area of the map.
+   * @return the indexes of the rooms, from smallest to largest.
+   */
+  public int[] indicesIn(Rectangle area) {
+    // An area with no width or height still finds the rooms whose edges it is on
+    if (rooms.length == 0 || area.width < 0 || area.height < 0) {
+      return new int[0];
+    }
+    int firstCol = Math.max(0, colOf(area.x));
+    int lastCol = Math.min(cols - 1, colOf(area.x + area.width));
+    int firstRow = Math.max(0, rowOf(area.y));
+    int lastRow = Math.min(rows - 1, rowOf(area.y + area.height));
+    int[] found = new int[16];
+    int count = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        int cell = row * cols + col;
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+          int index = cellRooms[i];
+          if (touches(bounds[index], area)) {
+            if (count == found.length) {
+              found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = index;
+          }
+        }
+      }
+    }
+    // A room in a few cells was found once for each of them
+    Arrays.sort(found, 0, count);
+    int unique = 0;
+    for (int i = 0; i < count; i++) {
+      if (unique == 0 || found[unique - 1] != found[i]) {
+        found[unique++] = found[i];
+      }
+    }
+    return Arrays.copyOf(found, unique);
+  }
+
+  private List<Room> toRooms(int[] found, int count) {
+    List<Room> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(rooms[found[i]]);
+    }
+    return list;
+  }
+
+  private int cellAt(Point point) {
+    int col = colOf(point.x);
+    int row = rowOf(point.y);
+    if (rooms.length == 0 || col < 0 || col >= cols || row < 0 || row >= rows) {
+      return -1;
+    }
+    return row * cols + col;
+  }
+
+  private int colOf(int x) {
+    return Math.floorDiv(x - originX, cellSize);
+  }
+
+  private int rowOf(int y) {
+    return Math.floorDiv(y - originY, cellSize);
+  }
+
+  private static boolean contains(Rectangle bounds, Point point) {
+    return point.x >= bounds.x && point.x <= bounds.x + bounds.width
+        && point.y >= bounds.y && point.y <= bounds.y + bounds.height;
+  }
+
+  private static boolean touches(Rectangle bounds, Rectangle area) {
+    return bounds.x <= area.x + area.width && area.x <= bounds.x + bounds.width
+        && bounds.y <= area.y + area.height && area.y <= bounds.y + bounds.height;
+  }
+}
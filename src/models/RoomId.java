@@ -0,0 +1,102 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * This class is the value of a room id. A room id is the four coordinates of the room, and two
+ * room ids are equal when their coordinates are equal, so it can be used as a key in a map where
+ * a raw int[] can't.
+ */
+public final class RoomId {
+  private final int x1;
+  private final int y1;
+  private final int x2;
+  private final int y2;
+
+  /**
+   * The constructor takes in the four coordinates of the room.
+   *
+   * @param x1 is the x coordinate of the top left corner.
+   * @param y1 is the y coordinate of the top left corner.
+   * @param x2 is the x coordinate of the bottom right corner.
+   * @param y2 is the y coordinate of the bottom right corner.
+   */
+  public RoomId(int x1, int y1, int x2, int y2) {
+    this.x1 = x1;
+    this.y1 = y1;
+    this.x2 = x2;
+    this.y2 = y2;
+  }
+
+  /**
+   * This makes a room id from the int[] that a room stores.
+   *
+   * @param id is the array of four coordinates.
+   * @return the room id with those coordinates.
+   * @throws IllegalArgumentException if the array doesn't have four coordinates.
+   */
+  public static RoomId of(int[] id) {
+    if (id == null || id.length != 4) {
+      throw new IllegalArgumentException("Room id must have four coordinates: "
+          + Arrays.toString(id));
+    }
+    return new RoomId(id[0], id[1], id[2], id[3]);
+  }
+
+  /**
+   * This is a getter for the x coordinate of the top left corner.
+   * @return the x coordinate of the top left corner.
+   */
+  public int getX1() {
+    return x1;
+  }
+
+  /**
+   * This is a getter for the y coordinate of the top left corner.
+   * @return the y coordinate of the top left corner.
+   */
+  public int getY1() {
+    return y1;
+  }
+
+  /**
+   * This is a getter for the x coordinate of the bottom right corner.
+   * @return the x coordinate of the bottom right corner.
+   */
+  public int getX2() {
+    return x2;
+  }
+
+  /**
+   * This is a getter for the y coordinate of the bottom right corner.
+   * @return the y coordinate of the bottom right corner.
+   */
+  public int getY2() {
+    return y2;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = x1;
+    result = 31 * result + y1;
+    result = 31 * result + x2;
+    return 31 * result + y2;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof RoomId)) {
+      return false;
+    }
+    RoomId other = (RoomId) obj;
+    return x1 == other.x1 && y1 == other.y1 && x2 == other.x2 && y2 == other.y2;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + x1 + ", " + y1 + ", " + x2 + ", " + y2 + "]";
+  }
+}
@@ -0,0 +1,280 @@
+package models;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to time repainting the room map. A clinic of 400 rooms with 4,000
+ * clients is painted into an image, which works without a screen. The first paint lays out every
+ * room. The paints after it reuse the tiles, and one client is moved before each of the last
+ * paints so only two rooms are laid out again.
+ *
+ * <p>After that, a floor plan of 10,000 rooms is scrolled through a window of 1200 x 900 pixels.
+ * The window is drawn three ways: every room, only the rooms in the window, and from tiles that
+ * were drawn ahead of time. Then the floor plan is zoomed out until most of it fits in the
+ * window, where only the outlines are drawn. The time to make a snapshot of the floor plan is
+ * split into reading the clinic and laying out the text. The windows are also given as frames a
+ * second. The whole floor plan is exported as a PNG, a band of rows at a time, and as an SVG.
+ * Last, the room under 100,000 points of the floor plan is found by going through every room and
+ * with the grid.
+ */
+public class RoomMapBenchmark {
+  private static final int ROOMS = 400;
+  private static final int CLIENTS = 4_000;
+  private static final int PAINTS = 50;
+  private static final int FLOOR_ROOMS = 10_000;
+  private static final int SCROLLS = 200;
+  private static final int POINTS = 100_000;
+
+  /**
+   * The main function builds the clinic and prints the time of each kind of paint.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    Clinic clinic = new Clinic("Benchmark");
+    for (int i = 0; i < ROOMS; i++) {
+      int x = 25 + (i % 20) * 6;
+      int y = (i / 20) * 6;
+      String type = i == 0 ? "waiting" : "exam";
+      clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, type, "Room_" + i));
+    }
+    for (int i = 0; i < CLIENTS; i++) {
+      clinic.addClinicClient(new Client(1 + i % ROOMS, "First" + i, "Last" + i, "1/1/1990"));
+    }
+    // The panel paints with the renderer, which is used here so no tiles are drawn on the side
+    RoomMapRenderer renderer = new RoomMapRenderer(clinic, 2.5);
+    BufferedImage image = new BufferedImage(1500, 3000, BufferedImage.TYPE_INT_RGB);
+
+    long start = System.nanoTime();
+    paint(renderer, image);
+    System.out.println(String.format("first paint      %8.2f ms", (System.nanoTime() - start)
+        / 1e6));
+
+    start = System.nanoTime();
+    for (int i = 0; i < PAINTS; i++) {
+      paint(renderer, image);
+    }
+    System.out.println(String.format("repaint          %8.2f ms", (System.nanoTime() - start)
+        / 1e6 / PAINTS));
+
+    start = System.nanoTime();
+    for (int i = 0; i < PAINTS; i++) {
+      Client client = clinic.getClinicClients().get(i);
+      client.setRoomNum(1 + (client.getRoomNum() % ROOMS));
+      clinic.getClinicClients().set(i, client);
+      paint(renderer, image);
+    }
+    System.out.println(String.format("move + repaint   %8.2f ms", (System.nanoTime() - start)
+        / 1e6 / PAINTS));
+
+    scroll();
+  }
+
+  private static void scroll() {
+    Clinic clinic = new Clinic("Floor plan");
+    for (int i = 0; i < FLOOR_ROOMS; i++) {
+      int x = 25 + (i % 100) * 6;
+      int y = (i / 100) * 6;
+      String type = i == 0 ? "waiting" : "exam";
+      clinic.addClinicRoom(new Room(new int[] {x, y, x + 5, y + 5}, type, "Room_" + i));
+    }
+    for (int i = 0; i < FLOOR_ROOMS; i++) {
+      clinic.addClinicClient(new Client(1 + i, "First" + i, "Last" + i, "1/1/1990"));
+    }
+    RoomMapRenderer renderer = new RoomMapRenderer(clinic, 2.5);
+    MapTileCache tiles = new MapTileCache(renderer);
+    BufferedImage window = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+    long start = System.nanoTime();
+    System.out.println(String.format("floor plan size  %s, laid out in %.2f ms",
+        renderer.getMapSize(), (System.nanoTime() - start) / 1e6));
+
+    start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      drawWindow(window, renderer, null, new Rectangle(0, i * 40, 1200, 900), true);
+    }
+    System.out.println(String.format("every room       %8.2f ms", (System.nanoTime() - start)
+        / 1e6 / 5));
+
+    start = System.nanoTime();
+    for (int i = 0; i < SCROLLS; i++) {
+      drawWindow(window, renderer, null, new Rectangle(0, 20_000 + i * 40, 1200, 900),
+          false);
+    }
+    double windowOnly = (System.nanoTime() - start) / 1e6 / SCROLLS;
+    System.out.println(String.format("window only      %8.2f ms, %6.0f frames a second",
+        windowOnly, 1000 / windowOnly));
+
+    Rectangle first = new Rectangle(0, 20_000, 1200, 900);
+    while (tiles.prepare(first, Color.WHITE)) {
+      // Every tile on the screen and around it is drawn before the scrolling starts
+    }
+    long drawing = 0;
+    long preparing = 0;
+    int prepared = 0;
+    for (int i = 0; i < SCROLLS; i++) {
+      Rectangle area = new Rectangle(0, 20_000 + i * 40, 1200, 900);
+      start = System.nanoTime();
+      drawWindow(window, renderer, tiles, area, false);
+      drawing += System.nanoTime() - start;
+      // What the event thread does between frames
+      start = System.nanoTime();
+      if (tiles.prepare(area, Color.WHITE)) {
+        prepared++;
+      }
+      preparing += System.nanoTime() - start;
+    }
+    double fromTiles = drawing / 1e6 / SCROLLS;
+    System.out.println(String.format("window from tiles%8.2f ms, %6.0f frames a second",
+        fromTiles, 1000 / fromTiles));
+    System.out.println(String.format("one tile drawn   %8.2f ms (%d tiles while scrolling)",
+        preparing / 1e6 / Math.max(1, prepared), prepared));
+
+    // What the thread that changes the clinic pays for a new snapshot, and what the background
+    // thread pays
+    start = System.nanoTime();
+    MapSnapshot.Capture firstCapture = MapSnapshot.capture(clinic, null);
+    long firstRead = System.nanoTime() - start;
+    start = System.nanoTime();
+    MapSnapshot snapshot = firstCapture.build();
+    System.out.println(String.format("first snapshot   %8.2f ms read, %8.2f ms built",
+        firstRead / 1e6, (System.nanoTime() - start) / 1e6));
+    long reading = 0;
+    long building = 0;
+    for (int i = 0; i < PAINTS; i++) {
+      Client client = clinic.getClinicClients().get(i);
+      client.setRoomNum(1 + (i * 37) % FLOOR_ROOMS);
+      clinic.getClinicClients().set(i, client);
+      start = System.nanoTime();
+      MapSnapshot.Capture capture = MapSnapshot.capture(clinic, snapshot);
+      reading += System.nanoTime() - start;
+      start = System.nanoTime();
+      snapshot = capture.build();
+      building += System.nanoTime() - start;
+    }
+    System.out.println(String.format("move + snapshot  %8.2f ms read, %8.2f ms built",
+        reading / 1e6 / PAINTS, building / 1e6 / PAINTS));
+
+    // Zoomed out far enough to see most of the floor plan, only the outlines are drawn
+    RoomMapRenderer zoomedOut = new RoomMapRenderer(clinic, 0.1);
+    drawWindow(window, zoomedOut, null, new Rectangle(0, 0, 1200, 900), false);
+    start = System.nanoTime();
+    int rooms = 0;
+    for (int i = 0; i < PAINTS; i++) {
+      Graphics2D g = window.createGraphics();
+      rooms = zoomedOut.paintRooms(g, new Rectangle(0, 0, 1200, 900));
+      g.dispose();
+    }
+    System.out.println(String.format("zoomed out       %8.2f ms (%d rooms as outlines)",
+        (System.nanoTime() - start) / 1e6 / PAINTS, rooms));
+
+    export(snapshot);
+
+    Dimension size = renderer.getMapSize();
+    Random random = new Random(1);
+    Point[] points = new Point[POINTS];
+    for (int i = 0; i < POINTS; i++) {
+      points[i] = new Point(random.nextInt(size.width), random.nextInt(size.height));
+    }
+    start = System.nanoTime();
+    int found = 0;
+    for (Point point : points) {
+      for (Room room : clinic.getClinicRooms()) {
+        Rectangle bounds = renderer.roomBounds(room);
+        // The edges count as inside of the room, like they do for a click
+        if (point.x >= bounds.x && point.x <= bounds.x + bounds.width
+            && point.y >= bounds.y && point.y <= bounds.y + bounds.height) {
+          found++;
+          break;
+        }
+      }
+    }
+    System.out.println(String.format("room at, scan    %8.3f us (%d found)",
+        (System.nanoTime() - start) / 1e3 / POINTS, found));
+    renderer.roomAt(points[0]);
+    start = System.nanoTime();
+    found = 0;
+    for (Point point : points) {
+      if (renderer.roomAt(point) != null) {
+        found++;
+      }
+    }
+    System.out.println(String.format("room at, grid    %8.3f us (%d found)",
+        (System.nanoTime() - start) / 1e3 / POINTS, found));
+  }
+
+  /**
+   * This method writes the whole floor plan as a PNG and an SVG without keeping them, the way the
+   * exporter does when there is no screen.
+   */
+  private static void export(MapSnapshot snapshot) {
+    for (double zoom : new double[] {0.25, 1.0}) {
+      MapExporter exporter = new MapExporter(snapshot, zoom);
+      CountingStream png = new CountingStream();
+      long start = System.nanoTime();
+      try {
+        exporter.writePng(png);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      System.out.println(String.format("export png %4.2fx %8.2f ms (%s, %d KB)", zoom,
+          (System.nanoTime() - start) / 1e6, exporter.getMapSize(), png.count / 1024));
+    }
+    MapExporter exporter = new MapExporter(snapshot, 2.5);
+    StringBuilder svg = new StringBuilder();
+    long start = System.nanoTime();
+    try {
+      exporter.writeSvg(svg);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    System.out.println(String.format("export svg 2.50x %8.2f ms (%d KB)",
+        (System.nanoTime() - start) / 1e6, svg.length() / 1024));
+  }
+
+  private static void drawWindow(BufferedImage window, RoomMapRenderer renderer,
+      MapTileCache tiles, Rectangle area, boolean everyRoom) {
+    Graphics2D g = window.createGraphics();
+    g.setColor(Color.WHITE);
+    g.fillRect(0, 0, area.width, area.height);
+    g.translate(-area.x, -area.y);
+    g.clip(area);
+    if (tiles == null) {
+      renderer.paintRooms(g, everyRoom ? null : area);
+    } else {
+      tiles.paint(g, area, Color.WHITE);
+    }
+    g.dispose();
+  }
+
+  /**
+   * The stream only counts the bytes written to it.
+   */
+  private static final class CountingStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      count += length;
+    }
+  }
+
+  private static void paint(RoomMapRenderer renderer, BufferedImage image) {
+    Graphics2D g = image.createGraphics();
+    renderer.paintRooms(g, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+    g.dispose();
+  }
+}
@@ -0,0 +1,312 @@
+package models;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.font.GlyphVector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * This class draws the rooms of a clinic at a zoom factor. It is what the room map panel paints
+ * with, and it works the same way on the screen and in an image.
+ *
+ * <p>The renderer never reads the clinic while it draws. It draws a {@link MapSnapshot} of the
+ * rooms, laid out at the zoom factor as a {@link MapLayout}, and only makes a new layout when it is
+ * given a new snapshot or the zoom factor changes. A renderer made from a clinic makes a new
+ * snapshot on the calling thread whenever the clinic changes. The room map panel instead draws the
+ * last snapshot a {@link MapSnapshotBuilder} published, so it never waits for the clinic.
+ *
+ * <p>Only the rooms whose rectangle or text reaches into the area being drawn are drawn, so drawing
+ * the part of a large floor plan that is on the screen doesn't depend on how many rooms there are.
+ * Below {@link #DETAIL_ZOOM} the rooms are too small to read their text, so only their outlines
+ * and the number of clients in them are drawn.
+ */
+public class RoomMapRenderer {
+  /**
+   * The font the room names and the room information are drawn with.
+   */
+  public static final Font ROOM_FONT = new Font("Arial", Font.PLAIN, 15);
+
+  /**
+   * The smallest zoom factor the names and the information of the rooms are drawn at.
+   */
+  public static final double DETAIL_ZOOM = 1.5;
+
+  private final Supplier<MapSnapshot> snapshots;
+  private double zoomFactor;
+  private MapLayout layout;
+
+  /**
+   * The constructor takes in the clinic to draw and the zoom factor to draw it at. A new snapshot
+   * of the clinic is made whenever the clinic changed since the last one, on the thread that draws.
+   *
+   * @param clinic is the clinic whose rooms are drawn.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   */
+  public RoomMapRenderer(Clinic clinic, double zoomFactor) {
+    this(new Supplier<MapSnapshot>() {
+      private MapSnapshot last;
+
+      @Override
+      public MapSnapshot get() {
+        if (last == null || last.getMapVersion() != clinic.getMapVersion()) {
+          last = MapSnapshot.of(clinic, last);
+        }
+        return last;
+      }
+    }, zoomFactor);
+  }
+
+  /**
+   * The constructor takes in where the snapshots to draw come from, and the zoom factor to draw
+   * them at.
+   *
+   * @param snapshots gives the latest snapshot of the rooms whenever the map is drawn.
+   * @param zoomFactor is how much the room coordinates are scaled by.
+   */
+  public RoomMapRenderer(Supplier<MapSnapshot> snapshots, double zoomFactor) {
+    this.snapshots = snapshots;
+    setZoomFactor(zoomFactor);
+  }
+
+  /**
+   * Retrieves the zoom factor the rooms are drawn at.
+   *
+   * @return the zoom factor.
+   */
+  public double getZoomFactor() {
+    return zoomFactor;
+  }
+
+  /**
+   * Sets the zoom factor the rooms are drawn at.
+   *
+   * @param zoomFactor is the new zoom factor.
+   * @throws IllegalArgumentException if the zoom factor isn't more than 0.
+   */
+  public void setZoomFactor(double zoomFactor) {
+    if (!(zoomFactor > 0)) {
+      throw new IllegalArgumentException("The zoom factor has to be more than 0");
+    }
+    this.zoomFactor = zoomFactor;
+  }
+
+  /**
+   * This method checks if the rooms are drawn with their names and information, or only with their
+   * outlines and the number of clients in them.
+   *
+   * @return true if the names and the information are drawn.
+   */
+  public boolean isDetailed() {
+    return zoomFactor >= DETAIL_ZOOM;
+  }
+
+  /**
+   * Retrieves the snapshot of the rooms laid out at the zoom factor, which is what is drawn. A new
+   * layout is made if there is a new snapshot or the zoom factor changed.
+   *
+   * @return the layout.
+   */
+  public MapLayout getLayout() {
+    MapSnapshot snapshot = snapshots.get();
+    if (snapshot == null) {
+      snapshot = MapSnapshot.EMPTY;
+    }
+    MapLayout current = layout;
+    if (current == null || current.getSnapshot() != snapshot
+        || current.getZoomFactor() != zoomFactor) {
+      current = new MapLayout(snapshot, zoomFactor);
+      layout = current;
+    }
+    return current;
+  }
+
+  /**
+   * Retrieves the version of the clinic's room map that is drawn.
+   *
+   * @return the version of the snapshot that is drawn.
+   */
+  public long getMapVersion() {
+    return getLayout().getSnapshot().getMapVersion();
+  }
+
+  /**
+   * This method finds where the given point of the floor plan is drawn on the map.
+   *
+   * @param x is the x-coordinate on the floor plan, in the units of the room ids.
+   * @param y is the y-coordinate on the floor plan, in the units of the room ids.
+   * @return the point on the map.
+   */
+  public Point toMap(double x, double y) {
+    return new Point((int) ((x * 32 - 800) * zoomFactor), (int) (y * 32 * zoomFactor + 125));
+  }
+
+  /**
+   * This method finds the point of the floor plan that is drawn at the given point of the map. It
+   * is the opposite of {@link #toMap(double, double)}.
+   *
+   * @param point is the point on the map.
+   * @return the x and y-coordinates on the floor plan, in the units of the room ids.
+   */
+  public double[] toFloorPlan(Point point) {
+    return new double[] {point.x / zoomFactor / 32 + 25, (point.y - 125) / zoomFactor / 32};
+  }
+
+  /**
+   * This method finds where the rectangle of the room is drawn.
+   *
+   * @param room is the room.
+   * @return the rectangle of the room on the map.
+   */
+  public Rectangle roomBounds(Room room) {
+    return MapLayout.scale(room.getElement(0), room.getElement(1), room.getElement(2),
+        room.getElement(3), zoomFactor);
+  }
+
+  /**
+   * This method finds everything the room draws on, which is its rectangle, its name above it and
+   * its information, which can go past the bottom and the right of the rectangle. When the map is
+   * zoomed out, it is only the rectangle and its outline.
+   *
+   * @param room is the room.
+   * @return the area the room draws on, or just its rectangle if it isn't on the map yet.
+   */
+  public Rectangle paintBounds(Room room) {
+    MapLayout current = getLayout();
+    int index = current.getSnapshot().indexOf(room);
+    return index < 0 ? roomBounds(room) : current.paintBounds(index);
+  }
+
+  /**
+   * This method draws the rooms that reach into the given area, in the order of the rooms of the
+   * clinic. Rooms that are all outside of the area are skipped.
+   *
+   * @param g is where the rooms are drawn.
+   * @param area is the area to draw, or null to draw every room.
+   * @return the number of rooms that were drawn.
+   */
+  public int paintRooms(Graphics2D g, Rectangle area) {
+    MapLayout current = getLayout();
+    MapSnapshot snapshot = current.getSnapshot();
+    g.setFont(ROOM_FONT);
+    FontMetrics metrics = g.getFontMetrics();
+    int[] indices = area == null ? null : current.indicesIn(area);
+    int count = indices == null ? snapshot.size() : indices.length;
+    for (int i = 0; i < count; i++) {
+      int index = indices == null ? i : indices[i];
+      MapSnapshot.RoomView view = snapshot.get(index);
+      Rectangle bounds = current.roomBounds(index);
+      g.setColor(Color.white);
+      g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+      g.setColor(Color.BLACK);
+      if (current.isDetailed()) {
+        g.drawGlyphVector(view.nameGlyphs, bounds.x, bounds.y - 5); // Adjusted for room name
+        int startY = bounds.y - 5; // Adjusted for room name
+        for (GlyphVector line : view.lines) {
+          g.drawGlyphVector(line, bounds.x, startY + 20);
+          startY += 20;
+        }
+      } else {
+        g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        drawCount(g, metrics, bounds, view.getClientCount());
+      }
+    }
+    return count;
+  }
+
+  /**
+   * This method draws the number of clients in the middle of the room, if the room is big enough
+   * for it.
+   */
+  private static void drawCount(Graphics2D g, FontMetrics metrics, Rectangle bounds, int count) {
+    if (count == 0) {
+      return;
+    }
+    String text = Integer.toString(count);
+    int width = metrics.stringWidth(text);
+    if (width + 4 > bounds.width || metrics.getAscent() + 4 > bounds.height) {
+      return;
+    }
+    g.drawString(text, bounds.x + (bounds.width - width) / 2,
+        bounds.y + (bounds.height + metrics.getAscent()) / 2);
+  }
+
+  /**
+   * This method draws a red outline around every room that has the point in it.
+   *
+   * @param g is where the outlines are drawn.
+   * @param point is the point that was selected, or null if nothing is selected.
+   */
+  public void paintSelection(Graphics2D g, Point point) {
+    if (point == null) {
+      return;
+    }
+    MapLayout current = getLayout();
+    g.setColor(Color.RED);
+    for (int index : current.indicesAt(point)) {
+      Rectangle bounds = current.roomBounds(index);
+      g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+  }
+
+  /**
+   * This method draws an outline around the rectangle of the room.
+   *
+   * @param g is where the outline is drawn.
+   * @param room is the room.
+   * @param color is the color of the outline.
+   */
+  public void paintOutline(Graphics2D g, Room room, Color color) {
+    MapLayout current = getLayout();
+    int index = current.getSnapshot().indexOf(room);
+    if (index >= 0) {
+      Rectangle bounds = current.roomBounds(index);
+      g.setColor(color);
+      g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+  }
+
+  /**
+   * This method finds the first room whose rectangle has the point in it. The edges of the
+   * rectangle count as inside of it.
+   *
+   * @param point is the point on the map.
+   * @return the room, or null if no room has the point in it.
+   */
+  public Room roomAt(Point point) {
+    MapLayout current = getLayout();
+    int index = current.indexAt(point);
+    return index < 0 ? null : current.getSnapshot().get(index).getRoom();
+  }
+
+  /**
+   * This method finds every room whose rectangle, name or text reaches into the area.
+   *
+   * @param area is the area of the map.
+   * @return the rooms, in the order they are drawn.
+   */
+  public List<Room> roomsIn(Rectangle area) {
+    MapLayout current = getLayout();
+    List<Room> found = new ArrayList<>();
+    for (int index : current.indicesIn(area)) {
+      found.add(current.getSnapshot().get(index).getRoom());
+    }
+    return found;
+  }
+
+  /**
+   * This method finds how big the map has to be to show every room, starting from the top-left
+   * corner at 0, 0.
+   *
+   * @return the size of the map.
+   */
+  public Dimension getMapSize() {
+    return getLayout().getMapSize();
+  }
+}
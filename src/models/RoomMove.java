@@ -0,0 +1,78 @@
+package models;
+
+/**
+ * This class is a move of a client to a new room that has been started but not finished. The new
+ * room is reserved when the move is made, so no other move can take it. Committing the move frees
+ * the room the client was in and puts the client in the new room, and rolling it back gives the
+ * new room up again.
+ *
+ * <p>A move is made by {@link Clinic#reserveMove(Client, Room)}, and has to be committed or rolled
+ * back once.
+ */
+public final class RoomMove {
+  /**
+   * The stamp of a move into a room that holds any number of clients, which isn't reserved.
+   */
+  static final long SHARED_ROOM = -1;
+
+  private final Clinic clinic;
+  private final Client client;
+  private final Room room;
+  private final long stamp;
+  private boolean over;
+
+  RoomMove(Clinic clinic, Client client, Room room, long stamp) {
+    this.clinic = clinic;
+    this.client = client;
+    this.room = room;
+    this.stamp = stamp;
+  }
+
+  /**
+   * Retrieves the client that is moving.
+   *
+   * @return the client.
+   */
+  public Client getClient() {
+    return client;
+  }
+
+  /**
+   * Retrieves the room the client is moving to.
+   *
+   * @return the new room.
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  /**
+   * This method finishes the move. The room the client is in is freed, unless it is the waiting
+   * room, and the client is put in the new room.
+   *
+   * @return the number of the new room, or 0 if it has no number.
+   * @throws IllegalStateException if the move was already committed or rolled back.
+   */
+  public int commit() {
+    end();
+    return clinic.commitMove(this);
+  }
+
+  /**
+   * This method gives up the move. The new room is freed again, and the client stays where they
+   * are.
+   *
+   * @throws IllegalStateException if the move was already committed or rolled back.
+   */
+  public void rollback() {
+    end();
+    room.cancelReservation(stamp);
+  }
+
+  private void end() {
+    if (over) {
+      throw new IllegalStateException("The move is already over");
+    }
+    over = true;
+  }
+}
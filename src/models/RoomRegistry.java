@@ -0,0 +1,268 @@
+package models;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class keeps track of which room has which room number. It can find a room from its number,
+ * and the number of a room from the room or from its id, without going through every room. The
+ * number of the waiting room is remembered until a room is added or removed.
+ *
+ * <p>Rooms are looked up by identity, since the status of a room is part of its equality and
+ * changes whenever a patient moves in or out.
+ */
+public class RoomRegistry {
+  private static final int UNKNOWN = -1;
+
+  private final Map<Integer, Room> byNumber = new LinkedHashMap<>();
+  private final Map<Room, Integer> numberOf = new IdentityHashMap<>();
+  private final Map<RoomId, Integer> numberOfId = new HashMap<>();
+  private int nextNumber = 1;
+  private int waitingRoomNumber = UNKNOWN;
+  private long version;
+
+  /**
+   * This method gives the room the next room number.
+   *
+   * @param room is the room that is being added.
+   * @return the number the room was given.
+   */
+  public int register(Room room) {
+    int number = nextNumber;
+    put(number, room);
+    return number;
+  }
+
+  /**
+   * This method gives the room the given room number. If another room had that number, it loses
+   * it.
+   *
+   * @param number is the room number.
+   * @param room is the room that gets the number.
+   */
+  public void put(int number, Room room) {
+    Room old = byNumber.put(number, room);
+    if (old != null && old != room) {
+      numberOf.remove(old);
+      forgetId(old, number);
+    }
+    Integer oldNumber = numberOf.put(room, number);
+    if (oldNumber != null && oldNumber != number) {
+      byNumber.remove(oldNumber);
+      forgetId(room, oldNumber);
+    }
+    numberOfId.putIfAbsent(RoomId.of(room.getId()), number);
+    nextNumber = Math.max(nextNumber, number + 1);
+    waitingRoomNumber = UNKNOWN;
+    version++;
+  }
+
+  /**
+   * This method removes the room and its number.
+   *
+   * @param room is the room that is being removed.
+   * @return the number the room had, or 0 if it didn't have one.
+   */
+  public int remove(Room room) {
+    Integer number = numberOf.remove(room);
+    if (number == null) {
+      return 0;
+    }
+    byNumber.remove(number);
+    forgetId(room, number);
+    waitingRoomNumber = UNKNOWN;
+    version++;
+    return number;
+  }
+
+  /**
+   * This method removes every room.
+   */
+  public void clear() {
+    byNumber.clear();
+    numberOf.clear();
+    numberOfId.clear();
+    nextNumber = 1;
+    waitingRoomNumber = UNKNOWN;
+    version++;
+  }
+
+  /**
+   * Retrieves the version of the registry, which changes whenever a room is added or removed.
+   *
+   * @return the version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * This method finds the room with the given number.
+   *
+   * @param number is the room number.
+   * @return the room, or null if no room has that number.
+   */
+  public Room get(int number) {
+    return byNumber.get(number);
+  }
+
+  /**
+   * This method finds the number of the given room. If the room itself isn't registered, a
+   * registered room with the same id is used instead.
+   *
+   * @param room is the room to look up.
+   * @return the room number, or 0 if the room doesn't have one.
+   */
+  public int numberOf(Room room) {
+    Integer number = numberOf.get(room);
+    if (number != null) {
+      return number;
+    }
+    return numberOf(RoomId.of(room.getId()));
+  }
+
+  /**
+   * This method finds the number of the room with the given id.
+   *
+   * @param id is the id of the room.
+   * @return the room number, or 0 if no room has that id.
+   */
+  public int numberOf(RoomId id) {
+    Integer number = numberOfId.get(id);
+    return number == null ? 0 : number;
+  }
+
+  /**
+   * This method finds the number of the first room whose type is waiting. The number is
+   * remembered until a room is added or removed.
+   *
+   * @return the number of the waiting room, or 0 if there is no waiting room.
+   */
+  public int getWaitingRoomNumber() {
+    int number = waitingRoomNumber;
+    if (number == UNKNOWN) {
+      // The number is found before it is remembered, so two threads looking for it at the same
+      // time never see a number that is only half found
+      number = 0;
+      for (Map.Entry<Integer, Room> entry : byNumber.entrySet()) {
+        if (entry.getValue().getRoomType().contains("waiting")) {
+          number = entry.getKey();
+          break;
+        }
+      }
+      waitingRoomNumber = number;
+    }
+    return number;
+  }
+
+  /**
+   * This method makes the waiting room number be found again the next time it is needed. It is
+   * used when the type of a room changes.
+   */
+  public void invalidateWaitingRoom() {
+    waitingRoomNumber = UNKNOWN;
+  }
+
+  /**
+   * Retrieves the room numbers in the order the rooms were added.
+   *
+   * @return the room numbers.
+   */
+  public Set<Integer> numbers() {
+    return Collections.unmodifiableSet(byNumber.keySet());
+  }
+
+  /**
+   * Retrieves the rooms in the order they were added.
+   *
+   * @return the rooms.
+   */
+  public Collection<Room> rooms() {
+    return Collections.unmodifiableCollection(byNumber.values());
+  }
+
+  /**
+   * Retrieves the number of rooms that have a number.
+   *
+   * @return the number of rooms.
+   */
+  public int size() {
+    return byNumber.size();
+  }
+
+  /**
+   * This method shows the registry as the room key, a map from each room number to the id of the
+   * room. The map is read only and always shows the current rooms.
+   *
+   * @return the room key.
+   */
+  public Map<Integer, int[]> asRoomKey() {
+    return new AbstractMap<Integer, int[]>() {
+      @Override
+      public int[] get(Object key) {
+        Room room = byNumber.get(key);
+        return room == null ? null : room.getId();
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return byNumber.containsKey(key);
+      }
+
+      @Override
+      public int size() {
+        return byNumber.size();
+      }
+
+      @Override
+      public Set<Map.Entry<Integer, int[]>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, int[]>>() {
+          @Override
+          public Iterator<Map.Entry<Integer, int[]>> iterator() {
+            Iterator<Map.Entry<Integer, Room>> rooms = byNumber.entrySet().iterator();
+            return new Iterator<Map.Entry<Integer, int[]>>() {
+              @Override
+              public boolean hasNext() {
+                return rooms.hasNext();
+              }
+
+              @Override
+              public Map.Entry<Integer, int[]> next() {
+                Map.Entry<Integer, Room> entry = rooms.next();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                    entry.getValue().getId());
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return byNumber.size();
+          }
+        };
+      }
+    };
+  }
+
+  private void forgetId(Room room, int number) {
+    RoomId id = RoomId.of(room.getId());
+    if (numberOfId.get(id) != null && numberOfId.get(id) == number) {
+      numberOfId.remove(id);
+      // Another room with the same id takes over the id
+      for (Map.Entry<Integer, Room> entry : byNumber.entrySet()) {
+        if (RoomId.of(entry.getValue().getId()).equals(id)) {
+          numberOfId.put(id, entry.getKey());
+          break;
+        }
+      }
+    }
+  }
+}
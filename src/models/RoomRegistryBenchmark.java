@@ -0,0 +1,150 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to compare the room registry with the room key scans that the
+ * clinic used before. A clinic with 10,000 rooms is built, with the waiting room added last, and
+ * the three lookups that every move and every display does are timed both ways: finding the
+ * waiting room, finding the number of a room, and freeing the room a client moves out of.
+ */
+public class RoomRegistryBenchmark {
+  private static final int ROOMS = 10_000;
+  private static final int LOOKUPS = 20_000;
+  private static final int RUNS = 5;
+
+  /**
+   * The main function builds the rooms and prints the time of each lookup.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) {
+    List<Room> rooms = new ArrayList<>();
+    Map<Integer, int[]> roomKey = new HashMap<>();
+    RoomRegistry registry = new RoomRegistry();
+    for (int i = 0; i < ROOMS; i++) {
+      int x = (i % 100) * 6;
+      int y = (i / 100) * 6;
+      String type = i == ROOMS - 1 ? "waiting" : "exam";
+      Room room = new Room(new int[] {x, y, x + 5, y + 5}, type, "Room_" + i);
+      rooms.add(room);
+      roomKey.put(roomKey.size() + 1, room.getId());
+      registry.register(room);
+    }
+
+    Random random = new Random(42);
+    int[] numbers = new int[LOOKUPS];
+    Room[] targets = new Room[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      numbers[i] = 1 + random.nextInt(ROOMS);
+      targets[i] = rooms.get(random.nextInt(ROOMS));
+    }
+
+    System.out.println(String.format("%d rooms, %d lookups per run", ROOMS, LOOKUPS));
+    System.out.println(String.format("%16s %14s %14s %10s", "lookup", "scan ns/op",
+        "registry ns/op", "speedup"));
+
+    long sink = 0;
+    long scanNanos = Long.MAX_VALUE;
+    long registryNanos = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < LOOKUPS; i++) {
+        sink += scanWaitingRoomNumber(rooms, roomKey);
+      }
+      scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < LOOKUPS; i++) {
+        sink += registry.getWaitingRoomNumber();
+      }
+      registryNanos = Math.min(registryNanos, System.nanoTime() - start);
+    }
+    printRow("waiting room", scanNanos, registryNanos);
+
+    scanNanos = Long.MAX_VALUE;
+    registryNanos = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (Room target : targets) {
+        sink += scanRoomNumber(target, roomKey);
+      }
+      scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (Room target : targets) {
+        sink += registry.numberOf(target);
+      }
+      registryNanos = Math.min(registryNanos, System.nanoTime() - start);
+    }
+    printRow("room number", scanNanos, registryNanos);
+
+    scanNanos = Long.MAX_VALUE;
+    registryNanos = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (int number : numbers) {
+        scanFreeRoom(number, rooms, roomKey);
+      }
+      scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      for (int number : numbers) {
+        registry.get(number).setStatus(false);
+      }
+      registryNanos = Math.min(registryNanos, System.nanoTime() - start);
+    }
+    printRow("free old room", scanNanos, registryNanos);
+
+    // The sink keeps the JIT from removing the lookups
+    System.out.println("checksum " + sink);
+  }
+
+  private static void printRow(String lookup, long scanNanos, long registryNanos) {
+    System.out.println(String.format("%16s %14.1f %14.1f %9.0fx", lookup,
+        (double) scanNanos / LOOKUPS, (double) registryNanos / LOOKUPS,
+        (double) scanNanos / Math.max(1, registryNanos)));
+  }
+
+  private static int scanWaitingRoomNumber(List<Room> rooms, Map<Integer, int[]> roomKey) {
+    for (Room room : rooms) {
+      if (room.getRoomType().contains("waiting")) {
+        for (Map.Entry<Integer, int[]> entry : roomKey.entrySet()) {
+          if (room.getId() == entry.getValue()) {
+            return entry.getKey();
+          }
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static int scanRoomNumber(Room room, Map<Integer, int[]> roomKey) {
+    int roomNum = 0;
+    for (Map.Entry<Integer, int[]> entry : roomKey.entrySet()) {
+      if (Arrays.equals(room.getId(), entry.getValue())) {
+        roomNum = entry.getKey();
+      }
+    }
+    return roomNum;
+  }
+
+  private static void scanFreeRoom(int roomNum, List<Room> rooms, Map<Integer, int[]> roomKey) {
+    int[] currentRoomId = new int[4];
+    for (Map.Entry<Integer, int[]> entry : roomKey.entrySet()) {
+      if (roomNum == entry.getKey()) {
+        currentRoomId = entry.getValue();
+      }
+    }
+    for (Room room : rooms) {
+      if (Arrays.equals(room.getId(), currentRoomId)) {
+        room.setStatus(false);
+      }
+    }
+  }
+}
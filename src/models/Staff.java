@@ -14,6 +14,7 @@ public class Staff {
   private String lastName;
   private boolean clinicalStaffStatus = false;
   private List<Client> staffKey = new ArrayList<>();
+  private long entityId;
 
   /**
    * constructor takes in the occupation, first name, and last name of the staff member.
@@ -39,6 +40,29 @@ public class Staff {
     }
   }
 
+  /**
+   * This is a getter for the numeric id of the staff member. The id is given out by the clinic the
+   * first time the staff member is added to it, and it never changes after that.
+   * @return the id of the staff member, or 0 if it hasn't been added to a clinic.
+   */
+  
+  public long getEntityId() {
+    return entityId;
+  }
+
+  /**
+   * This sets the numeric id of the staff member. It can only be set once.
+   * @param entityId is the id of the staff member.
+   * @throws IllegalStateException if the staff member already has a different id.
+   */
+  
+  void setEntityId(long entityId) {
+    if (this.entityId != 0 && this.entityId != entityId) {
+      throw new IllegalStateException("The staff member already has the id " + this.entityId);
+    }
+    this.entityId = entityId;
+  }
+
   /**
    * Retrieves the number of patients associated with the staff member.
    *
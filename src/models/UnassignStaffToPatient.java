@@ -4,9 +4,7 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map.Entry;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -65,41 +63,35 @@ public class UnassignStaffToPatient extends JFrame {
 
   private void unassignPatient() {
     // Create a dialog for user input
-    String dischargeFirstName = (String) JOptionPane.showInputDialog(UnassignStaffToPatient.this,
-        "Please select a patient:", "Discharge Patient", JOptionPane.PLAIN_MESSAGE, null,
-        getClinicClientNames().toArray(), null);
-
-    if (dischargeFirstName == null) {
-      return; // User canceled the operation
-    }
-    // Find the selected patient
-    Client patient = findClientByName(dischargeFirstName);
+    Client patient = PersonPicker.clients(clinic).showDialog(UnassignStaffToPatient.this,
+        "Please select a patient:", "Discharge Patient");
 
     if (patient == null) {
-      JOptionPane.showMessageDialog(UnassignStaffToPatient.this,
-          "Patient doesn't exist. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
 
     // Create a dialog for user input
-    if (getPatientStaffs(patient).size() < 1) {
+    List<Staff> patientStaff = clinic.getAssignments().staffOf(patient);
+    if (patientStaff.size() < 1) {
       JOptionPane.showMessageDialog(UnassignStaffToPatient.this,
           patient.getFirstName() + " " + patient.getLastName()
               + " has no clinical staff members assigned to him.",
           "Unassignment Unsuccessful", JOptionPane.INFORMATION_MESSAGE);
       dispose();
     } else {
-      String disChargeStaffFirstName = (String) JOptionPane.showInputDialog(
+      Staff staffApproval = PersonPicker.staff(patientStaff).showDialog(
           UnassignStaffToPatient.this,
           "Here is the list of staff members assigned to: " + patient.getFirstName() + " "
               + patient.getLastName(),
-          "Discharge Patient", JOptionPane.PLAIN_MESSAGE, null, getPatientStaffs(patient).toArray(),
-          null);
+          "Discharge Patient");
 
-      // Find the selected staff member
-      Staff staffApproval = findStaffByName(disChargeStaffFirstName);
+      if (staffApproval == null) {
+        return; // User canceled the operation
+      }
+      String disChargeStaffFirstName = staffApproval.getFirstName() + " "
+          + staffApproval.getLastName();
 
-      if (staffApproval == null || !staffApproval.getFirstName().contains("Dr.")) {
+      if (!staffApproval.getFirstName().contains("Dr.")) {
         JOptionPane.showMessageDialog(UnassignStaffToPatient.this,
             "Staff doesn't exist or is not approved to discharge patients. Please try again.",
             "Error", JOptionPane.ERROR_MESSAGE);
@@ -128,51 +120,4 @@ public class UnassignStaffToPatient extends JFrame {
       }
     }
   }
-
-  private List<String> getClinicClientNames() {
-    List<String> names = new ArrayList<>();
-    // Replace this with your actual logic to get client names
-    // For now, returning a placeholder list
-    for (Client client : clinic.getClinicClients()) {
-      names.add(client.getFirstName() + " " + client.getLastName());
-    }
-    return names;
-  }
-
-  private Client findClientByName(String firstName) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
-  }
-
-  private List<String> getPatientStaffs(Client client) {
-    List<String> docs = new ArrayList<>();
-    for (Entry<Staff, ArrayList<Client>> entry : clinic.getStaffKey().entrySet()) {
-      for (int i = 0; i < entry.getValue().size(); i++) {
-        String staffAssigned = "";
-        if (entry.getValue().contains(client)) {
-          staffAssigned = entry.getKey().getFirstName() + " " + entry.getKey().getLastName();
-          docs.add(staffAssigned);
-        }
-      }
-    }
-    return docs;
-    // Replace this with your actual logic to get staff names
-    // For now, returning a placeholder list
-  }
-
-  private Staff findStaffByName(String firstName) {
-    for (Staff staff : clinic.getClinicStaffs()) {
-      String name = staff.getFirstName() + " " + staff.getLastName();
-      if (name.contains(firstName)) {
-        return staff;
-      }
-    }
-    return null;
-  }
-
 }
@@ -4,8 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.ArrayList;
-import java.util.List;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -63,20 +61,11 @@ public class ViewPatientInformation extends JFrame {
 
   private void findPatient() {
     // Create a dialog for user input
-    String patientName = (String) JOptionPane.showInputDialog(ViewPatientInformation.this,
-        "Please select the patient:", "Patient", JOptionPane.PLAIN_MESSAGE, null,
-        getClinicClientNames().toArray(), null);
-
-    if (patientName == null) {
-      return; // User canceled the operation
-    }
-    // Find the selected patient
-    Client patient = findClientByName(patientName);
+    Client patient = PersonPicker.clients(clinic).showDialog(ViewPatientInformation.this,
+        "Please select the patient:", "Patient");
 
     if (patient == null) {
-      JOptionPane.showMessageDialog(ViewPatientInformation.this,
-          "Patient doesn't exist. Please try again.", "Error", JOptionPane.ERROR_MESSAGE);
-      return;
+      return; // User canceled the operation
     }
 
     JOptionPane.showMessageDialog(ViewPatientInformation.this,
@@ -100,24 +89,4 @@ public class ViewPatientInformation extends JFrame {
     }
     return res;
   }
-
-  private List<String> getClinicClientNames() {
-    List<String> names = new ArrayList<>();
-    // Replace this with your actual logic to get client names
-    // For now, returning a placeholder list
-    for (Client client : clinic.getClinicClients()) {
-      names.add(client.getFirstName() + " " + client.getLastName());
-    }
-    return names;
-  }
-
-  private Client findClientByName(String firstName) {
-    for (Client client : clinic.getClinicClients()) {
-      String name = client.getFirstName() + " " + client.getLastName();
-      if (name.contains(firstName)) {
-        return client;
-      }
-    }
-    return null;
-  }
 }
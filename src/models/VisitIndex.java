@@ -0,0 +1,234 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * This class keeps the visit times of every client in the clinic sorted, so the yearly reports
+ * are ranges of a sorted map instead of reading every record of every client again.
+ *
+ * <p>Two maps are kept. The first has the time of the last visit of every client with at least two
+ * visits, which is what {@link Client#isFirstRecord365DaysGreater()} looks at. The second has the
+ * times of every other visit, which is what {@link Client#twoVisitInYear()} looks at. A client is
+ * updated in both maps whenever their record history changes.
+ *
+ * <p>The clients found by a report are returned in the order they came into the clinic, which is
+ * the same order the client list would give.
+ */
+public class VisitIndex {
+  /**
+   * The number of seconds in the 365 days the reports look back and forward.
+   */
+  public static final long YEAR = 365L * 24 * 60 * 60;
+
+  private final NavigableMap<Long, List<Entry>> lastVisits = new TreeMap<>();
+  private final NavigableMap<Long, List<Entry>> earlierVisits = new TreeMap<>();
+  private final Map<Client, Entry> entries = new IdentityHashMap<>();
+  private long nextSequence;
+  private long version;
+
+  /**
+   * This method adds the client to the index. It is called when the client comes into the clinic.
+   *
+   * @param client is the client to add.
+   */
+  public void add(Client client) {
+    Entry entry = entries.get(client);
+    if (entry != null) {
+      // The same client can be in the client list more than once
+      entry.count++;
+      return;
+    }
+    entry = new Entry(client, nextSequence++);
+    entries.put(client, entry);
+    version++;
+    client.setVisitIndex(this);
+    index(entry);
+  }
+
+  /**
+   * This method takes the client out of the index. Nothing happens if it isn't in the index.
+   *
+   * @param client is the client to remove.
+   */
+  public void remove(Client client) {
+    Entry entry = entries.get(client);
+    if (entry == null || --entry.count > 0) {
+      return;
+    }
+    entries.remove(client);
+    unindex(entry);
+    version++;
+    client.setVisitIndex(null);
+  }
+
+  /**
+   * This method reads the record history of the client again. The client calls it whenever its
+   * record history changes.
+   *
+   * @param client is the client whose record history changed.
+   */
+  public void update(Client client) {
+    Entry entry = entries.get(client);
+    if (entry != null) {
+      unindex(entry);
+      index(entry);
+      version++;
+    }
+  }
+
+  /**
+   * This method removes every client from the index.
+   */
+  public void clear() {
+    for (Client client : entries.keySet()) {
+      client.setVisitIndex(null);
+    }
+    lastVisits.clear();
+    earlierVisits.clear();
+    entries.clear();
+    version++;
+  }
+
+  /**
+   * This method finds the clients whose last visit is at least the given number of seconds away
+   * from now, in either direction. Only clients with at least two visits are counted.
+   *
+   * @param now is the time now, as a visit time.
+   * @param span is the number of seconds.
+   * @return the clients, in the order they came into the clinic.
+   */
+  public List<Client> lastVisitAtLeast(long now, long span) {
+    List<Entry> found = new ArrayList<>();
+    for (List<Entry> visits : lastVisits.headMap(now - span, true).values()) {
+      found.addAll(visits);
+    }
+    for (List<Entry> visits : lastVisits.tailMap(now + span, true).values()) {
+      found.addAll(visits);
+    }
+    return inOrder(found);
+  }
+
+  /**
+   * This method finds the clients who have a visit other than their last one that is less than
+   * the given number of seconds away from now, in either direction.
+   *
+   * @param now is the time now, as a visit time.
+   * @param span is the number of seconds.
+   * @return the clients, in the order they came into the clinic.
+   */
+  public List<Client> earlierVisitWithin(long now, long span) {
+    List<Entry> found = new ArrayList<>();
+    for (List<Entry> visits : earlierVisits.subMap(now - span, false, now + span, false)
+        .values()) {
+      found.addAll(visits);
+    }
+    return inOrder(found);
+  }
+
+  /**
+   * Retrieves the number of clients in the index.
+   *
+   * @return the number of clients.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Retrieves the version of the index, which changes whenever a client is added or removed, or
+   * their record history changes. The reports are the same for the same version and time.
+   *
+   * @return the version of the index.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  private void index(Entry entry) {
+    List<VisitRecord> history = entry.client.getRecordHistory();
+    if (history.size() < 2) {
+      entry.times = new long[0];
+      return;
+    }
+    // Records whose time can't be read are left out of the index
+    long[] times = new long[history.size()];
+    int count = 0;
+    for (int i = 0; i < history.size() - 1; i++) {
+      VisitRecord record = history.get(i);
+      if (record != null && record.hasVisitTime()) {
+        times[count++] = record.getVisitTime();
+      }
+    }
+    VisitRecord last = history.get(history.size() - 1);
+    entry.hasLast = last != null && last.hasVisitTime();
+    if (entry.hasLast) {
+      times[count++] = last.getVisitTime();
+    }
+    entry.times = Arrays.copyOf(times, count);
+    int earlier = entry.hasLast ? count - 1 : count;
+    for (int i = 0; i < earlier; i++) {
+      earlierVisits.computeIfAbsent(entry.times[i], k -> new ArrayList<>(1)).add(entry);
+    }
+    if (entry.hasLast) {
+      lastVisits.computeIfAbsent(entry.times[count - 1], k -> new ArrayList<>(1)).add(entry);
+    }
+  }
+
+  private void unindex(Entry entry) {
+    int earlier = entry.hasLast ? entry.times.length - 1 : entry.times.length;
+    for (int i = 0; i < earlier; i++) {
+      removeFrom(earlierVisits, entry.times[i], entry);
+    }
+    if (entry.hasLast) {
+      removeFrom(lastVisits, entry.times[entry.times.length - 1], entry);
+    }
+    entry.times = new long[0];
+    entry.hasLast = false;
+  }
+
+  private static void removeFrom(NavigableMap<Long, List<Entry>> map, long time, Entry entry) {
+    List<Entry> visits = map.get(time);
+    for (int i = 0; i < visits.size(); i++) {
+      if (visits.get(i) == entry) {
+        visits.remove(i);
+        break;
+      }
+    }
+    if (visits.isEmpty()) {
+      map.remove(time);
+    }
+  }
+
+  private static List<Client> inOrder(List<Entry> found) {
+    found.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+    List<Client> clients = new ArrayList<>(found.size());
+    Entry previous = null;
+    for (Entry entry : found) {
+      // A client with a few visits in the range is only returned once
+      if (entry != previous) {
+        clients.add(entry.client);
+      }
+      previous = entry;
+    }
+    return clients;
+  }
+
+  private static final class Entry {
+    private final Client client;
+    private final long sequence;
+    private int count = 1;
+    private long[] times = new long[0];
+    private boolean hasLast;
+
+    private Entry(Client client, long sequence) {
+      this.client = client;
+      this.sequence = sequence;
+    }
+  }
+}
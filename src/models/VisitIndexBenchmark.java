@@ -0,0 +1,113 @@
+package models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The purpose of this class is to compare the yearly reports found through the visit index with
+ * the scans the clinic used before, which made a new formatter and read every record again for
+ * every client. A clinic of 100,000 clients with up to four visits each over the last four years
+ * is built, and both reports are timed both ways.
+ */
+public class VisitIndexBenchmark {
+  private static final int CLIENTS = 100_000;
+  private static final int RUNS = 5;
+
+  /**
+   * The main function builds the clinic and prints the time of each report.
+   *
+   * @param args isn't used for the benchmark.
+   */
+  public static void main(String[] args) {
+    Random random = new Random(42);
+    LocalDateTime now = LocalDateTime.now();
+    List<Client> clients = new ArrayList<>(CLIENTS);
+    VisitIndex index = new VisitIndex();
+    for (int i = 0; i < CLIENTS; i++) {
+      Client client = new Client(1, "First" + i, "Last" + i, "1/1/1990");
+      int visits = 1 + random.nextInt(4);
+      for (int j = 0; j < visits; j++) {
+        LocalDateTime time = now.minusMinutes(random.nextInt(4 * 365 * 24 * 60));
+        client.getRecordHistory().add(new VisitRecord(time.format(VisitRecord.TIME_FORMAT),
+            "Checkup", BigDecimal.ONE));
+      }
+      clients.add(client);
+      index.add(client);
+    }
+    System.out.println(String.format("%d clients", CLIENTS));
+    System.out.println(String.format("%22s %12s %12s %10s", "report", "scan ms", "index ms",
+        "speedup"));
+
+    long sink = 0;
+    long scanNanos = Long.MAX_VALUE;
+    long indexNanos = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (Client client : clients) {
+        sink += scanNotSeenInAYear(client) ? 1 : 0;
+      }
+      scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      sink += index.lastVisitAtLeast(VisitRecord.toVisitTime(LocalDateTime.now()),
+          VisitIndex.YEAR).size();
+      indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+    }
+    printRow("not seen in a year", scanNanos, indexNanos);
+
+    scanNanos = Long.MAX_VALUE;
+    indexNanos = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      for (Client client : clients) {
+        sink += scanTwoVisitsInAYear(client) ? 1 : 0;
+      }
+      scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      sink += index.earlierVisitWithin(VisitRecord.toVisitTime(LocalDateTime.now()),
+          VisitIndex.YEAR).size();
+      indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+    }
+    printRow("two visits in a year", scanNanos, indexNanos);
+
+    // The sink keeps the JIT from removing the reports
+    System.out.println("checksum " + sink);
+  }
+
+  private static void printRow(String report, long scanNanos, long indexNanos) {
+    System.out.println(String.format("%22s %12.2f %12.2f %9.0fx", report, scanNanos / 1e6,
+        indexNanos / 1e6, (double) scanNanos / Math.max(1, indexNanos)));
+  }
+
+  private static boolean scanNotSeenInAYear(Client client) {
+    List<VisitRecord> history = client.getRecordHistory();
+    if (history.size() < 2) {
+      return false;
+    }
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy:HH:mm");
+    LocalDateTime last = LocalDateTime.parse(history.get(history.size() - 1)
+        .getTimeOfRegistration(), formatter);
+    return Math.abs(ChronoUnit.DAYS.between(last, LocalDateTime.now())) >= 365;
+  }
+
+  private static boolean scanTwoVisitsInAYear(Client client) {
+    List<VisitRecord> history = client.getRecordHistory();
+    if (history.size() < 2) {
+      return false;
+    }
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy:HH:mm");
+    for (int i = 0; i < history.size() - 1; i++) {
+      LocalDateTime time = LocalDateTime.parse(history.get(i).getTimeOfRegistration(), formatter);
+      if (Math.abs(ChronoUnit.DAYS.between(time, LocalDateTime.now())) < 365) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
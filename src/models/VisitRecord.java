@@ -2,13 +2,26 @@ package models;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Objects;
 /**
  * This class contains the information for the visit record of each client.
  */
 
 public class VisitRecord {
+  /**
+   * The format of the time of registration, such as "01/02/2023:10:30".
+   */
+  public static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern(
+      "MM/dd/yyyy:HH:mm");
+  // Marks a time of registration that isn't in the format above
+  private static final long NO_TIME = Long.MIN_VALUE;
+
   private String timeOfRegistration;
+  private long visitTime;
   private String chiefComplaint;
   private BigDecimal bodyTemp;
   
@@ -29,6 +42,7 @@ public class VisitRecord {
   public VisitRecord(String formattedDateTime, String chiefComplaint, BigDecimal bodyTemp) {
     super();
     this.timeOfRegistration = formattedDateTime;
+    this.visitTime = parseVisitTime(formattedDateTime);
     this.chiefComplaint = chiefComplaint;
     this.bodyTemp = bodyTemp;
   }
@@ -43,6 +57,57 @@ public class VisitRecord {
     return timeOfRegistration;
   }
 
+  /**
+   * Retrieves the time of registration as a number of seconds, so it can be compared without
+   * reading the string again. The time is read once, when it is set. It is counted from 1970 as if
+   * the clinic's clock was in UTC, so two times can be subtracted to get the seconds between them.
+   *
+   * @return The time of registration in seconds.
+   * @throws DateTimeParseException if the time of registration isn't in the format of
+   *         {@link #TIME_FORMAT}.
+   */
+  
+  public long getVisitTime() {
+    if (visitTime == NO_TIME) {
+      // Reading the string again gives the same error the old comparisons gave
+      LocalDateTime.parse(String.valueOf(timeOfRegistration), TIME_FORMAT);
+    }
+    return visitTime;
+  }
+
+  /**
+   * Checks if the time of registration could be read, which means {@link #getVisitTime()} can be
+   * used.
+   *
+   * @return true if the time of registration is in the format of {@link #TIME_FORMAT}.
+   */
+  
+  public boolean hasVisitTime() {
+    return visitTime != NO_TIME;
+  }
+
+  /**
+   * Turns a date and time into the seconds that {@link #getVisitTime()} uses.
+   *
+   * @param dateTime is the date and time.
+   * @return the date and time in seconds.
+   */
+  
+  public static long toVisitTime(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static long parseVisitTime(String time) {
+    if (time == null) {
+      return NO_TIME;
+    }
+    try {
+      return toVisitTime(LocalDateTime.parse(time, TIME_FORMAT));
+    } catch (DateTimeParseException e) {
+      return NO_TIME;
+    }
+  }
+
   /**
    * Retrieves the chief complaint associated with a record.
    *
@@ -64,6 +129,16 @@ public class VisitRecord {
     return bodyTemp.setScale(2, RoundingMode.HALF_UP);
   }
 
+  /**
+   * Retrieves the body temperature exactly as it was recorded, without any rounding.
+   *
+   * @return The body temperature as a BigDecimal.
+   */
+  
+  public BigDecimal getBodyTempExact() {
+    return bodyTemp;
+  }
+
   /**
    * Sets the time of registration for a record.
    *
@@ -72,6 +147,7 @@ public class VisitRecord {
   
   public void setTimeOfRegistration(String timeOfRegistration) {
     this.timeOfRegistration = timeOfRegistration;
+    this.visitTime = parseVisitTime(timeOfRegistration);
   }
 
   /**
@@ -0,0 +1,71 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import models.BloomFilter;
+import models.Client;
+import models.Clinic;
+import models.Registration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that returning patients are found in the clinic archives from their name and
+ * birthday.
+ */
+class TestArchiveIndex {
+  private Clinic clinic;
+  private Client phil;
+
+  /**
+   * This registers and discharges a patient before each test, so they are only in the archives.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"), null);
+    clinic.getClinicClients().remove(phil);
+  }
+
+  @Test
+  void testReturningPatientIsFoundByNameAndBirthday() {
+    assertSame(phil, clinic.findArchivedClient("Phil", "Askander", "01/06/2001"));
+    assertSame(phil, clinic.findArchivedClient(" phil ", "ASKANDER", "1/6/2001"));
+    assertNull(clinic.findArchivedClient("Phil", "Askander", "02/06/2001"));
+    assertNull(clinic.findArchivedClient("Phillip", "Askander", "01/06/2001"));
+  }
+
+  @Test
+  void testArchivesChangedDirectlyAreIndexed() {
+    Client michael = new Client(1, "Michael", "Jordan", "2/17/1963");
+    clinic.getClinicArchives().addAll(Arrays.asList(michael));
+    assertSame(michael, clinic.findArchivedClient("Michael", "Jordan", "02/17/1963"));
+
+    clinic.getClinicArchives().remove(phil);
+    assertNull(clinic.findArchivedClient("Phil", "Askander", "01/06/2001"));
+    clinic.getClinicArchives().clear();
+    assertNull(clinic.findArchivedClient("Michael", "Jordan", "2/17/1963"));
+  }
+
+  @Test
+  void testBloomFilterHasNoFalseNegatives() {
+    BloomFilter filter = new BloomFilter(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("patient" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("patient" + i));
+      if (filter.mightContain("stranger" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    assertFalse(filter.isFull());
+  }
+}
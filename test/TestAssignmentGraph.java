@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import models.Client;
+import models.Clinic;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that staff members and clients see the same assignments from both sides.
+ */
+class TestAssignmentGraph {
+  private Clinic clinic;
+  private Staff phil;
+  private Staff amy;
+  private Client michael;
+  private Client scotty;
+
+  /**
+   * This adds two staff members and two clients to a new clinic before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    phil = new Staff("physician", "Phil", "Askander");
+    amy = new Staff("nurse", "Amy", "Anguish");
+    clinic.addClinicStaff(phil);
+    clinic.addClinicStaff(amy);
+    michael = clinic.addClinicClient(new Client(1, "Michael", "Jordan", "2/17/1963"));
+    scotty = clinic.addClinicClient(new Client(1, "Scotty", "Pippen", "9/25/1965"));
+  }
+
+  @Test
+  void testAssignmentsAreSeenFromBothSides() {
+    assertTrue(clinic.assignStaffToClient(phil, michael));
+    assertTrue(clinic.assignStaffToClient(phil, scotty));
+    assertTrue(clinic.assignStaffToClient(amy, michael));
+    assertFalse(clinic.assignStaffToClient(phil, michael));
+
+    assertEquals(Arrays.asList(michael, scotty), clinic.getAssignments().clientsOf(phil));
+    assertEquals(Arrays.asList(phil, amy), clinic.getAssignments().staffOf(michael));
+    assertEquals(Arrays.asList(phil, amy), michael.getAssignedStaff());
+    assertEquals(Arrays.asList(michael, scotty), clinic.getStaffKey().get(phil));
+  }
+
+  @Test
+  void testRemovingAClientRemovesAllOfTheirStaff() {
+    clinic.assignStaffToClient(phil, michael);
+    clinic.assignStaffToClient(amy, michael);
+    clinic.removeAllStaffFromClient(michael);
+
+    assertEquals(0, michael.getAssignedStaff().size());
+    assertEquals(0, clinic.getStaffKey().get(phil).size());
+    assertEquals(0, clinic.getStaffKey().get(amy).size());
+  }
+
+  @Test
+  void testRemovingAStaffMemberUnassignsTheirClients() {
+    clinic.assignStaffToClient(phil, michael);
+    clinic.removeClinicStaff(phil);
+
+    assertFalse(clinic.getStaffKey().containsKey(phil));
+    assertEquals(0, clinic.getAssignments().staffOf(michael).size());
+    assertFalse(michael.getAssignedStaff().contains(phil));
+  }
+
+  @Test
+  void testPatientsEverAreCountedOnce() {
+    clinic.assignStaffToClient(phil, michael);
+    clinic.removeStaffFromClient(phil, michael);
+    clinic.assignStaffToClient(phil, michael);
+    clinic.assignStaffToClient(phil, scotty);
+
+    assertEquals(2, phil.getNumPatients());
+    clinic.removeStaffFromClient(phil, michael);
+    assertEquals(2, phil.getNumPatients());
+  }
+}
@@ -0,0 +1,105 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import models.Client;
+import models.Clinic;
+import models.ClinicCommand;
+import models.ClinicCommandQueue;
+import models.Registration;
+import models.Room;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the command queue applies commands in batches, in the order they were
+ * submitted, and gives back what each command returned or threw.
+ */
+class TestClinicCommandQueue {
+  private Clinic clinic;
+  private Queue<Runnable> writer;
+  private ClinicCommandQueue queue;
+  private List<Integer> batches;
+
+  /**
+   * This loads the clinic file before each test. The writer is a queue the test runs itself.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    writer = new ArrayDeque<>();
+    queue = new ClinicCommandQueue(clinic, writer::add);
+    batches = new ArrayList<>();
+    queue.setListener((commands, waitNanos, applyNanos) -> batches.add(commands));
+  }
+
+  private void runWriter() {
+    while (!writer.isEmpty()) {
+      writer.poll().run();
+    }
+  }
+
+  @Test
+  void testCommandsAreAppliedInOneBatch() throws Exception {
+    Room room = clinic.addClinicRoom(new Room(new int[] {40, 40, 42, 42}, "exam", "Middle"));
+    Staff nurse = new Staff("nurse", "Queue", "Test");
+    clinic.addClinicStaff(nurse);
+    int clients = clinic.getClinicClients().size();
+
+    CompletableFuture<Client> registered = queue.submit(ClinicCommand.register(
+        new Registration("Queued", "Patient", "1/1/1990"), null));
+    CompletableFuture<Integer> moved = registered.thenCompose(
+        client -> queue.submit(ClinicCommand.move(client, room)));
+    CompletableFuture<Integer> count = queue.submit(c -> c.getClinicClients().size());
+    // Nothing happens until the writer runs, and only one run is waiting for all of them
+    assertEquals(1, writer.size());
+    assertFalse(registered.isDone());
+
+    runWriter();
+    Client client = registered.get();
+    assertSame(client, clinic.findClient("Queued", "Patient"));
+    assertEquals(clients + 1, count.get().intValue());
+    assertEquals(clinic.getRoomNumber(room), moved.get().intValue());
+    assertEquals(clinic.getRoomNumber(room), client.getRoomNum());
+    assertFalse(queue.submit(ClinicCommand.assignStaff(nurse, client)).isDone());
+    runWriter();
+    assertTrue(client.getAssignedStaff().contains(nurse));
+
+    // The move was submitted while the first batch ran, so it came in the next batch
+    assertEquals(List.of(2, 1, 1), batches);
+    assertEquals(4, queue.getApplied());
+    assertEquals(2, queue.getLargestBatch());
+  }
+
+  @Test
+  void testFailedCommandDoesNotStopTheBatch() throws Exception {
+    Room room = clinic.getClinicRooms().get(1);
+    Client client = clinic.getClinicClients().get(0);
+    CompletableFuture<Integer> full = queue.submit(ClinicCommand.move(client, room));
+    CompletableFuture<String> after = queue.submit(c -> c.getName());
+    runWriter();
+
+    ExecutionException e = assertThrows(ExecutionException.class, full::get);
+    assertTrue(e.getCause() instanceof IllegalArgumentException);
+    assertEquals("Room is occupied", e.getCause().getMessage());
+    assertEquals(clinic.getName(), after.get());
+    assertEquals(List.of(2), batches);
+
+    queue.close();
+    assertThrows(IllegalStateException.class, () -> queue.submit(c -> null));
+  }
+}
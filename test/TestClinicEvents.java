@@ -0,0 +1,103 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import models.Client;
+import models.Clinic;
+import models.ClinicEvent;
+import models.Room;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the clinic tells its listeners about its changes, and that the changes
+ * made before the listeners run are sent together.
+ */
+class TestClinicEvents {
+  private Clinic clinic;
+  private List<Runnable> tasks;
+  private List<List<ClinicEvent>> batches;
+
+  /**
+   * This loads the clinic file before each test, and listens to the clinic with a dispatcher that
+   * only runs when the test says so.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    tasks = new ArrayList<>();
+    batches = new ArrayList<>();
+    clinic.getEvents().setDispatcher(tasks::add);
+    clinic.getEvents().addListener(batches::add);
+  }
+
+  private void dispatch() {
+    for (Runnable task : new ArrayList<>(tasks)) {
+      task.run();
+    }
+    tasks.clear();
+  }
+
+  @Test
+  void testChangesAreSentTogether() {
+    Client client = clinic.getClinicClients().get(0);
+    int from = client.getRoomNum();
+    Room middle = clinic.addClinicRoom(new Room(new int[] {40, 40, 42, 42}, "exam", "Middle"));
+    Room last = clinic.addClinicRoom(new Room(new int[] {44, 40, 46, 42}, "exam", "Last"));
+    dispatch();
+    batches.clear();
+    clinic.assignClientToNewRoom(client, middle);
+    clinic.assignClientToNewRoom(client, last);
+    Staff staff = clinic.getClinicStaffs().get(0);
+    clinic.assignStaffToClient(staff, client);
+
+    assertEquals(1, tasks.size());
+    dispatch();
+    assertEquals(1, batches.size());
+    List<ClinicEvent> events = batches.get(0);
+    assertEquals(2, events.size());
+
+    // Both moves of the client are one event, with every room the client was in
+    ClinicEvent moved = events.get(0);
+    assertEquals(ClinicEvent.Type.CLIENT_MOVED, moved.getType());
+    assertSame(client, moved.getClient());
+    assertArrayEquals(new int[] {from, clinic.getRoomNumber(middle), clinic.getRoomNumber(last)},
+        moved.getRoomNumbers());
+
+    ClinicEvent assigned = events.get(1);
+    assertEquals(ClinicEvent.Type.STAFF_ASSIGNED, assigned.getType());
+    assertSame(staff, assigned.getStaff());
+    assertArrayEquals(new int[] {clinic.getRoomNumber(last)}, assigned.getRoomNumbers());
+  }
+
+  @Test
+  void testClearingDropsWhatCameBefore() {
+    Client client = clinic.getClinicClients().get(0);
+    clinic.assignClientToNewRoom(client, clinic.getClinicRooms().get(2));
+    clinic.clear();
+    Room room = clinic.addClinicRoom(new Room(new int[] {1, 1, 2, 2}, "exam", "New Room"));
+    dispatch();
+
+    List<ClinicEvent> events = batches.get(0);
+    assertEquals(2, events.size());
+    assertEquals(ClinicEvent.Type.CLINIC_CLEARED, events.get(0).getType());
+    assertEquals(ClinicEvent.Type.ROOM_ADDED, events.get(1).getType());
+    assertSame(room, events.get(1).getRoom());
+    assertTrue(events.get(1).changesRooms());
+
+    // Nothing is held for a clinic nobody listens to
+    Clinic quiet = new Clinic("Quiet");
+    quiet.getEvents().setDispatcher(tasks::add);
+    quiet.addClinicRoom(new Room(new int[] {1, 1, 2, 2}, "exam", "New Room"));
+    assertTrue(tasks.isEmpty());
+  }
+}
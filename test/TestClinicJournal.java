@@ -0,0 +1,309 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import models.Client;
+import models.Clinic;
+import models.ClinicJournal;
+import models.ClinicSnapshot;
+import models.RegisterPatient;
+import models.Registration;
+import models.Room;
+import models.Staff;
+import models.VisitRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the changes recorded in the journal rebuild the same clinic.
+ */
+class TestClinicJournal {
+  private Clinic clinic;
+  private ClinicJournal journal;
+  private Path path;
+
+  /**
+   * This loads the clinic file and attaches a new journal before each test.
+   */
+
+  @BeforeEach
+  void setUp() throws IOException {
+    clinic = loadClinic();
+    path = Files.createTempFile("clinic", ClinicJournal.EXTENSION);
+    journal = new ClinicJournal(path);
+    clinic.setJournal(journal);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    journal.close();
+    Files.deleteIfExists(path);
+  }
+
+  private Clinic loadClinic() {
+    Clinic loaded = new Clinic("Test");
+    loaded.readDataFromFile(new File("clinic-2.txt"));
+    return loaded;
+  }
+
+  private Clinic replayed() throws IOException {
+    journal.flush();
+    Clinic restored = loadClinic();
+    ClinicJournal.replay(restored, path);
+    return restored;
+  }
+
+  @Test
+  void testRegistrationsAndMovesAreReplayed() throws IOException {
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        null);
+    clinic.recordVisit(phil, new VisitRecord("01/02/2023:10:30", "Fever",
+        new BigDecimal("37.5")));
+    Room exam = new Room(new int[] {1, 2, 3, 4}, "exam", "Exam_2");
+    clinic.addClinicRoom(exam);
+    clinic.assignClientToNewRoom(phil, exam);
+
+    Clinic restored = replayed();
+    Client restoredPhil = restored.getClinicClients().get(restored.getClinicClients().size() - 1);
+    assertEquals("Phil", restoredPhil.getFirstName());
+    assertEquals(phil.getRoomNum(), restoredPhil.getRoomNum());
+    assertEquals("Fever", restoredPhil.getRecord().getChiefComplaint());
+    assertEquals(1, restoredPhil.getRecordHistory().size());
+    assertEquals(clinic.displayAllInfo(), restored.displayAllInfo());
+  }
+
+  @Test
+  void testRegistrationWindowJournalsOneVisit() throws IOException {
+    String now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd/yyyy:HH:mm"));
+    Client phil = RegisterPatient.register(clinic, "Phil", "Askander", "01/06/2001",
+        new VisitRecord(now, "Fever", new BigDecimal("37.5")));
+    assertEquals(1, phil.getRecordHistory().size());
+
+    Clinic restored = replayed();
+    Client restoredPhil = restored.getClinicClients().get(restored.getClinicClients().size() - 1);
+    assertEquals("Phil", restoredPhil.getFirstName());
+    assertEquals(1, restoredPhil.getRecordHistory().size());
+    assertFalse(restored.isPatientOneYearIn().contains("Phil Askander"));
+    assertEquals(clinic.isPatientOneYearIn(), restored.isPatientOneYearIn());
+  }
+
+  @Test
+  void testAssignmentsAndRemovalsAreReplayed() throws IOException {
+    Staff amy = clinic.getClinicStaffs().get(0);
+    Staff benny = clinic.getClinicStaffs().get(1);
+    Client aandi = clinic.getClinicClients().get(0);
+    Client beth = clinic.getClinicClients().get(1);
+    clinic.assignStaffToClient(amy, aandi);
+    clinic.assignStaffToClient(amy, beth);
+    clinic.removeStaffFromClient(amy, aandi);
+    clinic.removeClinicClient(beth, benny);
+    clinic.removeClinicStaff(clinic.getClinicStaffs().get(4));
+
+    Clinic restored = replayed();
+    assertEquals(clinic.getClinicClients(), restored.getClinicClients());
+    assertEquals(clinic.getClinicStaffs(), restored.getClinicStaffs());
+    assertEquals(clinic.getStaffKey(), restored.getStaffKey());
+    assertEquals(2, restored.getClinicStaffs().get(0).getNumPatients());
+  }
+
+  @Test
+  void testStaffIsReplayedByTheirId() throws IOException {
+    Staff phil = new Staff("nurse", "Phil", "Askander");
+    clinic.addClinicStaff(phil);
+    clinic.assignStaffToClient(phil, clinic.getClinicClients().get(0));
+
+    Clinic restored = replayed();
+    Staff restoredPhil = restored.getStaffById(phil.getEntityId());
+    assertEquals(phil, restoredPhil);
+    assertEquals(1, restoredPhil.getNumPatients());
+  }
+
+  @Test
+  void testStaffTheClinicDoesNotHaveIsRefused() throws IOException {
+    Staff phil = new Staff("nurse", "Phil", "Askander");
+    clinic.setJournal(null);
+    clinic.addClinicStaff(phil);
+    clinic.setJournal(journal);
+    clinic.assignStaffToClient(phil, clinic.getClinicClients().get(0));
+    journal.flush();
+
+    assertThrows(IOException.class, () -> ClinicJournal.replay(loadClinic(), path));
+    assertThrows(IllegalArgumentException.class, () -> clinic.assignStaffToClient(
+        new Staff("nurse", "Gina", "Gauze"), clinic.getClinicClients().get(0)));
+  }
+
+  @Test
+  void testTornRecordIsCutOff() throws IOException {
+    clinic.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+    journal.flush();
+    long complete = Files.size(path);
+    Files.write(path, new byte[] {0, 0, 0, 40, 3, 1}, StandardOpenOption.APPEND);
+
+    Clinic restored = loadClinic();
+    assertEquals(1, ClinicJournal.replay(restored, path));
+    assertEquals(complete, Files.size(path));
+    assertTrue(restored.getClinicStaffs().contains(new Staff("nurse", "Phil", "Askander")));
+  }
+
+  @Test
+  void testReplayIsNotJournaledAgain() throws IOException {
+    clinic.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+    journal.flush();
+    long size = Files.size(path);
+
+    ClinicJournal.replay(clinic, path);
+    journal.flush();
+    assertEquals(size, Files.size(path));
+    assertSame(journal, clinic.getJournal());
+  }
+
+  @Test
+  void testReplayAfterCheckpointOnlyAppliesTheTail() throws IOException {
+    Path dir = Files.createTempDirectory("clinic");
+    File file = dir.resolve("clinic-2.txt").toFile();
+    Files.copy(new File("clinic-2.txt").toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    Clinic saved = new Clinic("Test");
+    ClinicJournal savedJournal = ClinicJournal.recover(saved, file);
+    try {
+      saved.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+      savedJournal.setCheckpointSize(1);
+      assertTrue(savedJournal.isCheckpointDue());
+      saved.checkpointIfDue();
+      savedJournal.flush();
+      assertEquals(ClinicJournal.HEADER_SIZE, Files.size(savedJournal.getPath()));
+      saved.addClinicStaff(new Staff("nurse", "Gina", "Gauze"));
+      savedJournal.flush();
+
+      Clinic restored = new Clinic("Test");
+      ClinicSnapshot.read(restored, dir.resolve("clinic-2.txt" + ClinicSnapshot.EXTENSION));
+      assertTrue(restored.getClinicStaffs().contains(new Staff("nurse", "Phil", "Askander")));
+      assertEquals(1, ClinicJournal.replay(restored, savedJournal.getPath()));
+      assertEquals(saved.getClinicStaffs(), restored.getClinicStaffs());
+    } finally {
+      savedJournal.close();
+    }
+  }
+
+  @Test
+  void testChangesLoggedWhileACheckpointIsWrittenAreKept() throws IOException {
+    Path dir = Files.createTempDirectory("clinic");
+    File file = dir.resolve("clinic-2.txt").toFile();
+    Files.copy(new File("clinic-2.txt").toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    Clinic saved = new Clinic("Test");
+    ClinicJournal savedJournal = ClinicJournal.recover(saved, file);
+    try {
+      savedJournal.setCheckpointSize(1);
+      saved.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+      // The checkpoint is only queued, so the next change is logged before it is written
+      saved.checkpointIfDue();
+      saved.addClinicStaff(new Staff("nurse", "Gina", "Gauze"));
+      savedJournal.close();
+
+      Clinic restored = new Clinic("Test");
+      ClinicJournal restoredJournal = ClinicJournal.recover(restored, file);
+      restoredJournal.close();
+      assertEquals(saved.getClinicStaffs(), restored.getClinicStaffs());
+    } finally {
+      savedJournal.close();
+    }
+  }
+
+  @Test
+  void testJournalLeftBehindByACheckpointIsNotReplayedAgain() throws IOException {
+    Path dir = Files.createTempDirectory("clinic");
+    File file = dir.resolve("clinic-2.txt").toFile();
+    Files.copy(new File("clinic-2.txt").toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    Clinic saved = new Clinic("Test");
+    ClinicJournal savedJournal = ClinicJournal.recover(saved, file);
+    Path journalPath = savedJournal.getPath();
+    try {
+      saved.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+      saved.registerClient(new Registration("Gina", "Gauze", "01/02/1990"), null);
+      savedJournal.flush();
+      byte[] beforeCheckpoint = Files.readAllBytes(journalPath);
+      savedJournal.setCheckpointSize(1);
+      saved.checkpointIfDue();
+      savedJournal.close();
+
+      // The program stopped after the snapshot was written, but before the journal was emptied
+      Files.write(journalPath, beforeCheckpoint);
+      Clinic restored = new Clinic("Test");
+      ClinicJournal restoredJournal = ClinicJournal.recover(restored, file);
+      try {
+        assertEquals(saved.getClinicStaffs(), restored.getClinicStaffs());
+        assertEquals(saved.getClinicClients(), restored.getClinicClients());
+        restoredJournal.flush();
+        assertEquals(ClinicJournal.HEADER_SIZE, Files.size(journalPath));
+      } finally {
+        restoredJournal.close();
+      }
+    } finally {
+      savedJournal.close();
+    }
+  }
+
+  @Test
+  void testJournalOfAnotherVersionIsRefused() throws IOException {
+    clinic.addClinicStaff(new Staff("nurse", "Phil", "Askander"));
+    journal.flush();
+    byte[] bytes = Files.readAllBytes(path);
+    Path other = Files.createTempFile("clinic", ClinicJournal.EXTENSION);
+    try {
+      // The same journal with the version after this one
+      bytes[5]++;
+      Files.write(other, bytes);
+      assertThrows(IOException.class, () -> ClinicJournal.replay(loadClinic(), other));
+      assertThrows(IOException.class, () -> new ClinicJournal(other));
+
+      // A journal from before journals had a header starts right with its first record
+      Files.write(other, Arrays.copyOfRange(bytes, ClinicJournal.HEADER_SIZE, bytes.length));
+      assertThrows(IOException.class, () -> ClinicJournal.replay(loadClinic(), other));
+      assertEquals(bytes.length - ClinicJournal.HEADER_SIZE, Files.size(other));
+    } finally {
+      Files.deleteIfExists(other);
+    }
+  }
+
+  @Test
+  void testChangesAreRefusedAfterTheJournalFails() throws IOException {
+    // Every write to /dev/full fails because the disk is full
+    Path full = Paths.get("/dev/full");
+    assumeTrue(Files.isWritable(full));
+    ClinicJournal failing = new ClinicJournal(full);
+    clinic.setJournal(failing);
+    // Not even the header of the journal can be written
+    assertThrows(IOException.class, failing::flush);
+
+    int staffs = clinic.getClinicStaffs().size();
+    int clients = clinic.getClinicClients().size();
+    assertThrows(IllegalStateException.class,
+        () -> clinic.addClinicStaff(new Staff("nurse", "Gina", "Gauze")));
+    assertThrows(IllegalStateException.class,
+        () -> clinic.registerClient(new Registration("Gina", "Gauze", "01/02/1990"), null));
+    assertEquals(staffs, clinic.getClinicStaffs().size());
+    assertEquals(clients, clinic.getClinicClients().size());
+    assertFalse(clinic.getClinicStaffs().contains(new Staff("nurse", "Gina", "Gauze")));
+    assertThrows(IOException.class, failing::close);
+    clinic.setJournal(journal);
+  }
+}
@@ -0,0 +1,121 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import models.Clinic;
+import models.ClinicFileLoader;
+import models.ClinicLoadTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that loading a clinic file in chunks gives the same clinic as reading it all at
+ * once, and that a load can be cancelled.
+ */
+class TestClinicLoadTask {
+  private Queue<Runnable> clinicThread;
+  private List<String> calls;
+  private long lastBytes;
+  private long lastSize;
+
+  /**
+   * The changes to the clinic are held in a queue, which the test runs like the event thread.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinicThread = new ArrayDeque<>();
+    calls = new ArrayList<>();
+  }
+
+  private ClinicLoadTask load(Clinic clinic, String fileName, Runnable onRooms) {
+    return new ClinicLoadTask(clinic, new File(fileName), clinicThread::add,
+        new ClinicLoadTask.Listener() {
+          @Override
+          public void progress(long bytesRead, long size, int records) {
+            lastBytes = bytesRead;
+            lastSize = size;
+          }
+
+          @Override
+          public void sectionLoaded(ClinicFileLoader.Section section) {
+            calls.add(section.name());
+            if (section == ClinicFileLoader.Section.ROOMS) {
+              onRooms.run();
+            }
+          }
+
+          @Override
+          public void finished() {
+            calls.add("finished");
+          }
+
+          @Override
+          public void failed(Exception e) {
+            calls.add("failed");
+          }
+
+          @Override
+          public void cancelled() {
+            calls.add("cancelled");
+          }
+        });
+  }
+
+  private void runClinicThread() {
+    while (!clinicThread.isEmpty()) {
+      clinicThread.poll().run();
+    }
+  }
+
+  @Test
+  void testChunksMakeTheSameClinic() {
+    Clinic expected = new Clinic("Test");
+    expected.readDataFromFile(new File("clinic-2.txt"));
+    Clinic clinic = new Clinic("Test");
+    ClinicLoadTask task = load(clinic, "clinic-2.txt", () -> {
+      // The rooms are in before the staff and the clients are
+      assertTrue(clinic.getClinicRooms().size() > 0);
+      assertEquals(0, clinic.getClinicClients().size());
+    });
+
+    task.parse();
+    // Nothing is in the clinic until the clinic thread runs
+    assertEquals(0, clinic.getClinicRooms().size());
+    runClinicThread();
+
+    assertEquals(List.of("ROOMS", "STAFF", "CLIENTS", "finished"), calls);
+    assertEquals(expected.getName(), clinic.getName());
+    assertEquals(expected.getClinicRooms(), clinic.getClinicRooms());
+    assertEquals(expected.getClinicStaffs(), clinic.getClinicStaffs());
+    assertEquals(expected.getClinicClients(), clinic.getClinicClients());
+    assertEquals(lastSize, lastBytes);
+  }
+
+  @Test
+  void testCancelledLoadLeavesAnEmptyClinic() {
+    Clinic clinic = new Clinic("Test");
+    ClinicLoadTask[] task = new ClinicLoadTask[1];
+    task[0] = load(clinic, "clinic-2.txt", () -> task[0].cancel());
+
+    // The whole file is read before the clinic thread runs, and the load is cancelled after that
+    task[0].parse();
+    runClinicThread();
+
+    assertEquals(List.of("ROOMS", "cancelled"), calls);
+    assertEquals(0, clinic.getClinicRooms().size());
+    assertEquals(0, clinic.getClinicClients().size());
+
+    // A file that isn't there fails the load
+    calls.clear();
+    load(new Clinic("Test"), "missing.txt", () -> { }).parse();
+    runClinicThread();
+    assertEquals(List.of("failed"), calls);
+  }
+}
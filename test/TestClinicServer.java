@@ -0,0 +1,118 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import models.Clinic;
+import models.ClinicCommandQueue;
+import models.ClinicConsoleController;
+import models.ClinicServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that terminals connected to the clinic server get the same answers as the
+ * console, and see the changes of each other.
+ */
+class TestClinicServer {
+  private Clinic clinic;
+  private ClinicCommandQueue queue;
+  private ClinicServer server;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() throws IOException {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    queue = new ClinicCommandQueue(clinic);
+    server = new ClinicServer(queue, 0);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.close();
+    queue.close();
+  }
+
+  @Test
+  void testSessionAnswersLikeTheConsole() throws Exception {
+    StringWriter console = new StringWriter();
+    queue.submit(c -> {
+      try {
+        new ClinicConsoleController(new StringReader(""), console).handleViewStaff(c);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return null;
+    }).join();
+
+    try (Socket socket = connect()) {
+      Reader in = reader(socket);
+      Writer out = writer(socket);
+      readUntilPrompt(in);
+      out.write("staff\n");
+      out.flush();
+      assertEquals(console + ClinicServer.PROMPT, readUntilPrompt(in));
+    }
+  }
+
+  @Test
+  void testSessionsSeeEachOthersMoves() throws Exception {
+    try (Socket first = connect(); Socket second = connect()) {
+      Reader firstIn = reader(first);
+      Writer firstOut = writer(first);
+      Reader secondIn = reader(second);
+      Writer secondOut = writer(second);
+      readUntilPrompt(firstIn);
+      readUntilPrompt(secondIn);
+
+      firstOut.write("move Doug Derm Inside no\n");
+      firstOut.flush();
+      assertTrue(readUntilPrompt(firstIn).contains("Doug Derm has successfully been reassigned"));
+
+      secondOut.write("room Inside no\n");
+      secondOut.flush();
+      assertTrue(readUntilPrompt(secondIn).contains("Derm"));
+    }
+    assertEquals(2, server.getCommands());
+  }
+
+  private Socket connect() throws IOException {
+    return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+  }
+
+  private static Reader reader(Socket socket) throws IOException {
+    return new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+  }
+
+  private static Writer writer(Socket socket) throws IOException {
+    return new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+  }
+
+  private static String readUntilPrompt(Reader in) throws IOException {
+    StringBuilder text = new StringBuilder();
+    while (!text.toString().endsWith(ClinicServer.PROMPT)) {
+      int c = in.read();
+      if (c < 0) {
+        break;
+      }
+      text.append((char) c);
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,108 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import models.Client;
+import models.Clinic;
+import models.ClinicSnapshot;
+import models.Registration;
+import models.Staff;
+import models.VisitRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a clinic survives being written to a snapshot and read back.
+ */
+class TestClinicSnapshot {
+  private Clinic clinic;
+  private Path path;
+
+  /**
+   * This loads the clinic file and makes a place for the snapshot before each test.
+   */
+
+  @BeforeEach
+  void setUp() throws IOException {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    path = Files.createTempFile("clinic", ClinicSnapshot.EXTENSION);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  private Clinic roundTrip() throws IOException {
+    ClinicSnapshot.write(clinic, path);
+    Clinic restored = new Clinic("Restored");
+    ClinicSnapshot.read(restored, path);
+    return restored;
+  }
+
+  @Test
+  void testRoomsStaffAndClientsAreRestored() throws IOException {
+    Clinic restored = roundTrip();
+    assertEquals(clinic.getName(), restored.getName());
+    assertEquals(clinic.getClinicRooms(), restored.getClinicRooms());
+    assertEquals(clinic.getClinicStaffs(), restored.getClinicStaffs());
+    assertEquals(clinic.getClinicClients(), restored.getClinicClients());
+    assertEquals(clinic.getWaitingRoomNumber(), restored.getWaitingRoomNumber());
+    assertEquals(clinic.displayAllInfo(), restored.displayAllInfo());
+  }
+
+  @Test
+  void testRecordsAndAssignmentsAreRestored() throws IOException {
+    Staff amy = clinic.getClinicStaffs().get(0);
+    VisitRecord record = new VisitRecord("01/02/2023:10:30", "Fever",
+        new BigDecimal("37.456789"));
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        record);
+    phil.setRecord(record);
+    phil.getRecordHistory().add(record);
+    clinic.assignStaffToClient(amy, phil);
+
+    Clinic restored = roundTrip();
+    Client restoredPhil = restored.getClinicClients().get(restored.getClinicClients().size() - 1);
+    Staff restoredAmy = restored.getClinicStaffs().get(0);
+
+    assertEquals("Dr. Amy", restoredAmy.getFirstName());
+    assertEquals(new BigDecimal("37.456789"), restoredPhil.getRecord().getBodyTempExact());
+    assertSame(restoredPhil.getRecord(), restoredPhil.getRecordHistory().get(0));
+    assertTrue(restored.getStaffKey().get(restoredAmy).contains(restoredPhil));
+    assertEquals(1, restoredAmy.getNumPatients());
+    assertSame(restoredPhil, restored.getClinicArchives().get(0));
+  }
+
+  @Test
+  void testDischargedClientsStayInTheArchives() throws IOException {
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        null);
+    clinic.removeClinicClient(phil, clinic.getClinicStaffs().get(0));
+
+    Clinic restored = roundTrip();
+    assertEquals(1, restored.getClinicArchives().size());
+    assertFalse(restored.getClinicArchives().get(0).isActive());
+    assertFalse(restored.getClinicClients().contains(restored.getClinicArchives().get(0)));
+  }
+
+  @Test
+  void testCorruptSnapshotIsRejected() throws IOException {
+    ClinicSnapshot.write(clinic, path);
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[bytes.length / 2] ^= 0x55;
+    Files.write(path, bytes);
+    assertThrows(IOException.class, () -> ClinicSnapshot.read(new Clinic("Broken"), path));
+  }
+}
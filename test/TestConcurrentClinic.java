@@ -0,0 +1,179 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import models.Client;
+import models.Clinic;
+import models.ConcurrentClinic;
+import models.ReportSnapshot;
+import models.ReportWriter;
+import models.Room;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that many threads can move clients and assign staff through the concurrent
+ * clinic without breaking the clinic.
+ */
+class TestConcurrentClinic {
+  private static final int THREADS = 8;
+  private static final int ROOMS_PER_THREAD = 4;
+
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testMovesBetweenDifferentRooms() throws Exception {
+    List<Client> clients = new ArrayList<>();
+    List<List<Room>> rooms = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<Room> own = new ArrayList<>();
+      for (int i = 0; i < ROOMS_PER_THREAD; i++) {
+        int x = 40 + t * 10 + i * 2;
+        own.add(clinic.addClinicRoom(new Room(new int[] {x, 40, x + 1, 41}, "exam", "R" + t + i)));
+      }
+      rooms.add(own);
+      clients.add(clinic.addClinicClient(new Client(clinic.getWaitingRoomNumber(), "Mover" + t,
+          "Test", "1/1/1990")));
+    }
+    ConcurrentClinic shared = new ConcurrentClinic(clinic, 4);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Client client = clients.get(t);
+      List<Room> own = rooms.get(t);
+      done.add(pool.submit(() -> {
+        for (int i = 0; i < 2_000; i++) {
+          shared.assignClientToNewRoom(client, own.get(i % ROOMS_PER_THREAD));
+        }
+      }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    pool.shutdown();
+
+    for (int t = 0; t < THREADS; t++) {
+      // Every client ended in its last room, which is the only one of its rooms in use
+      Room last = rooms.get(t).get((2_000 - 1) % ROOMS_PER_THREAD);
+      assertEquals(clinic.getRoomNumber(last), clients.get(t).getRoomNum());
+      for (Room room : rooms.get(t)) {
+        int count = clinic.countClientsInRoom(clinic.getRoomNumber(room));
+        assertEquals(room == last ? 1 : 0, count);
+        assertEquals(room == last, room.getStatus());
+      }
+    }
+  }
+
+  @Test
+  void testReportsWhileClientsMove() throws Exception {
+    List<Client> clients = new ArrayList<>();
+    List<List<Room>> rooms = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<Room> own = new ArrayList<>();
+      for (int i = 0; i < ROOMS_PER_THREAD; i++) {
+        int x = 40 + t * 10 + i * 2;
+        own.add(clinic.addClinicRoom(new Room(new int[] {x, 40, x + 1, 41}, "exam", "R" + t + i)));
+      }
+      rooms.add(own);
+      clients.add(clinic.addClinicClient(new Client(clinic.getWaitingRoomNumber(), "Mover" + t,
+          "Test", "1/1/1990")));
+    }
+    ConcurrentClinic shared = new ConcurrentClinic(clinic, 4);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Client client = clients.get(t);
+      List<Room> own = rooms.get(t);
+      done.add(pool.submit(() -> {
+        for (int i = 0; i < 2_000; i++) {
+          shared.assignClientToNewRoom(client, own.get(i % ROOMS_PER_THREAD));
+        }
+      }));
+    }
+    int reports = 0;
+    while (reports < 20 || !done.stream().allMatch(Future::isDone)) {
+      // Every mover is in exactly one room of every snapshot
+      ReportSnapshot snapshot = shared.getReportSnapshot();
+      for (int t = 0; t < THREADS; t++) {
+        int seen = 0;
+        for (ReportSnapshot.RoomInfo room : snapshot.getRooms()) {
+          for (String line : room.getClients()) {
+            if (line.matches("(?s).*First Name: Mover" + t + "\\b.*")) {
+              seen++;
+            }
+          }
+        }
+        assertEquals(1, seen, "Mover" + t);
+      }
+      reports++;
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    pool.shutdown();
+    assertEquals(clinic.displayAllInfo(),
+        ReportWriter.render(shared.getReportSnapshot()::writeAllInfo));
+  }
+
+  @Test
+  void testAssignmentsOfDifferentStaff() throws Exception {
+    List<Staff> staff = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Staff nurse = new Staff("nurse", "Assigner" + t, "Test");
+      clinic.addClinicStaff(nurse);
+      staff.add(nurse);
+    }
+    List<Client> clients = new ArrayList<>(clinic.getClinicClients());
+    ConcurrentClinic shared = new ConcurrentClinic(clinic);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (Staff nurse : staff) {
+      done.add(pool.submit(() -> {
+        for (int round = 0; round < 50; round++) {
+          for (Client client : clients) {
+            shared.assignClientToStaff(nurse, client);
+          }
+          for (Client client : clients) {
+            shared.removeClientFromStaff(nurse, client);
+          }
+        }
+        for (Client client : clients) {
+          shared.assignClientToStaff(nurse, client);
+        }
+      }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    pool.shutdown();
+
+    for (Client client : clients) {
+      assertTrue(client.getAssignedStaff().containsAll(staff), client.toString());
+      assertTrue(clinic.getAssignments().staffOf(client).containsAll(staff));
+    }
+    for (Staff nurse : staff) {
+      assertEquals(clients.size(), clinic.getAssignments().clientsOf(nurse).size());
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import models.Client;
+import models.Clinic;
+import models.ClinicSnapshot;
+import models.LongMap;
+import models.Registration;
+import models.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that clients, staff and rooms keep the same numeric id and can be found by it.
+ */
+class TestEntityTable {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testLoadedEntitiesHaveIds() {
+    Client client = clinic.getClinicClients().get(0);
+    Room room = clinic.getClinicRooms().get(0);
+    assertNotEquals(0, client.getEntityId());
+    assertSame(client, clinic.getClientById(client.getEntityId()));
+    assertSame(room, clinic.getRoomById(room.getEntityId()));
+    assertSame(clinic.getClinicStaffs().get(0),
+        clinic.getStaffById(clinic.getClinicStaffs().get(0).getEntityId()));
+  }
+
+  @Test
+  void testMovedClientKeepsItsIdAndHash() {
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        null);
+    long id = phil.getEntityId();
+    Set<Client> seen = new HashSet<>();
+    seen.add(phil);
+
+    Room exam = clinic.addClinicRoom(new Room(new int[] {40, 40, 45, 45}, "exam", "Exam_9"));
+    clinic.assignClientToNewRoom(phil, exam);
+    clinic.removeClinicClient(phil, clinic.getClinicStaffs().get(0));
+
+    assertTrue(seen.contains(phil));
+    assertEquals(id, phil.getEntityId());
+    assertSame(phil, clinic.getClientById(id));
+  }
+
+  @Test
+  void testSnapshotKeepsTheIds() throws IOException {
+    Path path = Files.createTempFile("clinic", ClinicSnapshot.EXTENSION);
+    try {
+      ClinicSnapshot.write(clinic, path);
+      Clinic restored = new Clinic("Restored");
+      ClinicSnapshot.read(restored, path);
+      for (int i = 0; i < clinic.getClinicClients().size(); i++) {
+        assertEquals(clinic.getClinicClients().get(i).getEntityId(),
+            restored.getClinicClients().get(i).getEntityId());
+      }
+      assertEquals(clinic.getEntities().getNextId(), restored.getEntities().getNextId());
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  void testLongMapMatchesHashMap() {
+    LongMap<Long> map = new LongMap<>();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(7);
+    for (int i = 0; i < 20_000; i++) {
+      long key = 1 + random.nextInt(2_000);
+      if (random.nextBoolean()) {
+        assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+      } else {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (long key = 1; key <= 2_000; key++) {
+      assertEquals(expected.get(key), map.get(key));
+    }
+    assertNull(map.get(0));
+  }
+}
@@ -0,0 +1,77 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import models.Clinic;
+import models.MapExporter;
+import models.Room;
+import models.RoomMapRenderer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the room map is exported the same way it is drawn on the screen.
+ */
+class TestMapExporter {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testPngMatchesTheMap() throws IOException {
+    MapExporter exporter = MapExporter.of(clinic, 2.5);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exporter.writePng(out);
+    BufferedImage png = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+    Dimension size = exporter.getMapSize();
+    assertEquals(size.width, png.getWidth());
+    assertEquals(size.height, png.getHeight());
+    BufferedImage expected = new BufferedImage(size.width, size.height,
+        BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = expected.createGraphics();
+    g.setColor(MapExporter.BACKGROUND);
+    g.fillRect(0, 0, size.width, size.height);
+    new RoomMapRenderer(clinic, 2.5).paintRooms(g, null);
+    g.dispose();
+    for (int y = 0; y < size.height; y++) {
+      for (int x = 0; x < size.width; x++) {
+        assertEquals(expected.getRGB(x, y), png.getRGB(x, y), "pixel " + x + ", " + y);
+      }
+    }
+  }
+
+  @Test
+  void testSvgHasEveryRoom() throws IOException {
+    StringBuilder svg = new StringBuilder();
+    MapExporter.of(clinic, 2.5).writeSvg(svg);
+    String text = svg.toString();
+    assertTrue(text.startsWith("<?xml"));
+    assertTrue(text.endsWith("</svg>\n"));
+    // One rect for the background and one for every room
+    assertEquals(clinic.getClinicRooms().size() + 1, text.split("<rect").length - 1);
+    for (Room room : clinic.getClinicRooms()) {
+      assertTrue(text.contains(">" + room.getRoomName() + "</text>"), room.getRoomName());
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> MapExporter.of(clinic, 2.5).export(new File("map.jpg")));
+  }
+}
@@ -0,0 +1,83 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.Client;
+import models.Clinic;
+import models.MapSnapshot;
+import models.MapSnapshotBuilder;
+import models.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a snapshot of the room map doesn't change with the clinic, and that the
+ * builder only publishes the last of a few changes.
+ */
+class TestMapSnapshot {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testSnapshotKeepsWhatTheClinicHad() {
+    MapSnapshot before = MapSnapshot.of(clinic, null);
+    Client client = clinic.getClinicClients().get(0);
+    Room from = clinic.getRoom(client.getRoomNum());
+    Room to = clinic.getClinicRooms().get(2);
+    int countBefore = before.find(from).getClientCount();
+    String infoBefore = before.find(from).getInfo();
+
+    clinic.assignClientToNewRoom(client, to);
+    assertEquals(countBefore, before.find(from).getClientCount());
+    assertEquals(infoBefore, before.find(from).getInfo());
+
+    MapSnapshot after = MapSnapshot.of(clinic, before);
+    assertEquals(clinic.displayRoomInfo(to), after.find(to).getInfo());
+    assertEquals(countBefore - 1, after.find(from).getClientCount());
+    // The rooms that didn't change are kept from the last snapshot
+    Room untouched = clinic.getClinicRooms().get(clinic.getClinicRooms().size() - 1);
+    if (untouched != from && untouched != to) {
+      assertSame(before.find(untouched), after.find(untouched));
+    }
+    assertNotSame(before.find(to), after.find(to));
+  }
+
+  @Test
+  void testBuilderPublishesTheLastChange() {
+    List<Runnable> tasks = new ArrayList<>();
+    AtomicInteger published = new AtomicInteger();
+    MapSnapshotBuilder builder = new MapSnapshotBuilder(clinic, tasks::add,
+        published::incrementAndGet);
+
+    assertTrue(builder.refresh());
+    assertFalse(builder.refresh());
+    Client client = clinic.getClinicClients().get(0);
+    clinic.assignClientToNewRoom(client, clinic.getClinicRooms().get(2));
+    assertTrue(builder.refresh());
+
+    // The second change waits for the build that was started, and is built by it
+    assertEquals(1, tasks.size());
+    assertSame(MapSnapshot.EMPTY, builder.getSnapshot());
+    tasks.get(0).run();
+    assertEquals(1, published.get());
+    assertEquals(clinic.getMapVersion(), builder.getSnapshot().getMapVersion());
+    assertEquals(clinic.getClinicRooms().size(), builder.getSnapshot().size());
+  }
+}
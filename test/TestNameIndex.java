@@ -0,0 +1,109 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import models.Client;
+import models.Clinic;
+import models.NameIndex;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that clients and staff members can be found by their names as they come and
+ * leave.
+ */
+class TestNameIndex {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testFindsByExactPrefixAndAnyCase() {
+    Client aandi = clinic.getClinicClients().get(0);
+    assertSame(aandi, clinic.findClientByName("Aandi Acute"));
+    assertSame(aandi, clinic.findClientByName("aandi acute"));
+    assertSame(aandi, clinic.findClient("Aan", "Ac"));
+    assertSame(aandi, clinic.findClient("AANDI", "ACUTE"));
+    assertNull(clinic.findClient("Aandi", "Bunion"));
+    assertNull(clinic.findClient("andi", "Acute"));
+
+    // The title is a word of the first name, so the first name alone is enough
+    Staff amy = clinic.findStaff("Amy", "Anguish");
+    assertEquals("Anguish", amy.getLastName());
+    assertSame(amy, clinic.findStaffByName(amy.getFirstName() + " " + amy.getLastName()));
+  }
+
+  @Test
+  void testIndexFollowsTheLists() {
+    Client aandi = clinic.getClinicClients().get(0);
+    clinic.getClinicClients().remove(aandi);
+    assertNull(clinic.findClientByName("Aandi Acute"));
+
+    Client twin = new Client(1, "Aandi", "Acute", "1/1/1999");
+    clinic.getClinicClients().add(twin);
+    clinic.getClinicClients().add(aandi);
+    assertSame(twin, clinic.findClientByName("Aandi Acute"));
+
+    Staff staff = new Staff("nurse", "Zed", "Zoster");
+    clinic.getClinicStaffs().add(staff);
+    assertSame(staff, clinic.findStaff("Zed", "Zoster"));
+    clinic.getClinicStaffs().clear();
+    assertNull(clinic.findStaff("Zed", "Zoster"));
+  }
+
+  @Test
+  void testSearchReturnsMatchesInOrder() {
+    Client first = new Client(1, "Ann", "Acorn", "1/1/1990");
+    Client second = new Client(1, "Bob", "Acorn", "1/1/1991");
+    clinic.addClinicClient(first);
+    clinic.addClinicClient(second);
+    assertEquals(Arrays.asList(first, second), clinic.searchClients("acorn", 10));
+    assertSame(clinic.getClinicClients().get(0), clinic.searchClients("ac", 10).get(0));
+    assertEquals(1, clinic.searchClients("acorn", 1).size());
+    assertEquals(0, clinic.searchClients("xyz", 10).size());
+  }
+
+  @Test
+  void testShortSearchesAndSharedLastNamesFindTheEarliest() {
+    NameIndex<Client> index = new NameIndex<>(Client::getFirstName, Client::getLastName);
+    List<Client> added = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      Client client = new Client(1, i % 7 == 0 ? "Ann" : "Bo", i % 3 == 0 ? "Acorn" : "Birch" + i,
+          "1/1/1990");
+      added.add(client);
+      index.add(client);
+    }
+    Client zed = new Client(1, "Zed", "Acorn", "1/1/1990");
+    index.add(zed);
+
+    List<Client> expected = new ArrayList<>();
+    for (Client client : added) {
+      if (("Ann".equals(client.getFirstName()) || "Acorn".equals(client.getLastName()))
+          && expected.size() < 50) {
+        expected.add(client);
+      }
+    }
+    assertEquals(expected, index.search("a", 50));
+    assertEquals(expected.subList(0, 1), index.search("A", 1));
+    assertEquals(Arrays.asList(added.get(1_999)), index.search("birch1999", 10));
+    assertSame(added.get(0), index.find("Ann", "Acorn"));
+    assertSame(added.get(3), index.find("Bo", "Acorn"));
+    assertSame(zed, index.find("Zed", "Acorn"));
+    assertNull(index.find("Zed", "Birch"));
+  }
+}
@@ -0,0 +1,102 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import models.Client;
+import models.Clinic;
+import models.Registration;
+import models.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the clinic knows which clients are in each room as clients come, move and
+ * leave.
+ */
+class TestOccupancyIndex {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  private int countByScanning(int roomNumber) {
+    int count = 0;
+    for (Client client : clinic.getClinicClients()) {
+      if (client.getRoomNum() == roomNumber) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  void testLoadedClientsAreInTheirRooms() {
+    for (int roomNumber : clinic.getRoomRegistry().numbers()) {
+      assertEquals(countByScanning(roomNumber), clinic.countClientsInRoom(roomNumber));
+    }
+  }
+
+  @Test
+  void testClientsFollowMovesAndRemovals() {
+    int waiting = clinic.getWaitingRoomNumber();
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        null);
+    assertTrue(clinic.getClientsInRoom(waiting).contains(phil));
+
+    Room exam = new Room(new int[] {40, 40, 45, 45}, "exam", "Exam_9");
+    clinic.addClinicRoom(exam);
+    clinic.assignClientToNewRoom(phil, exam);
+    assertEquals(Arrays.asList(phil), clinic.getClientsInRoom(exam));
+    assertEquals(countByScanning(waiting), clinic.countClientsInRoom(waiting));
+
+    clinic.removeClinicClient(phil, clinic.getClinicStaffs().get(0));
+    assertEquals(0, clinic.getClientsInRoom(exam).size());
+  }
+
+  @Test
+  void testClientsAddedToTheListDirectlyAreFound() {
+    Client michael = new Client(2, "Michael", "Jordan", "2/17/1963");
+    clinic.getClinicClients().add(michael);
+    List<Client> inRoom = clinic.getClientsInRoom(2);
+    assertTrue(inRoom.contains(michael));
+
+    clinic.getClinicClients().remove(michael);
+    assertEquals(countByScanning(2), clinic.countClientsInRoom(2));
+
+    clinic.getClinicClients().clear();
+    assertEquals(0, clinic.countClientsInRoom(clinic.getWaitingRoomNumber()));
+  }
+
+  @Test
+  void testRoomVersionChangesOnlyWithTheRoom() {
+    Room exam = new Room(new int[] {40, 40, 45, 45}, "exam", "Exam_9");
+    clinic.addClinicRoom(exam);
+    Room waiting = clinic.getRoom(clinic.getWaitingRoomNumber());
+    long examVersion = clinic.getRoomVersion(exam);
+    long waitingVersion = clinic.getRoomVersion(waiting);
+
+    Client phil = clinic.registerClient(new Registration("Phil", "Askander", "01/06/2001"),
+        null);
+    assertEquals(examVersion, clinic.getRoomVersion(exam));
+    assertNotEquals(waitingVersion, clinic.getRoomVersion(waiting));
+
+    clinic.assignClientToNewRoom(phil, exam);
+    long moved = clinic.getRoomVersion(exam);
+    assertNotEquals(examVersion, moved);
+
+    clinic.assignStaffToClient(clinic.getClinicStaffs().get(0), phil);
+    assertNotEquals(moved, clinic.getRoomVersion(exam));
+  }
+}
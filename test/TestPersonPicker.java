@@ -0,0 +1,136 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JList;
+import javax.swing.JTextField;
+import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
+import models.Client;
+import models.Clinic;
+import models.NameIndex;
+import models.PersonPicker;
+import models.Staff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the picker of the dialogs shows the people that match what was typed, and
+ * that it only looks at the names of the rows it shows.
+ */
+class TestPersonPicker {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  private static <T> List<T> shown(PersonPicker<T> picker) {
+    ListModel<T> model = picker.getList().getModel();
+    List<T> people = new ArrayList<>();
+    for (int i = 0; i < model.getSize(); i++) {
+      people.add(model.getElementAt(i));
+    }
+    return people;
+  }
+
+  @Test
+  void testTypingFiltersThePeople() {
+    PersonPicker<Client> picker = PersonPicker.clients(clinic);
+    assertEquals(clinic.getClinicClients(), shown(picker));
+
+    Client wanted = clinic.getClinicClients().get(1);
+    String prefix = wanted.getLastName().substring(0, 2);
+    picker.setQuery(prefix);
+    List<Client> matches = shown(picker);
+    assertEquals(clinic.searchClients(prefix, PersonPicker.MAX_MATCHES), matches);
+    assertTrue(matches.contains(wanted));
+    assertSame(matches.get(0), picker.getSelected());
+
+    picker.setQuery("zzzz");
+    assertEquals(0, shown(picker).size());
+    assertNull(picker.getSelected());
+
+    // Only the physicians can approve a discharge
+    PersonPicker<Staff> physicians = PersonPicker.staff(clinic,
+        staff -> staff.getOccupation().contains("physician"));
+    for (Staff staff : shown(physicians)) {
+      assertTrue(staff.getOccupation().contains("physician"));
+    }
+  }
+
+  @Test
+  void testOnlyTheRowsOnTheScreenAreNamed() {
+    List<Integer> everyone = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      everyone.add(i);
+    }
+    AtomicInteger named = new AtomicInteger();
+    PersonPicker<Integer> picker = new PersonPicker<>(everyone, (text, limit) -> everyone,
+        number -> {
+          named.incrementAndGet();
+          return "Patient " + number;
+        });
+    JList<Integer> list = picker.getList();
+    list.setSize(list.getPreferredSize());
+    // The list is painted like a scroll pane shows it, through the part that is on the screen
+    Graphics2D g = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB).createGraphics();
+    g.clipRect(0, 0, 300, 300);
+    list.paint(g);
+
+    assertEquals(50_000, list.getModel().getSize());
+    assertTrue(named.get() < 100, "Named " + named.get() + " rows");
+  }
+
+  @Test
+  void testTypingOnALargeIndexSearchesOnce() throws Exception {
+    List<Client> everyone = new ArrayList<>();
+    NameIndex<Client> index = new NameIndex<>(Client::getFirstName, Client::getLastName);
+    String[] firstNames = {"Ann", "Andre", "Beth", "Carlos", "Dana"};
+    for (int i = 0; i < 200_000; i++) {
+      Client client = new Client(1, firstNames[i % firstNames.length], "Last" + i, "1/1/1990");
+      everyone.add(client);
+      index.add(client);
+    }
+    AtomicInteger searches = new AtomicInteger();
+    PersonPicker<Client> picker = new PersonPicker<>(everyone, (text, limit) -> {
+      searches.incrementAndGet();
+      return index.search(text, limit);
+    }, client -> client.getFirstName() + " " + client.getLastName());
+
+    JTextField field = picker.getField();
+    SwingUtilities.invokeAndWait(() -> {
+      field.setText("a");
+      field.setText("an");
+      field.setText("ann");
+    });
+    // The search runs once the keys stop, and then the event thread is let finish it
+    Thread.sleep(500);
+    SwingUtilities.invokeAndWait(() -> { });
+
+    assertEquals(1, searches.get());
+    List<Client> matches = shown(picker);
+    assertEquals(PersonPicker.MAX_MATCHES, matches.size());
+    assertEquals(index.search("ann", PersonPicker.MAX_MATCHES), matches);
+    assertSame(everyone.get(0), picker.getSelected());
+
+    // Enter doesn't search again for what was already searched
+    SwingUtilities.invokeAndWait(field::postActionEvent);
+    assertEquals(1, searches.get());
+  }
+}
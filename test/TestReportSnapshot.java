@@ -0,0 +1,101 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import models.Client;
+import models.Clinic;
+import models.ClinicConsoleController;
+import models.ReportSnapshot;
+import models.ReportWriter;
+import models.Room;
+import models.Staff;
+import models.VisitRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a report snapshot doesn't change when the clinic does, and that it shares
+ * what didn't change with the snapshot before it.
+ */
+class TestReportSnapshot {
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testSnapshotKeepsTheClinicAsItWas() throws IOException {
+    StringBuilder live = new StringBuilder();
+    for (int roomNumber : clinic.getRoomRegistry().numbers()) {
+      live.append("Room ").append(roomNumber).append('\n');
+      clinic.writeRoomInfo(clinic.getRoom(roomNumber), live);
+    }
+    ReportSnapshot snapshot = clinic.getReportSnapshot();
+    String before = ReportWriter.render(snapshot::writeAllInfo);
+    assertEquals(live.toString(), before);
+
+    Client client = clinic.getClinicClients().get(0);
+    Room extra = clinic.addClinicRoom(new Room(new int[] {100, 100, 110, 110}, "exam", "Extra"));
+    clinic.assignClientToNewRoom(client, extra);
+    clinic.assignStaffToClient(clinic.getClinicStaffs().get(0), client);
+
+    assertEquals(before, ReportWriter.render(snapshot::writeAllInfo));
+    assertEquals(clinic.displayAllInfo(),
+        ReportWriter.render(clinic.getReportSnapshot()::writeAllInfo));
+  }
+
+  @Test
+  void testUnchangedRoomsAndStaffAreShared() {
+    ReportSnapshot first = clinic.getReportSnapshot();
+    Client client = clinic.getClinicClients().get(0);
+    Room room = clinic.getRoom(client.getRoomNum());
+    Staff staff = clinic.getClinicStaffs().get(0);
+    clinic.assignStaffToClient(staff, client);
+    ReportSnapshot second = clinic.getReportSnapshot();
+
+    for (int i = 0; i < first.getRooms().size(); i++) {
+      ReportSnapshot.RoomInfo before = first.getRooms().get(i);
+      ReportSnapshot.RoomInfo after = second.getRooms().get(i);
+      if (before.getRoom() == room) {
+        assertNotSame(before, after);
+      } else {
+        assertSame(before, after);
+      }
+    }
+    assertNotSame(first.getStaff().get(0), second.getStaff().get(0));
+    for (int i = 1; i < first.getStaff().size(); i++) {
+      assertSame(first.getStaff().get(i), second.getStaff().get(i));
+    }
+  }
+
+  @Test
+  void testNewRecordShowsInTheNextReport() throws IOException {
+    String before = ReportWriter.render(clinic.getReportSnapshot()::writeAllInfo);
+    Client client = clinic.getClinicClients().get(0);
+    VisitRecord record = new VisitRecord("01/02/2023:10:30", "Chrome arm rejection",
+        new BigDecimal("38.2"));
+    Client registered = new ClinicConsoleController(new StringReader(""), new StringBuilder())
+        .registerExistingClientWithVisitRecord(client, clinic, record);
+    assertSame(client, registered);
+
+    String after = ReportWriter.render(clinic.getReportSnapshot()::writeAllInfo);
+    assertFalse(before.contains("Chrome arm rejection"));
+    assertTrue(after.contains("Chrome arm rejection"));
+    assertEquals(clinic.displayAllInfo(), after);
+  }
+}
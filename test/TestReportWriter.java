@@ -0,0 +1,78 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import models.Clinic;
+import models.ReportWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that reports written through a report writer come out the same as the strings
+ * the clinic returns, in a few large writes.
+ */
+class TestReportWriter {
+
+  /**
+   * This Appendable remembers the size of every write it gets.
+   */
+  private static class CountingAppendable implements Appendable {
+    private final StringBuilder text = new StringBuilder();
+    private final List<Integer> writes = new ArrayList<>();
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      writes.add(csq.length());
+      text.append(csq);
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      return append(csq.subSequence(start, end));
+    }
+
+    @Override
+    public Appendable append(char c) {
+      return append(String.valueOf(c));
+    }
+  }
+
+  @Test
+  void testClinicReportIsTheSameWhenStreamed() throws IOException {
+    Clinic clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    clinic.assignStaffToClient(clinic.getClinicStaffs().get(0),
+        clinic.getClinicClients().get(0));
+
+    CountingAppendable out = new CountingAppendable();
+    ReportWriter writer = new ReportWriter(out, 512);
+    clinic.writeAllInfo(writer);
+    writer.flush();
+
+    String report = clinic.displayAllInfo();
+    assertEquals(report, out.text.toString());
+    assertTrue(out.writes.size() <= report.length() / 256 + 1, out.writes.size() + " writes");
+    for (int size : out.writes) {
+      assertTrue(size <= 512, "write of " + size);
+    }
+  }
+
+  @Test
+  void testNothingIsWrittenUntilTheBufferFills() throws IOException {
+    CountingAppendable out = new CountingAppendable();
+    ReportWriter writer = new ReportWriter(out, 10);
+    writer.append("abcd").append('e');
+    assertEquals(0, out.writes.size());
+
+    writer.append("fghijk");
+    assertEquals("abcde", out.text.toString());
+    writer.append("this is longer than the buffer");
+    writer.flush();
+    assertEquals("abcdefghijkthis is longer than the buffer", out.text.toString());
+  }
+}
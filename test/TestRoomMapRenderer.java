@@ -0,0 +1,194 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Random;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import models.Client;
+import models.Clinic;
+import models.MapTileCache;
+import models.RectanglePanel;
+import models.Room;
+import models.RoomMapRenderer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the room map only draws the rooms in the area it is asked to draw, that
+ * drawing from tiles looks the same as drawing every room, and that the grid finds the same room
+ * under a point as going through every room. It also tests zooming the map in and out.
+ */
+class TestRoomMapRenderer {
+  private Clinic clinic;
+  private RoomMapRenderer renderer;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+    renderer = new RoomMapRenderer(clinic, 2.5);
+  }
+
+  private BufferedImage draw(Rectangle area, MapTileCache tiles) {
+    BufferedImage image = new BufferedImage(area.width, area.height,
+        BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    g.setColor(Color.LIGHT_GRAY);
+    g.fillRect(0, 0, area.width, area.height);
+    g.translate(-area.x, -area.y);
+    g.clip(area);
+    if (tiles == null) {
+      renderer.paintRooms(g, null);
+    } else {
+      tiles.paint(g, area, Color.LIGHT_GRAY);
+    }
+    g.dispose();
+    return image;
+  }
+
+  private static int[] pixels(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+  @Test
+  void testOnlyRoomsInTheAreaAreDrawn() {
+    Room first = clinic.getClinicRooms().get(0);
+    Rectangle area = renderer.roomBounds(first);
+    int drawn = renderer.paintRooms(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB)
+        .createGraphics(), area);
+    assertTrue(drawn >= 1);
+    assertTrue(drawn < clinic.getClinicRooms().size());
+    assertEquals(clinic.getClinicRooms().size(), renderer.paintRooms(
+        new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics(), null));
+  }
+
+  @Test
+  void testTilesLookLikeEveryRoom() {
+    MapTileCache tiles = new MapTileCache(renderer);
+    Rectangle area = new Rectangle(100, 300, 900, 700);
+    int[] expected = pixels(draw(area, null));
+
+    // Before any tile is ready, the area is drawn straight from the rooms
+    assertArrayEquals(expected, pixels(draw(area, tiles)));
+    while (tiles.prepare(area, Color.LIGHT_GRAY)) {
+      // Every tile is drawn
+    }
+    assertTrue(tiles.size() > 0);
+    assertArrayEquals(expected, pixels(draw(area, tiles)));
+
+    // A client moving changes two rooms, so only the tiles they are drawn on are drawn again
+    int ready = tiles.size();
+    Client client = clinic.getClinicClients().get(0);
+    clinic.assignClientToNewRoom(client, clinic.getClinicRooms().get(2));
+    expected = pixels(draw(area, null));
+    assertArrayEquals(expected, pixels(draw(area, tiles)));
+    assertTrue(tiles.size() < ready);
+    assertTrue(tiles.size() > 0);
+    while (tiles.prepare(area, Color.LIGHT_GRAY)) {
+      // The tiles that were thrown away are drawn again
+    }
+    assertArrayEquals(expected, pixels(draw(area, tiles)));
+
+    // Another zoom factor is another map
+    renderer.setZoomFactor(2);
+    draw(area, tiles);
+    assertEquals(0, tiles.size());
+  }
+
+  private Room findByScanning(Point point) {
+    for (Room room : clinic.getClinicRooms()) {
+      Rectangle bounds = renderer.roomBounds(room);
+      if (point.x >= bounds.x && point.x <= bounds.x + bounds.width
+          && point.y >= bounds.y && point.y <= bounds.y + bounds.height) {
+        return room;
+      }
+    }
+    return null;
+  }
+
+  private void assertGridMatchesScan() {
+    Random random = new Random(3);
+    for (Room room : clinic.getClinicRooms()) {
+      Rectangle bounds = renderer.roomBounds(room);
+      Point corner = new Point(bounds.x + bounds.width, bounds.y + bounds.height);
+      assertSame(findByScanning(corner), renderer.roomAt(corner));
+    }
+    for (int i = 0; i < 2_000; i++) {
+      Point point = new Point(random.nextInt(3_000) - 500, random.nextInt(3_000) - 500);
+      assertSame(findByScanning(point), renderer.roomAt(point));
+    }
+  }
+
+  @Test
+  void testGridFindsTheSameRoomAsAScan() {
+    assertGridMatchesScan();
+
+    Room added = clinic.addClinicRoom(new Room(new int[] {40, 40, 45, 45}, "exam", "Exam_9"));
+    Rectangle bounds = renderer.roomBounds(added);
+    assertSame(added, renderer.roomAt(new Point(bounds.x + 1, bounds.y + 1)));
+    assertGridMatchesScan();
+
+    renderer.setZoomFactor(1.0);
+    assertGridMatchesScan();
+    clinic.removeClinicRoom(added);
+    assertGridMatchesScan();
+    assertNull(renderer.roomAt(new Point(-10_000, -10_000)));
+  }
+
+  @Test
+  void testZoomedOutMapOnlyHasOutlines() {
+    Room room = clinic.getClinicRooms().get(1);
+    assertTrue(renderer.isDetailed());
+    renderer.setZoomFactor(1.0);
+    assertFalse(renderer.isDetailed());
+    Rectangle bounds = renderer.roomBounds(room);
+    assertEquals(new Rectangle(bounds.x, bounds.y, bounds.width + 1, bounds.height + 1),
+        renderer.paintBounds(room));
+
+    BufferedImage image = draw(new Rectangle(0, 0, 2_000, 2_000), null);
+    assertEquals(Color.BLACK.getRGB(), image.getRGB(bounds.x, bounds.y));
+    // There is no room name above the room
+    assertEquals(Color.LIGHT_GRAY.getRGB(), image.getRGB(bounds.x + 2, bounds.y - 8));
+  }
+
+  @Test
+  void testZoomKeepsThePointUnderTheMouse() {
+    RectanglePanel panel = new RectanglePanel(clinic, Runnable::run);
+    JScrollPane scrollPane = new JScrollPane(panel);
+    scrollPane.setSize(800, 600);
+    scrollPane.validate();
+    scrollPane.getViewport().setViewPosition(new Point(300, 200));
+
+    Point mouse = new Point(700, 500);
+    Point before = SwingUtilities.convertPoint(panel, mouse, scrollPane.getViewport());
+    panel.zoomAt(panel.getZoomFactor() * 1.5, mouse);
+    assertEquals(3.75, panel.getZoomFactor(), 1e-9);
+
+    // The floor plan point that was under the mouse is still under it
+    RoomMapRenderer zoomed = new RoomMapRenderer(clinic, 3.75);
+    double[] floor = renderer.toFloorPlan(mouse);
+    Point after = SwingUtilities.convertPoint(panel, zoomed.toMap(floor[0], floor[1]),
+        scrollPane.getViewport());
+    assertTrue(Math.abs(before.x - after.x) <= 1);
+    assertTrue(Math.abs(before.y - after.y) <= 1);
+
+    panel.zoomAt(100, mouse);
+    assertEquals(10, panel.getZoomFactor(), 1e-9);
+  }
+}
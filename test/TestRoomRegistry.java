@@ -0,0 +1,69 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import models.Room;
+import models.RoomId;
+import models.RoomRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the room registry finds rooms from their numbers and numbers from their
+ * rooms.
+ */
+class TestRoomRegistry {
+  private RoomRegistry registry;
+  private Room waiting;
+  private Room exam;
+
+  /**
+   * This registers a waiting room and an exam room before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    registry = new RoomRegistry();
+    exam = new Room(new int[] {1, 1, 5, 5}, "exam", "Exam_1");
+    waiting = new Room(new int[] {6, 1, 10, 5}, "waiting", "Waiting_Room");
+    registry.register(exam);
+    registry.register(waiting);
+  }
+
+  @Test
+  void testRoomsAreNumberedInOrder() {
+    assertSame(exam, registry.get(1));
+    assertSame(waiting, registry.get(2));
+    assertEquals(2, registry.numberOf(waiting));
+    assertEquals(1, registry.numberOf(new RoomId(1, 1, 5, 5)));
+  }
+
+  @Test
+  void testRoomIsFoundAfterItsStatusChanges() {
+    exam.setStatus(true);
+    assertEquals(1, registry.numberOf(exam));
+    assertEquals(1, registry.numberOf(new Room(new int[] {1, 1, 5, 5}, "exam", "Copy")));
+  }
+
+  @Test
+  void testWaitingRoomNumberFollowsRemovals() {
+    assertEquals(2, registry.getWaitingRoomNumber());
+    registry.remove(waiting);
+    assertEquals(0, registry.getWaitingRoomNumber());
+    assertNull(registry.get(2));
+
+    Room lobby = new Room(new int[] {1, 6, 5, 10}, "waiting", "Lobby");
+    assertEquals(3, registry.register(lobby));
+    assertEquals(3, registry.getWaitingRoomNumber());
+  }
+
+  @Test
+  void testRoomKeyShowsTheCurrentRooms() {
+    assertSame(exam.getId(), registry.asRoomKey().get(1));
+    registry.remove(exam);
+    assertEquals(1, registry.asRoomKey().size());
+    assertEquals(0, registry.numberOf(new RoomId(1, 1, 5, 5)));
+  }
+}
@@ -0,0 +1,137 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.Client;
+import models.Clinic;
+import models.ConcurrentClinic;
+import models.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that a room can only be taken by one move, even when many threads try to move
+ * clients into the same few rooms.
+ */
+class TestRoomReservation {
+  private static final int THREADS = 16;
+
+  private Clinic clinic;
+
+  /**
+   * This loads the clinic file before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    clinic.readDataFromFile(new File("clinic-2.txt"));
+  }
+
+  @Test
+  void testOnlyOneReservationWins() throws Exception {
+    Room room = new Room(new int[] {40, 40, 42, 42}, "exam", "Middle");
+    AtomicInteger holders = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    AtomicInteger wins = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      done.add(pool.submit(() -> {
+        for (int i = 0; i < 20_000; i++) {
+          long stamp = room.reserve();
+          if (stamp >= 0) {
+            if (holders.incrementAndGet() != 1) {
+              overlaps.incrementAndGet();
+            }
+            wins.incrementAndGet();
+            holders.decrementAndGet();
+            assertTrue(room.cancelReservation(stamp));
+          }
+        }
+      }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    pool.shutdown();
+    assertEquals(0, overlaps.get());
+    assertTrue(wins.get() > 0);
+    assertFalse(room.getStatus());
+
+    // A reservation that is over can't free the room for the next one
+    long old = room.reserve();
+    assertTrue(room.cancelReservation(old));
+    long current = room.reserve();
+    assertFalse(room.cancelReservation(old));
+    assertTrue(room.getStatus());
+    assertTrue(room.cancelReservation(current));
+  }
+
+  @Test
+  void testManyMovesIntoFewRooms() throws Exception {
+    List<Room> rooms = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      rooms.add(clinic.addClinicRoom(new Room(new int[] {40 + i * 3, 40, 42 + i * 3, 42}, "exam",
+          "Stress" + i)));
+    }
+    Room waiting = clinic.getRoom(clinic.getWaitingRoomNumber());
+    rooms.add(waiting);
+    List<Client> clients = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      clients.add(clinic.addClinicClient(new Client(clinic.getWaitingRoomNumber(), "Stress" + t,
+          "Test", "1/1/1990")));
+    }
+    ConcurrentClinic shared = new ConcurrentClinic(clinic, 2);
+    AtomicInteger moved = new AtomicInteger();
+    AtomicInteger refused = new AtomicInteger();
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    List<Future<?>> done = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Client client = clients.get(t);
+      Random random = new Random(t);
+      done.add(pool.submit(() -> {
+        for (int i = 0; i < 3_000; i++) {
+          try {
+            shared.assignClientToNewRoom(client, rooms.get(random.nextInt(rooms.size())));
+            moved.incrementAndGet();
+          } catch (IllegalArgumentException e) {
+            refused.incrementAndGet();
+          }
+        }
+      }));
+    }
+    for (Future<?> future : done) {
+      future.get();
+    }
+    pool.shutdown();
+    assertTrue(moved.get() > 0);
+    assertTrue(refused.get() > 0);
+
+    int inStressRooms = 0;
+    for (Room room : rooms.subList(0, 3)) {
+      int count = clinic.countClientsInRoom(clinic.getRoomNumber(room));
+      assertTrue(count <= 1, room.getRoomName() + " has " + count + " clients");
+      assertEquals(count == 1, room.getStatus());
+      inStressRooms += count;
+    }
+    int inWaitingRoom = 0;
+    for (Client client : clients) {
+      if (client.getRoomNum() == clinic.getWaitingRoomNumber()) {
+        inWaitingRoom++;
+      }
+    }
+    assertEquals(THREADS, inStressRooms + inWaitingRoom);
+  }
+}
@@ -0,0 +1,103 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import models.Client;
+import models.Clinic;
+import models.VisitIndex;
+import models.VisitRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests that the yearly reports found through the visit index are the same as the
+ * checks each client makes on its own record history.
+ */
+class TestVisitIndex {
+  private Clinic clinic;
+  private LocalDateTime now;
+
+  /**
+   * This makes a new clinic before each test.
+   */
+
+  @BeforeEach
+  void setUp() {
+    clinic = new Clinic("Test");
+    now = LocalDateTime.now();
+  }
+
+  private VisitRecord visit(LocalDateTime time) {
+    return new VisitRecord(time.format(VisitRecord.TIME_FORMAT), "Fever",
+        new BigDecimal("37.5"));
+  }
+
+  @Test
+  void testVisitTimeIsReadOnce() {
+    LocalDateTime time = LocalDateTime.of(2023, 1, 2, 10, 30);
+    VisitRecord record = new VisitRecord("01/02/2023:10:30", "Fever", new BigDecimal("37.5"));
+    assertTrue(record.hasVisitTime());
+    assertEquals(VisitRecord.toVisitTime(time), record.getVisitTime());
+
+    record.setTimeOfRegistration("01/03/2023:10:30");
+    assertEquals(VisitRecord.toVisitTime(time.plusDays(1)), record.getVisitTime());
+    assertFalse(new VisitRecord("2023-01-01", "Checkup", BigDecimal.ONE).hasVisitTime());
+  }
+
+  @Test
+  void testIndexFollowsTheRecordHistory() {
+    Client phil = clinic.addClinicClient(new Client(1, "Phil", "Askander", "01/06/2001"));
+    phil.getRecordHistory().add(visit(now.minusDays(10)));
+    phil.getRecordHistory().add(visit(now.minusDays(5)));
+    assertEquals(Arrays.asList(phil), clinic.getVisits().earlierVisitWithin(
+        VisitRecord.toVisitTime(now), VisitIndex.YEAR));
+
+    phil.getRecordHistory().add(visit(now.plusYears(2)));
+    assertEquals(Arrays.asList(phil), clinic.getVisits().lastVisitAtLeast(
+        VisitRecord.toVisitTime(now), VisitIndex.YEAR));
+    assertEquals("--------------------------------\nHere is the list of patients:\n"
+        + "Phil Askander\n--------------------------------\n", clinic.getNoYearVisitList());
+
+    phil.getRecordHistory().clear();
+    assertEquals("", clinic.getNoYearVisitList());
+    clinic.getClinicClients().remove(phil);
+    phil.getRecordHistory().add(visit(now.minusDays(1)));
+    phil.getRecordHistory().add(visit(now.minusDays(1)));
+    assertEquals(0, clinic.getVisits().size());
+  }
+
+  @Test
+  void testReportsMatchTheClientChecks() {
+    Random random = new Random(11);
+    for (int i = 0; i < 300; i++) {
+      Client client = clinic.addClinicClient(new Client(1, "First" + i, "Last" + i, "1/1/1990"));
+      int visits = random.nextInt(4);
+      for (int j = 0; j < visits; j++) {
+        client.getRecordHistory().add(visit(now.minusDays(random.nextInt(1500) - 400)));
+      }
+    }
+    List<String> twice = new ArrayList<>();
+    List<String> notSeen = new ArrayList<>();
+    for (Client client : clinic.getClinicClients()) {
+      if (client.twoVisitInYear()) {
+        twice.add(client.getFirstName() + " " + client.getLastName() + "\n");
+      }
+      if (client.isFirstRecord365DaysGreater()) {
+        notSeen.add(client.getFirstName() + " " + client.getLastName() + "\n");
+      }
+    }
+    assertEquals("--------------------------------\n" + String.join("", twice)
+        + "--------------------------------\n", clinic.isPatientOneYearIn());
+    assertEquals("--------------------------------\nHere is the list of patients:\n"
+        + String.join("", notSeen) + "--------------------------------\n",
+        clinic.getNoYearVisitList());
+  }
+}